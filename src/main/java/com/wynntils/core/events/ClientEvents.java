@@ -14,6 +14,7 @@ import com.wynntils.core.framework.FrameworkManager;
 import com.wynntils.core.framework.enums.ClassType;
 import com.wynntils.core.framework.instances.PlayerInfo;
 import com.wynntils.core.framework.rendering.ScreenRenderer;
+import com.wynntils.core.framework.scheduling.TickScheduler;
 import com.wynntils.core.utils.Utils;
 import net.minecraft.client.Minecraft;
 import net.minecraft.network.play.server.SPacketPlayerListItem;
@@ -25,7 +26,6 @@ import net.minecraftforge.client.event.ClientChatReceivedEvent;
 import net.minecraftforge.client.event.GuiScreenEvent;
 import net.minecraftforge.client.event.RenderGameOverlayEvent;
 import net.minecraftforge.common.MinecraftForge;
-import net.minecraftforge.fml.common.eventhandler.Event;
 import net.minecraftforge.fml.common.eventhandler.EventPriority;
 import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
 import net.minecraftforge.fml.common.gameevent.TickEvent;
@@ -142,12 +142,6 @@ public class ClientEvents {
         if(!partyOwner.isEmpty() || !partyMembers.isEmpty()) PlayerInfo.getPlayerInfo().getPlayerParty().updateParty(partyOwner, partyMembers);
     }
 
-    @SubscribeEvent(priority = EventPriority.LOWEST)
-    @SideOnly(Side.CLIENT)
-    public void handleFrameworkEvents(Event e) {
-        FrameworkManager.triggerEvent(e);
-    }
-
     @SubscribeEvent(priority = EventPriority.HIGHEST)
     @SideOnly(Side.CLIENT)
     public void handleFrameworkPreHud(RenderGameOverlayEvent.Pre e) {
@@ -164,6 +158,7 @@ public class ClientEvents {
     @SideOnly(Side.CLIENT)
     public void onTick(TickEvent.ClientTickEvent e) {
         ScreenRenderer.refresh();
+        if(e.phase == TickEvent.Phase.END) TickScheduler.tick();
         if(!Reference.onServer || Minecraft.getMinecraft().player == null) return;
         FrameworkManager.triggerHudTick(e);
         FrameworkManager.triggerKeyPress();
@@ -7,8 +7,8 @@ public class WynnGuildWarEvent extends Event {
     String territoryName;
     String attackerName;
     String defenderName;
-    String attackerTag;
-    String defenderTag;
+    volatile String attackerTag;
+    volatile String defenderTag;
     WarUpdateType type;
 
     public WynnGuildWarEvent(String territoryName, String attackerName, String defenderName, String attackerTag, String defenderTag, WarUpdateType type) {
@@ -32,14 +32,33 @@ public class WynnGuildWarEvent extends Event {
         return defenderName;
     }
 
+    /**
+     * Tags are resolved in background, so they may not be available when the event is posted
+     *
+     * @return the attacker guild tag, or null if it isn't known yet
+     */
     public String getAttackerTag() {
         return attackerTag;
     }
 
+    /**
+     * Tags are resolved in background, so they may not be available when the event is posted
+     *
+     * @return the defender guild tag, or null if it isn't known yet
+     */
     public String getDefenderTag() {
         return defenderTag;
     }
 
+    public boolean hasTags() {
+        return attackerTag != null && defenderTag != null;
+    }
+
+    public void setTags(String attackerTag, String defenderTag) {
+        if (attackerTag != null) this.attackerTag = attackerTag;
+        if (defenderTag != null) this.defenderTag = defenderTag;
+    }
+
     public WarUpdateType getType() {
         return type;
     }
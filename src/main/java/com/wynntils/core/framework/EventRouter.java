@@ -0,0 +1,199 @@
+/*
+ *  * Copyright © Wynntils - 2019.
+ */
+
+package com.wynntils.core.framework;
+
+import com.wynntils.Reference;
+import com.wynntils.core.events.custom.WynncraftServerEvent;
+import com.wynntils.core.framework.profiling.PerformanceProfiler;
+import com.wynntils.core.utils.ReflectionFields;
+import net.minecraftforge.common.MinecraftForge;
+import net.minecraftforge.fml.common.eventhandler.*;
+import net.minecraftforge.fml.common.gameevent.TickEvent;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Forwards Forge events to the framework event bus.
+ *
+ * Instead of listening to every Forge event, only the event types with framework listeners
+ * are bridged, each one listened at Forge with the lowest priority. Subtypes of an already
+ * bridged type are skipped, so no event is forwarded twice. A bridge is removed once
+ * every listener of its type is unbridged.
+ * Every forwarded event type has its own dispatch counter, timed by the {@link PerformanceProfiler}
+ * while it's enabled.
+ */
+public class EventRouter {
+
+    private static final HashMap<Class<?>, IEventListener> bridges = new HashMap<>();
+    private static final HashMap<Class<?>, Integer> subscriptions = new HashMap<>();
+    private static final ConcurrentHashMap<Class<?>, Route> routes = new ConcurrentHashMap<>();
+
+    /**
+     * Bridges the event types of every {@link SubscribeEvent} method of the listener
+     *
+     * @param listener an object registered at the framework event bus
+     */
+    public static synchronized void bridgeListener(Object listener) {
+        for (Class<?> eventType : getEventTypes(listener)) {
+            subscriptions.merge(eventType, 1, Integer::sum);
+            bridge(eventType);
+        }
+    }
+
+    /**
+     * Stops forwarding the event types only the listener was subscribed to
+     *
+     * @param listener an object unregistered from the framework event bus
+     */
+    public static synchronized void unbridgeListener(Object listener) {
+        int busID = getForgeBusID();
+        for (Class<?> eventType : getEventTypes(listener)) {
+            Integer count = subscriptions.get(eventType);
+            if (count == null) continue;
+            if (count > 1) {
+                subscriptions.put(eventType, count - 1);
+                continue;
+            }
+
+            subscriptions.remove(eventType);
+
+            IEventListener bridge = bridges.remove(eventType);
+            if (bridge == null) continue; // forwarded by a supertype bridge
+
+            ListenerList.unregisterAll(busID, bridge);
+
+            // the subtypes that still have listeners need their own bridges again
+            for (Class<?> subscribed : subscriptions.keySet()) {
+                if (eventType.isAssignableFrom(subscribed)) bridge(subscribed);
+            }
+        }
+    }
+
+    private static List<Class<?>> getEventTypes(Object listener) {
+        List<Class<?>> eventTypes = new ArrayList<>();
+        for (Method method : listener.getClass().getMethods()) {
+            if (!method.isAnnotationPresent(SubscribeEvent.class) || method.getParameterCount() != 1) continue;
+
+            eventTypes.add(method.getParameterTypes()[0]);
+        }
+        return eventTypes;
+    }
+
+    /**
+     * Starts forwarding the event type, and its subtypes, from Forge to the framework
+     *
+     * @param eventType the type a framework listener is subscribed to
+     */
+    public static synchronized void bridge(Class<?> eventType) {
+        if (!Event.class.isAssignableFrom(eventType)) return;
+
+        for (Class<?> bridged : bridges.keySet()) {
+            if (bridged.isAssignableFrom(eventType)) return; // already forwarded
+        }
+
+        ListenerList listeners = getListenerList(eventType);
+        if (listeners == null) {
+            Reference.LOGGER.warn("Unable to find the listener list of " + eventType.getName() + ", it won't be forwarded");
+            return;
+        }
+
+        // the subtypes are covered by the new bridge
+        int busID = getForgeBusID();
+        Iterator<Map.Entry<Class<?>, IEventListener>> iterator = bridges.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Class<?>, IEventListener> entry = iterator.next();
+            if (!eventType.isAssignableFrom(entry.getKey())) continue;
+
+            ListenerList.unregisterAll(busID, entry.getValue());
+            iterator.remove();
+        }
+
+        IEventListener listener = EventRouter::dispatch;
+        listeners.register(busID, EventPriority.LOWEST, listener);
+        bridges.put(eventType, listener);
+    }
+
+    /**
+     * Forge creates the listener list of an event type the first time it's constructed, so it's read from
+     * the field the event transformer adds, and an instance is only created while it's still missing.
+     *
+     * @return the listener list of the event type, or null if it can't be created
+     */
+    private static ListenerList getListenerList(Class<?> eventType) {
+        try {
+            Field field = eventType.getDeclaredField("LISTENER_LIST");
+            field.setAccessible(true);
+
+            ListenerList listeners = (ListenerList) field.get(null);
+            if (listeners != null) return listeners;
+        } catch (Exception ignored) { }
+
+        try {
+            return ((Event) eventType.getConstructor().newInstance()).getListenerList();
+        } catch (Exception ex) {
+            return null;
+        }
+    }
+
+    /**
+     * @return the counters of every event type forwarded so far
+     */
+    public static List<Route> getRoutes() {
+        ArrayList<Route> result = new ArrayList<>(routes.values());
+        result.sort(Comparator.comparingLong(Route::getDispatched).reversed());
+        return result;
+    }
+
+    private static void dispatch(Event e) {
+        if (e.isCancelable() && e.isCanceled()) return;
+        if (!Reference.onServer && !(e instanceof WynncraftServerEvent) && !(e instanceof TickEvent.RenderTickEvent)) return;
+
+        Route route = routes.get(e.getClass());
+        if (route == null) route = routes.computeIfAbsent(e.getClass(), Route::new);
+        route.dispatched.incrementAndGet();
+
+        ReflectionFields.Event_phase.setValue(e, null);
+        if (!PerformanceProfiler.isEnabled()) {
+            FrameworkManager.getEventBus().post(e);
+            return;
+        }
+
+        long start = System.nanoTime(), allocated = PerformanceProfiler.getAllocatedBytes();
+        FrameworkManager.getEventBus().post(e);
+        PerformanceProfiler.record(PerformanceProfiler.Category.FRAMEWORK_EVENTS, route.name, start, allocated);
+    }
+
+    private static int getForgeBusID() {
+        return (int) ReflectionFields.EventBus_busID.getValue(MinecraftForge.EVENT_BUS);
+    }
+
+    public static class Route {
+
+        final String name;
+        final AtomicLong dispatched = new AtomicLong(0);
+
+        Route(Class<?> eventType) {
+            String fullName = eventType.getName();
+            this.name = fullName.substring(fullName.lastIndexOf('.') + 1).replace('$', '.');
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return how many times the event type was forwarded to the framework
+         */
+        public long getDispatched() {
+            return dispatched.get();
+        }
+
+    }
+
+}
@@ -6,7 +6,6 @@ package com.wynntils.core.framework;
 
 import com.wynntils.ModCore;
 import com.wynntils.Reference;
-import com.wynntils.core.events.custom.WynncraftServerEvent;
 import com.wynntils.core.framework.enums.Priority;
 import com.wynntils.core.framework.instances.KeyHolder;
 import com.wynntils.core.framework.instances.Module;
@@ -14,16 +13,15 @@ import com.wynntils.core.framework.instances.containers.ModuleContainer;
 import com.wynntils.core.framework.interfaces.Listener;
 import com.wynntils.core.framework.interfaces.annotations.ModuleInfo;
 import com.wynntils.core.framework.overlays.Overlay;
+import com.wynntils.core.framework.profiling.PerformanceProfiler;
 import com.wynntils.core.framework.rendering.ScreenRenderer;
 import com.wynntils.core.framework.settings.SettingsContainer;
 import com.wynntils.core.framework.settings.annotations.SettingsInfo;
 import com.wynntils.core.framework.settings.instances.SettingsHolder;
-import com.wynntils.core.utils.ReflectionFields;
 import com.wynntils.modules.core.commands.*;
 import net.minecraft.client.Minecraft;
 import net.minecraftforge.client.ClientCommandHandler;
 import net.minecraftforge.client.event.RenderGameOverlayEvent;
-import net.minecraftforge.fml.common.eventhandler.Event;
 import net.minecraftforge.fml.common.eventhandler.EventBus;
 import net.minecraftforge.fml.common.gameevent.TickEvent;
 import org.apache.logging.log4j.LogManager;
@@ -119,6 +117,7 @@ public class FrameworkManager {
         ClientCommandHandler.instance.registerCommand(new CommandForceUpdate());
         ClientCommandHandler.instance.registerCommand(new CommandCompass());
         ClientCommandHandler.instance.registerCommand(new CommandTerritory());
+        ClientCommandHandler.instance.registerCommand(new CommandChatSearch());
     }
 
     public static void disableModules() {
@@ -127,14 +126,12 @@ public class FrameworkManager {
         });
     }
 
-    public static void triggerEvent(Event e) {
-        if(Reference.onServer || e instanceof WynncraftServerEvent || e instanceof TickEvent.RenderTickEvent) {
-            ReflectionFields.Event_phase.setValue(e, null);
-            eventBus.post(e);
+    public static void triggerPreHud(RenderGameOverlayEvent.Pre e) {
+        if (e.getType() == RenderGameOverlayEvent.ElementType.ALL) {
+            ScreenRenderer.getBatch().nextFrame();
+            PerformanceProfiler.endFrame();
         }
-    }
 
-    public static void triggerPreHud(RenderGameOverlayEvent.Pre e) {
         if (Reference.onServer && !ModCore.mc().playerController.isSpectator()) {
             if(e.getType() == RenderGameOverlayEvent.ElementType.AIR || //move it to somewhere else if you want, it seems pretty core to wynncraft tho..
                e.getType() == RenderGameOverlayEvent.ElementType.ARMOR) {
@@ -142,6 +139,7 @@ public class FrameworkManager {
                 return;
             }
             Minecraft.getMinecraft().profiler.startSection("preRenOverlay");
+            ScreenRenderer.beginBatch();
             for (ArrayList<Overlay> overlays : registeredOverlays.values()) {
                 for (Overlay overlay : overlays) {
                     if(!overlay.active) continue;
@@ -161,13 +159,17 @@ public class FrameworkManager {
                     }
                     if ((overlay.module == null || overlay.module.getModule().isActive()) && overlay.visible && overlay.active) {
                         Minecraft.getMinecraft().profiler.startSection(overlay.displayName);
+                        boolean profile = PerformanceProfiler.isEnabled();
+                        long start = profile ? System.nanoTime() : 0, allocated = profile ? PerformanceProfiler.getAllocatedBytes() : 0;
                         ScreenRenderer.beginGL(overlay.position.getDrawingX(), overlay.position.getDrawingY());
                         overlay.render(e);
                         ScreenRenderer.endGL();
+                        if (profile) PerformanceProfiler.record(PerformanceProfiler.Category.OVERLAY_RENDER, overlay.displayName, start, allocated);
                         Minecraft.getMinecraft().profiler.endSection();
                     }
                 }
             }
+            ScreenRenderer.endBatch();
             Minecraft.getMinecraft().profiler.endSection();
         }
     }
@@ -175,6 +177,7 @@ public class FrameworkManager {
     public static void triggerPostHud(RenderGameOverlayEvent.Post e) {
         if (Reference.onServer && !ModCore.mc().playerController.isSpectator()) {
             Minecraft.getMinecraft().profiler.startSection("posRenOverlay");
+            ScreenRenderer.beginBatch();
             for (ArrayList<Overlay> overlays : registeredOverlays.values()) {
                 for (Overlay overlay : overlays) {
                     if(!overlay.active) continue;
@@ -194,13 +197,17 @@ public class FrameworkManager {
                     }
                     if ((overlay.module == null || overlay.module.getModule().isActive()) && overlay.visible && overlay.active) {
                         Minecraft.getMinecraft().profiler.startSection(overlay.displayName);
+                        boolean profile = PerformanceProfiler.isEnabled();
+                        long start = profile ? System.nanoTime() : 0, allocated = profile ? PerformanceProfiler.getAllocatedBytes() : 0;
                         ScreenRenderer.beginGL(overlay.position.getDrawingX(), overlay.position.getDrawingY());
                         overlay.render(e);
                         ScreenRenderer.endGL();
+                        if (profile) PerformanceProfiler.record(PerformanceProfiler.Category.OVERLAY_RENDER, overlay.displayName, start, allocated);
                         Minecraft.getMinecraft().profiler.endSection();
                     }
                 }
             }
+            ScreenRenderer.endBatch();
             Minecraft.getMinecraft().profiler.endSection();
         }
     }
@@ -212,7 +219,10 @@ public class FrameworkManager {
                 for (Overlay overlay : overlays) {
                     if ((overlay.module == null || overlay.module.getModule().isActive()) && overlay.active) {
                         overlay.position.refresh(ScreenRenderer.screen);
+                        boolean profile = PerformanceProfiler.isEnabled();
+                        long start = profile ? System.nanoTime() : 0, allocated = profile ? PerformanceProfiler.getAllocatedBytes() : 0;
                         overlay.tick(e, tick);
+                        if (profile) PerformanceProfiler.record(PerformanceProfiler.Category.OVERLAY_TICK, overlay.displayName, start, allocated);
                     }
                 }
             }
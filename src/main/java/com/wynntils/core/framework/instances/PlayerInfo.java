@@ -105,7 +105,7 @@ public class PlayerInfo {
     }
 
     public void updatePlayerClass(ClassType currentClass) {
-        if(currentClass != ClassType.NONE) {
+        if(currentClass != ClassType.NONE && CoreDBConfig.INSTANCE.lastClass != currentClass) {
             CoreDBConfig.INSTANCE.lastClass = currentClass;
             CoreDBConfig.INSTANCE.saveSettings(CoreModule.getModule());
         }
@@ -166,6 +166,8 @@ public class PlayerInfo {
 
     public void setClassId(int id) {
         this.classId = id;
+        if(CoreDBConfig.INSTANCE.lastSelectedClass == id) return;
+
         CoreDBConfig.INSTANCE.lastSelectedClass = id;
         CoreDBConfig.INSTANCE.saveSettings(CoreModule.getModule());
     }
@@ -4,19 +4,26 @@
 
 package com.wynntils.core.framework.instances.containers;
 
+import com.wynntils.core.framework.EventRouter;
 import com.wynntils.core.framework.FrameworkManager;
 import com.wynntils.core.framework.instances.KeyHolder;
 import com.wynntils.core.framework.instances.Module;
 import com.wynntils.core.framework.interfaces.annotations.ModuleInfo;
+import com.wynntils.core.framework.profiling.PerformanceProfiler;
 import com.wynntils.core.framework.settings.SettingsContainer;
 import com.wynntils.core.framework.settings.annotations.SettingsInfo;
 import com.wynntils.core.framework.settings.instances.SettingsHolder;
+import com.wynntils.core.utils.ReflectionFields;
+import net.minecraftforge.fml.common.Loader;
+import net.minecraftforge.fml.common.ModContainer;
+import net.minecraftforge.fml.common.eventhandler.*;
 
+import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
+import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.HashSet;
 
 public class ModuleContainer {
 
@@ -25,7 +32,7 @@ public class ModuleContainer {
 
     ArrayList<KeyHolder> keyHolders = new ArrayList<>();
     HashMap<String, SettingsContainer> registeredSettings = new HashMap<>();
-    HashSet<Object> registeredEvents = new HashSet<>();
+    HashMap<Object, ArrayList<IEventListener>> registeredEvents = new HashMap<>();
 
     public ModuleContainer(ModuleInfo info, Module module) {
         this.info = info; this.module = module;
@@ -59,16 +66,65 @@ public class ModuleContainer {
         });
     }
 
+    /**
+     * Registers every {@link SubscribeEvent} method of the listener at the framework event bus,
+     * the same way {@link net.minecraftforge.fml.common.eventhandler.EventBus#register(Object)} does,
+     * but timing the handlers for the {@link PerformanceProfiler}
+     *
+     * @param sClass the listener
+     */
     public void registerEvents(Object sClass) {
-        FrameworkManager.getEventBus().register(sClass);
-        registeredEvents.add(sClass);
+        if(registeredEvents.containsKey(sClass)) return;
+
+        int busID = getBusID();
+        ModContainer owner = Loader.instance().activeModContainer();
+        if(owner == null) owner = Loader.instance().getMinecraftModContainer();
+
+        ArrayList<IEventListener> listeners = new ArrayList<>();
+        for(Method method : sClass.getClass().getMethods()) {
+            if(!method.isAnnotationPresent(SubscribeEvent.class) || method.getParameterCount() != 1) continue;
+
+            Class<?> eventType = method.getParameterTypes()[0];
+            if(!Event.class.isAssignableFrom(eventType)) continue;
+
+            try {
+                Constructor<?> constructor = eventType.getConstructor();
+                constructor.setAccessible(true);
+                Event event = (Event) constructor.newInstance();
+
+                ASMEventHandler handler = new ASMEventHandler(sClass, method, owner, IGenericEvent.class.isAssignableFrom(eventType));
+                IEventListener listener = e -> {
+                    if(!PerformanceProfiler.isEnabled()) {
+                        handler.invoke(e);
+                        return;
+                    }
+
+                    long start = System.nanoTime(), allocated = PerformanceProfiler.getAllocatedBytes();
+                    handler.invoke(e);
+                    PerformanceProfiler.record(PerformanceProfiler.Category.MODULE_EVENTS, info.displayName(), start, allocated);
+                };
+
+                event.getListenerList().register(busID, handler.getPriority(), listener);
+                listeners.add(listener);
+            } catch(Exception e) {
+                e.printStackTrace();
+            }
+        }
+
+        registeredEvents.put(sClass, listeners);
+        EventRouter.bridgeListener(sClass);
     }
 
     public void unregisterAllEvents() {
-        registeredEvents.forEach(FrameworkManager.getEventBus()::unregister);
+        int busID = getBusID();
+        registeredEvents.values().forEach(l -> l.forEach(listener -> ListenerList.unregisterAll(busID, listener)));
         registeredEvents.clear();
     }
 
+    private static int getBusID() {
+        return (int) ReflectionFields.EventBus_busID.getValue(FrameworkManager.getEventBus());
+    }
+
     public void registerSettings(Class<? extends SettingsHolder> holder) {
         SettingsInfo info = holder.getAnnotation(SettingsInfo.class);
         if(info == null) {
@@ -0,0 +1,179 @@
+/*
+ *  * Copyright © Wynntils - 2019.
+ */
+
+package com.wynntils.core.framework.profiling;
+
+import com.wynntils.Reference;
+
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Collects rolling timings of the overlays and module event handlers.
+ *
+ * Recording is disabled by default, while disabled the instrumented code
+ * only pays for a boolean check.
+ */
+public class PerformanceProfiler {
+
+    private static final File EXPORT_FOLDER = new File(Reference.MOD_STORAGE_ROOT, "profiler");
+
+    private static volatile boolean enabled = false;
+
+    private static final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    private static final boolean allocationSupported = initAllocationTracking();
+
+    private static final EnumMap<Category, ConcurrentHashMap<String, TimingStats>> stats = new EnumMap<>(Category.class);
+
+    static {
+        for (Category category : Category.values()) stats.put(category, new ConcurrentHashMap<>());
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean enabled) {
+        if (enabled && !PerformanceProfiler.enabled) clear();
+        PerformanceProfiler.enabled = enabled;
+    }
+
+    /**
+     * @return the bytes allocated by the current thread so far, or -1 if it can't be measured
+     */
+    public static long getAllocatedBytes() {
+        if (!allocationSupported) return -1;
+        return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * @param category the kind of section
+     * @param name the section name, like the overlay display name
+     * @return the stats of the section, created if needed
+     */
+    public static TimingStats get(Category category, String name) {
+        return stats.get(category).computeIfAbsent(name, TimingStats::new);
+    }
+
+    /**
+     * Records a finished section
+     *
+     * @param category the kind of section
+     * @param name the section name
+     * @param startNanos {@link System#nanoTime()} when the section started
+     * @param startBytes {@link #getAllocatedBytes()} when the section started
+     */
+    public static void record(Category category, String name, long startNanos, long startBytes) {
+        long elapsed = System.nanoTime() - startNanos;
+        long allocated = startBytes < 0 ? -1 : getAllocatedBytes() - startBytes;
+
+        TimingStats section = get(category, name);
+        if (category.perFrame) section.accumulate(elapsed, allocated);
+        else section.record(elapsed, allocated);
+    }
+
+    /**
+     * Closes the samples of the frame that just ended, called from the render thread before the HUD is rendered
+     */
+    public static void endFrame() {
+        if (!enabled) return;
+
+        for (Category category : Category.values()) {
+            if (!category.perFrame) continue;
+            stats.get(category).values().forEach(TimingStats::commitFrame);
+        }
+    }
+
+    /**
+     * @param category the kind of section
+     * @return the summaries of every section, slowest (p99) first
+     */
+    public static List<TimingStats.Summary> summarize(Category category) {
+        ArrayList<TimingStats.Summary> result = new ArrayList<>();
+        for (TimingStats section : stats.get(category).values()) result.add(section.summarize());
+
+        result.sort(Comparator.comparingLong(TimingStats.Summary::getP99).reversed());
+        return result;
+    }
+
+    public static void clear() {
+        stats.values().forEach(m -> m.values().forEach(TimingStats::clear));
+    }
+
+    /**
+     * Writes the current summaries to a new CSV file at the /profiler directory
+     *
+     * @return the written file
+     */
+    public static File exportCsv() throws IOException {
+        if (!EXPORT_FOLDER.exists()) EXPORT_FOLDER.mkdirs();
+
+        File file = new File(EXPORT_FOLDER, "profile-" + new SimpleDateFormat("yyyy-MM-dd_HH-mm-ss").format(new Date()) + ".csv");
+        try (PrintWriter writer = new PrintWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8))) {
+            writer.println("category,name,samples,p50_us,p99_us,max_us,allocation_kb_per_second");
+            for (Category category : Category.values()) {
+                for (TimingStats.Summary summary : summarize(category)) {
+                    writer.println(category.name().toLowerCase(Locale.ROOT) + ","
+                            + escape(summary.getName()) + ","
+                            + summary.getSamples() + ","
+                            + toMicros(summary.getP50()) + ","
+                            + toMicros(summary.getP99()) + ","
+                            + toMicros(summary.getMax()) + ","
+                            + (summary.getAllocationRate() < 0 ? "" : String.format(Locale.ROOT, "%.1f", summary.getAllocationRate() / 1024)));
+                }
+            }
+        }
+        return file;
+    }
+
+    public static String toMicros(long nanos) {
+        return String.format(Locale.ROOT, "%.1f", nanos / 1000d);
+    }
+
+    private static String escape(String value) {
+        if (value.indexOf(',') == -1 && value.indexOf('"') == -1) return value;
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+
+    private static boolean initAllocationTracking() {
+        try {
+            if (!(threads instanceof com.sun.management.ThreadMXBean)) return false;
+
+            com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) threads;
+            if (!bean.isThreadAllocatedMemorySupported()) return false;
+            if (!bean.isThreadAllocatedMemoryEnabled()) bean.setThreadAllocatedMemoryEnabled(true);
+            return true;
+        } catch (Throwable ex) { // not a HotSpot based jvm
+            return false;
+        }
+    }
+
+    public enum Category {
+
+        OVERLAY_RENDER("Overlay render (per frame)", true),
+        OVERLAY_TICK("Overlay tick", false),
+        MODULE_EVENTS("Module events (per event)", false),
+        FRAMEWORK_EVENTS("Forwarded Forge events (per event)", false),
+        PACKETS("Incoming packet handlers (per packet)", false);
+
+        private final String displayName;
+        private final boolean perFrame;
+
+        Category(String displayName, boolean perFrame) {
+            this.displayName = displayName;
+            this.perFrame = perFrame;
+        }
+
+        public String getDisplayName() {
+            return displayName;
+        }
+
+    }
+
+}
@@ -0,0 +1,151 @@
+/*
+ *  * Copyright © Wynntils - 2019.
+ */
+
+package com.wynntils.core.framework.profiling;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the last {@link #WINDOW} samples of a profiled section,
+ * samples can either be recorded right away or accumulated until the frame ends
+ */
+public class TimingStats {
+
+    public static final int WINDOW = 512;
+
+    private final String name;
+
+    private final long[] nanos = new long[WINDOW];
+    private final long[] bytes = new long[WINDOW];
+    private final long[] times = new long[WINDOW];
+    private int next = 0, size = 0;
+    private long totalSamples = 0;
+
+    private long pendingNanos = 0, pendingBytes = 0;
+    private boolean pending = false;
+
+    public TimingStats(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Records a sample right away
+     *
+     * @param elapsedNanos how long the section took
+     * @param allocatedBytes how many bytes were allocated, or -1 if unknown
+     */
+    public synchronized void record(long elapsedNanos, long allocatedBytes) {
+        nanos[next] = elapsedNanos;
+        bytes[next] = allocatedBytes;
+        times[next] = System.nanoTime();
+        next = (next + 1) % WINDOW;
+        if (size < WINDOW) size++;
+        totalSamples++;
+    }
+
+    /**
+     * Adds to the sample of the current frame, only called from the render thread
+     */
+    public void accumulate(long elapsedNanos, long allocatedBytes) {
+        pendingNanos += elapsedNanos;
+        pendingBytes = allocatedBytes < 0 || pendingBytes < 0 ? -1 : pendingBytes + allocatedBytes;
+        pending = true;
+    }
+
+    /**
+     * Records the sample accumulated during the frame, if there's any
+     */
+    public void commitFrame() {
+        if (!pending) return;
+
+        record(pendingNanos, pendingBytes);
+        pendingNanos = pendingBytes = 0;
+        pending = false;
+    }
+
+    public synchronized void clear() {
+        next = size = 0;
+        totalSamples = 0;
+        pendingNanos = pendingBytes = 0;
+        pending = false;
+    }
+
+    /**
+     * @return an immutable summary of the current window
+     */
+    public synchronized Summary summarize() {
+        if (size == 0) return new Summary(name, 0, 0, 0, 0, -1);
+
+        long[] sorted = Arrays.copyOf(nanos, size);
+        Arrays.sort(sorted);
+
+        long allocated = 0;
+        long oldest = Long.MAX_VALUE, newest = Long.MIN_VALUE;
+        for (int i = 0; i < size; i++) {
+            if (allocated >= 0) allocated = bytes[i] < 0 ? -1 : allocated + bytes[i];
+            oldest = Math.min(oldest, times[i]);
+            newest = Math.max(newest, times[i]);
+        }
+
+        double seconds = (newest - oldest) / 1e9;
+        double allocationRate = allocated < 0 || seconds <= 0 ? -1 : allocated / seconds;
+
+        return new Summary(name, totalSamples, percentile(sorted, 0.5), percentile(sorted, 0.99), sorted[sorted.length - 1], allocationRate);
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    public static class Summary {
+
+        private final String name;
+        private final long samples;
+        private final long p50, p99, max;
+        private final double allocationRate;
+
+        Summary(String name, long samples, long p50, long p99, long max, double allocationRate) {
+            this.name = name;
+            this.samples = samples;
+            this.p50 = p50;
+            this.p99 = p99;
+            this.max = max;
+            this.allocationRate = allocationRate;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getSamples() {
+            return samples;
+        }
+
+        public long getP50() {
+            return p50;
+        }
+
+        public long getP99() {
+            return p99;
+        }
+
+        public long getMax() {
+            return max;
+        }
+
+        /**
+         * @return the allocated bytes per second over the window, or -1 if it couldn't be measured
+         */
+        public double getAllocationRate() {
+            return allocationRate;
+        }
+
+    }
+
+}
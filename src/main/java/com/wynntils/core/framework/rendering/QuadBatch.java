@@ -0,0 +1,202 @@
+/*
+ *  * Copyright © Wynntils - 2019.
+ */
+
+package com.wynntils.core.framework.rendering;
+
+import com.wynntils.core.framework.rendering.textures.Texture;
+import net.minecraft.client.renderer.BufferBuilder;
+import net.minecraft.client.renderer.GlStateManager;
+import net.minecraft.client.renderer.WorldVertexBufferUploader;
+import net.minecraft.client.renderer.vertex.DefaultVertexFormats;
+import net.minecraft.client.renderer.vertex.VertexFormat;
+
+import static org.lwjgl.opengl.GL11.GL_QUADS;
+
+/** QuadBatch
+ * Collects the 2D quads drawn by the {ScreenRenderer} into a single
+ * vertex buffer, consecutive quads sharing the same texture are sent
+ * together in one draw call.
+ * While batching, every quad carries its own color so color changes
+ * don't split the batch, outside batching quads are drawn right away
+ * using the current OpenGL color, just like before.
+ */
+public class QuadBatch {
+
+    private static final int INITIAL_BUFFER_SIZE = 16384;
+
+    private final BufferBuilder buffer = new BufferBuilder(INITIAL_BUFFER_SIZE);
+    private final WorldVertexBufferUploader uploader = new WorldVertexBufferUploader();
+
+    private boolean batching = false;
+    private boolean drawing = false;
+    private boolean textured = false;
+    private Texture texture = null;
+    private boolean colored = false;
+    private float red = 1f, green = 1f, blue = 1f, alpha = 1f;
+
+    private int drawCalls = 0, stateChanges = 0, quads = 0;
+    private int lastDrawCalls = 0, lastStateChanges = 0, lastQuads = 0;
+
+    /** begin
+     * Starts collecting quads instead of drawing them right away,
+     * nothing is drawn until {flush()} or {end()} are called.
+     */
+    public void begin() {
+        flush();
+        batching = true;
+    }
+
+    /** end
+     * Draws every pending quad and goes back to drawing them right away.
+     */
+    public void end() {
+        flush();
+        batching = false;
+    }
+
+    public boolean isBatching() {
+        return batching;
+    }
+
+    /** setColor
+     * Sets the color textured quads are tinted with,
+     * it's also applied to OpenGL for everything that isn't batched.
+     */
+    public void setColor(float r, float g, float b, float a) {
+        red = r; green = g; blue = b; alpha = a;
+        GlStateManager.color(r, g, b, a);
+    }
+
+    /** addQuad
+     * Adds a textured quad tinted by the color set at {setColor},
+     * the coordinates are absolute(drawingOrigin included).
+     */
+    public void addQuad(Texture texture, float xMin, float yMin, float xMax, float yMax, float txMin, float tyMin, float txMax, float tyMax) {
+        prepare(true, texture);
+
+        if (batching) {
+            buffer.pos(xMin, yMin, 0).tex(txMin, tyMin).color(red, green, blue, alpha).endVertex();
+            buffer.pos(xMin, yMax, 0).tex(txMin, tyMax).color(red, green, blue, alpha).endVertex();
+            buffer.pos(xMax, yMax, 0).tex(txMax, tyMax).color(red, green, blue, alpha).endVertex();
+            buffer.pos(xMax, yMin, 0).tex(txMax, tyMin).color(red, green, blue, alpha).endVertex();
+        } else {
+            buffer.pos(xMin, yMin, 0).tex(txMin, tyMin).endVertex();
+            buffer.pos(xMin, yMax, 0).tex(txMin, tyMax).endVertex();
+            buffer.pos(xMax, yMax, 0).tex(txMax, tyMax).endVertex();
+            buffer.pos(xMax, yMin, 0).tex(txMax, tyMin).endVertex();
+        }
+
+        quads++;
+        if (!batching) flush();
+    }
+
+    /** addQuad
+     * Adds an untextured quad, the coordinates are absolute(drawingOrigin included).
+     * Outside batching the color needs to be applied to OpenGL by the caller.
+     */
+    public void addQuad(float xMin, float yMin, float xMax, float yMax, float r, float g, float b, float a) {
+        prepare(false, null);
+
+        if (batching) {
+            buffer.pos(xMin, yMin, 0).color(r, g, b, a).endVertex();
+            buffer.pos(xMin, yMax, 0).color(r, g, b, a).endVertex();
+            buffer.pos(xMax, yMax, 0).color(r, g, b, a).endVertex();
+            buffer.pos(xMax, yMin, 0).color(r, g, b, a).endVertex();
+        } else {
+            buffer.pos(xMin, yMin, 0).endVertex();
+            buffer.pos(xMin, yMax, 0).endVertex();
+            buffer.pos(xMax, yMax, 0).endVertex();
+            buffer.pos(xMax, yMin, 0).endVertex();
+        }
+
+        quads++;
+        if (!batching) flush();
+    }
+
+    /** flush
+     * Draws every pending quad, needs to be called before
+     * anything that changes the OpenGL state used by the batch
+     * (matrices, masks, and any rendering that doesn't go through the batch).
+     */
+    public void flush() {
+        if (!drawing) return;
+        drawing = false;
+
+        GlStateManager.enableAlpha();
+        GlStateManager.enableBlend();
+        if (textured) {
+            GlStateManager.enableTexture2D();
+            texture.bind();
+        } else {
+            GlStateManager.disableTexture2D();
+        }
+
+        buffer.finishDrawing();
+        uploader.draw(buffer);
+        drawCalls++;
+
+        if (!textured) GlStateManager.enableTexture2D();
+        if (colored) GlStateManager.color(red, green, blue, alpha); // vertex colors leave the current color undefined
+    }
+
+    /** countDraw
+     * Registers a draw call that happened outside the batch
+     * (text, items and masks), used by the frame counters.
+     */
+    public void countDraw() {
+        drawCalls++;
+    }
+
+    /** nextFrame
+     * Stores the counters of the finished frame and resets them,
+     * called once per frame before the HUD is rendered.
+     */
+    public void nextFrame() {
+        lastDrawCalls = drawCalls;
+        lastStateChanges = stateChanges;
+        lastQuads = quads;
+        drawCalls = stateChanges = quads = 0;
+    }
+
+    /**
+     * @return the amount of draw calls made by the ScreenRenderer in the last frame
+     */
+    public int getDrawCalls() {
+        return lastDrawCalls;
+    }
+
+    /**
+     * @return the amount of times the texture changed between batched quads in the last frame
+     */
+    public int getStateChanges() {
+        return lastStateChanges;
+    }
+
+    /**
+     * @return the amount of quads drawn in the last frame
+     */
+    public int getQuads() {
+        return lastQuads;
+    }
+
+    private void prepare(boolean textured, Texture texture) {
+        if (drawing && this.textured == textured && this.texture == texture) return;
+
+        if (drawing) {
+            stateChanges++;
+            flush();
+        }
+
+        VertexFormat format;
+        if (textured) format = batching ? DefaultVertexFormats.POSITION_TEX_COLOR : DefaultVertexFormats.POSITION_TEX;
+        else format = batching ? DefaultVertexFormats.POSITION_COLOR : DefaultVertexFormats.POSITION;
+
+        this.textured = textured;
+        this.texture = texture;
+        this.colored = batching;
+        buffer.begin(GL_QUADS, format);
+        drawing = true;
+    }
+
+}
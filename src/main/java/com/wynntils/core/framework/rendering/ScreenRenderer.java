@@ -9,13 +9,15 @@ import com.wynntils.core.framework.rendering.textures.Texture;
 import com.wynntils.core.utils.ReflectionFields;
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.gui.ScaledResolution;
+import net.minecraft.client.renderer.BufferBuilder;
 import net.minecraft.client.renderer.GlStateManager;
 import net.minecraft.client.renderer.RenderHelper;
 import net.minecraft.client.renderer.RenderItem;
+import net.minecraft.client.renderer.Tessellator;
+import net.minecraft.client.renderer.vertex.DefaultVertexFormats;
 import net.minecraft.item.ItemStack;
 
 import java.awt.*;
-import java.util.Arrays;
 
 import static org.lwjgl.opengl.GL11.*;
 
@@ -38,8 +40,10 @@ public class ScreenRenderer {
     private static Point transformationOrigin = new Point(0,0);
     public static void transformationOrigin(int x, int y) {transformationOrigin.x = x; transformationOrigin.y = y;}protected static Point transformationOrigin() {return transformationOrigin;}
     private static RenderItem itemRenderer = null;
+    private static final QuadBatch batch = new QuadBatch();
 
     public static boolean isRendering() { return rendering; }
+    public static QuadBatch getBatch() { return batch; }
     public static float getScale() { return scale; }
     public static float getRotation() { return rotation; }
     public static boolean isMasking() { return mask; }
@@ -88,21 +92,52 @@ public class ScreenRenderer {
         resetScale();
         resetRotation();
         GlStateManager.enableAlpha();
-        GlStateManager.color(1,1,1);
+        batch.setColor(1,1,1,1);
         GlStateManager.enableBlend();
         GlStateManager.blendFunc(GlStateManager.SourceFactor.SRC_ALPHA, GlStateManager.DestFactor.ONE_MINUS_SRC_ALPHA);
     }
 
+    /** beginBatch
+     * Starts batching the quads drawn by every ScreenRenderer,
+     * they're drawn together when the batch is flushed, which only
+     * happens before a state change the quads depend on(scaling, rotation,
+     * masks, text and items) and when {endBatch()} is called, so the
+     * quads of consecutive overlays end up in the same draw call.
+     * Overlays issuing their own GL calls need to call {flushBatch()}
+     * before doing so.
+     */
+    public static void beginBatch() {
+        batch.begin();
+    }
+
+    /** endBatch
+     * Draws every pending quad and stops batching.
+     */
+    public static void endBatch() {
+        batch.end();
+    }
+
+    /** flushBatch
+     * Draws every pending quad, call it before changing the GL state directly.
+     */
+    public static void flushBatch() {
+        batch.flush();
+    }
+
     /** endGL
      * Resets everything related to the ScreenRenderer
      * and stops the ability to render on screen(the
      * 2D plane).
+     * The batched quads are kept, they don't depend on
+     * the drawing origin and the matrix is back to the
+     * one they were added with.
      */
     public static void endGL() {
         if(!rendering) return;
         resetScale();
         resetRotation();
         if(mask) {
+            batch.flush();
             GlStateManager.depthMask(true);
             GlStateManager.clear(GL_DEPTH_BUFFER_BIT);
             GlStateManager.enableDepth();
@@ -126,6 +161,7 @@ public class ScreenRenderer {
      */
     public static void rotate(float degrees) {
         if(!rendering) return;
+        batch.flush();
         GlStateManager.translate((drawingOrigin.x+transformationOrigin.x), (drawingOrigin.y+transformationOrigin.y), 0);
         GlStateManager.rotate(degrees,0,0,1);
         GlStateManager.translate((-drawingOrigin.x-transformationOrigin.x), (-drawingOrigin.y-transformationOrigin.y), 0);
@@ -139,6 +175,7 @@ public class ScreenRenderer {
     public static void resetRotation() {
         if(!rendering) return;
         if(rotation != 0.0f) {
+            batch.flush();
             GlStateManager.translate(drawingOrigin.x+transformationOrigin.x,drawingOrigin.y+transformationOrigin.y,0);
             GlStateManager.rotate(rotation,0,0,-1);
             GlStateManager.translate(-drawingOrigin.x-transformationOrigin.x,-drawingOrigin.y-transformationOrigin.y,0);
@@ -155,6 +192,7 @@ public class ScreenRenderer {
      */
     public static void scale(float multiplier) {
         if(!rendering) return;
+        batch.flush();
         GlStateManager.translate(drawingOrigin.x+transformationOrigin.x,drawingOrigin.y+transformationOrigin.y,0);
         GlStateManager.scale(multiplier,multiplier,multiplier);
         GlStateManager.translate(-drawingOrigin.x-transformationOrigin.x,-drawingOrigin.y-transformationOrigin.y,0);
@@ -168,6 +206,7 @@ public class ScreenRenderer {
     public static void resetScale() {
         if(!rendering) return;
         if(scale != 1.0f) {
+            batch.flush();
             float m = 1.0f/scale;
             GlStateManager.translate(drawingOrigin.x+transformationOrigin.x,drawingOrigin.y+transformationOrigin.y,0);
             GlStateManager.scale(m,m,m);
@@ -190,31 +229,7 @@ public class ScreenRenderer {
      * @param y2 top-right y(on screen)
      */
     public static void createMask(Texture texture, int x1, int y1, int x2, int y2) {
-        if (!rendering || mask) return;
-        if (!texture.loaded) return;
-        float prevScale = scale;
-        resetScale();
-
-        GlStateManager.enableDepth();
-        GlStateManager.colorMask(false, false, false, true);
-        texture.bind();
-        GlStateManager.glBegin(GL_QUADS);
-        GlStateManager.glTexCoord2f(0, 0);
-        GlStateManager.glVertex3f(x1 + drawingOrigin.x, y1 + drawingOrigin.y, 1000.0F);
-        GlStateManager.glTexCoord2f(0, 1);
-        GlStateManager.glVertex3f(x1 + drawingOrigin.x, y2 + drawingOrigin.y, 1000.0F);
-        GlStateManager.glTexCoord2f(1, 1);
-        GlStateManager.glVertex3f(x2 + drawingOrigin.x, y2 + drawingOrigin.y, 1000.0F);
-        GlStateManager.glTexCoord2f(1, 0);
-        GlStateManager.glVertex3f(x2 + drawingOrigin.x, y1 + drawingOrigin.y, 1000.0F);
-        GlStateManager.glEnd();
-        GlStateManager.colorMask(true, true, true, true);
-        GlStateManager.depthMask(false);
-        GlStateManager.depthFunc(GL_GREATER);
-
-        mask = true;
-
-        scale(prevScale);
+        createMask(texture, (float) x1, (float) y1, (float) x2, (float) y2, 0f, 0f, texture.width, texture.height);
     }
 
     /** createMask
@@ -232,18 +247,22 @@ public class ScreenRenderer {
      */
     public static void createMask(CustomColor color, int x1, int y1, int x2, int y2) {
         if (!rendering || mask) return;
+        batch.flush();
         float prevScale = scale;
         resetScale();
 
         GlStateManager.enableDepth();
         GlStateManager.colorMask(false, false, false, true);
         color.applyColor();
-        GlStateManager.glBegin(GL_QUADS);
-        GlStateManager.glVertex3f(x1 + drawingOrigin.x, y1 + drawingOrigin.y, 1000.0F);
-        GlStateManager.glVertex3f(x1 + drawingOrigin.x, y2 + drawingOrigin.y, 1000.0F);
-        GlStateManager.glVertex3f(x2 + drawingOrigin.x, y2 + drawingOrigin.y, 1000.0F);
-        GlStateManager.glVertex3f(x2 + drawingOrigin.x, y1 + drawingOrigin.y, 1000.0F);
-        GlStateManager.glEnd();
+        Tessellator tessellator = Tessellator.getInstance();
+        BufferBuilder bufferbuilder = tessellator.getBuffer();
+        bufferbuilder.begin(GL_QUADS, DefaultVertexFormats.POSITION);
+        bufferbuilder.pos(x1 + drawingOrigin.x, y1 + drawingOrigin.y, 1000.0F).endVertex();
+        bufferbuilder.pos(x1 + drawingOrigin.x, y2 + drawingOrigin.y, 1000.0F).endVertex();
+        bufferbuilder.pos(x2 + drawingOrigin.x, y2 + drawingOrigin.y, 1000.0F).endVertex();
+        bufferbuilder.pos(x2 + drawingOrigin.x, y1 + drawingOrigin.y, 1000.0F).endVertex();
+        tessellator.draw();
+        batch.countDraw();
         GlStateManager.colorMask(true, true, true, true);
         GlStateManager.depthMask(false);
         GlStateManager.depthFunc(GL_GREATER);
@@ -268,6 +287,7 @@ public class ScreenRenderer {
      */
     public static void createMask(Texture texture, float x1, float y1, float x2, float y2, float tx1, float ty1, float tx2, float ty2) {
         if (!rendering || mask) return;
+        batch.flush();
         if (!texture.loaded) return;
         float prevScale = scale;
         resetScale();
@@ -285,16 +305,15 @@ public class ScreenRenderer {
         GlStateManager.colorMask(false, false, false, true);
         texture.bind();
 
-        GlStateManager.glBegin(GL_QUADS);
-        GlStateManager.glTexCoord2f(txMin,tyMin);
-        GlStateManager.glVertex3f(xMin, yMin, 1000.0F);
-        GlStateManager.glTexCoord2f(txMin,tyMax);
-        GlStateManager.glVertex3f(xMin, yMax, 1000.0F);
-        GlStateManager.glTexCoord2f(txMax,tyMax);
-        GlStateManager.glVertex3f(xMax, yMax, 1000.0F);
-        GlStateManager.glTexCoord2f(txMax,tyMin);
-        GlStateManager.glVertex3f(xMax, yMin, 1000.0F);
-        GlStateManager.glEnd();
+        Tessellator tessellator = Tessellator.getInstance();
+        BufferBuilder bufferbuilder = tessellator.getBuffer();
+        bufferbuilder.begin(GL_QUADS, DefaultVertexFormats.POSITION_TEX);
+        bufferbuilder.pos(xMin, yMin, 1000.0F).tex(txMin, tyMin).endVertex();
+        bufferbuilder.pos(xMin, yMax, 1000.0F).tex(txMin, tyMax).endVertex();
+        bufferbuilder.pos(xMax, yMax, 1000.0F).tex(txMax, tyMax).endVertex();
+        bufferbuilder.pos(xMax, yMin, 1000.0F).tex(txMax, tyMin).endVertex();
+        tessellator.draw();
+        batch.countDraw();
         GlStateManager.colorMask(true, true, true, true);
         GlStateManager.depthMask(false);
         GlStateManager.depthFunc(GL_GREATER);
@@ -310,6 +329,7 @@ public class ScreenRenderer {
      */
     public static void clearMask() {
         if (!mask || !rendering) return;
+        batch.flush();
 
         GlStateManager.depthMask(true);
         GlStateManager.clear(GL_DEPTH_BUFFER_BIT);
@@ -332,8 +352,10 @@ public class ScreenRenderer {
      */
     public float drawString(String text, float x, float y, CustomColor color, SmartFontRenderer.TextAlignment alignment, SmartFontRenderer.TextShadow shadow) {
         if(!rendering) return -1f;
+        batch.flush();
+        batch.countDraw();
         float f = fontRenderer.drawString(text,drawingOrigin.x + x,drawingOrigin.y + y ,color,alignment,shadow);
-        GlStateManager.color(1.0f,1.0f,1.0f,1.0f);
+        batch.setColor(1.0f,1.0f,1.0f,1.0f);
         return f;
     }
 
@@ -357,17 +379,7 @@ public class ScreenRenderer {
      */
     public float getStringWidth(String text) {
         if(!rendering) return -1f;
-        if(text.isEmpty()) return -SmartFontRenderer.CHAR_SPACING;
-        if(text.startsWith("ยง")) {
-            if(text.charAt(1) == '[') {
-                return getStringWidth(Arrays.toString(Arrays.copyOfRange(text.split("]"),1,text.length())));
-            }
-            else {
-                return getStringWidth(text.substring(2));
-            }
-        }
-
-        return fontRenderer.getCharWidth(text.charAt(0)) + SmartFontRenderer.CHAR_SPACING + getStringWidth(text.substring(1));
+        return fontRenderer.getTextWidth(text);
     }
 
     /** void drawRect
@@ -381,21 +393,13 @@ public class ScreenRenderer {
      */
     public void drawRect(CustomColor color, int x1, int y1, int x2, int y2) {
         if(!rendering) return;
-        GlStateManager.disableTexture2D();
-        GlStateManager.enableAlpha();
-        color.applyColor();
+        color(color);
         int xMin = Math.min(x1, x2) + drawingOrigin.x,
             xMax = Math.max(x1, x2) + drawingOrigin.x,
             yMin = Math.min(y1, y2) + drawingOrigin.y,
             yMax = Math.max(y1, y2) + drawingOrigin.y;
-        GlStateManager.glBegin(GL_QUADS);
-        GlStateManager.glVertex3f(xMin, yMin, 0);
-        GlStateManager.glVertex3f(xMin, yMax, 0);
-        GlStateManager.glVertex3f(xMax, yMax, 0);
-        GlStateManager.glVertex3f(xMax, yMin, 0);
-        GlStateManager.glEnd();
-        GlStateManager.enableTexture2D();
-        GlStateManager.color(1f,1f,1f,1f);
+        batch.addQuad(xMin, yMin, xMax, yMax, color.r, color.g, color.b, color.a);
+        batch.setColor(1f,1f,1f,1f);
     }
 
     /** void drawRect
@@ -414,25 +418,13 @@ public class ScreenRenderer {
      */
     public void drawRect(Texture texture, int x1, int y1, int x2, int y2, float tx1, float ty1, float tx2, float ty2) {
         if(!rendering || texture == null || !texture.loaded) return;
-        GlStateManager.enableAlpha();
-        GlStateManager.enableTexture2D();
-        texture.bind();
 
         int xMin = x1 + drawingOrigin.x,
             xMax = x2 + drawingOrigin.x,
             yMin = y1 + drawingOrigin.y,
             yMax = y2 + drawingOrigin.y;
 
-        GlStateManager.glBegin(GL_QUADS);
-        GlStateManager.glTexCoord2f(tx1, ty1);
-        GlStateManager.glVertex3f(xMin, yMin, 0);
-        GlStateManager.glTexCoord2f(tx1, ty2);
-        GlStateManager.glVertex3f(xMin, yMax, 0);
-        GlStateManager.glTexCoord2f(tx2, ty2);
-        GlStateManager.glVertex3f(xMax, yMax, 0);
-        GlStateManager.glTexCoord2f(tx2, ty1);
-        GlStateManager.glVertex3f(xMax, yMin, 0);
-        GlStateManager.glEnd();
+        batch.addQuad(texture, xMin, yMin, xMax, yMax, tx1, ty1, tx2, ty2);
     }
 
     /** void drawRect
@@ -472,10 +464,6 @@ public class ScreenRenderer {
      */
     public void drawRectF(Texture texture, float x1, float y1, float x2, float y2, float tx1, float ty1, float tx2, float ty2) {
         if(!rendering || !texture.loaded) return;
-        GlStateManager.enableAlpha();
-        GlStateManager.enableBlend();
-        GlStateManager.enableTexture2D();
-        texture.bind();
 
         float xMin  = x1  + drawingOrigin.x,
               xMax  = x2  + drawingOrigin.x,
@@ -485,16 +473,7 @@ public class ScreenRenderer {
               txMax = tx2 / texture.width,
               tyMin = ty1 / texture.height,
               tyMax = ty2 / texture.height;
-        GlStateManager.glBegin(GL_QUADS);
-        GlStateManager.glTexCoord2f(txMin,tyMin);
-        GlStateManager.glVertex3f(xMin, yMin, 0);
-        GlStateManager.glTexCoord2f(txMin,tyMax);
-        GlStateManager.glVertex3f(xMin, yMax, 0);
-        GlStateManager.glTexCoord2f(txMax,tyMax);
-        GlStateManager.glVertex3f(xMax, yMax, 0);
-        GlStateManager.glTexCoord2f(txMax,tyMin);
-        GlStateManager.glVertex3f(xMax, yMin, 0);
-        GlStateManager.glEnd();
+        batch.addQuad(texture, xMin, yMin, xMax, yMax, txMin, tyMin, txMax, tyMax);
     }
 
     /**
@@ -508,21 +487,13 @@ public class ScreenRenderer {
      * */
     public void drawRectF(CustomColor color, float x1, float y1, float x2, float y2) {
         if(!rendering) return;
-        GlStateManager.enableAlpha();
-        GlStateManager.disableTexture2D();
-        color.applyColor();
+        color(color);
 
         float xMin  = Math.min(x1, x2) + drawingOrigin.x,
               xMax  = Math.max(x1, x2) + drawingOrigin.x,
               yMin  = Math.min(y1, y2) + drawingOrigin.y,
               yMax  = Math.max(y1, y2) + drawingOrigin.y;
-        GlStateManager.glBegin(GL_QUADS);
-        GlStateManager.glVertex3f(xMin, yMin, 0);
-        GlStateManager.glVertex3f(xMin, yMax, 0);
-        GlStateManager.glVertex3f(xMax, yMax, 0);
-        GlStateManager.glVertex3f(xMax, yMin, 0);
-        GlStateManager.glEnd();
-        GlStateManager.enableTexture2D();
+        batch.addQuad(xMin, yMin, xMax, yMax, color.r, color.g, color.b, color.a);
     }
 
     /** drawProgressBar
@@ -542,9 +513,6 @@ public class ScreenRenderer {
         if (!rendering || !texture.loaded) return;
 
         if(background) {
-            GlStateManager.enableAlpha();
-            GlStateManager.enableTexture2D();
-            texture.bind();
             float xMin = Math.min(x1, x2) + drawingOrigin.x,
                   xMax = Math.max(x1, x2) + drawingOrigin.x,
                   yMin = Math.min(y1, y2) + drawingOrigin.y,
@@ -554,20 +522,8 @@ public class ScreenRenderer {
                   tyMin = (float) Math.min(ty1, ty2) / texture.height,
                   tyMax = (float) Math.max(ty1, ty2) / texture.height;
 
-            GlStateManager.glBegin(GL_QUADS);
-            GlStateManager.glTexCoord2f(txMin, tyMin);
-            GlStateManager.glVertex3f(xMin, yMin, 0);
-            GlStateManager.glTexCoord2f(txMin, tyMax);
-            GlStateManager.glVertex3f(xMin, yMax, 0);
-            GlStateManager.glTexCoord2f(txMax, tyMax);
-            GlStateManager.glVertex3f(xMax, yMax, 0);
-            GlStateManager.glTexCoord2f(txMax, tyMin);
-            GlStateManager.glVertex3f(xMax, yMin, 0);
-            GlStateManager.glEnd();
+            batch.addQuad(texture, xMin, yMin, xMax, yMax, txMin, tyMin, txMax, tyMax);
         } else if (progress != 0.0f){
-            GlStateManager.enableAlpha();
-            GlStateManager.enableTexture2D();
-            texture.bind();
             float xMin =  Math.min(x1, x2) + drawingOrigin.x,
                   xMax =  Math.max(x1, x2) + drawingOrigin.x,
                   yMin =  Math.min(y1, y2) + drawingOrigin.y,
@@ -586,16 +542,7 @@ public class ScreenRenderer {
                     txMax -= (1.0f - progress);
                 }
             }
-            GlStateManager.glBegin(GL_QUADS);
-            GlStateManager.glTexCoord2f(txMin, tyMin);
-            GlStateManager.glVertex3f(xMin, yMin, 0);
-            GlStateManager.glTexCoord2f(txMin, tyMax);
-            GlStateManager.glVertex3f(xMin, yMax, 0);
-            GlStateManager.glTexCoord2f(txMax, tyMax);
-            GlStateManager.glVertex3f(xMax, yMax, 0);
-            GlStateManager.glTexCoord2f(txMax, tyMin);
-            GlStateManager.glVertex3f(xMax, yMin, 0);
-            GlStateManager.glEnd();
+            batch.addQuad(texture, xMin, yMin, xMax, yMax, txMin, tyMin, txMax, tyMax);
         }
     }
 
@@ -644,11 +591,11 @@ public class ScreenRenderer {
     }
 
     public void color(CustomColor color){
-        color.applyColor();
+        batch.setColor(color.r, color.g, color.b, color.a);
     }
 
     public void color(float r, float g, float b, float alpha){
-        GlStateManager.color(r, g, b, alpha);
+        batch.setColor(r, g, b, alpha);
     }
 
     public void drawItemStack(ItemStack is, int x, int y) {
@@ -684,6 +631,8 @@ public class ScreenRenderer {
      */
     private void drawItemStack(ItemStack is, int x, int y, boolean count, String text, boolean effects){
         if(!rendering) return;
+        batch.flush();
+        batch.countDraw();
         RenderHelper.enableGUIStandardItemLighting();
         itemRenderer.zLevel = 200.0F;
         net.minecraft.client.gui.FontRenderer font = is.getItem().getFontRenderer(is);
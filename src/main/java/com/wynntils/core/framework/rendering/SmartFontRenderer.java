@@ -10,12 +10,14 @@ import net.minecraft.client.Minecraft;
 import net.minecraft.client.gui.FontRenderer;
 import net.minecraft.client.renderer.GlStateManager;
 import net.minecraft.client.renderer.texture.TextureManager;
+import net.minecraft.client.resources.IResourceManager;
 import net.minecraft.client.settings.GameSettings;
 import net.minecraft.util.ResourceLocation;
 
 import java.awt.*;
-import java.util.Arrays;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 public class SmartFontRenderer extends FontRenderer {
 
@@ -23,7 +25,14 @@ public class SmartFontRenderer extends FontRenderer {
     public static final int CHAR_SPACING = 0;
     public static final int CHAR_HEIGHT = 9;
 
-    private static HashMap<Integer, CustomColor> colors = new HashMap<>();
+    private static final int LAYOUT_CACHE_SIZE = 512;
+
+    private final LinkedHashMap<String, TextLayout> layouts = new LinkedHashMap<String, TextLayout>(LAYOUT_CACHE_SIZE, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, TextLayout> eldest) {
+            return size() > LAYOUT_CACHE_SIZE;
+        }
+    };
 
     //TODO document
     public SmartFontRenderer(GameSettings gameSettingsIn, ResourceLocation location, TextureManager textureManagerIn, boolean unicode) {
@@ -38,12 +47,12 @@ public class SmartFontRenderer extends FontRenderer {
         if(customColor == CommonColors.RAINBOW) {
             return drawRainbowText(text, x, y, alignment, shadow);
         }
-        String drawnText = text.replaceAll("§\\[\\d+\\.?\\d*,\\d+\\.?\\d*,\\d+\\.?\\d*\\]", "");
+        TextLayout layout = getLayout(text);
         switch (alignment) {
             case MIDDLE:
-                return drawString(text,x - getStringWidth(drawnText)/2,y,customColor,TextAlignment.LEFT_RIGHT,shadow);
+                return drawString(text,x - layout.width/2,y,customColor,TextAlignment.LEFT_RIGHT,shadow);
             case RIGHT_LEFT:
-                return drawString(text,x - getStringWidth(drawnText),y,customColor,TextAlignment.LEFT_RIGHT,shadow);
+                return drawString(text,x - layout.width,y,customColor,TextAlignment.LEFT_RIGHT,shadow);
             default:
                 GlStateManager.enableTexture2D();
                 GlStateManager.enableAlpha();
@@ -53,38 +62,38 @@ public class SmartFontRenderer extends FontRenderer {
                         CustomColor shadowColor = new CustomColor(0,0,0,customColor.a);
                         posX = x-1;
                         posY = y;
-                        drawChars(text,shadowColor,true);
+                        drawLayout(layout,shadowColor,true);
                         posX = x+1;
                         posY = y;
-                        drawChars(text,shadowColor,true);
+                        drawLayout(layout,shadowColor,true);
                         posX = x;
                         posY = y-1;
-                        drawChars(text,shadowColor,true);
+                        drawLayout(layout,shadowColor,true);
                         posX = x;
                         posY = y+1;
-                        drawChars(text,shadowColor,true);
+                        drawLayout(layout,shadowColor,true);
 
                         posX = x;
                         posY = y;
 
-                        return drawChars(text,customColor,false);
+                        return drawLayout(layout,customColor,false);
 
                     case NORMAL:
                         posX = x+1;
                         posY = y+1;
 
-                        drawChars(text, new CustomColor(0,0,0,customColor.a),true);
+                        drawLayout(layout, new CustomColor(0,0,0,customColor.a),true);
 
                         posX = x;
                         posY = y;
 
-                        return drawChars(text,customColor,false);
+                        return drawLayout(layout,customColor,false);
 
                     case NONE: default:
                         posX = x;
                         posY = y;
 
-                        return drawChars(text,customColor,false);
+                        return drawLayout(layout,customColor,false);
                 }
         }
 
@@ -149,64 +158,64 @@ public class SmartFontRenderer extends FontRenderer {
         return posX;
     }
 
-    private float drawChars(String text, CustomColor color, boolean forceColor) {
-        if(text.isEmpty()) return -CHAR_SPACING;
-        if(text.startsWith("§") && text.length() > 1) {
-            String withoutSelector = text.substring(1);
-            String textToRender;
-            CustomColor colorToRender;
-            if (withoutSelector.startsWith("[")) {
-                String[] colorSplit = withoutSelector.substring(1).split("]");
-                if (colorSplit.length == 1) {
-                    textToRender = withoutSelector;
-                    colorToRender = ChatCommonColorCodes.color_f.color.setA(color.a);
-                } else {
-                    textToRender = colorSplit[1];
-                    colorToRender = decodeCustomColor(colorSplit[0], color);
-                }
-            } else {
-                colorToRender = decodeCommonColor(withoutSelector, color);
-                if (colorToRender == null) {
-                    colorToRender = ChatCommonColorCodes.color_f.color.setA(color.a);
-                    textToRender = withoutSelector;
-                } else {
-                    textToRender = withoutSelector.substring(1);
-                }
+    /** getTextWidth
+     * Measures the text the same way it's drawn, skipping the
+     * colour codes, the layout is cached for the next draw.
+     *
+     * @param text the text to measure
+     * @return the width of the text in pixels
+     */
+    public float getTextWidth(String text) {
+        return getLayout(text).width;
+    }
+
+    @Override
+    public void onResourceManagerReload(IResourceManager resourceManager) {
+        super.onResourceManagerReload(resourceManager);
+        if (layouts != null) layouts.clear(); // glyph widths might have changed
+    }
+
+    private TextLayout getLayout(String text) {
+        TextLayout layout = layouts.get(text);
+        if (layout == null) {
+            layout = new TextLayout(text);
+            layouts.put(text, layout);
+        }
+        return layout;
+    }
+
+    private float drawLayout(TextLayout layout, CustomColor color, boolean forceColor) {
+        float start = posX;
+        for (int run = 0; run < layout.runColors.length; run++) {
+            CustomColor runColor = layout.runColors[run];
+            if (forceColor || runColor == null) color.applyColor();
+            else GlStateManager.color(runColor.r, runColor.g, runColor.b, color.a);
+
+            int end = run + 1 < layout.runStarts.length ? layout.runStarts[run + 1] : layout.glyphs.length;
+            for (int i = layout.runStarts[run]; i < end; i++) {
+                posX += renderChar(layout.glyphs[i]) + CHAR_SPACING;
             }
-            return drawChars(textToRender, forceColor ? color : colorToRender, forceColor);
         }
-        color.applyColor();
-        float charLength = renderChar(text.charAt(0));
-        posX += charLength + CHAR_SPACING;
 
-        return charLength + CHAR_SPACING + drawChars(text.substring(1),color, forceColor);
+        return posX - start - CHAR_SPACING;
     }
 
-    private CustomColor decodeCommonColor(String text, CustomColor baseColor) {
+    private static CustomColor decodeCommonColor(char code) {
         for (ChatCommonColorCodes cccc : ChatCommonColorCodes.values())
-            if(cccc.name().charAt(6) == Character.toLowerCase(text.charAt(0)))
-                return cccc.color.setA(baseColor.a);
+            if(cccc.name().charAt(6) == Character.toLowerCase(code))
+                return cccc.color;
         return null;
     }
 
-    private CustomColor decodeCustomColor(String text, CustomColor baseColor) {
+    private static CustomColor decodeCustomColor(String text) {
         String[] s2 = text.split(",");
         try {
             float r = Float.parseFloat(s2[0]);
             float g = Float.parseFloat(s2[1]);
             float b = Float.parseFloat(s2[2]);
-            float a = s2.length == 4 ? Float.parseFloat(s2[0]) : 1f;
-            float[] colorArray = new float[]{r, g, b, a};
-            int arrayHashCode = Arrays.hashCode(colorArray);
-            CustomColor currentColor = colors.get(arrayHashCode);
-            if (currentColor == null) {
-                CustomColor color = new CustomColor(r, g, b, a).setA(baseColor.a);
-                colors.put(arrayHashCode, color);
-            } else {
-                return currentColor;
-            }
+            return new CustomColor(r, g, b);
         } catch (NumberFormatException | IndexOutOfBoundsException ex) {/* Not valid custom colour formatting, return default white*/}
-        return ChatCommonColorCodes.color_f.color.setA(baseColor.a);
+        return ChatCommonColorCodes.color_f.color;
     }
 
     private float renderChar(char ch)
@@ -223,6 +232,76 @@ public class SmartFontRenderer extends FontRenderer {
         }
     }
 
+    /** TextLayout
+     * A string split in runs of glyphs sharing the same colour,
+     * the colour codes are parsed only once per string.
+     * A null run colour means the base colour of the draw call,
+     * the alpha always comes from the base colour.
+     */
+    private class TextLayout {
+
+        final char[] glyphs;
+        final int[] runStarts;
+        final CustomColor[] runColors;
+        final float width;
+
+        TextLayout(String text) {
+            StringBuilder glyphs = new StringBuilder(text.length());
+            ArrayList<Integer> runStarts = new ArrayList<>();
+            ArrayList<CustomColor> runColors = new ArrayList<>();
+            runStarts.add(0);
+            runColors.add(null);
+
+            int i = 0;
+            while (i < text.length()) {
+                char c = text.charAt(i);
+                if (c != '§' || i + 1 == text.length()) {
+                    glyphs.append(c);
+                    i++;
+                    continue;
+                }
+
+                CustomColor color;
+                char code = text.charAt(i + 1);
+                if (code == '[') {
+                    int close = text.indexOf(']', i + 2);
+                    if (close == -1) { // not a colour, the bracket is drawn
+                        color = ChatCommonColorCodes.color_f.color;
+                        i++;
+                    } else {
+                        color = decodeCustomColor(text.substring(i + 2, close));
+                        i = close + 1;
+                    }
+                } else {
+                    color = decodeCommonColor(code);
+                    if (color == null) { // not a colour, the code is drawn
+                        color = ChatCommonColorCodes.color_f.color;
+                        i++;
+                    } else {
+                        i += 2;
+                    }
+                }
+
+                if (runStarts.get(runStarts.size() - 1) == glyphs.length()) { // nothing was drawn with the previous colour
+                    runColors.set(runColors.size() - 1, color);
+                } else {
+                    runStarts.add(glyphs.length());
+                    runColors.add(color);
+                }
+            }
+
+            this.glyphs = glyphs.toString().toCharArray();
+            this.runStarts = new int[runStarts.size()];
+            for (int j = 0; j < this.runStarts.length; j++) this.runStarts[j] = runStarts.get(j);
+            this.runColors = runColors.toArray(new CustomColor[0]);
+
+            float width = 0;
+            for (char glyph : this.glyphs) width += getCharWidth(glyph) + CHAR_SPACING;
+            this.width = width - CHAR_SPACING;
+        }
+
+    }
+
     public enum TextAlignment {
         LEFT_RIGHT,MIDDLE,RIGHT_LEFT
     }
@@ -0,0 +1,113 @@
+/*
+ *  * Copyright © Wynntils - 2019.
+ */
+
+package com.wynntils.core.framework.scheduling;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A task scheduled at the {@link TickScheduler}.
+ *
+ * Every method can be called from any thread, the changes are applied at the client thread.
+ */
+public class ScheduledTask {
+
+    enum State { PENDING, PAUSED, CANCELLED, DONE }
+
+    final Runnable runnable;
+    final int period;
+    final CompletableFuture<Void> future = new CompletableFuture<>();
+
+    volatile State state = State.PENDING;
+
+    // only used at the client thread
+    int remaining;
+    boolean parked;
+    long deadline;
+    TickScheduler.Slot slot;
+    ScheduledTask previous, next;
+
+    ScheduledTask(Runnable runnable, int delay, int period) {
+        this.runnable = runnable;
+        this.remaining = delay;
+        this.period = period;
+    }
+
+    /**
+     * Stops the task from running again
+     *
+     * @return false if the task was already done or cancelled
+     */
+    public boolean cancel() {
+        synchronized (this) {
+            if (state == State.CANCELLED || state == State.DONE) return false;
+            state = State.CANCELLED;
+        }
+
+        future.cancel(false);
+        TickScheduler.update(this);
+        return true;
+    }
+
+    /**
+     * Stops counting the ticks until the task runs, keeping the remaining ones
+     *
+     * @return false if the task isn't pending
+     */
+    public boolean pause() {
+        synchronized (this) {
+            if (state != State.PENDING) return false;
+            state = State.PAUSED;
+        }
+
+        TickScheduler.update(this);
+        return true;
+    }
+
+    /**
+     * Continues counting the remaining ticks of a paused task
+     *
+     * @return false if the task isn't paused
+     */
+    public boolean resume() {
+        synchronized (this) {
+            if (state != State.PAUSED) return false;
+            state = State.PENDING;
+        }
+
+        TickScheduler.update(this);
+        return true;
+    }
+
+    public boolean isPending() {
+        return state == State.PENDING;
+    }
+
+    public boolean isPaused() {
+        return state == State.PAUSED;
+    }
+
+    public boolean isCancelled() {
+        return state == State.CANCELLED;
+    }
+
+    public boolean isDone() {
+        return state == State.DONE;
+    }
+
+    public boolean isRepeating() {
+        return period > 0;
+    }
+
+    /**
+     * Completed at the client thread once the task runs, or exceptionally if it threw an exception.
+     * Repeating tasks only complete when cancelled.
+     *
+     * @return the completion of the task, to wait for it from another thread
+     */
+    public CompletableFuture<Void> getFuture() {
+        return future;
+    }
+
+}
@@ -0,0 +1,242 @@
+/*
+ *  * Copyright © Wynntils - 2019.
+ */
+
+package com.wynntils.core.framework.scheduling;
+
+import com.wynntils.Reference;
+import net.minecraft.client.Minecraft;
+
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Runs tasks at the client thread after a number of client ticks.
+ *
+ * Tasks are kept at a hierarchical timing wheel, 4 wheels of 64 slots each one covering 64 times
+ * the ticks of the previous one, so scheduling and cancelling are O(1) and a tick only looks at the
+ * tasks that are due. Tasks of the outer wheels are moved inwards as their time gets closer.
+ *
+ * The scheduler time doesn't advance while the game is paused.
+ * Tasks can be scheduled, paused and cancelled from any thread, changes from other threads are
+ * applied at the start of the next tick.
+ */
+public class TickScheduler {
+
+    private static final int WHEEL_BITS = 6;
+    private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+    private static final int LEVELS = 4;
+    private static final long MAX_DELAY = (1L << (WHEEL_BITS * LEVELS)) - 1;
+
+    private static final Minecraft mc = Minecraft.getMinecraft();
+
+    private static final Slot[][] wheels = new Slot[LEVELS][WHEEL_SIZE];
+    private static final ConcurrentLinkedQueue<ScheduledTask> changes = new ConcurrentLinkedQueue<>();
+    private static final ArrayList<ScheduledTask> due = new ArrayList<>();
+
+    private static long now = 0;
+    private static volatile int pending = 0;
+    private static volatile int paused = 0;
+
+    static {
+        for (Slot[] wheel : wheels) {
+            for (int i = 0; i < WHEEL_SIZE; i++) wheel[i] = new Slot();
+        }
+    }
+
+    /**
+     * Runs a task once
+     *
+     * @param runnable the task
+     * @param delay the ticks to wait, 0 runs it at the next tick
+     * @return the scheduled task, to cancel it or wait for it
+     */
+    public static ScheduledTask schedule(Runnable runnable, int delay) {
+        ScheduledTask task = new ScheduledTask(runnable, Math.max(0, delay), 0);
+        update(task);
+        return task;
+    }
+
+    /**
+     * Runs a task repeatedly until it's cancelled
+     *
+     * @param runnable the task
+     * @param delay the ticks to wait before the first run, 0 runs it at the next tick
+     * @param period the ticks between runs, at least 1
+     * @return the scheduled task, to cancel it
+     */
+    public static ScheduledTask scheduleRepeating(Runnable runnable, int delay, int period) {
+        ScheduledTask task = new ScheduledTask(runnable, Math.max(0, delay), Math.max(1, period));
+        update(task);
+        return task;
+    }
+
+    /**
+     * @return the amount of tasks waiting to run
+     */
+    public static int getPendingTasks() {
+        return pending;
+    }
+
+    /**
+     * @return the amount of paused tasks
+     */
+    public static int getPausedTasks() {
+        return paused;
+    }
+
+    /**
+     * Advances the scheduler by a tick, called at the end of every client tick
+     */
+    public static void tick() {
+        ScheduledTask changed;
+        while ((changed = changes.poll()) != null) apply(changed);
+
+        if (mc.isGamePaused()) return;
+
+        now++;
+        for (int level = 1; level < LEVELS; level++) {
+            int shift = WHEEL_BITS * level;
+            if ((now & ((1L << shift) - 1)) != 0) break;
+
+            // the slot just reached is moved to the inner wheels
+            ScheduledTask task = detach(wheels[level][(int) (now >>> shift) & WHEEL_MASK]);
+            while (task != null) {
+                ScheduledTask next = task.next;
+                link(task);
+                task = next;
+            }
+        }
+
+        // copied first, the tasks can change the wheels while running
+        for (ScheduledTask task = detach(wheels[0][(int) now & WHEEL_MASK]); task != null; task = task.next) due.add(task);
+        for (ScheduledTask task : due) {
+            if (task.slot != null) continue; // rescheduled by a previous task
+
+            if (task.deadline > now) link(task);
+            else run(task);
+        }
+        due.clear();
+    }
+
+    static void update(ScheduledTask task) {
+        if (mc.isCallingFromMinecraftThread()) apply(task);
+        else changes.add(task);
+    }
+
+    /**
+     * Moves the task in or out of the wheels to match its state
+     */
+    private static void apply(ScheduledTask task) {
+        ScheduledTask.State state = task.state;
+        if (state == ScheduledTask.State.PAUSED) {
+            if (task.parked) return;
+
+            if (task.slot != null) {
+                task.remaining = (int) (task.deadline - now);
+                unlink(task);
+            } else if (task.isRepeating()) {
+                task.remaining = task.period; // paused while running, resumes a full period later
+            }
+            task.parked = true;
+            paused++;
+            return;
+        }
+
+        if (task.parked) {
+            task.parked = false;
+            paused--;
+        }
+
+        if (state == ScheduledTask.State.PENDING) {
+            if (task.slot != null) return;
+
+            task.deadline = now + Math.max(1, task.remaining);
+            link(task);
+            return;
+        }
+
+        if (task.slot != null) unlink(task);
+    }
+
+    private static void run(ScheduledTask task) {
+        if (task.state != ScheduledTask.State.PENDING) return;
+
+        try {
+            task.runnable.run();
+        } catch (Throwable ex) {
+            Reference.LOGGER.error("A scheduled task threw an exception", ex);
+            if (!task.isRepeating()) {
+                task.state = ScheduledTask.State.DONE;
+                task.future.completeExceptionally(ex);
+                return;
+            }
+        }
+
+        if (task.isRepeating()) {
+            if (task.state != ScheduledTask.State.PENDING || task.slot != null) return; // paused or cancelled while running
+
+            task.deadline = now + task.period;
+            link(task);
+            return;
+        }
+
+        synchronized (task) {
+            if (task.state == ScheduledTask.State.PENDING) task.state = ScheduledTask.State.DONE;
+        }
+        task.future.complete(null);
+    }
+
+    private static void link(ScheduledTask task) {
+        long delay = Math.min(task.deadline - now, MAX_DELAY);
+
+        int level = 0;
+        while (level < LEVELS - 1 && delay >= 1L << (WHEEL_BITS * (level + 1))) level++;
+
+        long target = now + delay;
+        wheels[level][(int) (target >>> (WHEEL_BITS * level)) & WHEEL_MASK].add(task);
+        pending++;
+    }
+
+    private static void unlink(ScheduledTask task) {
+        task.slot.remove(task);
+        pending--;
+    }
+
+    private static ScheduledTask detach(Slot slot) {
+        ScheduledTask head = slot.head;
+        slot.head = null;
+
+        for (ScheduledTask task = head; task != null; task = task.next) {
+            task.slot = null;
+            task.previous = null;
+            pending--;
+        }
+        return head;
+    }
+
+    static class Slot {
+
+        ScheduledTask head;
+
+        void add(ScheduledTask task) {
+            task.slot = this;
+            task.previous = null;
+            task.next = head;
+            if (head != null) head.previous = task;
+            head = task;
+        }
+
+        void remove(ScheduledTask task) {
+            if (task.previous != null) task.previous.next = task.next;
+            else head = task.next;
+            if (task.next != null) task.next.previous = task.previous;
+
+            task.slot = null;
+            task.previous = task.next = null;
+        }
+
+    }
+
+}
@@ -35,26 +35,29 @@ public class SettingsManager {
         configFolder.mkdirs(); //if the config folder doesn't exists create the directory
     }
 
+    /**
+     * @return the folder with the configs of the current user
+     */
+    static File getUserFolder() {
+        return new File(configFolder, Minecraft.getMinecraft().getSession().getPlayerID());
+    }
+
+    /**
+     * Queues the settings to be written and uploaded, see {@link SettingsStore}
+     */
     public static void saveSettings(ModuleContainer m, SettingsHolder obj) throws Exception {
         SettingsInfo info = obj.getClass().getAnnotation(SettingsInfo.class);
         if(info == null)
             if(!(obj instanceof Overlay))
                 return;
 
-        File f = new File(configFolder, Minecraft.getMinecraft().getSession().getPlayerID());
-        if(!f.exists()) f.mkdirs(); // check if the users folder exists
-
-        f = new File(f, m.getInfo().name() + "-" + (obj instanceof Overlay ? "overlay_" + ((Overlay)obj).displayName.toLowerCase().replace(" ", "_") : info.name()) + ".config");
-        if(!f.exists()) f.createNewFile(); // create the config file if it doesn't exists
+        File f = new File(getUserFolder(), m.getInfo().name() + "-" + (obj instanceof Overlay ? "overlay_" + ((Overlay)obj).displayName.toLowerCase().replace(" ", "_") : info.name()) + ".config");
 
-        //HeyZeer0: Writting to file
-        OutputStreamWriter fileWriter = new OutputStreamWriter(new FileOutputStream(f), StandardCharsets.UTF_8);
-        gson.toJson(obj, fileWriter);
-        fileWriter.close();
+        SettingsStore.markDirty(f, obj);
+    }
 
-        //HeyZeer0: Uploading file
-        if(WebManager.getAccount() != null)
-            WebManager.getAccount().uploadConfig(f.getName(), new String(Base64.getEncoder().encode(Files.readAllBytes(f.toPath())), StandardCharsets.UTF_8));
+    static String toJson(SettingsHolder obj) {
+        return gson.toJson(obj);
     }
 
     public static SettingsHolder getSettings(ModuleContainer m, SettingsHolder obj, SettingsContainer container) throws Exception {
@@ -63,7 +66,7 @@ public class SettingsManager {
             if(!(obj instanceof Overlay))
                 return obj;
 
-        File f = new File(configFolder, Minecraft.getMinecraft().getSession().getPlayerID());
+        File f = getUserFolder();
         if(!f.exists()) f.mkdirs(); // check if the users folder exists
 
         String configFile = m.getInfo().name() + "-" + (obj instanceof Overlay ? "overlay_" + ((Overlay)obj).displayName.toLowerCase().replace(" ", "_") : info.name()) + ".config";
@@ -80,15 +83,14 @@ public class SettingsManager {
         }
 
         if(!f.exists()) {
-            f.createNewFile();
             container.onCreateConfig();
             saveSettings(m, container.getHolder());
             return obj;
         }
 
-        InputStreamReader reader = new InputStreamReader(new FileInputStream(f), StandardCharsets.UTF_8);
-        SettingsHolder holder = gson.fromJson(new JsonReader(reader), obj.getClass());
-        reader.close();
+        byte[] content = Files.readAllBytes(f.toPath());
+        SettingsHolder holder = gson.fromJson(new JsonReader(new StringReader(new String(content, StandardCharsets.UTF_8))), obj.getClass());
+        if(!delete) SettingsStore.setPersisted(f, content);
 
         //HeyZeer0: deletes all files from the old format
         if(delete) f.delete();
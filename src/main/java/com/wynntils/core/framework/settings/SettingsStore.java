@@ -0,0 +1,248 @@
+/*
+ *  * Copyright © Wynntils - 2019.
+ */
+
+package com.wynntils.core.framework.settings;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.wynntils.core.framework.settings.instances.SettingsHolder;
+import com.wynntils.webapi.WebManager;
+import net.minecraft.client.Minecraft;
+import org.apache.commons.codec.digest.DigestUtils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes the changed settings behind the game.
+ *
+ * Saving a holder only marks it as dirty, the dirty holders are flushed once they stop changing
+ * for a second, or at most 5 seconds after the first change. Holders are serialized at the client
+ * thread and written from a background thread, replacing the config files atomically.
+ * Files whose content didn't change since they were last read or written are skipped.
+ *
+ * Uploads are tracked apart from the local writes, by the content the cloud last accepted for each
+ * file, which is kept across sessions. Files that differ from it are uploaded together as a single
+ * cloud configuration update, either when they're written or when they're read at the next session.
+ */
+public class SettingsStore {
+
+    private static final long DEBOUNCE = 1000;
+    private static final long MAX_DELAY = 5000;
+
+    private static final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder().setNameFormat("Wynntils Settings").setDaemon(true).build());
+
+    private static final LinkedHashMap<File, SettingsHolder> dirty = new LinkedHashMap<>();
+    private static final ConcurrentHashMap<File, String> persisted = new ConcurrentHashMap<>(); // sha1 of the file content
+    private static final ConcurrentHashMap<String, String> uploaded = new ConcurrentHashMap<>(); // file name -> sha1 of the uploaded content
+    private static final File uploadedFile = new File(SettingsManager.getUserFolder(), "uploaded.json");
+
+    private static final AtomicLong written = new AtomicLong(0);
+    private static final AtomicLong unchanged = new AtomicLong(0);
+
+    private static boolean flushScheduled = false;
+    private static long firstChange = 0;
+    private static long lastChange = 0;
+
+    static {
+        loadUploaded();
+        Runtime.getRuntime().addShutdownHook(new Thread(SettingsStore::flushNow, "Wynntils Settings Shutdown"));
+    }
+
+    /**
+     * Queues the holder to be written
+     *
+     * @param file the config file
+     * @param holder the settings
+     */
+    public static void markDirty(File file, SettingsHolder holder) {
+        synchronized (dirty) {
+            dirty.put(file, holder);
+
+            lastChange = System.currentTimeMillis();
+            if (flushScheduled) return;
+
+            flushScheduled = true;
+            firstChange = lastChange;
+            executor.schedule(SettingsStore::checkFlush, DEBOUNCE, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Remembers the content of a config file that was just read, so it isn't written again while unchanged
+     *
+     * @param file the config file
+     * @param content the file content
+     */
+    public static void setPersisted(File file, byte[] content) {
+        String hash = DigestUtils.sha1Hex(content);
+        persisted.put(file, hash);
+
+        // written at a previous session but never uploaded
+        if (!hash.equals(uploaded.get(file.getName())) && WebManager.getAccount() != null) {
+            WebManager.getAccount().uploadConfigs(Collections.singletonMap(file.getName(), encode(content)));
+        }
+    }
+
+    /**
+     * Remembers the files the cloud accepted, so they aren't uploaded again while unchanged
+     *
+     * @param configs the uploaded file names and their base64 encoded content
+     */
+    public static void setUploaded(Map<String, String> configs) {
+        configs.forEach((name, base64) -> uploaded.put(name, DigestUtils.sha1Hex(Base64.getDecoder().decode(base64))));
+        saveUploaded();
+    }
+
+    /**
+     * Writes and uploads every dirty holder right away, from the current thread, used when the game is closing
+     */
+    public static void flushNow() {
+        try {
+            executor.submit(() -> { }).get(5, TimeUnit.SECONDS); // lets a flush that already started finish first
+        } catch (Exception ignored) { }
+
+        persist(serialize());
+        if (WebManager.getAccount() != null) WebManager.getAccount().flushConfigs();
+    }
+
+    public static int getDirty() {
+        synchronized (dirty) {
+            return dirty.size();
+        }
+    }
+
+    public static long getWritten() {
+        return written.get();
+    }
+
+    /**
+     * @return the amount of flushed holders skipped because their content didn't change
+     */
+    public static long getUnchanged() {
+        return unchanged.get();
+    }
+
+    private static void checkFlush() {
+        synchronized (dirty) {
+            long now = System.currentTimeMillis();
+            long wait = Math.min(lastChange + DEBOUNCE, firstChange + MAX_DELAY) - now;
+            if (wait > 0) { // changed again since it was scheduled
+                executor.schedule(SettingsStore::checkFlush, wait, TimeUnit.MILLISECONDS);
+                return;
+            }
+        }
+
+        // the holders are only changed from the client thread
+        Minecraft.getMinecraft().addScheduledTask(() -> {
+            Map<File, String> contents = serialize();
+            executor.execute(() -> persist(contents));
+        });
+    }
+
+    private static Map<File, String> serialize() {
+        LinkedHashMap<File, SettingsHolder> holders;
+        synchronized (dirty) {
+            holders = new LinkedHashMap<>(dirty);
+            dirty.clear();
+            flushScheduled = false;
+        }
+
+        LinkedHashMap<File, String> contents = new LinkedHashMap<>();
+        for (Map.Entry<File, SettingsHolder> entry : holders.entrySet()) {
+            try {
+                contents.put(entry.getKey(), SettingsManager.toJson(entry.getValue()));
+            } catch (Exception ex) {
+                ex.printStackTrace();
+            }
+        }
+        return contents;
+    }
+
+    private static synchronized void persist(Map<File, String> contents) {
+        LinkedHashMap<String, String> uploads = new LinkedHashMap<>();
+        for (Map.Entry<File, String> entry : contents.entrySet()) {
+            File file = entry.getKey();
+            byte[] content = entry.getValue().getBytes(StandardCharsets.UTF_8);
+
+            String hash = DigestUtils.sha1Hex(content);
+            if (hash.equals(persisted.get(file))) {
+                unchanged.incrementAndGet();
+            } else {
+                try {
+                    write(file, content);
+                } catch (IOException ex) {
+                    ex.printStackTrace();
+                    continue;
+                }
+
+                persisted.put(file, hash);
+                written.incrementAndGet();
+            }
+
+            if (!hash.equals(uploaded.get(file.getName()))) uploads.put(file.getName(), encode(content));
+        }
+
+        if (!uploads.isEmpty() && WebManager.getAccount() != null) WebManager.getAccount().uploadConfigs(uploads);
+    }
+
+    private static String encode(byte[] content) {
+        return new String(Base64.getEncoder().encode(content), StandardCharsets.UTF_8);
+    }
+
+    private static void loadUploaded() {
+        if (!uploadedFile.exists()) return;
+
+        try (Reader reader = new InputStreamReader(new FileInputStream(uploadedFile), StandardCharsets.UTF_8)) {
+            JsonObject hashes = new JsonParser().parse(reader).getAsJsonObject();
+            hashes.entrySet().forEach(entry -> uploaded.put(entry.getKey(), entry.getValue().getAsString()));
+        } catch (Exception ex) {
+            ex.printStackTrace();
+        }
+    }
+
+    private static synchronized void saveUploaded() {
+        JsonObject hashes = new JsonObject();
+        uploaded.forEach(hashes::addProperty);
+
+        try {
+            write(uploadedFile, hashes.toString().getBytes(StandardCharsets.UTF_8));
+        } catch (IOException ex) {
+            ex.printStackTrace();
+        }
+    }
+
+    private static void write(File file, byte[] content) throws IOException {
+        File folder = file.getParentFile();
+        if (!folder.exists()) folder.mkdirs();
+
+        File temp = new File(folder, file.getName() + ".tmp");
+        Files.write(temp.toPath(), content);
+
+        try {
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+}
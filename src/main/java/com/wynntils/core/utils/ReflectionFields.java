@@ -13,6 +13,7 @@ import net.minecraft.client.network.NetHandlerPlayClient;
 import net.minecraft.client.renderer.ItemRenderer;
 import net.minecraft.network.NetworkManager;
 import net.minecraftforge.fml.common.eventhandler.Event;
+import net.minecraftforge.fml.common.eventhandler.EventBus;
 import net.minecraftforge.fml.relauncher.ReflectionHelper;
 
 import java.lang.reflect.Field;
@@ -26,6 +27,7 @@ public enum ReflectionFields {
     ChatLine_lineString(ChatLine.class, "lineString", "field_74541_b"),
     GuiChest_lowerChestInventory(GuiChest.class, "lowerChestInventory", "field_147015_w"),
     Event_phase(Event.class, "phase"),
+    EventBus_busID(EventBus.class, "busID"),
     GuiScreenHorseInventory_horseEntity(GuiScreenHorseInventory.class, "horseEntity", "field_147034_x"),
     GuiScreenHorseInventory_horseInventory(GuiScreenHorseInventory.class, "horseInventory", "field_147029_w"),
     GuiIngame_persistantChatGUI(GuiIngame.class, "persistantChatGUI", "field_73840_e"),
@@ -29,6 +29,7 @@ import java.math.BigInteger;
 import java.nio.channels.FileChannel;
 import java.security.MessageDigest;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -41,8 +42,6 @@ import java.util.regex.Pattern;
 public class Utils {
 
     private static final Pattern STRIP_COLOR_PATTERN = Pattern.compile("(?i)" + '\u00A7' + "[0-9A-FK-OR]");
-    public static HashMap<String, String> getItemFieldName = new HashMap<>();
-    public static HashMap<String, Integer> getItemFieldRank = new HashMap<>();
     private static ScheduledExecutorService executorService = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder().setNameFormat("Wynntils Utilities").build());
 
     /**
@@ -187,100 +186,121 @@ public class Utils {
         return result.toString();
     }
 
-    public static String getFieldName(String key) {
-        if(getItemFieldName.size() <= 0) {
-            getItemFieldName.put("Mana Regen", "manaRegen");
-            getItemFieldName.put("Health Regen", "healthRegen");
-            getItemFieldName.put("rawHealth Regen", "healthRegenRaw");
-
-            getItemFieldName.put("Life Steal", "lifeSteal");
-            getItemFieldName.put("Mana Steal", "manaSteal");
-            getItemFieldName.put("XP Bonus", "xpBonus");
-            getItemFieldName.put("Loot Bonus", "lootBonus");
-            getItemFieldName.put("Stealing", "emeraldStealing");
-            getItemFieldName.put("Strength", "strengthPoints");
-            getItemFieldName.put("Dexterity", "dexterityPoints");
-            getItemFieldName.put("Intelligence", "intelligencePoints");
-            getItemFieldName.put("Agility", "agilityPoints");
-            getItemFieldName.put("Defence", "defensePoints");
-            getItemFieldName.put("Thorns", "thorns");
-            getItemFieldName.put("Exploding", "exploding");
-            getItemFieldName.put("Walk Speed", "speed");
-            getItemFieldName.put("Attack Speed", "attackSpeedBonus");
-            getItemFieldName.put("tier Attack Speed", "attackSpeedBonus");
-            getItemFieldName.put("Poison", "poison");
-            getItemFieldName.put("Health", "healthBonus");
-            getItemFieldName.put("Soul Point Regen", "soulPoints");
-            getItemFieldName.put("Reflection", "reflection");
-            getItemFieldName.put("Spell Damage", "spellDamage");
-            getItemFieldName.put("rawSpell Damage", "spellDamageRaw");
-            getItemFieldName.put("Melee Damage", "damageBonus");
-            getItemFieldName.put("rawMelee Damage", "damageBonusRaw");
-
-            getItemFieldName.put("Fire Damage", "bonusFireDamage");
-            getItemFieldName.put("Water Damage", "bonusWaterDamage");
-            getItemFieldName.put("Air Damage", "bonusAirDamage");
-            getItemFieldName.put("Thunder Damage", "bonusThunderDamage");
-            getItemFieldName.put("Earth Damage", "bonusEarthDamage");
-            getItemFieldName.put("Fire Defence", "bonusFireDefense");
-            getItemFieldName.put("Water Defence", "bonusWaterDefense");
-            getItemFieldName.put("Air Defence", "bonusAirDefense");
-            getItemFieldName.put("Thunder Defence", "bonusThunderDefense");
-            getItemFieldName.put("Earth Defence", "bonusEarthDefense");
-        }
+    /**
+     * @return the identification field names keyed by their name at the item lore, like "Walk Speed" to "speed"
+     */
+    public static Map<String, String> getItemFieldNames() {
+        return ItemFieldTables.NAMES;
+    }
 
-        return getItemFieldName.getOrDefault(key, null);
+    public static String getFieldName(String key) {
+        return ItemFieldTables.NAMES.get(key);
     }
 
     public static Integer getFieldRank(String key) {
-        if (getItemFieldRank.size() <= 0) {
-            getItemFieldRank.put("attackSpeedBonus", 1);
-
-            getItemFieldRank.put("damageBonus", 2);
-            getItemFieldRank.put("damageBonusRaw", 3);
-
-            getItemFieldRank.put("spellDamage", 4);
-            getItemFieldRank.put("spellDamageRaw", 5);
-
-            getItemFieldRank.put("healthBonus", 6);
-            getItemFieldRank.put("healthRegen", 7);
-            getItemFieldRank.put("healthRegenRaw", 8);
-
-            getItemFieldRank.put("lifeSteal", 9);
-            getItemFieldRank.put("manaRegen", 10);
-            getItemFieldRank.put("manaSteal", 11);
-
-            getItemFieldRank.put("bonusEarthDamage", 12);
-            getItemFieldRank.put("bonusThunderDamage", 13);
-            getItemFieldRank.put("bonusWaterDamage", 14);
-            getItemFieldRank.put("bonusFireDamage", 15);
-            getItemFieldRank.put("bonusAirDamage", 16);
-
-            getItemFieldRank.put("bonusEarthDefense", 17);
-            getItemFieldRank.put("bonusThunderDefense", 18);
-            getItemFieldRank.put("bonusWaterDefense", 19);
-            getItemFieldRank.put("bonusFireDefense", 20);
-            getItemFieldRank.put("bonusAirDefense", 21);
-
-            getItemFieldRank.put("strengthPoints", 22);
-            getItemFieldRank.put("dexterityPoints", 23);
-            getItemFieldRank.put("intelligencePoints", 24);
-            getItemFieldRank.put("defensePoints", 25);
-            getItemFieldRank.put("agilityPoints", 26);
-
-            getItemFieldRank.put("speed", 27);
-            getItemFieldRank.put("exploding", 28);
-            getItemFieldRank.put("poison", 29);
-            getItemFieldRank.put("thorns", 30);
-            getItemFieldRank.put("reflection", 31);
-
-            getItemFieldRank.put("soulPoints", 32);
-            getItemFieldRank.put("emeraldStealing", 33);
-            getItemFieldRank.put("lootBonus", 34);
-            getItemFieldRank.put("xpBonus", 35);
+        return ItemFieldTables.RANKS.getOrDefault(key, 1000);
+    }
+
+    /**
+     * Built by the class loader the first time a table is used, so they're safely shared between threads
+     */
+    private static class ItemFieldTables {
+
+        static final Map<String, String> NAMES = Collections.unmodifiableMap(buildNames());
+        static final Map<String, Integer> RANKS = Collections.unmodifiableMap(buildRanks());
+
+        private static HashMap<String, String> buildNames() {
+            HashMap<String, String> names = new HashMap<>();
+            names.put("Mana Regen", "manaRegen");
+            names.put("Health Regen", "healthRegen");
+            names.put("rawHealth Regen", "healthRegenRaw");
+
+            names.put("Life Steal", "lifeSteal");
+            names.put("Mana Steal", "manaSteal");
+            names.put("XP Bonus", "xpBonus");
+            names.put("Loot Bonus", "lootBonus");
+            names.put("Stealing", "emeraldStealing");
+            names.put("Strength", "strengthPoints");
+            names.put("Dexterity", "dexterityPoints");
+            names.put("Intelligence", "intelligencePoints");
+            names.put("Agility", "agilityPoints");
+            names.put("Defence", "defensePoints");
+            names.put("Thorns", "thorns");
+            names.put("Exploding", "exploding");
+            names.put("Walk Speed", "speed");
+            names.put("Attack Speed", "attackSpeedBonus");
+            names.put("tier Attack Speed", "attackSpeedBonus");
+            names.put("Poison", "poison");
+            names.put("Health", "healthBonus");
+            names.put("Soul Point Regen", "soulPoints");
+            names.put("Reflection", "reflection");
+            names.put("Spell Damage", "spellDamage");
+            names.put("rawSpell Damage", "spellDamageRaw");
+            names.put("Melee Damage", "damageBonus");
+            names.put("rawMelee Damage", "damageBonusRaw");
+
+            names.put("Fire Damage", "bonusFireDamage");
+            names.put("Water Damage", "bonusWaterDamage");
+            names.put("Air Damage", "bonusAirDamage");
+            names.put("Thunder Damage", "bonusThunderDamage");
+            names.put("Earth Damage", "bonusEarthDamage");
+            names.put("Fire Defence", "bonusFireDefense");
+            names.put("Water Defence", "bonusWaterDefense");
+            names.put("Air Defence", "bonusAirDefense");
+            names.put("Thunder Defence", "bonusThunderDefense");
+            names.put("Earth Defence", "bonusEarthDefense");
+            return names;
+        }
+
+        private static HashMap<String, Integer> buildRanks() {
+            HashMap<String, Integer> ranks = new HashMap<>();
+            ranks.put("attackSpeedBonus", 1);
+
+            ranks.put("damageBonus", 2);
+            ranks.put("damageBonusRaw", 3);
+
+            ranks.put("spellDamage", 4);
+            ranks.put("spellDamageRaw", 5);
+
+            ranks.put("healthBonus", 6);
+            ranks.put("healthRegen", 7);
+            ranks.put("healthRegenRaw", 8);
+
+            ranks.put("lifeSteal", 9);
+            ranks.put("manaRegen", 10);
+            ranks.put("manaSteal", 11);
+
+            ranks.put("bonusEarthDamage", 12);
+            ranks.put("bonusThunderDamage", 13);
+            ranks.put("bonusWaterDamage", 14);
+            ranks.put("bonusFireDamage", 15);
+            ranks.put("bonusAirDamage", 16);
+
+            ranks.put("bonusEarthDefense", 17);
+            ranks.put("bonusThunderDefense", 18);
+            ranks.put("bonusWaterDefense", 19);
+            ranks.put("bonusFireDefense", 20);
+            ranks.put("bonusAirDefense", 21);
+
+            ranks.put("strengthPoints", 22);
+            ranks.put("dexterityPoints", 23);
+            ranks.put("intelligencePoints", 24);
+            ranks.put("defensePoints", 25);
+            ranks.put("agilityPoints", 26);
+
+            ranks.put("speed", 27);
+            ranks.put("exploding", 28);
+            ranks.put("poison", 29);
+            ranks.put("thorns", 30);
+            ranks.put("reflection", 31);
+
+            ranks.put("soulPoints", 32);
+            ranks.put("emeraldStealing", 33);
+            ranks.put("lootBonus", 34);
+            ranks.put("xpBonus", 35);
+            return ranks;
         }
 
-        return getItemFieldRank.getOrDefault(key, 1000);
     }
 
     //ported from a really really fucking old C# code because im lazy, dont judge -SHCM
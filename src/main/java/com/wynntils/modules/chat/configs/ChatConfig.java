@@ -33,6 +33,12 @@ public class ChatConfig extends SettingsClass {
     @Setting(displayName = "刷頻過濾器", description = "Should repeating messages stack rather than flood the chat?")
     public boolean blockChatSpamFilter = true;
 
+    @Setting(displayName = "Chat History", description = "Should old chat lines be saved to disk?\n\n§8Saved lines can be scrolled back to and searched with /chatsearch, even after restarting.")
+    public boolean saveChatHistory = true;
+
+    @Setting(displayName = "Chat Logs", description = "Should the chat be saved to a compressed file per day?\n\n§8The files are kept at wynntils/chat/logs.")
+    public boolean saveChatLogs = true;
+
     @Setting(displayName = "篩選[INFO]訊息", description = "Should Wynncraft Info messages be filtered?\n\n§8Messages starting with §4[Info]§8 will no longer appear in chat.")
     public boolean filterWynncraftInfo = true;
 
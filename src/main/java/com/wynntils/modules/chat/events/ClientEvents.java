@@ -10,6 +10,7 @@ import com.wynntils.core.utils.Pair;
 import com.wynntils.core.utils.ReflectionFields;
 import com.wynntils.modules.chat.configs.ChatConfig;
 import com.wynntils.modules.chat.managers.ChatManager;
+import com.wynntils.modules.chat.managers.TabManager;
 import com.wynntils.modules.chat.overlays.ChatOverlay;
 import com.wynntils.modules.chat.overlays.gui.ChatGUI;
 import net.minecraft.client.Minecraft;
@@ -47,6 +48,12 @@ public class ClientEvents implements Listener {
         ReflectionFields.GuiIngame_persistantChatGUI.setValue(Minecraft.getMinecraft().ingameGUI, new ChatOverlay());
     }
 
+    @SubscribeEvent
+    public void onWynnLeave(WynncraftServerEvent.Leave e) {
+        // called from the network thread
+        Minecraft.getMinecraft().addScheduledTask(TabManager::archiveTabs);
+    }
+
     @SubscribeEvent
     public void onSendMessage(ClientChatEvent e) {
         if(e.getMessage().startsWith("/")) return;
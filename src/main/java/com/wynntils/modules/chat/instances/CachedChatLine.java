@@ -0,0 +1,66 @@
+/*
+ *  * Copyright © Wynntils - 2019.
+ */
+
+package com.wynntils.modules.chat.instances;
+
+import com.wynntils.modules.chat.managers.ChatManager;
+import net.minecraft.client.gui.ChatLine;
+import net.minecraft.client.gui.FontRenderer;
+import net.minecraft.util.text.ITextComponent;
+
+/**
+ * A chat line that keeps its render ready text, chat lines don't change after being added
+ * so the component is only formatted again after {@link #invalidate()} is called
+ * (like when the spam filter updates the counter of the line).
+ */
+public class CachedChatLine extends ChatLine {
+
+    private final long time;
+
+    private String renderText = null;
+    private int width = -1;
+
+    public CachedChatLine(int updateCounter, ITextComponent lineString, int chatLineId) {
+        this(updateCounter, lineString, chatLineId, System.currentTimeMillis());
+    }
+
+    public CachedChatLine(int updateCounter, ITextComponent lineString, int chatLineId, long time) {
+        super(updateCounter, lineString, chatLineId);
+
+        this.time = time;
+    }
+
+    /**
+     * @return when the line was received, in milliseconds
+     */
+    public long getTime() {
+        return time;
+    }
+
+    /**
+     * @return the formatted text to be rendered
+     */
+    public String getRenderText() {
+        if (renderText == null) renderText = ChatManager.renderMessage(getChatComponent()).getFormattedText();
+        return renderText;
+    }
+
+    /**
+     * @param fontRenderer the renderer used to draw the line
+     * @return the width of the rendered text
+     */
+    public int getWidth(FontRenderer fontRenderer) {
+        if (width == -1) width = fontRenderer.getStringWidth(getRenderText());
+        return width;
+    }
+
+    /**
+     * Drops the cached text, needs to be called after the line component is changed
+     */
+    public void invalidate() {
+        renderText = null;
+        width = -1;
+    }
+
+}
@@ -0,0 +1,94 @@
+/*
+ *  * Copyright © Wynntils - 2019.
+ */
+
+package com.wynntils.modules.chat.instances;
+
+import net.minecraft.client.gui.ChatLine;
+
+import java.util.AbstractList;
+
+/**
+ * A fixed size ring of chat lines, the index 0 is the newest line.
+ * Adding a line is O(1), when the ring is full the oldest line is evicted and returned.
+ */
+public class ChatBuffer extends AbstractList<ChatLine> {
+
+    private final ChatLine[] lines;
+    private int head = 0; // position of the newest line
+    private int size = 0;
+
+    public ChatBuffer(int capacity) {
+        lines = new ChatLine[capacity];
+    }
+
+    /**
+     * @param line the line to be added as the newest one
+     * @return the line that was evicted to make room, or null if there was room
+     */
+    public ChatLine addFirst(ChatLine line) {
+        head = (head - 1 + lines.length) % lines.length;
+
+        ChatLine evicted = size == lines.length ? lines[head] : null;
+        lines[head] = line;
+        if (size < lines.length) size++;
+
+        modCount++;
+        return evicted;
+    }
+
+    @Override
+    public void add(int index, ChatLine line) {
+        if (index != 0) throw new UnsupportedOperationException("Lines can only be added as the newest one");
+
+        addFirst(line);
+    }
+
+    @Override
+    public ChatLine get(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+
+        return lines[(head + index) % lines.length];
+    }
+
+    @Override
+    public ChatLine set(int index, ChatLine line) {
+        ChatLine old = get(index);
+        lines[(head + index) % lines.length] = line;
+        return old;
+    }
+
+    /**
+     * Removing is O(n), only used when a line is deleted by its id
+     */
+    @Override
+    public ChatLine remove(int index) {
+        ChatLine removed = get(index);
+
+        for (int i = index; i < size - 1; i++) {
+            lines[(head + i) % lines.length] = lines[(head + i + 1) % lines.length];
+        }
+        lines[(head + size - 1) % lines.length] = null;
+        size--;
+
+        modCount++;
+        return removed;
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < lines.length; i++) lines[i] = null;
+        head = size = 0;
+        modCount++;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return lines.length;
+    }
+
+}
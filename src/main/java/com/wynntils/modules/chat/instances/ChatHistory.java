@@ -0,0 +1,505 @@
+/*
+ *  * Copyright © Wynntils - 2019.
+ */
+
+package com.wynntils.modules.chat.instances;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.gson.JsonParseException;
+import com.wynntils.Reference;
+import net.minecraft.client.gui.ChatLine;
+import net.minecraft.util.text.ITextComponent;
+import net.minecraft.util.text.TextComponentString;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The chat lines of a tab that no longer fit in memory, kept at the /chat directory.
+ *
+ * Lines are appended to a log, one record per line ({@code time \t plain text \t component json}),
+ * and the offset of every record is kept at an index file (8 bytes per line) read on demand,
+ * so any line can be read with two seeks and searches only stream through the log.
+ * Once the log has more than {@link #MAX_LINES} lines the oldest ones are trimmed, rewriting both files.
+ * Line indexes are relative to the files, 0 is the oldest line kept, {@link #getFirstIndex()} turns
+ * them into absolute indexes that don't change when lines are trimmed.
+ *
+ * The files are only touched by a background thread. The history is loaded the first time its size
+ * is asked for, and lines that aren't cached yet are read in blocks around the requested one, so the
+ * chat shows them a few frames later instead of reading the disk while rendering.
+ */
+public class ChatHistory {
+
+    private static final File HISTORY_FOLDER = new File(Reference.MOD_STORAGE_ROOT, "chat");
+    private static final int FLUSH_SIZE = 16384;
+    private static final int CACHE_SIZE = 256;
+    private static final int PREFETCH_SIZE = 64;
+    private static final int MAX_LINES = 100000;
+    private static final int TRIM_SIZE = 25000; // trimmed at once, so the files are rarely rewritten
+
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor(
+            new ThreadFactoryBuilder().setNameFormat("Wynntils Chat History").setDaemon(true).build());
+
+    private final String name;
+    private final File folder, dataFile, indexFile;
+
+    // only used by the history thread
+    private int count = 0, flushedCount = 0; // the lines, and the ones whose offset is at the index file
+    private long[] pendingOffsets = new long[1024];
+    private long length = 0;
+    private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+    private RandomAccessFile reader = null, indexReader = null;
+    private boolean loaded = false, broken = false;
+
+    private final LinkedHashMap<Integer, ChatLine> cache = new LinkedHashMap<Integer, ChatLine>(CACHE_SIZE, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, ChatLine> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+    private final Set<Integer> prefetching = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean loadQueued = false, ready = false;
+    private volatile int available = 0; // the archived lines, once loaded
+    private volatile int firstIndex = 0; // the lines trimmed since the history was opened
+    private final AtomicInteger queued = new AtomicInteger(0); // the lines waiting to be archived
+
+    public ChatHistory(String name) {
+        this.name = name;
+        this.folder = new File(HISTORY_FOLDER, name.replaceAll("[\\\\/:*?\"<>|.]", "_"));
+        this.dataFile = new File(folder, "history.log");
+        this.indexFile = new File(folder, "history.idx");
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the absolute index of the oldest line kept, the lines before it were trimmed
+     */
+    public int getFirstIndex() {
+        return firstIndex;
+    }
+
+    /**
+     * Waits for the queued writes of every history, used when the game is closing
+     *
+     * @param millis the maximum time to wait
+     */
+    public static void awaitWrites(long millis) {
+        try {
+            executor.submit(() -> { }).get(millis, TimeUnit.MILLISECONDS);
+        } catch (Exception ignored) { }
+    }
+
+    /**
+     * Starts loading the history in the background, it's reported empty until it's loaded
+     *
+     * @return the amount of archived lines
+     */
+    public int size() {
+        if (!loadQueued) {
+            loadQueued = true;
+            executor.execute(() -> {
+                if (load()) prefetch(Math.max(0, count - PREFETCH_SIZE));
+            });
+        }
+
+        return available + queued.get();
+    }
+
+    /**
+     * Archives a line as the newest one
+     *
+     * @param line the line to be archived
+     */
+    public void append(ChatLine line) {
+        ITextComponent component = line.getChatComponent();
+        String plain = component.getUnformattedText().replace('\t', ' ').replace('\r', ' ').replace('\n', ' ');
+        long time = line instanceof CachedChatLine ? ((CachedChatLine) line).getTime() : System.currentTimeMillis();
+
+        byte[] record = (time + "\t" + plain + "\t" + ITextComponent.Serializer.componentToJson(component) + "\n").getBytes(StandardCharsets.UTF_8);
+        queued.incrementAndGet();
+        executor.execute(() -> {
+            if (load()) {
+                addOffset(length);
+                pending.write(record, 0, record.length);
+                length += record.length;
+                available = count;
+
+                if (pending.size() >= FLUSH_SIZE) {
+                    write();
+                    trim();
+                }
+            }
+            queued.decrementAndGet();
+        });
+    }
+
+    /**
+     * Lines that aren't cached are read in the background
+     *
+     * @param index the line index, 0 being the oldest line kept
+     * @return the line, or null if it doesn't exist or wasn't read yet
+     */
+    public ChatLine get(int index) {
+        synchronized (cache) {
+            ChatLine line = cache.get(index);
+            if (line != null) return line;
+        }
+        if (!ready || index < 0 || index >= available) return null;
+
+        int block = index / PREFETCH_SIZE;
+        if (prefetching.add(block)) {
+            executor.execute(() -> {
+                try {
+                    prefetch(block * PREFETCH_SIZE);
+                } finally {
+                    prefetching.remove(block);
+                }
+            });
+        }
+        return null;
+    }
+
+    /**
+     * Streams through the whole log looking for lines containing the query, ignoring case
+     *
+     * @param query the text to look for
+     * @param limit the maximum amount of results
+     * @return the newest matching lines, newest first, completed at the history thread
+     */
+    public CompletableFuture<List<SearchResult>> search(String query, int limit) {
+        return CompletableFuture.supplyAsync(() -> searchLog(query, limit), executor);
+    }
+
+    /**
+     * Writes the pending lines to disk in the background
+     */
+    public void flush() {
+        executor.execute(this::write);
+    }
+
+    public void close() {
+        synchronized (cache) {
+            cache.clear();
+        }
+
+        executor.execute(() -> {
+            write();
+            closeReaders();
+        });
+    }
+
+    private List<SearchResult> searchLog(String query, int limit) {
+        if (!load() || count == 0) return new ArrayList<>();
+
+        write();
+        String needle = query.toLowerCase(Locale.ROOT);
+        ArrayDeque<SearchResult> found = new ArrayDeque<>();
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(new FileInputStream(dataFile), StandardCharsets.UTF_8))) {
+            String record;
+            for (int index = 0; index < count && (record = in.readLine()) != null; index++) {
+                int timeEnd = record.indexOf('\t'), plainEnd = record.indexOf('\t', timeEnd + 1);
+                if (timeEnd == -1 || plainEnd == -1) continue;
+
+                String plain = record.substring(timeEnd + 1, plainEnd);
+                if (!plain.toLowerCase(Locale.ROOT).contains(needle)) continue;
+
+                found.addFirst(new SearchResult(firstIndex + index, Long.parseLong(record.substring(0, timeEnd)), plain));
+                if (found.size() > limit) found.removeLast();
+            }
+        } catch (IOException | NumberFormatException ex) {
+            ex.printStackTrace();
+        }
+
+        return new ArrayList<>(found);
+    }
+
+    /**
+     * Reads a block of lines into the cache
+     *
+     * @param from the first absolute line index
+     */
+    private void prefetch(int from) {
+        int to = Math.min(count, from + PREFETCH_SIZE);
+        if (broken || from >= to) return;
+
+        write();
+        if (broken) return;
+
+        try {
+            if (reader == null) reader = new RandomAccessFile(dataFile, "r");
+
+            // including the start of the next line, where the block ends
+            long[] offsets = readOffsets(from, Math.min(count, to + 1));
+            long start = offsets[0];
+            long end = to < count ? offsets[to - from] : length;
+            byte[] bytes = new byte[(int) (end - start)];
+            reader.seek(start);
+            reader.readFully(bytes);
+
+            for (int index = from; index < to; index++) {
+                int recordStart = (int) (offsets[index - from] - start);
+                int recordEnd = index + 1 < to ? (int) (offsets[index + 1 - from] - start) : bytes.length;
+
+                ChatLine line = parse(new String(bytes, recordStart, recordEnd - recordStart, StandardCharsets.UTF_8).trim());
+                if (line == null) continue;
+
+                synchronized (cache) {
+                    cache.put(index, line);
+                }
+            }
+        } catch (IOException ex) {
+            ex.printStackTrace();
+        }
+    }
+
+    private static ChatLine parse(String record) {
+        int timeEnd = record.indexOf('\t'), plainEnd = record.indexOf('\t', timeEnd + 1);
+        if (timeEnd == -1 || plainEnd == -1) return null;
+
+        ITextComponent component;
+        try {
+            component = ITextComponent.Serializer.jsonToComponent(record.substring(plainEnd + 1));
+        } catch (JsonParseException ex) {
+            component = null;
+        }
+        if (component == null) component = new TextComponentString(record.substring(timeEnd + 1, plainEnd));
+
+        try {
+            return new CachedChatLine(0, component, 0, Long.parseLong(record.substring(0, timeEnd)));
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * @return the offsets of the written lines between from (inclusive) and to (exclusive)
+     */
+    private long[] readOffsets(int from, int to) throws IOException {
+        if (indexReader == null) indexReader = new RandomAccessFile(indexFile, "r");
+
+        byte[] bytes = new byte[(to - from) * 8];
+        indexReader.seek(from * 8L);
+        indexReader.readFully(bytes);
+
+        long[] offsets = new long[to - from];
+        ByteBuffer.wrap(bytes).asLongBuffer().get(offsets);
+        return offsets;
+    }
+
+    private void write() {
+        if (pending.size() == 0 && flushedCount == count) return;
+
+        try {
+            if (!folder.exists()) folder.mkdirs();
+
+            if (pending.size() != 0) {
+                try (FileOutputStream out = new FileOutputStream(dataFile, true)) {
+                    pending.writeTo(out);
+                }
+            }
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(indexFile, true)))) {
+                for (int i = 0; i < count - flushedCount; i++) out.writeLong(pendingOffsets[i]);
+            }
+            flushedCount = count;
+        } catch (IOException ex) {
+            ex.printStackTrace();
+            ready = false;
+            broken = true; // the log and the index can't be trusted anymore, they are checked again at the next load
+        } finally {
+            pending.reset();
+            if (pendingOffsets.length > 1024) pendingOffsets = new long[1024]; // grown by a load
+        }
+    }
+
+    /**
+     * Removes the oldest lines once there are too many, copying the newest ones to new files
+     */
+    private void trim() {
+        if (broken || count <= MAX_LINES) return;
+
+        write();
+        if (broken) return;
+
+        int removed = count - MAX_LINES + TRIM_SIZE;
+        File dataCopy = new File(folder, "history.log.tmp"), indexCopy = new File(folder, "history.idx.tmp");
+        long base;
+        try {
+            base = readOffsets(removed, removed + 1)[0];
+            closeReaders();
+
+            try (InputStream in = new FileInputStream(dataFile); OutputStream out = new FileOutputStream(dataCopy)) {
+                skipFully(in, base);
+
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((read = in.read(buffer)) != -1) out.write(buffer, 0, read);
+            }
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)));
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(indexCopy)))) {
+                skipFully(in, removed * 8L);
+                for (int i = removed; i < count; i++) out.writeLong(in.readLong() - base);
+            }
+
+            // without an index the log is scanned again at the next load, in case the game closes in between
+            Files.delete(indexFile.toPath());
+            Files.move(dataCopy.toPath(), dataFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            Files.move(indexCopy.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException ex) {
+            ex.printStackTrace();
+            ready = false;
+            broken = true;
+            return;
+        }
+
+        count -= removed;
+        flushedCount = count;
+        length -= base;
+        synchronized (cache) {
+            cache.clear();
+        }
+        firstIndex += removed;
+        available = count;
+    }
+
+    private void closeReaders() {
+        try {
+            if (reader != null) reader.close();
+            if (indexReader != null) indexReader.close();
+        } catch (IOException ignored) { }
+        reader = null;
+        indexReader = null;
+    }
+
+    private boolean load() {
+        if (loaded) return !broken;
+        loaded = true;
+
+        try {
+            long dataLength = dataFile.exists() ? dataFile.length() : 0;
+
+            int indexed = 0;
+            long lastOffset = 0;
+            if (indexFile.exists()) {
+                try (RandomAccessFile index = new RandomAccessFile(indexFile, "rw")) {
+                    // entries written before the log was cut (like by a crash) point past its end
+                    indexed = dataLength == 0 ? 0 : (int) (index.length() / 8);
+                    while (indexed > 0) {
+                        index.seek((indexed - 1) * 8L);
+                        lastOffset = index.readLong();
+                        if (lastOffset < dataLength) break;
+
+                        indexed--;
+                    }
+
+                    // the last indexed record is scanned again since its end isn't known,
+                    // any record written after the index was gets indexed here
+                    if (indexed > 0) indexed--;
+                    else lastOffset = 0;
+                    index.setLength(indexed * 8L);
+                }
+            }
+
+            count = flushedCount = indexed;
+            length = scan(lastOffset, dataLength);
+
+            if (length < dataLength) { // drops a partially written record
+                try (RandomAccessFile file = new RandomAccessFile(dataFile, "rw")) {
+                    file.setLength(length);
+                }
+            }
+
+            write(); // the scanned offsets
+            if (broken) return false;
+
+            available = count;
+            ready = true;
+            trim();
+            return !broken;
+        } catch (IOException ex) {
+            ex.printStackTrace();
+            broken = true;
+            return false;
+        }
+    }
+
+    /**
+     * Indexes every complete record between the provided positions
+     *
+     * @return the position after the last complete record
+     */
+    private long scan(long from, long to) throws IOException {
+        if (from >= to) return from;
+
+        long start = from;
+        try (InputStream in = new BufferedInputStream(new FileInputStream(dataFile))) {
+            skipFully(in, from);
+
+            long position = from;
+            int read;
+            while (position < to && (read = in.read()) != -1) {
+                position++;
+                if (read != '\n') continue;
+
+                addOffset(start);
+                start = position;
+            }
+        }
+        return start;
+    }
+
+    private static void skipFully(InputStream in, long amount) throws IOException {
+        long skipped = 0;
+        while (skipped < amount) {
+            long skip = in.skip(amount - skipped);
+            if (skip <= 0) throw new EOFException();
+            skipped += skip;
+        }
+    }
+
+    private void addOffset(long offset) {
+        int pendingCount = count - flushedCount;
+        if (pendingCount == pendingOffsets.length) pendingOffsets = Arrays.copyOf(pendingOffsets, pendingCount * 2);
+        pendingOffsets[pendingCount] = offset;
+        count++;
+    }
+
+    public static class SearchResult {
+
+        private final int index;
+        private final long time;
+        private final String text;
+
+        public SearchResult(int index, long time, String text) {
+            this.index = index;
+            this.time = time;
+            this.text = text;
+        }
+
+        /**
+         * @return the absolute index of the line
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        public long getTime() {
+            return time;
+        }
+
+        public String getText() {
+            return text;
+        }
+
+    }
+
+}
@@ -5,16 +5,21 @@
 package com.wynntils.modules.chat.instances;
 
 import com.wynntils.core.utils.Pair;
+import com.wynntils.modules.chat.configs.ChatConfig;
 import net.minecraft.client.gui.ChatLine;
 import net.minecraft.util.text.ITextComponent;
 
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
 import java.util.regex.Pattern;
 
 public class ChatTab implements Comparable<ChatTab> {
 
+    private static final int MEMORY_LINES = 500;
+
     //stored variables
     String name, autoCommand;
     int orderNb;
@@ -23,7 +28,8 @@ public class ChatTab implements Comparable<ChatTab> {
     HashMap<String, Boolean> regexSettings;
 
     //not stored ones
-    transient List<ChatLine> currentMessages = new ArrayList<>();
+    transient ChatBuffer currentMessages = new ChatBuffer(MEMORY_LINES);
+    transient ChatHistory history = null;
     transient List<String> sentMessages = new ArrayList<>();
     transient Pair<Integer, Integer> currentXAxis = new Pair<>(0, 0);
     transient boolean hasMentions = false;
@@ -31,6 +37,7 @@ public class ChatTab implements Comparable<ChatTab> {
 
     //spam filter
     transient ITextComponent lastMessage = null;
+    transient String lastFormattedMessage = null;
     transient int lastAmount = 2;
 
     public ChatTab(String name, String regexFinder, HashMap<String, Boolean> regexSettings, String autoCommand, boolean lowPriority, int orderNb) {
@@ -67,6 +74,10 @@ public class ChatTab implements Comparable<ChatTab> {
         return regexFinder.pattern();
     }
 
+    public Pattern getPattern() {
+        return regexFinder;
+    }
+
 
     public void setRegex(String regex) {
         this.regexFinder = Pattern.compile(regex);
@@ -80,17 +91,102 @@ public class ChatTab implements Comparable<ChatTab> {
         return lastMessage;
     }
 
+    public String getLastFormattedMessage() {
+        return lastFormattedMessage;
+    }
+
     public int getOrderNb() {
         return orderNb;
     }
 
-    public void updateLastMessageAndAmount(ITextComponent lastMessage, int lastAmount) {
-        this.lastMessage = lastMessage; this.lastAmount = lastAmount;
+    public void updateLastMessageAndAmount(ITextComponent lastMessage, String lastFormattedMessage, int lastAmount) {
+        this.lastMessage = lastMessage; this.lastFormattedMessage = lastFormattedMessage; this.lastAmount = lastAmount;
     }
 
     public void addMessage(ChatLine msg) {
         hasNewMessages = true;
-        currentMessages.add(0, msg);
+
+        ChatLine evicted = currentMessages.addFirst(msg);
+        if (evicted != null && ChatConfig.INSTANCE.saveChatHistory) getHistory().append(evicted);
+    }
+
+    /**
+     * @return the amount of lines in memory and in the history
+     */
+    public int getTotalLines() {
+        return currentMessages.size() + (ChatConfig.INSTANCE.saveChatHistory ? getHistory().size() : 0);
+    }
+
+    /**
+     * @param index the line index, 0 is the newest line
+     * @return the line, or null while it's being read from the history
+     */
+    public ChatLine getLine(int index) {
+        if (index < currentMessages.size()) return currentMessages.get(index);
+        if (!ChatConfig.INSTANCE.saveChatHistory) return null;
+
+        ChatHistory history = getHistory();
+        return history.get(history.size() - 1 - (index - currentMessages.size()));
+    }
+
+    /**
+     * @param absoluteIndex the index returned by {@link #search(String, int)}
+     * @return the line index, 0 being the newest line
+     */
+    public int toLineIndex(int absoluteIndex) {
+        int firstIndex = ChatConfig.INSTANCE.saveChatHistory ? getHistory().getFirstIndex() : 0;
+        return getTotalLines() - 1 - (absoluteIndex - firstIndex);
+    }
+
+    /**
+     * Searches the lines in memory and in the history, ignoring case
+     *
+     * @param query the text to look for
+     * @param limit the maximum amount of results
+     * @return the newest matching lines, newest first, using absolute indexes that don't change when lines are added
+     *         or trimmed from the history. Completed at the history thread when the history is searched
+     */
+    public CompletableFuture<List<ChatHistory.SearchResult>> search(String query, int limit) {
+        String needle = query.toLowerCase(Locale.ROOT);
+        boolean saveHistory = ChatConfig.INSTANCE.saveChatHistory;
+        int archived = saveHistory ? getHistory().size() : 0;
+        int firstIndex = saveHistory ? getHistory().getFirstIndex() : 0;
+
+        List<ChatHistory.SearchResult> results = new ArrayList<>();
+        for (int i = 0; i < currentMessages.size() && results.size() < limit; i++) {
+            ChatLine line = currentMessages.get(i);
+            String text = line.getChatComponent().getUnformattedText();
+            if (!text.toLowerCase(Locale.ROOT).contains(needle)) continue;
+
+            long time = line instanceof CachedChatLine ? ((CachedChatLine) line).getTime() : System.currentTimeMillis();
+            results.add(new ChatHistory.SearchResult(firstIndex + archived + currentMessages.size() - 1 - i, time, text));
+        }
+
+        if (archived == 0 || results.size() >= limit) return CompletableFuture.completedFuture(results);
+        return getHistory().search(query, limit - results.size()).thenApply(archivedResults -> {
+            results.addAll(archivedResults);
+            return results;
+        });
+    }
+
+    /**
+     * Moves every line in memory to the history, oldest first
+     */
+    public void archiveMessages() {
+        if (currentMessages == null || !ChatConfig.INSTANCE.saveChatHistory) return;
+
+        ChatHistory history = getHistory();
+        for (int i = currentMessages.size() - 1; i >= 0; i--) history.append(currentMessages.get(i));
+        currentMessages.clear();
+        history.flush();
+    }
+
+    private ChatHistory getHistory() {
+        if (history != null && history.getName().equals(name)) return history;
+
+        if (history != null) history.close();
+        history = new ChatHistory(name);
+        return history;
     }
 
     public boolean addSentMessage(String msg) {
@@ -108,7 +204,7 @@ public class ChatTab implements Comparable<ChatTab> {
 
     public void clearMessages(boolean clearSent) {
         if(sentMessages == null) sentMessages = new ArrayList<>();
-        if(currentMessages == null) currentMessages = new ArrayList<>();
+        if(currentMessages == null) currentMessages = new ChatBuffer(MEMORY_LINES);
         //this thing above avoids the gson glitch that sets both arrays to null
 
         if(clearSent) sentMessages.clear();
@@ -120,7 +216,11 @@ public class ChatTab implements Comparable<ChatTab> {
     }
 
     public boolean regexMatches(ITextComponent msg) {
-        return regexFinder.matcher(msg.getFormattedText()).find();
+        return regexMatches(msg.getFormattedText());
+    }
+
+    public boolean regexMatches(String formattedText) {
+        return regexFinder.matcher(formattedText).find();
     }
 
     public Pair<Integer, Integer> getCurrentXAxis() {
@@ -0,0 +1,129 @@
+/*
+ *  * Copyright © Wynntils - 2019.
+ */
+
+package com.wynntils.modules.chat.instances;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Matches a chat message against the regex of every tab at once.
+ *
+ * Every tab regex is wrapped in an optional lookahead of a single combined pattern,
+ * so one match over the formatted message tells which tabs matched by checking
+ * which lookahead groups captured something.
+ * Regexes that can't be safely combined (inline flags, named groups and back references
+ * would leak into or clash with the other tabs) are matched on their own.
+ *
+ * The router is immutable, it's rebuilt when the tabs or their regexes change.
+ */
+public class TabRouter {
+
+    private static final Pattern NOT_COMBINABLE = Pattern.compile("\\(\\?[a-zA-Z-]+[):]|\\(\\?<[a-zA-Z]|\\\\[1-9k]");
+
+    private final List<ChatTab> tabs;
+    private final Pattern[] patterns;
+    private final int[] groups;
+    private final Pattern combined;
+
+    public TabRouter(List<ChatTab> tabs) {
+        this.tabs = new ArrayList<>(tabs);
+        this.patterns = new Pattern[tabs.size()];
+        this.groups = new int[tabs.size()];
+
+        StringBuilder regex = new StringBuilder();
+        int group = 1;
+        for (int i = 0; i < patterns.length; i++) {
+            patterns[i] = this.tabs.get(i).getPattern();
+
+            String pattern = patterns[i].pattern();
+            if (NOT_COMBINABLE.matcher(pattern).find()) {
+                groups[i] = -1;
+                continue;
+            }
+
+            regex.append("(?:(?=[\\s\\S]*?(").append(pattern).append("))|)");
+            groups[i] = group;
+            group += 1 + patterns[i].matcher("").groupCount();
+        }
+
+        this.combined = regex.length() == 0 ? null : compile(regex.toString());
+        if (combined == null) {
+            for (int i = 0; i < groups.length; i++) groups[i] = -1;
+        }
+    }
+
+    /**
+     * @param current the tabs currently available
+     * @return if the router was built from other tabs or regexes and needs to be rebuilt
+     */
+    public boolean isStale(List<ChatTab> current) {
+        if (current.size() != tabs.size()) return true;
+
+        for (int i = 0; i < patterns.length; i++) {
+            ChatTab tab = current.get(i);
+            if (tab != tabs.get(i) || tab.getPattern() != patterns[i]) return true;
+        }
+        return false;
+    }
+
+    /**
+     * @param formattedText the formatted message
+     * @return the indexes of every tab whose regex matches the message
+     */
+    public BitSet match(String formattedText) {
+        BitSet result = new BitSet(tabs.size());
+
+        if (combined != null) {
+            Matcher matcher = combined.matcher(formattedText);
+            if (matcher.lookingAt()) {
+                for (int i = 0; i < groups.length; i++) {
+                    if (groups[i] != -1 && matcher.start(groups[i]) != -1) result.set(i);
+                }
+            }
+        }
+
+        for (int i = 0; i < groups.length; i++) {
+            if (groups[i] == -1 && patterns[i].matcher(formattedText).find()) result.set(i);
+        }
+
+        return result;
+    }
+
+    /**
+     * Low priority tabs only receive the message if no other tab matched it
+     *
+     * @param formattedText the formatted message
+     * @return the tabs that should receive the message, in tab order
+     */
+    public List<ChatTab> route(String formattedText) {
+        BitSet matches = match(formattedText);
+
+        List<ChatTab> result = new ArrayList<>();
+        collect(matches, false, result);
+        if (result.isEmpty()) collect(matches, true, result);
+
+        return result;
+    }
+
+    private void collect(BitSet matches, boolean lowPriority, List<ChatTab> result) {
+        for (int i = matches.nextSetBit(0); i >= 0; i = matches.nextSetBit(i + 1)) {
+            ChatTab tab = tabs.get(i);
+            if (tab.isLowPriority() == lowPriority) result.add(tab);
+        }
+    }
+
+    private static Pattern compile(String regex) {
+        try {
+            return Pattern.compile(regex);
+        } catch (PatternSyntaxException ex) {
+            return null;
+        }
+    }
+
+}
@@ -0,0 +1,205 @@
+/*
+ *  * Copyright © Wynntils - 2019.
+ */
+
+package com.wynntils.modules.chat.managers;
+
+import com.wynntils.Reference;
+import com.wynntils.modules.chat.configs.ChatConfig;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Logs the received chat lines from a background thread.
+ *
+ * Lines are queued by the client thread and written in batches, both to the game log
+ * and to a compressed file per day at the /chat/logs directory.
+ * Every batch is appended as a new gzip member, so files stay readable even if the game
+ * is closed in the middle of a day. When the queue is full new lines are dropped and counted.
+ * When the game closes, the thread writes the lines queued so far and stops.
+ */
+public class ChatLogWriter {
+
+    private static final File LOG_FOLDER = new File(new File(Reference.MOD_STORAGE_ROOT, "chat"), "logs");
+    private static final Logger LOGGER = LogManager.getFormatterLogger("chat");
+
+    private static final int QUEUE_SIZE = 4096;
+    private static final int BATCH_SIZE = 512;
+    private static final long BATCH_WAIT = 2000;
+    private static final long SHUTDOWN_WAIT = 5000;
+
+    private static final ArrayBlockingQueue<Entry> queue = new ArrayBlockingQueue<>(QUEUE_SIZE);
+    private static final AtomicLong dropped = new AtomicLong(0);
+    private static final AtomicLong written = new AtomicLong(0);
+
+    private static final DateTimeFormatter dayFormat = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private static final DateTimeFormatter timeFormat = DateTimeFormatter.ofPattern("HH:mm:ss");
+
+    // queued at shutdown, the thread stops once it's reached
+    private static final Entry STOP = new Entry(0, null);
+
+    private static volatile Thread thread = null;
+
+    /**
+     * Queues a chat line to be logged
+     *
+     * @param text the unformatted line
+     */
+    public static void log(String text) {
+        if (thread == null) start();
+
+        if (!queue.offer(new Entry(System.currentTimeMillis(), text))) dropped.incrementAndGet();
+    }
+
+    /**
+     * @return the amount of lines waiting to be written
+     */
+    public static int getQueueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * @return the amount of lines dropped because the queue was full
+     */
+    public static long getDropped() {
+        return dropped.get();
+    }
+
+    /**
+     * @return the amount of lines written since the game started
+     */
+    public static long getWritten() {
+        return written.get();
+    }
+
+    private static synchronized void start() {
+        if (thread != null) return;
+
+        thread = new Thread(ChatLogWriter::run, "Wynntils Chat Log");
+        thread.setDaemon(true);
+        thread.start();
+
+        Runtime.getRuntime().addShutdownHook(new Thread(ChatLogWriter::shutdown, "Wynntils Chat Log Shutdown"));
+    }
+
+    private static void run() {
+        List<Entry> batch = new ArrayList<>(BATCH_SIZE);
+        boolean stopping = false;
+        while (!stopping) {
+            try {
+                batch.add(queue.take());
+
+                // waits a little for the rest of a burst, so it ends up in a single batch
+                long deadline = System.currentTimeMillis() + BATCH_WAIT;
+                while (batch.size() < BATCH_SIZE && !batch.contains(STOP)) {
+                    queue.drainTo(batch, BATCH_SIZE - batch.size());
+
+                    long remaining = deadline - System.currentTimeMillis();
+                    if (batch.size() >= BATCH_SIZE || batch.contains(STOP) || remaining <= 0) break;
+
+                    Entry next = queue.poll(remaining, TimeUnit.MILLISECONDS);
+                    if (next == null) break;
+                    batch.add(next);
+                }
+            } catch (InterruptedException ex) {
+                stopping = true;
+            } finally {
+                if (batch.remove(STOP)) stopping = true;
+
+                write(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private static void shutdown() {
+        Thread current = thread;
+        if (current == null) return;
+
+        // only the writer thread writes, it's just told to stop after the queued lines
+        try {
+            if (queue.offer(STOP, SHUTDOWN_WAIT, TimeUnit.MILLISECONDS)) current.join(SHUTDOWN_WAIT);
+        } catch (InterruptedException ignored) { }
+    }
+
+    private static void write(List<Entry> batch) {
+        if (batch.isEmpty()) return;
+
+        boolean archive = ChatConfig.INSTANCE == null || ChatConfig.INSTANCE.saveChatLogs;
+
+        String day = null;
+        StringBuilder lines = new StringBuilder();
+        for (Entry entry : batch) {
+            String text = escape(entry.text);
+            LOGGER.info("[CHAT] " + text);
+            if (!archive) continue;
+
+            LocalDateTime date = LocalDateTime.ofInstant(Instant.ofEpochMilli(entry.time), ZoneId.systemDefault());
+            String entryDay = dayFormat.format(date);
+            if (day != null && !day.equals(entryDay)) { // the batch crossed midnight
+                append(day, lines);
+                lines.setLength(0);
+            }
+
+            day = entryDay;
+            lines.append('[').append(timeFormat.format(date)).append("] ").append(text).append('\n');
+        }
+
+        if (archive) append(day, lines);
+        written.addAndGet(batch.size());
+    }
+
+    private static void append(String day, StringBuilder lines) {
+        if (lines.length() == 0) return;
+
+        try {
+            if (!LOG_FOLDER.exists()) LOG_FOLDER.mkdirs();
+
+            File file = new File(LOG_FOLDER, "chat-" + day + ".log.gz");
+            try (Writer out = new OutputStreamWriter(new GZIPOutputStream(new FileOutputStream(file, true)), StandardCharsets.UTF_8)) {
+                out.write(lines.toString());
+            }
+        } catch (IOException ex) {
+            ex.printStackTrace();
+        }
+    }
+
+    private static String escape(String text) {
+        if (text.indexOf('\r') == -1 && text.indexOf('\n') == -1) return text;
+
+        StringBuilder result = new StringBuilder(text.length() + 8);
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\r') result.append("\\r");
+            else if (c == '\n') result.append("\\n");
+            else result.append(c);
+        }
+        return result.toString();
+    }
+
+    private static class Entry {
+
+        final long time;
+        final String text;
+
+        Entry(long time, String text) {
+            this.time = time;
+            this.text = text;
+        }
+
+    }
+
+}
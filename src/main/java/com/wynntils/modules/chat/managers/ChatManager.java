@@ -32,11 +32,13 @@ public class ChatManager {
 
     private static final SoundEvent popOffSound = new SoundEvent(new ResourceLocation("minecraft", "entity.blaze.hurt"));
 
-    private static final String wynnicRegex = "[\u249C-\u24B5\u2474-\u247F\uFF10-\uFF12]";
-    private static final String nonTranslatable = "[^a-zA-Z1-9.!?]";
-
     private static final Pattern inviteReg = Pattern.compile("((" + TextFormatting.GOLD + "|" + TextFormatting.AQUA + ")/(party|guild) join [a-zA-Z0-9._-]+)");
     private static final Pattern coordinateReg = Pattern.compile("(-?\\d{1,5}[ ,]{1,2})(\\d{1,3}[ ,]{1,2})?(-?\\d{1,5})");
+    private static final Pattern guildReg = Pattern.compile(TabManager.DEFAULT_GUILD_REGEX.replace("&", "§"));
+    private static final Pattern partyReg = Pattern.compile(TabManager.DEFAULT_PARTY_REGEX.replace("&", "§"));
+
+    private static String mentionName = null;
+    private static Pattern mentionReg = null;
 
     public static Pair<ITextComponent, Boolean> proccessRealMessage(ITextComponent in) {
         boolean cancel = false;
@@ -82,80 +84,7 @@ public class ChatManager {
         if(in.getUnformattedText().contains(" requires your ") && in.getUnformattedText().contains(" skill to be at least "))
             ModCore.mc().player.playSound(popOffSound, 1f, 1f);
 
-        if (hasWynnic(in.getUnformattedText())) {
-            List<ITextComponent> newTextComponents = new ArrayList<>();
-            for (ITextComponent component : in.getSiblings()) {
-                if (hasWynnic(component.getUnformattedText())) {
-                    String toAdd = "";
-                    String currentNonTranslatable = "";
-                    boolean previousWynnic = false;
-                    String oldText = "";
-                    for (char character : component.getUnformattedText().toCharArray()) {
-                        if (String.valueOf(character).matches(wynnicRegex)) {
-                            if (previousWynnic) {
-                                toAdd += currentNonTranslatable;
-                                oldText += currentNonTranslatable;
-                                currentNonTranslatable = "";
-                            } else {
-                                ITextComponent newComponent = new TextComponentString(oldText);
-                                newComponent.setStyle(component.getStyle().createDeepCopy());
-                                newTextComponents.add(newComponent);
-                                oldText = "";
-                                toAdd = "";
-                                previousWynnic = true;
-                            }
-                            String englishVersion = translateCharacter(character);
-                            toAdd += englishVersion;
-                            oldText += character;
-                        } else if (String.valueOf(character).matches(nonTranslatable)) {
-                            if (previousWynnic) {
-                                currentNonTranslatable += character;
-                            } else {
-                                oldText += character;
-                            }
-                        } else {
-                            if (previousWynnic) {
-                                previousWynnic = false;
-                                ITextComponent oldComponent = new TextComponentString(oldText);
-                                oldComponent.setStyle(component.getStyle().createDeepCopy());
-                                ITextComponent newComponent = new TextComponentString(toAdd);
-                                newComponent.setStyle(component.getStyle().createDeepCopy());
-                                newTextComponents.add(oldComponent);
-                                oldComponent.getStyle().setHoverEvent(new HoverEvent(HoverEvent.Action.SHOW_TEXT, newComponent));
-                                oldText = currentNonTranslatable;
-                                currentNonTranslatable = "";
-                                oldText += character;
-                            } else {
-                                oldText += character;
-                            }
-                        }
-                    }
-                    if (!currentNonTranslatable.isEmpty()) {
-                        oldText += currentNonTranslatable;
-                        if (previousWynnic) {
-                            toAdd += currentNonTranslatable;
-                        }
-                    }
-                    if (previousWynnic) {
-                        ITextComponent oldComponent = new TextComponentString(oldText);
-                        oldComponent.setStyle(component.getStyle().createDeepCopy());
-                        ITextComponent newComponent = new TextComponentString(toAdd);
-                        newComponent.setStyle(component.getStyle().createDeepCopy());
-                        newTextComponents.add(oldComponent);
-                        oldComponent.getStyle().setHoverEvent(new HoverEvent(HoverEvent.Action.SHOW_TEXT, newComponent));
-                    } else {
-                        ITextComponent oldComponent = new TextComponentString(oldText);
-                        oldComponent.setStyle(component.getStyle().createDeepCopy());
-                        newTextComponents.add(oldComponent);
-                    }
-
-                } else {
-                    newTextComponents.add(component);
-                }
-            }
-            in.getSiblings().clear();
-            in.getSiblings().addAll(newTextComponents);
-        }
+        if (WynnicTranscoder.hasWynnic(in.getUnformattedText())) WynnicTranscoder.translateSiblings(in);
 
         if (ChatConfig.INSTANCE.clickablePartyInvites && inviteReg.matcher(in.getFormattedText()).find()) {
             for (ITextComponent textComponent : in.getSiblings()) {
@@ -212,17 +141,27 @@ public class ChatManager {
     }
 
     public static boolean proccessUserMention(ITextComponent in) {
+        return proccessUserMention(in, in.getFormattedText());
+    }
+
+    /**
+     * @param in the message
+     * @param formattedText the formatted text of the message, so it isn't formatted again
+     * @return if the message mentions the player
+     */
+    public static boolean proccessUserMention(ITextComponent in, String formattedText) {
         boolean hasMention = false;
         if(ChatConfig.INSTANCE.allowChatMentions && in.getSiblings().size() >= 2) {
-            if (in.getFormattedText().contains(ModCore.mc().player.getName())) {
+            if (formattedText.contains(ModCore.mc().player.getName())) {
                 // Patterns used to detect guild/party chat
-                boolean isGuildOrParty = Pattern.compile(TabManager.DEFAULT_GUILD_REGEX.replace("&", "§")).matcher(in.getFormattedText()).find() || Pattern.compile(TabManager.DEFAULT_PARTY_REGEX.replace("&", "§")).matcher(in.getFormattedText()).find();
+                boolean isGuildOrParty = guildReg.matcher(formattedText).find() || partyReg.matcher(formattedText).find();
+                Pattern nameReg = getMentionPattern(ModCore.mc().player.getName());
                 boolean foundStart = false;
                 ArrayList<ITextComponent> components = new ArrayList<ITextComponent>();
                 for (ITextComponent component : in.getSiblings()) {
                     if (component.getUnformattedComponentText().contains(ModCore.mc().player.getName()) && foundStart) {
                         hasMention = true;
-                        String[] sections = component.getUnformattedText().split(ModCore.mc().player.getName());
+                        String[] sections = nameReg.split(component.getUnformattedText());
                         for (int index = 0; index < sections.length; index++) {
                             String section = sections[index];
                             ITextComponent sectionComponent = new TextComponentString(section);
@@ -264,66 +203,19 @@ public class ChatManager {
     }
 
     public static Pair<String, Boolean> applyUpdatesToServer(String message) {
-        String after = message;
+        String after = WynnicTranscoder.encode(message);
 
         boolean cancel = false;
 
-        if (message.contains("{")) {
-            String newString = "";
-            boolean isWynnic = false;
-            for (char character : message.toCharArray()) {
-                if (character == '{') {
-                    isWynnic = true;
-                } else if (isWynnic && character == '}') {
-                    isWynnic = false;
-                } else if (isWynnic) {
-                    if (!String.valueOf(character).matches(nonTranslatable)) {
-                        if (String.valueOf(character).matches("[a-z]")) {
-                            newString += ((char) ((character) + 9275));
-                        } else if (String.valueOf(character).matches("[A-Z]")) {
-                            newString += ((char) ((character) + 9307));
-                        } else if (String.valueOf(character).matches("[1-9]")) {
-                            newString += ((char) ((character) + 9283));
-                        } else if (character == '.') {
-                            newString += "\uFF10";
-                        } else if (character == '!') {
-                            newString += "\uFF11";
-                        } else if (character == '?') {
-                            newString += "\uFF12";
-                        }
-                    } else {
-                        newString += character;
-                    }
-                } else {
-                    newString += character;
-                }
-            }
-            after = newString;
-
-        }
-
         return new Pair<>(after, cancel);
     }
 
-    private static boolean hasWynnic(String text) {
-        for (char character : text.toCharArray()) {
-            if (String.valueOf(character).matches(wynnicRegex)) {
-                return true;
-            }
-        }
-        return false;
-    }
-
-    private static String translateCharacter(char wynnic) {
-        if (String.valueOf(wynnic).matches("[\u249C-\u24B5]")) {
-            return String.valueOf((char) ((wynnic) - 9275));
-        } else if (String.valueOf(wynnic).matches("[\u2474-\u247C]")) {
-            return String.valueOf((char) ((wynnic) - 9283));
-        } else if (String.valueOf(wynnic).matches("[\u247D-\u247F]")) {
-            return wynnic == '\u247D' ? "10" : wynnic == '\u247E' ? "50" : wynnic == '\u247F' ? "100" : "";
-        } else {
-            return wynnic == '\uFF10' ? "." : wynnic == '\uFF11' ? "!" : wynnic == '\uFF12' ? "?" : "";
+    private static Pattern getMentionPattern(String name) {
+        if (!name.equals(mentionName)) {
+            mentionReg = Pattern.compile(Pattern.quote(name));
+            mentionName = name;
         }
+        return mentionReg;
     }
 
 }
@@ -6,11 +6,14 @@ package com.wynntils.modules.chat.managers;
 
 import com.wynntils.modules.chat.ChatModule;
 import com.wynntils.modules.chat.configs.ChatConfig;
+import com.wynntils.modules.chat.instances.ChatHistory;
 import com.wynntils.modules.chat.instances.ChatTab;
+import com.wynntils.modules.chat.instances.TabRouter;
 
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 
 public class TabManager {
 
@@ -18,6 +21,11 @@ public class TabManager {
     public static final String DEFAULT_PARTY_REGEX = "(^&7\\[&r&e(.*?)\\])|(^&eYou are not in a party!)";
 
     private static ArrayList<ChatTab> availableTabs;
+    private static TabRouter router = null;
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(TabManager::shutdown, "Wynntils Chat History Shutdown"));
+    }
 
     public static void startTabs() {
         availableTabs = ChatConfig.INSTANCE.available_tabs;
@@ -87,6 +95,16 @@ public class TabManager {
         return availableTabs;
     }
 
+    /**
+     * @param formattedText the formatted message
+     * @return the tabs that should receive the message
+     */
+    public static List<ChatTab> routeMessage(String formattedText) {
+        if (router == null || router.isStale(availableTabs)) router = new TabRouter(availableTabs);
+
+        return router.route(formattedText);
+    }
+
     public static ChatTab getTabById(int id) {
         if(availableTabs.size() <= id || availableTabs.get(id) == null) return getTabById(id-1);
         return availableTabs.get(id);
@@ -98,6 +116,20 @@ public class TabManager {
         saveConfigs();
     }
 
+    /**
+     * Moves the lines in memory of every tab to their history
+     */
+    public static void archiveTabs() {
+        if(availableTabs == null) return;
+
+        availableTabs.forEach(ChatTab::archiveMessages);
+    }
+
+    private static void shutdown() {
+        archiveTabs();
+        ChatHistory.awaitWrites(2000);
+    }
+
     private static void saveConfigs() {
         ChatConfig.INSTANCE.available_tabs = availableTabs;
         ChatConfig.INSTANCE.saveSettings(ChatModule.getModule());
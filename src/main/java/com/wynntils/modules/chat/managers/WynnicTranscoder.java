@@ -0,0 +1,188 @@
+/*
+ *  * Copyright © Wynntils - 2019.
+ */
+
+package com.wynntils.modules.chat.managers;
+
+import net.minecraft.util.text.ITextComponent;
+import net.minecraft.util.text.TextComponentString;
+import net.minecraft.util.text.event.HoverEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Converts text between english and wynnic using lookup tables
+ *
+ * Wynnic letters are the parenthesized latin letters (U+249C to U+24B5), numbers are the parenthesized
+ * digits (U+2474 to U+247F, up to 10, 50 and 100) and the punctuation uses the fullwidth digits 0 to 2 for . ! ?
+ */
+public class WynnicTranscoder {
+
+    private static final char WYNNIC_START = '\u2474';
+    private static final char WYNNIC_END = '\u24B5';
+    private static final char PUNCTUATION_START = '\uFF10';
+    private static final char PUNCTUATION_END = '\uFF12';
+
+    private static final String[] decodeTable = new String[WYNNIC_END - WYNNIC_START + 1];
+    private static final String[] decodePunctuation = { ".", "!", "?" };
+    private static final char[] encodeTable = new char[128];
+
+    static {
+        for (char c = 'a'; c <= 'z'; c++) {
+            encodeTable[c] = (char) (c + 9275);
+            encodeTable[Character.toUpperCase(c)] = (char) (c + 9275);
+            decodeTable[c + 9275 - WYNNIC_START] = String.valueOf(c);
+        }
+        for (char c = '1'; c <= '9'; c++) {
+            encodeTable[c] = (char) (c + 9283);
+            decodeTable[c + 9283 - WYNNIC_START] = String.valueOf(c);
+        }
+        decodeTable['\u247D' - WYNNIC_START] = "10";
+        decodeTable['\u247E' - WYNNIC_START] = "50";
+        decodeTable['\u247F' - WYNNIC_START] = "100";
+
+        encodeTable['.'] = '\uFF10';
+        encodeTable['!'] = '\uFF11';
+        encodeTable['?'] = '\uFF12';
+    }
+
+    /**
+     * @return if the character is a wynnic letter, number or punctuation
+     */
+    public static boolean isWynnic(char c) {
+        return (c >= '\u249C' && c <= WYNNIC_END) || (c >= WYNNIC_START && c <= '\u247F') || (c >= PUNCTUATION_START && c <= PUNCTUATION_END);
+    }
+
+    public static boolean hasWynnic(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (isWynnic(text.charAt(i))) return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return if the character has a wynnic version (a-z, A-Z, 1-9 and . ! ?)
+     */
+    public static boolean isTranslatable(char c) {
+        return c < encodeTable.length && encodeTable[c] != 0;
+    }
+
+    /**
+     * @param wynnic a wynnic character
+     * @return its english version, or an empty string if it's not wynnic
+     */
+    public static String decode(char wynnic) {
+        if (wynnic >= PUNCTUATION_START && wynnic <= PUNCTUATION_END) return decodePunctuation[wynnic - PUNCTUATION_START];
+        if (wynnic < WYNNIC_START || wynnic > WYNNIC_END) return "";
+
+        String english = decodeTable[wynnic - WYNNIC_START];
+        return english == null ? "" : english;
+    }
+
+    /**
+     * Translates the text between braces to wynnic, like {@code hi {hello}} to {@code hi} followed by the parenthesized letters,
+     * the braces are removed and characters without a wynnic version are kept as they are
+     *
+     * @param message the message being sent
+     * @return the translated message
+     */
+    public static String encode(String message) {
+        if (message.indexOf('{') == -1) return message;
+
+        StringBuilder result = new StringBuilder(message.length());
+        boolean isWynnic = false;
+        for (int i = 0; i < message.length(); i++) {
+            char c = message.charAt(i);
+
+            if (c == '{') {
+                isWynnic = true;
+            } else if (isWynnic && c == '}') {
+                isWynnic = false;
+            } else if (isWynnic && isTranslatable(c)) {
+                result.append(encodeTable[c]);
+            } else {
+                result.append(c);
+            }
+        }
+        return result.toString();
+    }
+
+    /**
+     * Splits every sibling containing wynnic into plain components, each wynnic section
+     * getting a hover with its english version.
+     * Characters without a wynnic version (spaces, commas...) between two wynnic characters
+     * are considered part of the section.
+     *
+     * @param in the message, modified in place
+     */
+    public static void translateSiblings(ITextComponent in) {
+        List<ITextComponent> newTextComponents = new ArrayList<>(in.getSiblings().size());
+        for (ITextComponent component : in.getSiblings()) {
+            String text = component.getUnformattedText();
+            if (!hasWynnic(text)) {
+                newTextComponents.add(component);
+                continue;
+            }
+
+            StringBuilder translated = new StringBuilder();
+            StringBuilder original = new StringBuilder();
+            StringBuilder untranslatable = new StringBuilder();
+            boolean previousWynnic = false;
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+
+                if (isWynnic(c)) {
+                    if (previousWynnic) {
+                        translated.append(untranslatable);
+                        original.append(untranslatable);
+                        untranslatable.setLength(0);
+                    } else {
+                        newTextComponents.add(copyStyle(component, original.toString()));
+                        original.setLength(0);
+                        translated.setLength(0);
+                        previousWynnic = true;
+                    }
+                    translated.append(decode(c));
+                    original.append(c);
+                } else if (!isTranslatable(c)) {
+                    if (previousWynnic) untranslatable.append(c);
+                    else original.append(c);
+                } else {
+                    if (previousWynnic) {
+                        previousWynnic = false;
+                        newTextComponents.add(withTranslation(component, original.toString(), translated.toString()));
+                        original.setLength(0);
+                        original.append(untranslatable);
+                        untranslatable.setLength(0);
+                    }
+                    original.append(c);
+                }
+            }
+
+            if (untranslatable.length() != 0) {
+                original.append(untranslatable);
+                if (previousWynnic) translated.append(untranslatable);
+            }
+
+            if (previousWynnic) newTextComponents.add(withTranslation(component, original.toString(), translated.toString()));
+            else newTextComponents.add(copyStyle(component, original.toString()));
+        }
+
+        in.getSiblings().clear();
+        in.getSiblings().addAll(newTextComponents);
+    }
+
+    private static ITextComponent copyStyle(ITextComponent from, String text) {
+        ITextComponent component = new TextComponentString(text);
+        component.setStyle(from.getStyle().createDeepCopy());
+        return component;
+    }
+
+    private static ITextComponent withTranslation(ITextComponent from, String wynnic, String english) {
+        ITextComponent component = copyStyle(from, wynnic);
+        component.getStyle().setHoverEvent(new HoverEvent(HoverEvent.Action.SHOW_TEXT, copyStyle(from, english)));
+        return component;
+    }
+
+}
@@ -6,6 +6,7 @@ package com.wynntils.modules.chat.overlays;
 
 import com.wynntils.core.events.custom.ChatEvent;
 import com.wynntils.core.framework.FrameworkManager;
+import com.wynntils.core.framework.profiling.PerformanceProfiler;
 import com.wynntils.core.framework.rendering.ScreenRenderer;
 import com.wynntils.core.framework.rendering.SmartFontRenderer;
 import com.wynntils.core.framework.rendering.colors.CommonColors;
@@ -14,7 +15,9 @@ import com.wynntils.core.framework.rendering.colors.MinecraftChatColors;
 import com.wynntils.core.utils.Pair;
 import com.wynntils.core.utils.ReflectionFields;
 import com.wynntils.modules.chat.configs.ChatConfig;
+import com.wynntils.modules.chat.instances.CachedChatLine;
 import com.wynntils.modules.chat.instances.ChatTab;
+import com.wynntils.modules.chat.managers.ChatLogWriter;
 import com.wynntils.modules.chat.managers.ChatManager;
 import com.wynntils.modules.chat.managers.TabManager;
 import net.minecraft.client.Minecraft;
@@ -27,8 +30,6 @@ import net.minecraft.util.math.MathHelper;
 import net.minecraft.util.text.ITextComponent;
 import net.minecraft.util.text.TextComponentString;
 import net.minecraft.util.text.TextFormatting;
-import org.apache.logging.log4j.LogManager;
-import org.apache.logging.log4j.Logger;
 
 import javax.annotation.Nullable;
 import java.util.List;
@@ -37,7 +38,6 @@ public class ChatOverlay extends GuiNewChat {
 
     private static ChatOverlay chat;
 
-    private static final Logger LOGGER = LogManager.getFormatterLogger("chat");
     private final Minecraft mc = Minecraft.getMinecraft();
     private static final ScreenRenderer renderer = new ScreenRenderer();
 
@@ -57,8 +57,17 @@ public class ChatOverlay extends GuiNewChat {
     }
 
     public void drawChat(int updateCounter) {
+        boolean profile = PerformanceProfiler.isEnabled();
+        long start = profile ? System.nanoTime() : 0, allocated = profile ? PerformanceProfiler.getAllocatedBytes() : 0;
+
+        renderChat(updateCounter);
+
+        if (profile) PerformanceProfiler.record(PerformanceProfiler.Category.OVERLAY_RENDER, "Chat", start, allocated);
+    }
+
+    private void renderChat(int updateCounter) {
         if (mc.gameSettings.chatVisibility != EntityPlayer.EnumChatVisibility.HIDDEN) {
-            int chatSize = getCurrentTab().getCurrentMessages().size();
+            int chatSize = getCurrentTab().getTotalLines();
 
             getCurrentTab().checkNotifications();
 
@@ -74,7 +83,7 @@ public class ChatOverlay extends GuiNewChat {
             int l = 0;
 
             for (int i1 = 0; i1 + scrollPos < chatSize && i1 < getLineCount(); ++i1) {
-                ChatLine chatline = getCurrentTab().getCurrentMessages().get(i1 + scrollPos);
+                ChatLine chatline = getCurrentTab().getLine(i1 + scrollPos);
 
                 if (chatline != null) {
                     int j1 = updateCounter - chatline.getUpdatedCounter();
@@ -99,7 +108,7 @@ public class ChatOverlay extends GuiNewChat {
                             if (!ChatConfig.INSTANCE.transparent) {
                                 drawRect(-2, j2 - 9, extraY + 4, j2, l1 / 2 << 24);
                             }
-                            String s = ChatManager.renderMessage(chatline.getChatComponent()).getFormattedText();
+                            String s = chatline instanceof CachedChatLine ? ((CachedChatLine) chatline).getRenderText() : ChatManager.renderMessage(chatline.getChatComponent()).getFormattedText();
                             GlStateManager.enableBlend();
                             mc.fontRenderer.drawStringWithShadow(s, 0.0F, (float)(j2 - 8), 16777215 + (l1 << 24));
                             GlStateManager.disableAlpha();
@@ -159,7 +168,7 @@ public class ChatOverlay extends GuiNewChat {
                     int l2 = chatSize * k2 + chatSize;
                     int i3 = l * k2 + l;
                     int j3 = scrollPos * i3 / chatSize;
-                    int k1 = i3 * i3 / l2;
+                    int k1 = Math.max(2, i3 * i3 / l2); // keeps the bar visible with a long history
 
                     if (l2 != i3) {
                         int k3 = j3 > 0 ? 170 : 96;
@@ -184,7 +193,7 @@ public class ChatOverlay extends GuiNewChat {
 
     public void printChatMessageWithOptionalDeletion(ITextComponent chatComponent, int chatLineId) {
         setChatLine(chatComponent, chatLineId, mc.ingameGUI.getUpdateCounter(), false);
-        LOGGER.info("[CHAT] " + chatComponent.getUnformattedText().replaceAll("\r", "\\\\r").replaceAll("\n", "\\\\n"));
+        ChatLogWriter.log(chatComponent.getUnformattedText());
     }
 
     private void setChatLine(ITextComponent chatComponent, int chatLineId, int updateCounter, boolean displayOnly) {
@@ -194,65 +203,60 @@ public class ChatOverlay extends GuiNewChat {
 
         if(FrameworkManager.getEventBus().post(new ChatEvent.Pre(chatComponent))) return;
 
-        boolean found = false;
-        for(ChatTab tab : TabManager.getAvailableTabs()) {
-            if(!tab.regexMatches(chatComponent) || tab.isLowPriority()) continue;
+        // the message is formatted once and matched against every tab in a single pass
+        String formattedText = chatComponent.getFormattedText();
+        List<ChatTab> tabs = TabManager.routeMessage(formattedText);
+        if (tabs.isEmpty()) return;
 
-            updateLine(tab, chatComponent, updateCounter, displayOnly, chatLineId, found);
-            found = true;
-        }
+        ITextComponent original = chatComponent.createCopy();
+        boolean processed = false, hasMention = false;
+        for (ChatTab tab : tabs) {
+            if (stackSpam(tab, formattedText, chatLineId)) continue;
 
-        if(!found) {
-            for (ChatTab tab : TabManager.getAvailableTabs()) {
-                if (!tab.isLowPriority() || !tab.regexMatches(chatComponent))
-                    continue;
-                updateLine(tab, chatComponent, updateCounter, displayOnly, chatLineId, found);
-                found = true;
+            tab.updateLastMessageAndAmount(original, formattedText, 2);
+
+            //message processor, only once for every tab
+            if (!processed) {
+                hasMention = ChatManager.proccessUserMention(chatComponent, formattedText);
+                chatComponent = ChatManager.proccessRealMessage(chatComponent).a;
+                processed = true;
             }
-        }
-    }
 
-    private void updateLine(ChatTab tab, ITextComponent chatComponent, int updateCounter, boolean displayOnly, int chatLineId, boolean alreadyFound) {
-        //spam filter
-        if(tab.getLastMessage() != null) {
-            if (ChatConfig.INSTANCE.blockChatSpamFilter && tab.getLastMessage().getFormattedText().equals(chatComponent.getFormattedText()) && chatLineId == 0) {
-                try {
-                    List<ChatLine> oldLines = tab.getCurrentMessages();
-
-                    if (oldLines != null && oldLines.size() > 0) {
-                        ChatLine line = oldLines.get(0);
-                        ITextComponent chatLine = (ITextComponent) ReflectionFields.ChatLine_lineString.getValue(line);
-                        ITextComponent lastComponent = chatLine.getSiblings().get(chatLine.getSiblings().size() - 1);
-                        if (lastComponent.getUnformattedComponentText().matches(" \\[\\d*x]")) {
-                            chatLine.getSiblings().remove(lastComponent);
-                        }
-                        ITextComponent counter = new TextComponentString(" [" + (tab.getLastAmount()) + "x]");
-                        counter.getStyle().setColor(TextFormatting.GRAY);
-                        ((ITextComponent) ReflectionFields.ChatLine_lineString.getValue(line)).appendSibling(counter);
+            //push mention
+            if (hasMention) tab.pushMention();
 
-                        tab.updateLastMessageAndAmount(chatComponent.createCopy(), tab.getLastAmount()+1);
-                        refreshChat();
-                        return;
-                    }
-                } catch (Exception ex) { ex.printStackTrace(); }
-            } else {
-                tab.updateLastMessageAndAmount(chatComponent.createCopy(), 2);
-            }
-        }else{
-            tab.updateLastMessageAndAmount(chatComponent.createCopy(), 2);
+            updateLine(tab, chatComponent, updateCounter, chatLineId);
         }
+    }
 
-        //push mention
-        if(ChatManager.proccessUserMention(chatComponent)) tab.pushMention();
+    private boolean stackSpam(ChatTab tab, String formattedText, int chatLineId) {
+        if (!ChatConfig.INSTANCE.blockChatSpamFilter || chatLineId != 0 || !formattedText.equals(tab.getLastFormattedMessage())) return false;
 
-        //message processor
-        if (!alreadyFound) {
-            Pair<ITextComponent, Boolean> c = ChatManager.proccessRealMessage(chatComponent);
+        List<ChatLine> oldLines = tab.getCurrentMessages();
+        if (oldLines == null || oldLines.isEmpty()) return false;
 
-            chatComponent = c.a;
+        try {
+            ChatLine line = oldLines.get(0);
+            ITextComponent chatLine = (ITextComponent) ReflectionFields.ChatLine_lineString.getValue(line);
+            ITextComponent lastComponent = chatLine.getSiblings().get(chatLine.getSiblings().size() - 1);
+            if (lastComponent.getUnformattedComponentText().matches(" \\[\\d*x]")) {
+                chatLine.getSiblings().remove(lastComponent);
+            }
+            ITextComponent counter = new TextComponentString(" [" + (tab.getLastAmount()) + "x]");
+            counter.getStyle().setColor(TextFormatting.GRAY);
+            chatLine.appendSibling(counter);
+            if (line instanceof CachedChatLine) ((CachedChatLine) line).invalidate();
+
+            tab.updateLastMessageAndAmount(tab.getLastMessage(), formattedText, tab.getLastAmount() + 1);
+            refreshChat();
+            return true;
+        } catch (Exception ex) {
+            ex.printStackTrace();
+            return false;
         }
-        //continue mc code
+    }
 
+    private void updateLine(ChatTab tab, ITextComponent chatComponent, int updateCounter, int chatLineId) {
         int i = MathHelper.floor((float)getChatWidth() / getChatScale());
         List<ITextComponent> list = GuiUtilRenderComponents.splitText(chatComponent, i, mc.fontRenderer, false, false);
         boolean flag = getChatOpen();
@@ -263,11 +267,7 @@ public class ChatOverlay extends GuiNewChat {
                 scroll(1);
             }
 
-            tab.addMessage(new ChatLine(updateCounter, itextcomponent, chatLineId));
-        }
-
-        while (tab.getCurrentMessages().size() > 100) {
-            tab.getCurrentMessages().remove(tab.getCurrentMessages().size() - 1);
+            tab.addMessage(new CachedChatLine(updateCounter, itextcomponent, chatLineId));
         }
     }
 
@@ -297,7 +297,7 @@ public class ChatOverlay extends GuiNewChat {
 
     public void scroll(int amount) {
         scrollPos += amount;
-        int i = getCurrentTab().getCurrentMessages().size();
+        int i = getCurrentTab().getTotalLines();
 
         if (scrollPos > i - getLineCount()) {
             scrollPos = i - getLineCount();
@@ -309,6 +309,17 @@ public class ChatOverlay extends GuiNewChat {
         }
     }
 
+    /**
+     * Scrolls the current tab so the provided line is at the middle of the chat
+     *
+     * @param line the line index, 0 being the newest line
+     */
+    public void scrollTo(int line) {
+        resetScroll();
+        scroll(line - getLineCount() / 2);
+        isScrolled = scrollPos > 0;
+    }
+
     @Nullable
     public ITextComponent getChatComponent(int mouseX, int mouseY) {
         if (!getChatOpen()) {
@@ -339,13 +350,16 @@ public class ChatOverlay extends GuiNewChat {
 
 
             if (j >= 0 && k >= 0) {
-                int l = Math.min(getLineCount(), getCurrentTab().getCurrentMessages().size());
+                int l = Math.min(getLineCount(), getCurrentTab().getTotalLines());
 
                 if (j <= MathHelper.floor((float)getChatWidth() / getChatScale()) && k < mc.fontRenderer.FONT_HEIGHT * l + l) {
                     int i1 = k / mc.fontRenderer.FONT_HEIGHT + scrollPos;
 
-                    if (i1 >= 0 && i1 < getCurrentTab().getCurrentMessages().size()) {
-                        ChatLine chatline = getCurrentTab().getCurrentMessages().get(i1);
+                    if (i1 >= 0 && i1 < getCurrentTab().getTotalLines()) {
+                        ChatLine chatline = getCurrentTab().getLine(i1);
+                        if (chatline == null) return null;
+                        if (chatline instanceof CachedChatLine && j > ((CachedChatLine) chatline).getWidth(mc.fontRenderer)) return null;
+
                         int j1 = 0;
 
                         for (ITextComponent itextcomponent : chatline.getChatComponent()) {
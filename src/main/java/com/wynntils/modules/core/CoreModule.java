@@ -11,6 +11,7 @@ import com.wynntils.modules.core.config.CoreDBConfig;
 import com.wynntils.modules.core.events.ClientEvents;
 import com.wynntils.modules.core.events.ServerEvents;
 import com.wynntils.modules.core.overlays.DownloadOverlay;
+import com.wynntils.modules.core.overlays.ProfilerOverlay;
 import com.wynntils.modules.core.overlays.UpdateOverlay;
 
 @ModuleInfo(name = "core", displayName = "Core")
@@ -24,6 +25,7 @@ public class CoreModule extends Module {
 
         registerOverlay(new UpdateOverlay(), Priority.HIGHEST);
         registerOverlay(new DownloadOverlay(), Priority.HIGHEST);
+        registerOverlay(new ProfilerOverlay(), Priority.LOWEST);
 
         registerSettings(CoreDBConfig.class);
 
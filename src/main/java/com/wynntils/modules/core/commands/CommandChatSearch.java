@@ -0,0 +1,107 @@
+/*
+ *  * Copyright © Wynntils - 2019.
+ */
+
+package com.wynntils.modules.core.commands;
+
+import com.wynntils.modules.chat.instances.ChatHistory;
+import com.wynntils.modules.chat.instances.ChatTab;
+import com.wynntils.modules.chat.managers.TabManager;
+import com.wynntils.modules.chat.overlays.ChatOverlay;
+import net.minecraft.client.Minecraft;
+import net.minecraft.command.CommandBase;
+import net.minecraft.command.CommandException;
+import net.minecraft.command.ICommandSender;
+import net.minecraft.command.WrongUsageException;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.util.text.TextComponentString;
+import net.minecraft.util.text.TextFormatting;
+import net.minecraft.util.text.event.ClickEvent;
+import net.minecraft.util.text.event.HoverEvent;
+import net.minecraftforge.client.IClientCommand;
+import org.apache.commons.lang3.StringUtils;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+
+public class CommandChatSearch extends CommandBase implements IClientCommand {
+
+    private static final int MAX_RESULTS = 10;
+    private static final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm");
+
+    @Override
+    public boolean allowUsageWithoutPrefix(ICommandSender sender, String message) {
+        return false;
+    }
+
+    @Override
+    public String getName() {
+        return "chatsearch";
+    }
+
+    @Override
+    public String getUsage(ICommandSender sender) {
+        return "Searches the chat history of the current tab";
+    }
+
+    @Override
+    public void execute(MinecraftServer server, ICommandSender sender, String[] args) throws CommandException {
+        if (ChatOverlay.getChat() == null) throw new CommandException("The chat history is only available while on Wynncraft");
+        if (args.length == 0) throw new WrongUsageException("/chatsearch [text] | Ex: /chatsearch trade");
+
+        // used by the search results
+        if (args.length == 3 && args[0].equals("--jump")) {
+            int tabId = parseInt(args[1], 0, TabManager.getAvailableTabs().size() - 1);
+            ChatOverlay.getChat().setCurrentTab(tabId);
+            ChatOverlay.getChat().scrollTo(TabManager.getTabById(tabId).toLineIndex(parseInt(args[2], 0)));
+            return;
+        }
+
+        String query = StringUtils.join(args, " ");
+        int tabId = ChatOverlay.getChat().getCurrentTabId();
+        ChatTab tab = TabManager.getTabById(tabId);
+
+        // the history is searched in the background, the results are shown at the client thread
+        tab.search(query, MAX_RESULTS).whenComplete((results, ex) -> Minecraft.getMinecraft().addScheduledTask(() -> {
+            if (ex != null) {
+                ex.printStackTrace();
+
+                TextComponentString error = new TextComponentString("Unable to search the chat history: " + ex.getMessage());
+                error.getStyle().setColor(TextFormatting.DARK_RED);
+                sender.sendMessage(error);
+                return;
+            }
+
+            sendResults(sender, tab, tabId, query, results);
+        }));
+    }
+
+    private void sendResults(ICommandSender sender, ChatTab tab, int tabId, String query, List<ChatHistory.SearchResult> results) {
+        TextComponentString header = new TextComponentString(results.isEmpty() ? "No lines containing \"" + query + "\" at " + tab.getName() : "Newest lines containing \"" + query + "\" at " + tab.getName() + ":");
+        header.getStyle().setColor(TextFormatting.GOLD);
+        sender.sendMessage(header);
+
+        for (int i = results.size() - 1; i >= 0; i--) {
+            ChatHistory.SearchResult result = results.get(i);
+
+            TextComponentString line = new TextComponentString("[" + dateFormat.format(new Date(result.getTime())) + "] ");
+            line.getStyle().setColor(TextFormatting.DARK_GRAY);
+
+            TextComponentString text = new TextComponentString(result.getText());
+            text.getStyle().setColor(TextFormatting.GRAY);
+            line.appendSibling(text);
+
+            line.getStyle()
+                    .setClickEvent(new ClickEvent(ClickEvent.Action.RUN_COMMAND, "/chatsearch --jump " + tabId + " " + result.getIndex()))
+                    .setHoverEvent(new HoverEvent(HoverEvent.Action.SHOW_TEXT, new TextComponentString("Scroll to this line")));
+            sender.sendMessage(line);
+        }
+    }
+
+    @Override
+    public int getRequiredPermissionLevel() {
+        return 0;
+    }
+
+}
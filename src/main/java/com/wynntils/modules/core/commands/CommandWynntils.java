@@ -5,10 +5,12 @@
 package com.wynntils.modules.core.commands;
 
 import com.wynntils.Reference;
-import com.wynntils.core.utils.Delay;
+import com.wynntils.core.framework.profiling.PerformanceProfiler;
+import com.wynntils.core.framework.scheduling.TickScheduler;
 import com.wynntils.core.utils.Utils;
 import com.wynntils.modules.core.config.CoreDBConfig;
 import com.wynntils.modules.core.enums.UpdateStream;
+import com.wynntils.modules.core.instances.PacketRecorder;
 import com.wynntils.modules.core.overlays.ui.ChangelogUI;
 import com.wynntils.modules.utilities.managers.KeyManager;
 import com.wynntils.webapi.WebManager;
@@ -25,6 +27,8 @@ import net.minecraft.util.text.event.ClickEvent;
 import net.minecraft.util.text.event.HoverEvent;
 import net.minecraftforge.client.IClientCommand;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.Collections;
 import java.util.List;
 
@@ -78,6 +82,10 @@ public class CommandWynntils extends CommandBase implements IClientCommand {
                     text.appendText("\n");
                     addCommandDescription(text, "-wynntils", " donate", "This provides our Patreon link.");
                     text.appendText("\n");
+                    addCommandDescription(text, "-wynntils", " profiler [export]", "This toggles the overlay and event profiler, or exports its results to a csv file.");
+                    text.appendText("\n");
+                    addCommandDescription(text, "-wynntils", " capture", "This toggles recording the received packets and chat to a capture file.");
+                    text.appendText("\n");
                     addCommandDescription(text, "-", "token", "This provides a clickable token for you to create a Wynntils account to manage your cosmetics.");
                     text.appendText("\n");
                     addCommandDescription(text, "-", "forceupdate", "This downloads and installs the latest successful build.");
@@ -106,19 +114,59 @@ public class CommandWynntils extends CommandBase implements IClientCommand {
                     WebManager.setupWebApi();
                     break;
                 case "changelog":
-                    new Delay(() -> {
+                    TickScheduler.schedule(() -> {
                         boolean major = CoreDBConfig.INSTANCE.updateStream == UpdateStream.STABLE;
                         Minecraft.getMinecraft().displayGuiScreen(new ChangelogUI(WebManager.getChangelog(major), major));
                     }, 1);
                     break;
                 case "changelogmajor":
-                    new Delay(() -> {
+                    TickScheduler.schedule(() -> {
                         Minecraft.getMinecraft().displayGuiScreen(new ChangelogUI(WebManager.getChangelog(true), true));
                     }, 1);
                     break;
                 case "debug":
                     Utils.joinWorld(3);
                     break;
+                case "profiler":
+                    PerformanceProfiler.setEnabled(!PerformanceProfiler.isEnabled());
+
+                    TextComponentString profilerText = new TextComponentString("The profiler is now " + (PerformanceProfiler.isEnabled() ? "enabled." : "disabled."));
+                    profilerText.getStyle().setColor(TextFormatting.GOLD);
+                    sender.sendMessage(profilerText);
+                    break;
+                case "profilerexport":
+                    try {
+                        File exported = PerformanceProfiler.exportCsv();
+
+                        TextComponentString exportText = new TextComponentString("Profiler results saved at " + exported.getPath());
+                        exportText.getStyle().setColor(TextFormatting.GOLD);
+                        sender.sendMessage(exportText);
+                    } catch (IOException ex) {
+                        ex.printStackTrace();
+                        throw new CommandException("Unable to export the profiler results: " + ex.getMessage());
+                    }
+                    break;
+                case "capture":
+                    if (PacketRecorder.isRecording()) {
+                        PacketRecorder.Session session = PacketRecorder.stop();
+
+                        TextComponentString stopText = new TextComponentString("Capture saved at " + session.getFile().getPath() + " (" + session.getWritten() + " packets, " + session.getDropped() + " dropped).");
+                        stopText.getStyle().setColor(TextFormatting.GOLD);
+                        sender.sendMessage(stopText);
+                        break;
+                    }
+
+                    try {
+                        File capture = PacketRecorder.start();
+
+                        TextComponentString startText = new TextComponentString("Capturing the received packets to " + capture.getPath() + ", use /wynntils capture again to stop.");
+                        startText.getStyle().setColor(TextFormatting.GOLD);
+                        sender.sendMessage(startText);
+                    } catch (IOException ex) {
+                        ex.printStackTrace();
+                        throw new CommandException("Unable to start the capture: " + ex.getMessage());
+                    }
+                    break;
                 default:
                     throw new CommandException("Invalid argument. Use /wynntils help for more info.");
             }
@@ -189,7 +237,7 @@ public class CommandWynntils extends CommandBase implements IClientCommand {
     @Override
     public List<String> getTabCompletions(MinecraftServer server, ICommandSender sender, String[] args, BlockPos targetPos) {
         if (args.length == 1) {
-            return getListOfStringsMatchingLastWord(args, "help", "discord", "version", "reloadapi", "donate");
+            return getListOfStringsMatchingLastWord(args, "help", "discord", "version", "reloadapi", "donate", "profiler", "capture");
         }
         return Collections.emptyList();
     }
@@ -18,6 +18,7 @@ import com.wynntils.modules.core.overlays.UpdateOverlay;
 import com.wynntils.modules.core.overlays.ui.ChangelogUI;
 import com.wynntils.webapi.WebManager;
 import com.wynntils.webapi.downloader.DownloaderManager;
+import io.netty.channel.ChannelPipeline;
 import net.minecraft.client.Minecraft;
 import net.minecraft.util.text.ChatType;
 import net.minecraftforge.client.event.ClientChatEvent;
@@ -44,8 +45,12 @@ public class ServerEvents implements Listener {
      */
     @SubscribeEvent
     public void joinServer(FMLNetworkEvent.ClientConnectedToServerEvent e) {
-        e.getManager().channel().pipeline().addBefore("fml:packet_handler", Reference.MOD_ID + ":packet_filter", new PacketIncomingFilter());
-        e.getManager().channel().pipeline().addBefore("fml:packet_handler", Reference.MOD_ID + ":outgoingFilter", new PacketOutgoingFilter());
+        ChannelPipeline pipeline = e.getManager().channel().pipeline();
+
+        PacketIncomingFilter incomingFilter = new PacketIncomingFilter();
+        pipeline.addBefore("fml:packet_handler", Reference.MOD_ID + ":packet_filter", incomingFilter);
+        pipeline.addBefore("fml:packet_handler", Reference.MOD_ID + ":outgoingFilter", new PacketOutgoingFilter());
+        if(pipeline.get("splitter") != null) pipeline.addAfter("splitter", Reference.MOD_ID + ":packet_size", incomingFilter.getFrameCounter()); // not present at singleplayer
 
         WebManager.checkForUpdates();
         DownloaderManager.startDownloading();
@@ -6,6 +6,7 @@ package com.wynntils.modules.core.instances;
 
 import com.wynntils.ModCore;
 import com.wynntils.core.events.custom.PacketEvent;
+import com.wynntils.core.framework.EventRouter;
 import com.wynntils.core.framework.FrameworkManager;
 import com.wynntils.core.framework.enums.FilterType;
 import com.wynntils.core.utils.Utils;
@@ -66,6 +67,7 @@ public class FakeInventory {
      */
     public FakeInventory open() {
         FrameworkManager.getEventBus().register(this);
+        EventRouter.bridgeListener(this);
 
         Minecraft mc = ModCore.mc();
         int slot = mc.player.inventory.currentItem;
@@ -91,6 +93,7 @@ public class FakeInventory {
         if(!open) return;
 
         FrameworkManager.getEventBus().unregister(this);
+        EventRouter.unbridgeListener(this);
         open = false;
         if(windowId != -1) Minecraft.getMinecraft().getConnection().sendPacket(new CPacketCloseWindow(windowId));
     }
@@ -178,6 +181,7 @@ public class FakeInventory {
     public void onItemsReceive(PacketEvent.InventoryItemsReceived e) {
         if(e.getPacket().getWindowId() != windowId) {
             FrameworkManager.getEventBus().unregister(this);
+            EventRouter.unbridgeListener(this);
             open = false;
             return;
         }
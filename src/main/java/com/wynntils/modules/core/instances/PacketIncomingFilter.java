@@ -4,24 +4,67 @@
 
 package com.wynntils.modules.core.instances;
 
-import com.wynntils.ModCore;
 import com.wynntils.core.events.custom.PacketEvent;
+import com.wynntils.core.framework.profiling.PerformanceProfiler;
+import com.wynntils.core.utils.ReflectionFields;
+import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
 import net.minecraft.client.Minecraft;
+import net.minecraft.client.entity.EntityPlayerSP;
+import net.minecraft.client.network.NetHandlerPlayClient;
 import net.minecraft.entity.Entity;
+import net.minecraft.network.NetworkManager;
+import net.minecraft.network.Packet;
+import net.minecraft.network.play.INetHandlerPlayClient;
 import net.minecraft.network.play.server.*;
 import net.minecraftforge.common.MinecraftForge;
 import net.minecraftforge.fml.common.eventhandler.Event;
+import net.minecraftforge.fml.common.eventhandler.EventBus;
+import net.minecraftforge.fml.common.eventhandler.ListenerList;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+import java.util.function.Predicate;
 
 public class PacketIncomingFilter extends ChannelInboundHandlerAdapter {
 
-    private static Minecraft mc = Minecraft.getMinecraft();
+    private static final Minecraft mc = Minecraft.getMinecraft();
+    private static final int busID = (int) ReflectionFields.EventBus_busID.getValue(MinecraftForge.EVENT_BUS);
+
+    private static final HashMap<Class<?>, Route> routes = new HashMap<>();
+    private static final ConcurrentHashMap<Class<?>, PacketStats> stats = new ConcurrentHashMap<>();
+
+    static {
+        registerEvent(SPacketSpawnObject.class, PacketEvent.SpawnObject.class, PacketEvent.SpawnObject::new);
+        registerEvent(SPacketEntityMetadata.class, PacketEvent.EntityMetadata.class, PacketEvent.EntityMetadata::new);
+        registerEvent(SPacketOpenWindow.class, PacketEvent.InventoryReceived.class, PacketEvent.InventoryReceived::new);
+        registerEvent(SPacketWindowItems.class, PacketEvent.InventoryItemsReceived.class, PacketEvent.InventoryItemsReceived::new);
+        registerEvent(SPacketResourcePackSend.class, PacketEvent.ResourcePackReceived.class, PacketEvent.ResourcePackReceived::new);
+        registerEvent(SPacketPlayerListItem.class, PacketEvent.TabListChangeEvent.class, PacketEvent.TabListChangeEvent::new);
+        registerEvent(SPacketTitle.class, PacketEvent.TitleEvent.class, PacketEvent.TitleEvent::new);
+
+        // the server corrections of the vehicle the player is steering are ignored
+        routes.put(SPacketEntityVelocity.class, new Route(false, msg -> isRiding(), (packet, handler, bus) -> isSteeredVehicleVelocity((SPacketEntityVelocity) packet)));
+        routes.put(SPacketMoveVehicle.class, new Route(false, msg -> true, (packet, handler, bus) -> isIgnoredVehicleMove((SPacketMoveVehicle) packet)));
+    }
+
+    private final FrameCounter frameCounter = new FrameCounter();
+    private int frameBytes = 0;
+
+    public PacketIncomingFilter() {
+        stats.clear(); // a new connection
+    }
 
     /**
      * Dispatch a bunch of packet incoming events to be checked before reaching the interpretator
      * @see PacketEvent for more information about these events
      *
+     * Packets without any interested listener are passed forward right away, without allocating anything.
+     * The others are handled at the client thread, where the vanilla handler would process them, and
+     * processed right after if the handlers didn't cancel them. If the connection changed meanwhile they're
+     * passed forward instead, only a cancel from the handlers drops a packet.
      *
      * @param ctx The Channel Handler
      * @param msg The incoming Packet
@@ -31,45 +74,237 @@ public class PacketIncomingFilter extends ChannelInboundHandlerAdapter {
     public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
         if(msg == null) return;
 
-        Event e = null;
-        boolean cancel = false;
-
-        if (msg instanceof SPacketSpawnObject) {
-            e = new PacketEvent.SpawnObject((SPacketSpawnObject) msg, ModCore.mc().getConnection());
-        } else if (msg instanceof  SPacketEntityMetadata) {
-            e = new PacketEvent.EntityMetadata((SPacketEntityMetadata)msg, ModCore.mc().getConnection());
-        } else if (msg instanceof SPacketOpenWindow) {
-            e = new PacketEvent.InventoryReceived((SPacketOpenWindow) msg, ModCore.mc().getConnection());
-        } else if (msg instanceof SPacketWindowItems) {
-            e = new PacketEvent.InventoryItemsReceived((SPacketWindowItems) msg, ModCore.mc().getConnection());
-        } else if (msg instanceof SPacketResourcePackSend) {
-            e = new PacketEvent.ResourcePackReceived((SPacketResourcePackSend) msg, ModCore.mc().getConnection());
-        } else if (msg instanceof SPacketPlayerListItem) {
-            e = new PacketEvent.TabListChangeEvent((SPacketPlayerListItem) msg, ModCore.mc().getConnection());
-        } else if (msg instanceof SPacketTitle) {
-            e = new PacketEvent.TitleEvent((SPacketTitle) msg, ModCore.mc().getConnection());
-        } else if (msg instanceof SPacketEntityVelocity) {
-            SPacketEntityVelocity velocity = (SPacketEntityVelocity) msg;
-            if (mc.world != null) {
-                Entity entity = mc.world.getEntityByID(velocity.getEntityID());
-                Entity vehicle = mc.player.getLowestRidingEntity();
-                if ((entity == vehicle) && (vehicle != mc.player) && (vehicle.canPassengerSteer())) {
-                    cancel = true;
-                }
-            }
-        } else if (msg instanceof SPacketMoveVehicle) {
-            SPacketMoveVehicle moveVehicle = (SPacketMoveVehicle) msg;
-            Entity vehicle = mc.player.getLowestRidingEntity();
-            if ((vehicle == mc.player) || (!vehicle.canPassengerSteer()) || (vehicle.getDistance(moveVehicle.getX(), moveVehicle.getY(), moveVehicle.getZ()) <= 25D)) {
-                cancel = true;
-            }
+        PacketStats packetStats = getStats(msg.getClass());
+        packetStats.received(frameBytes);
+        frameBytes = 0;
+
+        if(PacketRecorder.isRecording()) PacketRecorder.record(msg);
+
+        Route route = routes.get(msg.getClass());
+        if(route == null || !route.interest.test(msg)) {
+            super.channelRead(ctx, msg);
+            return;
+        }
+
+        Packet<?> packet = (Packet<?>) msg;
+        mc.addScheduledTask(() -> handle(ctx, route, packet, packetStats));
+    }
+
+    /**
+     * @return the handler that measures the size of the packets, it has to be right after the frame splitter
+     */
+    public FrameCounter getFrameCounter() {
+        return frameCounter;
+    }
+
+    /**
+     * @param packetType the packet class
+     * @return if packets of that type are handled by Wynntils
+     */
+    public static boolean isRouted(Class<?> packetType) {
+        return routes.containsKey(packetType);
+    }
+
+    /**
+     * @param packetType the packet class
+     * @return if packets of that type are handled without depending on the client state, so they can be replayed without a game
+     */
+    public static boolean isReplayable(Class<?> packetType) {
+        Route route = routes.get(packetType);
+        return route != null && route.replayable;
+    }
+
+    /**
+     * Runs the Wynntils handlers of a replayable packet without processing it, used to replay captured packets
+     * @see #isReplayable(Class)
+     *
+     * @param packet the packet
+     * @param handler the connection given to the events
+     * @param bus where the events are posted
+     * @return if the handlers canceled the packet
+     */
+    public static boolean dispatch(Packet<?> packet, NetHandlerPlayClient handler, EventBus bus) {
+        Route route = routes.get(packet.getClass());
+        if(route == null || !route.replayable) return false;
+
+        return runHandlers(route, packet, getStats(packet.getClass()), handler, bus);
+    }
+
+    /**
+     * @return the stats of every packet type received at the current connection, the most received first
+     */
+    public static List<PacketStats> getStats() {
+        ArrayList<PacketStats> result = new ArrayList<>(stats.values());
+        result.sort(Comparator.comparingLong(PacketStats::getReceived).reversed());
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void handle(ChannelHandlerContext ctx, Route route, Packet<?> packet, PacketStats packetStats) {
+        NetworkManager manager = (NetworkManager) ctx.pipeline().get("packet_handler");
+        if(manager == null || !manager.isChannelOpen() || !(manager.getNetHandler() instanceof NetHandlerPlayClient)) {
+            // not a play connection anymore, the rest of the pipeline decides what to do with it
+            ctx.fireChannelRead(packet);
+            return;
+        }
+
+        NetHandlerPlayClient handler = (NetHandlerPlayClient) manager.getNetHandler();
+        if(runHandlers(route, packet, packetStats, handler, MinecraftForge.EVENT_BUS)) return;
+
+        // already at the client thread, so it's processed right away
+        ((Packet<INetHandlerPlayClient>) packet).processPacket(handler);
+    }
+
+    private static boolean runHandlers(Route route, Packet<?> packet, PacketStats packetStats, NetHandlerPlayClient handler, EventBus bus) {
+        boolean profile = PerformanceProfiler.isEnabled();
+        long start = System.nanoTime(), allocated = profile ? PerformanceProfiler.getAllocatedBytes() : -1;
+        boolean cancel = route.handler.handle(packet, handler, bus);
+
+        packetStats.handled(System.nanoTime() - start, cancel);
+        if(profile) PerformanceProfiler.record(PerformanceProfiler.Category.PACKETS, packetStats.name, start, allocated);
+
+        return cancel;
+    }
+
+    private static PacketStats getStats(Class<?> packetType) {
+        PacketStats packetStats = stats.get(packetType);
+        if(packetStats == null) packetStats = stats.computeIfAbsent(packetType, PacketStats::new);
+
+        return packetStats;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <P extends Packet<?>> void registerEvent(Class<P> packetType, Class<? extends Event> eventType, BiFunction<P, NetHandlerPlayClient, ? extends Event> factory) {
+        ListenerList listeners;
+        try {
+            listeners = eventType.getConstructor().newInstance().getListenerList();
+        } catch (Exception ex) {
+            ex.printStackTrace();
+            listeners = null; // always posted
         }
 
+        ListenerList eventListeners = listeners;
+        routes.put(packetType, new Route(true,
+                msg -> eventListeners == null || eventListeners.getListeners(busID).length > 0,
+                (packet, handler, bus) -> bus.post(factory.apply((P) packet, handler))
+        ));
+    }
+
+    private static boolean isRiding() {
+        EntityPlayerSP player = mc.player;
+        return player != null && player.isRiding();
+    }
+
+    private static boolean isSteeredVehicleVelocity(SPacketEntityVelocity velocity) {
+        if(mc.world == null || mc.player == null) return false;
+
+        Entity vehicle = mc.player.getLowestRidingEntity();
+        return vehicle != mc.player && vehicle.canPassengerSteer() && mc.world.getEntityByID(velocity.getEntityID()) == vehicle;
+    }
+
+    private static boolean isIgnoredVehicleMove(SPacketMoveVehicle moveVehicle) {
+        if(mc.player == null) return true;
+
+        Entity vehicle = mc.player.getLowestRidingEntity();
+        return vehicle == mc.player || !vehicle.canPassengerSteer() || vehicle.getDistance(moveVehicle.getX(), moveVehicle.getY(), moveVehicle.getZ()) <= 25D;
+    }
+
+    private static class Route {
+
+        final boolean replayable; // if the handler only posts events, without checking the client state
+        final Predicate<Object> interest; // checked at the network thread
+        final Handler handler; // ran at the client thread
+
+        Route(boolean replayable, Predicate<Object> interest, Handler handler) {
+            this.replayable = replayable;
+            this.interest = interest;
+            this.handler = handler;
+        }
+
+    }
+
+    private interface Handler {
+
+        /**
+         * @return true to cancel the packet
+         */
+        boolean handle(Packet<?> packet, NetHandlerPlayClient handler, EventBus bus);
+
+    }
+
+    /**
+     * Measures the size of every packet frame, before it's decoded
+     */
+    public class FrameCounter extends ChannelInboundHandlerAdapter {
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+            if(msg instanceof ByteBuf) frameBytes += ((ByteBuf) msg).readableBytes();
+
+            super.channelRead(ctx, msg);
+        }
+
+    }
+
+    public static class PacketStats {
+
+        final String name;
+
+        // written only by the network thread
+        volatile long received = 0;
+        volatile long bytes = 0;
+
+        // written only by the client thread
+        volatile long handled = 0;
+        volatile long canceled = 0;
+        volatile long handlerNanos = 0;
+
+        PacketStats(Class<?> packetType) {
+            this.name = packetType.getSimpleName();
+        }
+
+        void received(int frameBytes) {
+            received++;
+            bytes += frameBytes;
+        }
+
+        void handled(long nanos, boolean cancel) {
+            handled++;
+            handlerNanos += nanos;
+            if(cancel) canceled++;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getReceived() {
+            return received;
+        }
+
+        /**
+         * @return the size of the received packets as they came from the network, 0 if it can't be measured
+         */
+        public long getBytes() {
+            return bytes;
+        }
+
+        public long getHandled() {
+            return handled;
+        }
 
-        if (e != null) cancel = MinecraftForge.EVENT_BUS.post(e);
-        if (cancel) return;
+        public long getCanceled() {
+            return canceled;
+        }
+
+        /**
+         * @return the average time the handlers took for each handled packet, -1 if none was handled
+         */
+        public long getAverageHandlerNanos() {
+            long count = handled;
+            return count == 0 ? -1 : handlerNanos / count;
+        }
 
-        super.channelRead(ctx, msg);
     }
 
 }
@@ -0,0 +1,218 @@
+/*
+ *  * Copyright © Wynntils - 2019.
+ */
+
+package com.wynntils.modules.core.instances;
+
+import com.wynntils.Reference;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import net.minecraft.network.EnumConnectionState;
+import net.minecraft.network.EnumPacketDirection;
+import net.minecraft.network.Packet;
+import net.minecraft.network.PacketBuffer;
+import net.minecraft.network.play.server.SPacketChat;
+
+import java.io.*;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Captures the incoming packets handled by Wynntils, and the chat, to be replayed later by {@link PacketReplay}.
+ *
+ * Packets are serialized at the network thread and written from a background thread to a gzip file
+ * at the /captures directory, every record being the milliseconds since the previous one, the packet id
+ * and the packet data. When the queue is full new packets are dropped and counted.
+ */
+public class PacketRecorder {
+
+    public static final File CAPTURE_FOLDER = new File(Reference.MOD_STORAGE_ROOT, "captures");
+    public static final String EXTENSION = ".wcap";
+
+    static final int MAGIC = 0x57434150; // WCAP
+    static final int VERSION = 1;
+
+    private static final int QUEUE_SIZE = 16384;
+    private static final long FLUSH_WAIT = 1000;
+
+    private static volatile Session session = null;
+
+    public static boolean isRecording() {
+        return session != null;
+    }
+
+    /**
+     * Starts a new capture, if there isn't one running already
+     *
+     * @return the file being written
+     */
+    public static synchronized File start() throws IOException {
+        if (session != null) return session.file;
+
+        if (!CAPTURE_FOLDER.exists()) CAPTURE_FOLDER.mkdirs();
+
+        File file = new File(CAPTURE_FOLDER, "capture-" + new SimpleDateFormat("yyyy-MM-dd_HH-mm-ss").format(new Date()) + EXTENSION);
+        session = new Session(file);
+        return file;
+    }
+
+    /**
+     * Stops the current capture, waiting for the queued packets to be written
+     *
+     * @return the finished capture, or null if there wasn't one running
+     */
+    public static synchronized Session stop() {
+        Session current = session;
+        if (current == null) return null;
+
+        session = null;
+        current.finish();
+        return current;
+    }
+
+    /**
+     * Queues a packet to be written, called from the network thread
+     *
+     * @param msg the received packet
+     */
+    public static void record(Object msg) {
+        Session current = session;
+        if (current == null || !(msg instanceof Packet)) return;
+        if (!(msg instanceof SPacketChat) && !PacketIncomingFilter.isRouted(msg.getClass())) return;
+
+        ByteBuf buffer = Unpooled.buffer();
+        try {
+            Packet<?> packet = (Packet<?>) msg;
+            Integer id = EnumConnectionState.PLAY.getPacketId(EnumPacketDirection.CLIENTBOUND, packet);
+            if (id == null) return;
+
+            packet.writePacketData(new PacketBuffer(buffer));
+
+            byte[] data = new byte[buffer.readableBytes()];
+            buffer.readBytes(data);
+
+            if (!current.queue.offer(new Record(System.currentTimeMillis(), id, data))) current.dropped.incrementAndGet();
+        } catch (Exception ex) {
+            current.dropped.incrementAndGet();
+        } finally {
+            buffer.release();
+        }
+    }
+
+    static void writeVarInt(DataOutput out, int value) throws IOException {
+        while ((value & -128) != 0) {
+            out.writeByte(value & 127 | 128);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    static int readVarInt(DataInput in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 127) << shift;
+            if ((b & 128) == 0) return value;
+        }
+        throw new IOException("VarInt too big");
+    }
+
+    public static class Session {
+
+        final File file;
+        final ArrayBlockingQueue<Record> queue = new ArrayBlockingQueue<>(QUEUE_SIZE);
+        final AtomicLong written = new AtomicLong(0);
+        final AtomicLong dropped = new AtomicLong(0);
+
+        private final DataOutputStream out;
+        private final Thread thread;
+        private volatile boolean stopped = false;
+
+        Session(File file) throws IOException {
+            this.file = file;
+
+            out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(new FileOutputStream(file))));
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeLong(System.currentTimeMillis());
+            out.writeUTF(Reference.onWorld ? Reference.getUserWorld() : "");
+
+            thread = new Thread(this::run, "Wynntils Packet Recorder");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        public File getFile() {
+            return file;
+        }
+
+        public long getWritten() {
+            return written.get();
+        }
+
+        /**
+         * @return the amount of packets dropped because the queue was full or they failed to serialize
+         */
+        public long getDropped() {
+            return dropped.get();
+        }
+
+        private void run() {
+            long last = -1;
+            try {
+                while (!stopped || !queue.isEmpty()) {
+                    Record record = queue.poll(FLUSH_WAIT, TimeUnit.MILLISECONDS);
+                    if (record == null) {
+                        out.flush();
+                        continue;
+                    }
+
+                    if (last == -1) last = record.time;
+                    writeVarInt(out, (int) Math.max(0, record.time - last));
+                    writeVarInt(out, record.id);
+                    writeVarInt(out, record.data.length);
+                    out.write(record.data);
+
+                    last = record.time;
+                    written.incrementAndGet();
+                }
+            } catch (InterruptedException ignored) {
+            } catch (IOException ex) {
+                ex.printStackTrace();
+            } finally {
+                try {
+                    out.close();
+                } catch (IOException ex) {
+                    ex.printStackTrace();
+                }
+            }
+        }
+
+        private void finish() {
+            stopped = true;
+            try {
+                thread.join(5000);
+            } catch (InterruptedException ignored) { }
+        }
+
+    }
+
+    private static class Record {
+
+        final long time;
+        final int id;
+        final byte[] data;
+
+        Record(long time, int id, byte[] data) {
+            this.time = time;
+            this.id = id;
+            this.data = data;
+        }
+
+    }
+
+}
@@ -0,0 +1,223 @@
+/*
+ *  * Copyright © Wynntils - 2019.
+ */
+
+package com.wynntils.modules.core.instances;
+
+import com.mojang.authlib.GameProfile;
+import io.netty.buffer.Unpooled;
+import net.minecraft.client.network.NetHandlerPlayClient;
+import net.minecraft.init.Bootstrap;
+import net.minecraft.network.EnumConnectionState;
+import net.minecraft.network.EnumPacketDirection;
+import net.minecraft.network.NetworkManager;
+import net.minecraft.network.Packet;
+import net.minecraft.network.PacketBuffer;
+import net.minecraft.network.play.server.SPacketChat;
+import net.minecraftforge.client.event.ClientChatReceivedEvent;
+import net.minecraftforge.fml.common.eventhandler.EventBus;
+
+import java.io.*;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Feeds a {@link PacketRecorder} capture through the Wynntils packet routes without a game, to test
+ * and benchmark the handlers outside of the client.
+ *
+ * The packets are decoded and handled at the calling thread as fast as possible, against a stub connection
+ * that's never opened. Their events are posted to the given bus, so only the listeners registered there see
+ * them, and nothing of the running client is touched: the routes that check the local player are skipped and
+ * chat lines only post a {@link ClientChatReceivedEvent}.
+ *
+ * Can be ran from the development environment with {@code PacketReplay <capture file>}.
+ */
+public class PacketReplay {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: PacketReplay <capture file>");
+            System.exit(1);
+            return;
+        }
+
+        Bootstrap.register(); // the item and block registries, needed to decode inventories
+
+        Result result = replay(new File(args[0]), new EventBus());
+        System.out.println(String.format("Replayed %d packets and %d chat lines recorded over %d ms in %d ms, %d skipped, %d canceled and %d failed.",
+                result.getPackets(), result.getChatLines(), result.getRecordedMillis(), result.getWallMillis(),
+                result.getSkipped(), result.getCanceled(), result.getFailed()));
+        System.out.println(String.format("Handlers took %.1f ms (%.0f per second).", result.getHandlerNanos() / 1000000d, result.getThroughput()));
+    }
+
+    /**
+     * @param file the capture file
+     * @param bus where the events are posted
+     * @return the results
+     */
+    public static Result replay(File file, EventBus bus) throws IOException {
+        try (InputStream in = new FileInputStream(file)) {
+            return replay(in, bus);
+        }
+    }
+
+    /**
+     * @param input the gzipped capture
+     * @param bus where the events are posted
+     * @return the results
+     */
+    public static Result replay(InputStream input, EventBus bus) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(input)));
+        if (in.readInt() != PacketRecorder.MAGIC) throw new IOException("Not a capture file");
+
+        int version = in.readUnsignedByte();
+        if (version != PacketRecorder.VERSION) throw new IOException("Unsupported capture version " + version);
+
+        Result result = new Result();
+        in.readLong(); // recording date
+        result.world = in.readUTF();
+
+        // never opened, the packets the handlers send are only queued
+        NetHandlerPlayClient connection = new NetHandlerPlayClient(null, null,
+                new NetworkManager(EnumPacketDirection.CLIENTBOUND), new GameProfile(UUID.randomUUID(), "Replay"));
+
+        long start = System.currentTimeMillis();
+        while (true) {
+            int delay;
+            try {
+                delay = PacketRecorder.readVarInt(in);
+            } catch (EOFException ex) {
+                break;
+            }
+
+            int id = PacketRecorder.readVarInt(in);
+            byte[] data = new byte[PacketRecorder.readVarInt(in)];
+            in.readFully(data);
+
+            result.recordedMillis += delay;
+
+            Packet<?> packet = decode(id, data);
+            if (packet == null) {
+                result.failed++;
+                continue;
+            }
+
+            dispatch(packet, connection, bus, result);
+        }
+        result.wallMillis = System.currentTimeMillis() - start;
+
+        return result;
+    }
+
+    private static Packet<?> decode(int id, byte[] data) {
+        try {
+            Packet<?> packet = EnumConnectionState.PLAY.getPacket(EnumPacketDirection.CLIENTBOUND, id);
+            if (packet == null) return null;
+
+            packet.readPacketData(new PacketBuffer(Unpooled.wrappedBuffer(data)));
+            return packet;
+        } catch (Exception ex) {
+            return null;
+        }
+    }
+
+    private static void dispatch(Packet<?> packet, NetHandlerPlayClient connection, EventBus bus, Result result) {
+        boolean chat = packet instanceof SPacketChat;
+        if (!chat && !PacketIncomingFilter.isReplayable(packet.getClass())) {
+            result.skipped++;
+            return;
+        }
+
+        long start = System.nanoTime();
+        try {
+            boolean canceled;
+            if (chat) {
+                SPacketChat chatPacket = (SPacketChat) packet;
+                canceled = bus.post(new ClientChatReceivedEvent(chatPacket.getType(), chatPacket.getChatComponent()));
+                result.chatLines++;
+            } else {
+                canceled = PacketIncomingFilter.dispatch(packet, connection, bus);
+                result.packets++;
+            }
+
+            if (canceled) result.canceled++;
+        } catch (Exception ex) {
+            ex.printStackTrace();
+            result.failed++;
+        }
+        result.handlerNanos += System.nanoTime() - start;
+    }
+
+    public static class Result {
+
+        String world = "";
+        long packets = 0;
+        long chatLines = 0;
+        long skipped = 0;
+        long canceled = 0;
+        long failed = 0;
+        long handlerNanos = 0;
+        long recordedMillis = 0;
+        long wallMillis = 0;
+
+        /**
+         * @return the world the capture started at, empty if it wasn't recorded at a world
+         */
+        public String getWorld() {
+            return world;
+        }
+
+        public long getPackets() {
+            return packets;
+        }
+
+        public long getChatLines() {
+            return chatLines;
+        }
+
+        /**
+         * @return the amount of packets whose routes depend on the client state, so they weren't handled
+         */
+        public long getSkipped() {
+            return skipped;
+        }
+
+        public long getCanceled() {
+            return canceled;
+        }
+
+        /**
+         * @return the amount of records that couldn't be decoded or whose handlers threw an exception
+         */
+        public long getFailed() {
+            return failed;
+        }
+
+        /**
+         * @return the time spent at the Wynntils handlers
+         */
+        public long getHandlerNanos() {
+            return handlerNanos;
+        }
+
+        /**
+         * @return how long the capture took to record
+         */
+        public long getRecordedMillis() {
+            return recordedMillis;
+        }
+
+        public long getWallMillis() {
+            return wallMillis;
+        }
+
+        /**
+         * @return the handled packets and chat lines per second of handler time
+         */
+        public double getThroughput() {
+            return handlerNanos == 0 ? 0 : (packets + chatLines) * 1_000_000_000d / handlerNanos;
+        }
+
+    }
+
+}
@@ -0,0 +1,96 @@
+/*
+ *  * Copyright © Wynntils - 2019.
+ */
+
+package com.wynntils.modules.core.overlays;
+
+import com.wynntils.core.framework.overlays.Overlay;
+import com.wynntils.core.framework.profiling.PerformanceProfiler;
+import com.wynntils.core.framework.profiling.TimingStats;
+import com.wynntils.core.framework.rendering.QuadBatch;
+import com.wynntils.core.framework.rendering.SmartFontRenderer;
+import com.wynntils.core.framework.rendering.colors.CommonColors;
+import com.wynntils.core.framework.rendering.colors.CustomColor;
+import com.wynntils.core.framework.scheduling.TickScheduler;
+import com.wynntils.core.framework.settings.SettingsStore;
+import com.wynntils.modules.chat.managers.ChatLogWriter;
+import com.wynntils.modules.core.instances.PacketIncomingFilter;
+import net.minecraft.util.text.TextFormatting;
+import net.minecraftforge.client.event.RenderGameOverlayEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Shows the slowest overlays and module event handlers, and the most received packets, while the {@link PerformanceProfiler} is enabled
+ */
+public class ProfilerOverlay extends Overlay {
+
+    private static final CustomColor background = new CustomColor(0, 0, 0, 0.6f);
+    private static final int MAX_ROWS = 8;
+    private static final long REFRESH_MILLIS = 500;
+
+    private List<String> lines = new ArrayList<>();
+    private long lastRefresh = 0;
+
+    public ProfilerOverlay() {
+        super("Profiler", 20, 20, true, 0f, 0f, 2, 2, OverlayGrowFrom.TOP_LEFT);
+    }
+
+    @Override
+    public void render(RenderGameOverlayEvent.Post e) {
+        if (e.getType() != RenderGameOverlayEvent.ElementType.ALL || !PerformanceProfiler.isEnabled()) return;
+
+        if (System.currentTimeMillis() - lastRefresh > REFRESH_MILLIS) {
+            lines = buildLines();
+            lastRefresh = System.currentTimeMillis();
+        }
+
+        drawRect(background, 0, 0, 230, lines.size() * 10 + 4);
+        for (int i = 0; i < lines.size(); i++) {
+            drawString(lines.get(i), 3, 3 + i * 10, CommonColors.WHITE, SmartFontRenderer.TextAlignment.LEFT_RIGHT, SmartFontRenderer.TextShadow.NONE);
+        }
+    }
+
+    private static List<String> buildLines() {
+        ArrayList<String> lines = new ArrayList<>();
+
+        QuadBatch batch = getBatch();
+        lines.add(TextFormatting.GOLD + "HUD: " + TextFormatting.WHITE + batch.getDrawCalls() + " draw calls, " + batch.getStateChanges() + " texture switches, " + batch.getQuads() + " quads");
+
+        lines.add(TextFormatting.GOLD + "Scheduler: " + TextFormatting.WHITE + TickScheduler.getPendingTasks() + " pending, " + TickScheduler.getPausedTasks() + " paused tasks");
+        lines.add(TextFormatting.GOLD + "Settings: " + TextFormatting.WHITE + SettingsStore.getDirty() + " dirty, " + SettingsStore.getWritten() + " written, " + SettingsStore.getUnchanged() + " unchanged");
+        lines.add(TextFormatting.GOLD + "Chat log: " + TextFormatting.WHITE + ChatLogWriter.getQueueDepth() + " queued, " + ChatLogWriter.getWritten() + " written, " + ChatLogWriter.getDropped() + " dropped");
+
+        addCategory(lines, PerformanceProfiler.Category.OVERLAY_RENDER);
+        addCategory(lines, PerformanceProfiler.Category.MODULE_EVENTS);
+        addCategory(lines, PerformanceProfiler.Category.FRAMEWORK_EVENTS);
+        addPackets(lines);
+
+        lines.add(TextFormatting.DARK_GRAY + "/wynntils profiler export to save a csv");
+        return lines;
+    }
+
+    private static void addPackets(List<String> lines) {
+        lines.add(TextFormatting.GOLD + "Incoming packets" + TextFormatting.GRAY + " count / KB / avg handler us");
+
+        List<PacketIncomingFilter.PacketStats> packets = PacketIncomingFilter.getStats();
+        for (int i = 0; i < Math.min(MAX_ROWS, packets.size()); i++) {
+            PacketIncomingFilter.PacketStats packet = packets.get(i);
+            long handler = packet.getAverageHandlerNanos();
+            lines.add(TextFormatting.WHITE + " " + packet.getName() + TextFormatting.GRAY + " " + packet.getReceived() + " / " + packet.getBytes() / 1024 + " / " + (handler < 0 ? "-" : PerformanceProfiler.toMicros(handler)));
+        }
+    }
+
+    private static void addCategory(List<String> lines, PerformanceProfiler.Category category) {
+        lines.add(TextFormatting.GOLD + category.getDisplayName() + TextFormatting.GRAY + " p50 / p99 us");
+
+        List<TimingStats.Summary> summaries = PerformanceProfiler.summarize(category);
+        for (int i = 0; i < Math.min(MAX_ROWS, summaries.size()); i++) {
+            TimingStats.Summary summary = summaries.get(i);
+            String allocation = summary.getAllocationRate() < 0 ? "" : TextFormatting.DARK_GRAY + " " + Math.round(summary.getAllocationRate() / 1024) + " KB/s";
+            lines.add(TextFormatting.WHITE + " " + summary.getName() + TextFormatting.GRAY + " " + PerformanceProfiler.toMicros(summary.getP50()) + " / " + PerformanceProfiler.toMicros(summary.getP99()) + allocation);
+        }
+    }
+
+}
@@ -15,11 +15,19 @@ import com.wynntils.modules.utilities.overlays.hud.ToastOverlay;
 import net.minecraftforge.event.entity.player.PlayerInteractEvent;
 import net.minecraftforge.fml.common.eventhandler.EventPriority;
 import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
+import net.minecraftforge.fml.common.gameevent.TickEvent;
 
 public class ClientEvents implements Listener {
 
     int lastX, lastY, lastZ = 0;
 
+    @SubscribeEvent
+    public void onRenderTick(TickEvent.RenderTickEvent e) {
+        if(e.phase != TickEvent.Phase.START) return;
+
+        MapModule.getModule().getMainMap().newFrame();
+    }
+
     @SubscribeEvent()
     public void openChest(PlayerInteractEvent.RightClickBlock e) {
         if(e.getPos() == null) return;
@@ -9,11 +9,7 @@ import com.wynntils.core.utils.MD5Verification;
 import com.wynntils.webapi.WebReader;
 import com.wynntils.webapi.downloader.DownloaderManager;
 import com.wynntils.webapi.downloader.enums.DownloadAction;
-import net.minecraft.client.renderer.GlStateManager;
-import net.minecraft.client.renderer.texture.TextureUtil;
 
-import javax.imageio.ImageIO;
-import java.awt.image.BufferedImage;
 import java.io.File;
 
 public class MapProfile {
@@ -22,17 +18,17 @@ public class MapProfile {
 
     String url;
     File mapFile;
+    MapTiles tiles;
 
     boolean downloadDirect = false;
-    boolean readyToUse = false;
-
-    int textureId = -20;
+    volatile boolean readyToUse = false;
 
     double centerX = 0; double centerZ = 0;
     int imageWidth = 0; int imageHeight = 0;
 
     public MapProfile(String url, String name) {
         this.url = url; this.mapFile = new File(mapLocation, name + ".png");
+        this.tiles = new MapTiles(new File(new File(mapLocation, "tiles"), name));
 
         if(!mapFile.exists()) downloadDirect = true;
     }
@@ -43,29 +39,44 @@ public class MapProfile {
 
             centerX = Double.valueOf(reader.get("CenterX"));
             centerZ = Double.valueOf(reader.get("CenterZ"));
+            String md5 = reader.get("MD5");
             if (!downloadDirect) {
-                if (new MD5Verification(mapFile).equals(reader.get("MD5"))) {
-                    readyToUse = true;
+                if (new MD5Verification(mapFile).equals(md5)) {
+                    prepareTiles(md5);
                     return;
                 }
             }
 
-            DownloaderManager.queueDownload("Wynntils Map", reader.get("DownloadLocation"), mapLocation, DownloadAction.SAVE, c -> readyToUse = c);
+            DownloaderManager.queueDownload("Wynntils Map", reader.get("DownloadLocation"), mapLocation, DownloadAction.SAVE, c -> { if (c) prepareTiles(md5); });
         }catch (Exception ex) { ex.printStackTrace(); }
     }
 
-    private void setTexture() throws Exception {
-        BufferedImage img = ImageIO.read(mapFile);
-        imageHeight = img.getHeight(); imageWidth = img.getWidth();
-
-        textureId = TextureUtil.uploadTextureImageAllocate(TextureUtil.glGenTextures(), ImageIO.read(mapFile), false, false);
+    /**
+     * The map is only usable after being cut into tiles, which happens at a background thread
+     */
+    private void prepareTiles(String md5) {
+        tiles.prepare(mapFile, md5, () -> {
+            imageWidth = tiles.getWidth(); imageHeight = tiles.getHeight();
+            readyToUse = true;
+        });
     }
 
-    public void bindTexture() throws Exception {
+    /**
+     * Draws the visible part of the map, positions given by {@link #getTextureXPosition(double)} and {@link #getTextureZPosition(double)}
+     *
+     * @see MapTiles#draw(float, float, float, float, float, float, float, float)
+     */
+    public void drawMap(float minX, float minZ, float maxX, float maxZ, float x1, float y1, float x2, float y2) {
         if(!readyToUse) return;
-        if(textureId == -20) setTexture();
 
-        GlStateManager.bindTexture(textureId);
+        tiles.draw(minX, minZ, maxX, maxZ, x1, y1, x2, y2);
+    }
+
+    /**
+     * Resets the texture upload budget, called at the start of every frame
+     */
+    public void newFrame() {
+        tiles.newFrame();
     }
 
     public float getTextureXPosition(double posX) {
@@ -0,0 +1,377 @@
+/*
+ *  * Copyright © Wynntils - 2019.
+ */
+
+package com.wynntils.modules.map.instances;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.gui.ScaledResolution;
+import net.minecraft.client.renderer.BufferBuilder;
+import net.minecraft.client.renderer.GlStateManager;
+import net.minecraft.client.renderer.Tessellator;
+import net.minecraft.client.renderer.texture.TextureUtil;
+import net.minecraft.client.renderer.vertex.DefaultVertexFormats;
+import org.apache.commons.io.FileUtils;
+import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL12;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Streams a big map image as small textures.
+ *
+ * The image is cut once into a pyramid of 256x256 tiles stored on disk, level 0 being the
+ * original size and each following level half the size of the previous one.
+ * Only the tiles of the visible area, at the level closest to the screen resolution, are decoded
+ * (at a background thread) and uploaded (a few per frame), the least recently drawn ones being
+ * deleted when there are too many. Missing tiles are replaced by a lower level tile meanwhile.
+ * Tiles that fail to decode are tried again later, waiting longer after every failure.
+ */
+public class MapTiles {
+
+    public static final int TILE_SIZE = 256;
+
+    private static final int MAX_TILES = 128;
+    private static final int UPLOADS_PER_FRAME = 4;
+    private static final long RETRY_DELAY = 1000;
+    private static final long MAX_RETRY_DELAY = 30000;
+    private static final String STAMP = "tiles.txt";
+
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor(
+            new ThreadFactoryBuilder().setNameFormat("Wynntils Map Tiles").setDaemon(true).build());
+
+    private final File folder;
+
+    private volatile boolean ready = false;
+    private volatile boolean stale = false; // the tiles were cut again, the uploaded ones are outdated
+    private volatile int width = 0, height = 0, levels = 0;
+
+    // only used by the render thread
+    private final LinkedHashMap<Long, Tile> tiles = new LinkedHashMap<Long, Tile>(MAX_TILES, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Tile> eldest) {
+            if (size() <= MAX_TILES) return false;
+
+            eldest.getValue().release();
+            return true;
+        }
+    };
+    private final ConcurrentLinkedQueue<Tile> decoded = new ConcurrentLinkedQueue<>();
+    private int uploadsLeft = UPLOADS_PER_FRAME;
+
+    public MapTiles(File folder) {
+        this.folder = folder;
+    }
+
+    /**
+     * Cuts the source image into tiles at the background thread, unless it was already cut
+     *
+     * @param source the full map image
+     * @param md5 the md5 of the source, tiles cut from another source are replaced
+     * @param onReady called from the background thread when the tiles can be drawn
+     */
+    public void prepare(File source, String md5, Runnable onReady) {
+        executor.execute(() -> {
+            try {
+                if (!readStamp(md5)) {
+                    build(source, md5);
+                    stale = true;
+                }
+
+                ready = true;
+                onReady.run();
+            } catch (Exception ex) {
+                ex.printStackTrace();
+            }
+        });
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Resets the upload budget, called once per frame
+     */
+    public void newFrame() {
+        uploadsLeft = UPLOADS_PER_FRAME;
+    }
+
+    /**
+     * Draws the visible part of the map, the area outside the image is left empty
+     *
+     * @param minX the left of the visible area, in image pixels
+     * @param minZ the top of the visible area, in image pixels
+     * @param maxX the right of the visible area, in image pixels
+     * @param maxZ the bottom of the visible area, in image pixels
+     * @param x1 the left of the screen area
+     * @param y1 the top of the screen area
+     * @param x2 the right of the screen area
+     * @param y2 the bottom of the screen area
+     */
+    public void draw(float minX, float minZ, float maxX, float maxZ, float x1, float y1, float x2, float y2) {
+        if (!ready || maxX <= minX || maxZ <= minZ || x2 <= x1) return;
+
+        if (stale) {
+            stale = false;
+            clear();
+        }
+        uploadDecoded();
+
+        // the level where a texel is about a screen pixel
+        int scale = new ScaledResolution(Minecraft.getMinecraft()).getScaleFactor();
+        float texelsPerPixel = (maxX - minX) / ((x2 - x1) * scale);
+        int level = 0;
+        while (level < levels - 1 && texelsPerPixel > (1 << level)) level++;
+
+        int span = TILE_SIZE << level;
+        int fromX = (int) Math.floor(Math.max(minX, 0) / span), toX = (int) Math.ceil(Math.min(maxX, width) / span);
+        int fromZ = (int) Math.floor(Math.max(minZ, 0) / span), toZ = (int) Math.ceil(Math.min(maxZ, height) / span);
+
+        GlStateManager.enableTexture2D();
+        for (int tx = fromX; tx < toX; tx++) {
+            for (int tz = fromZ; tz < toZ; tz++) {
+                float left = Math.max(minX, tx * span), right = Math.min(maxX, Math.min((tx + 1) * span, width));
+                float top = Math.max(minZ, tz * span), bottom = Math.min(maxZ, Math.min((tz + 1) * span, height));
+                if (right <= left || bottom <= top) continue;
+
+                Tile tile = request(level, tx, tz);
+                if (tile.isUploaded()) {
+                    tile.draw(left, top, right, bottom, minX, minZ, maxX, maxZ, x1, y1, x2, y2);
+                    continue;
+                }
+
+                // meanwhile, the closest lower level tile already uploaded is used
+                Tile fallback = null;
+                for (int parent = level + 1; parent < levels && fallback == null; parent++) {
+                    Tile candidate = tiles.get(getKey(parent, tx >> (parent - level), tz >> (parent - level)));
+                    if (candidate != null && candidate.isUploaded()) fallback = candidate;
+                }
+                if (fallback == null) request(levels - 1, tx >> (levels - 1 - level), tz >> (levels - 1 - level));
+                else fallback.draw(left, top, right, bottom, minX, minZ, maxX, maxZ, x1, y1, x2, y2);
+            }
+        }
+    }
+
+    /**
+     * Deletes every uploaded tile, they are loaded again when needed. Called from the render thread
+     * once the tiles were cut from a new map image.
+     */
+    public void clear() {
+        tiles.values().forEach(Tile::release);
+        tiles.clear();
+        decoded.clear();
+    }
+
+    private Tile request(int level, int x, int z) {
+        long key = getKey(level, x, z);
+
+        Tile tile = tiles.get(key);
+        if (tile != null) {
+            if (tile.failed && System.currentTimeMillis() >= tile.retryAt) {
+                tile.failed = false;
+                executor.execute(tile::decode);
+            }
+            return tile;
+        }
+
+        Tile created = new Tile(level, x, z);
+        tiles.put(key, created);
+        executor.execute(created::decode);
+        return created;
+    }
+
+    private void uploadDecoded() {
+        while (uploadsLeft > 0) {
+            Tile tile = decoded.poll();
+            if (tile == null) return;
+            if (tile.released) continue;
+
+            tile.upload();
+            uploadsLeft--;
+        }
+    }
+
+    private File getFile(int level, int x, int z) {
+        return new File(folder, level + File.separator + x + "_" + z + ".png");
+    }
+
+    private static long getKey(int level, int x, int z) {
+        return ((long) level << 48) | ((long) x << 24) | z;
+    }
+
+    private boolean readStamp(String md5) {
+        File stamp = new File(folder, STAMP);
+        if (!stamp.exists()) return false;
+
+        try {
+            List<String> lines = FileUtils.readLines(stamp, StandardCharsets.UTF_8);
+            if (lines.size() < 4 || !lines.get(0).equals(md5)) return false;
+
+            width = Integer.parseInt(lines.get(1));
+            height = Integer.parseInt(lines.get(2));
+            levels = Integer.parseInt(lines.get(3));
+            return true;
+        } catch (IOException | NumberFormatException ex) {
+            return false;
+        }
+    }
+
+    private void build(File source, String md5) throws IOException {
+        if (folder.exists()) FileUtils.deleteDirectory(folder);
+
+        BufferedImage image = ImageIO.read(source);
+        int width = image.getWidth(), height = image.getHeight();
+
+        int level = 0;
+        while (true) {
+            File levelFolder = new File(folder, String.valueOf(level));
+            levelFolder.mkdirs();
+
+            for (int x = 0; x < image.getWidth(); x += TILE_SIZE) {
+                for (int z = 0; z < image.getHeight(); z += TILE_SIZE) {
+                    BufferedImage tile = image.getSubimage(x, z, Math.min(TILE_SIZE, image.getWidth() - x), Math.min(TILE_SIZE, image.getHeight() - z));
+                    ImageIO.write(tile, "png", getFile(level, x / TILE_SIZE, z / TILE_SIZE));
+                }
+            }
+
+            if (image.getWidth() <= TILE_SIZE && image.getHeight() <= TILE_SIZE) break;
+
+            image = half(image);
+            level++;
+        }
+
+        // written last, so an interrupted build is started again
+        FileUtils.writeStringToFile(new File(folder, STAMP), md5 + "\n" + width + "\n" + height + "\n" + (level + 1), StandardCharsets.UTF_8);
+
+        this.width = width;
+        this.height = height;
+        this.levels = level + 1;
+    }
+
+    private static BufferedImage half(BufferedImage image) {
+        BufferedImage result = new BufferedImage(Math.max(1, (image.getWidth() + 1) / 2), Math.max(1, (image.getHeight() + 1) / 2), BufferedImage.TYPE_INT_ARGB);
+
+        Graphics2D graphics = result.createGraphics();
+        graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        graphics.drawImage(image, 0, 0, result.getWidth(), result.getHeight(), null);
+        graphics.dispose();
+
+        return result;
+    }
+
+    private class Tile {
+
+        final int level, x, z;
+
+        // set by the background thread before the tile is queued for uploading
+        int width, height;
+        int[] pixels;
+
+        int textureId = -1;
+        volatile boolean released = false;
+
+        // set by the background thread when the tile couldn't be decoded
+        volatile boolean failed = false;
+        volatile long retryAt = 0;
+        int failures = 0;
+
+        Tile(int level, int x, int z) {
+            this.level = level;
+            this.x = x;
+            this.z = z;
+        }
+
+        boolean isUploaded() {
+            return textureId != -1;
+        }
+
+        void decode() {
+            if (released) return; // scrolled away before being decoded
+
+            try {
+                BufferedImage image = ImageIO.read(getFile(level, x, z));
+                if (image == null) throw new IOException("Unreadable map tile " + getFile(level, x, z));
+
+                width = image.getWidth();
+                height = image.getHeight();
+                pixels = image.getRGB(0, 0, width, height, null, 0, width);
+                decoded.add(this);
+            } catch (IOException ex) {
+                if (failures++ == 0) ex.printStackTrace();
+
+                retryAt = System.currentTimeMillis() + Math.min(MAX_RETRY_DELAY, RETRY_DELAY << Math.min(failures - 1, 5));
+                failed = true;
+            }
+        }
+
+        void upload() {
+            textureId = TextureUtil.glGenTextures();
+            TextureUtil.allocateTexture(textureId, width, height);
+            TextureUtil.uploadTexture(textureId, pixels, width, height);
+            pixels = null;
+
+            GlStateManager.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_MIN_FILTER, GL11.GL_LINEAR);
+            GlStateManager.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_MAG_FILTER, GL11.GL_LINEAR);
+            GlStateManager.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_WRAP_S, GL12.GL_CLAMP_TO_EDGE);
+            GlStateManager.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_WRAP_T, GL12.GL_CLAMP_TO_EDGE);
+        }
+
+        void release() {
+            released = true;
+            pixels = null;
+            if (textureId == -1) return;
+
+            TextureUtil.deleteTexture(textureId);
+            textureId = -1;
+        }
+
+        /**
+         * Draws the part of the tile inside the provided area, all positions in level 0 pixels
+         */
+        void draw(float left, float top, float right, float bottom, float minX, float minZ, float maxX, float maxZ, float x1, float y1, float x2, float y2) {
+            float startX = (float) (x * TILE_SIZE) * (1 << level), startZ = (float) (z * TILE_SIZE) * (1 << level);
+            float sizeX = (float) width * (1 << level), sizeZ = (float) height * (1 << level);
+
+            float u1 = (left - startX) / sizeX, u2 = (right - startX) / sizeX;
+            float v1 = (top - startZ) / sizeZ, v2 = (bottom - startZ) / sizeZ;
+
+            float screenLeft = x1 + (left - minX) / (maxX - minX) * (x2 - x1), screenRight = x1 + (right - minX) / (maxX - minX) * (x2 - x1);
+            float screenTop = y1 + (top - minZ) / (maxZ - minZ) * (y2 - y1), screenBottom = y1 + (bottom - minZ) / (maxZ - minZ) * (y2 - y1);
+
+            GlStateManager.bindTexture(textureId);
+
+            Tessellator tessellator = Tessellator.getInstance();
+            BufferBuilder bufferbuilder = tessellator.getBuffer();
+            bufferbuilder.begin(7, DefaultVertexFormats.POSITION_TEX);
+            bufferbuilder.pos(screenLeft, screenBottom, 0).tex(u1, v2).endVertex();
+            bufferbuilder.pos(screenRight, screenBottom, 0).tex(u2, v2).endVertex();
+            bufferbuilder.pos(screenRight, screenTop, 0).tex(u2, v1).endVertex();
+            bufferbuilder.pos(screenLeft, screenTop, 0).tex(u1, v1).endVertex();
+            tessellator.draw();
+        }
+
+    }
+
+}
@@ -11,13 +11,9 @@ import com.wynntils.core.framework.rendering.textures.Textures;
 import com.wynntils.modules.map.MapModule;
 import com.wynntils.modules.map.configs.MapConfig;
 import com.wynntils.modules.map.instances.MapProfile;
-import net.minecraft.client.renderer.BufferBuilder;
 import net.minecraft.client.renderer.GlStateManager;
-import net.minecraft.client.renderer.Tessellator;
-import net.minecraft.client.renderer.vertex.DefaultVertexFormats;
 import net.minecraft.util.math.MathHelper;
 import net.minecraftforge.client.event.RenderGameOverlayEvent;
-import org.lwjgl.opengl.GL11;
 
 import java.awt.*;
 
@@ -53,10 +49,9 @@ public class MiniMapOverlay extends Overlay {
         float maxX = map.getTextureXPosition(mc.player.posX) + ((mapSize + extraSize)/2) + zoom; // <--- max texture x point
         float maxZ = map.getTextureZPosition(mc.player.posZ) + ((mapSize + extraSize)/2) + zoom; // <--- max texture z point
 
-        minX /= (float)map.getImageWidth(); maxX /= (float)map.getImageWidth();
-        minZ /= (float)map.getImageHeight(); maxZ /= (float)map.getImageHeight();
 
         try{
+            flushBatch();
             GlStateManager.enableAlpha();
             GlStateManager.enableTexture2D();
 
@@ -68,7 +63,6 @@ public class MiniMapOverlay extends Overlay {
             }
 
             //map texture
-            map.bindTexture();
             GlStateManager.color(1.0f, 1.0f, 1.0f, 1.0f);
 
             //rotation axis
@@ -76,21 +70,11 @@ public class MiniMapOverlay extends Overlay {
             if(MapConfig.INSTANCE.followPlayerRotation)
                 rotate(180 - MathHelper.fastFloor(mc.player.rotationYaw));
 
-            //map quad
-            GlStateManager.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_MIN_FILTER, GL11.GL_LINEAR);
-
+            //map tiles
             GlStateManager.enableBlend();
-            Tessellator tessellator = Tessellator.getInstance();
-            BufferBuilder bufferbuilder = tessellator.getBuffer();
-            {
-                bufferbuilder.begin(7, DefaultVertexFormats.POSITION_TEX);
-
-                bufferbuilder.pos(position.getDrawingX() - extraSize/2.0f, position.getDrawingY() + mapSize + extraSize/2, 0).tex(minX, maxZ).endVertex();
-                bufferbuilder.pos(position.getDrawingX() + mapSize + extraSize/2, position.getDrawingY() + mapSize + extraSize/2, 0).tex(maxX, maxZ).endVertex();
-                bufferbuilder.pos(position.getDrawingX() + mapSize + extraSize/2, position.getDrawingY() - extraSize/2.0f, 0).tex(maxX, minZ).endVertex();
-                bufferbuilder.pos(position.getDrawingX() - extraSize/2.0f, position.getDrawingY() - extraSize/2.0f, 0).tex(minX, minZ).endVertex();
-                tessellator.draw();
-            }
+            map.drawMap(minX, minZ, maxX, maxZ,
+                    position.getDrawingX() - extraSize/2.0f, position.getDrawingY() - extraSize/2.0f,
+                    position.getDrawingX() + mapSize + extraSize/2, position.getDrawingY() + mapSize + extraSize/2);
             GlStateManager.disableAlpha();
             GlStateManager.disableBlend();
             clearMask();
@@ -100,9 +84,9 @@ public class MiniMapOverlay extends Overlay {
 
             MapConfig.PointerType type = MapConfig.Textures.INSTANCE.pointerStyle;
 
-            MapConfig.Textures.INSTANCE.pointerColor.applyColor();
+            color(MapConfig.Textures.INSTANCE.pointerColor);
             drawRectF(Textures.Map.map_pointers, (mapSize/2f) - type.dWidth, (mapSize/2f) - type.dHeight, (mapSize/2f) + type.dWidth, (mapSize/2f) + type.dHeight, 0, type.yStart, type.width, type.yStart + type.height);
-            GlStateManager.color(1, 1, 1, 1);
+            color(1, 1, 1, 1);
 
             resetRotation();
 
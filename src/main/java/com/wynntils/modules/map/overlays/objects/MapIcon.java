@@ -57,6 +57,30 @@ public class MapIcon {
         return this;
     }
 
+    public int getPosX() {
+        return posX;
+    }
+
+    public int getPosZ() {
+        return posZ;
+    }
+
+    public float getSizeX() {
+        return sizeX;
+    }
+
+    public float getSizeZ() {
+        return sizeZ;
+    }
+
+    public boolean shouldRender() {
+        return shouldRender;
+    }
+
+    public void hide() {
+        shouldRender = false;
+    }
+
     public void updateAxis(MapProfile mp, int width, int height, float maxX, float minX, float maxZ, float minZ, int zoom) {
         if(zoomNeded != -1000) {
             alpha = 1 - ((zoom - zoomNeded) / 40.0f);
@@ -86,14 +110,11 @@ public class MapIcon {
     public void drawScreen(int mouseX, int mouseY, float partialTicks) {
         if(!shouldRender || renderer == null) return;
 
-        GlStateManager.pushMatrix();
-        GlStateManager.enableBlend();
-        GlStateManager.color(1, 1, 1, alpha);
+        // the color goes with the quad, so icons sharing the texture are batched together
+        renderer.color(1, 1, 1, alpha);
         float multi = mouseOver(mouseX, mouseY) ? 1.3f : 1f;
         renderer.drawRectF(texture, axisX - sizeX * multi, axisZ - sizeZ * multi, axisX + sizeX * multi, axisZ + sizeZ * multi, texPosX, texPosZ, texSizeX, texSizeZ);
-        GlStateManager.color(1,1,1,1);
-
-        GlStateManager.popMatrix();
+        renderer.color(1, 1, 1, 1);
     }
 
     public void drawHovering(int mouseX, int mouseY, float partialTicks) {
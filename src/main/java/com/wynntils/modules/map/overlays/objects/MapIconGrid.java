@@ -0,0 +1,76 @@
+/*
+ *  * Copyright © Wynntils - 2019.
+ */
+
+package com.wynntils.modules.map.overlays.objects;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Groups the map icons by the area of the world they're at, so the icons inside
+ * the visible area, or under the mouse, are found without checking every icon
+ */
+public class MapIconGrid {
+
+    private static final int CELL_SIZE = 128; // in blocks
+
+    private final HashMap<Long, List<MapIcon>> cells = new HashMap<>();
+    private final List<MapIcon> icons = new ArrayList<>();
+
+    private float maxSize = 0;
+
+    public void add(MapIcon icon) {
+        icons.add(icon);
+        cells.computeIfAbsent(getKey(Math.floorDiv(icon.getPosX(), CELL_SIZE), Math.floorDiv(icon.getPosZ(), CELL_SIZE)), k -> new ArrayList<>()).add(icon);
+
+        maxSize = Math.max(maxSize, Math.max(icon.getSizeX(), icon.getSizeZ()));
+    }
+
+    public List<MapIcon> getIcons() {
+        return icons;
+    }
+
+    /**
+     * @return the biggest half size of an icon, in screen pixels
+     */
+    public float getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Finds the icons inside an area of the world, a few icons slightly outside it can be included
+     *
+     * @param result the list the icons are added to, it's cleared first
+     */
+    public void query(float minX, float minZ, float maxX, float maxZ, List<MapIcon> result) {
+        result.clear();
+        if (maxX < minX || maxZ < minZ) return;
+
+        int fromX = Math.floorDiv((int) Math.floor(minX), CELL_SIZE), toX = Math.floorDiv((int) Math.ceil(maxX), CELL_SIZE);
+        int fromZ = Math.floorDiv((int) Math.floor(minZ), CELL_SIZE), toZ = Math.floorDiv((int) Math.ceil(maxZ), CELL_SIZE);
+
+        // zoomed out, most of the area is empty so checking the used cells is faster
+        if ((long) (toX - fromX + 1) * (toZ - fromZ + 1) > cells.size()) {
+            for (List<MapIcon> cell : cells.values()) {
+                MapIcon first = cell.get(0);
+                int cellX = Math.floorDiv(first.getPosX(), CELL_SIZE), cellZ = Math.floorDiv(first.getPosZ(), CELL_SIZE);
+                if (cellX >= fromX && cellX <= toX && cellZ >= fromZ && cellZ <= toZ) result.addAll(cell);
+            }
+            return;
+        }
+
+        for (int x = fromX; x <= toX; x++) {
+            for (int z = fromZ; z <= toZ; z++) {
+                List<MapIcon> cell = cells.get(getKey(x, z));
+                if (cell != null) result.addAll(cell);
+            }
+        }
+    }
+
+    private static long getKey(int x, int z) {
+        return ((long) x << 32) | (z & 0xFFFFFFFFL);
+    }
+
+}
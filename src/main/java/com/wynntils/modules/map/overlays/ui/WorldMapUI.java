@@ -16,6 +16,7 @@ import com.wynntils.modules.map.configs.MapConfig;
 import com.wynntils.modules.map.instances.MapProfile;
 import com.wynntils.modules.map.instances.WaypointProfile;
 import com.wynntils.modules.map.overlays.objects.MapIcon;
+import com.wynntils.modules.map.overlays.objects.MapIconGrid;
 import com.wynntils.webapi.WebManager;
 import com.wynntils.webapi.profiles.MapMarkerProfile;
 import net.minecraft.client.Minecraft;
@@ -23,16 +24,12 @@ import net.minecraft.client.audio.PositionedSoundRecord;
 import net.minecraft.client.gui.GuiButton;
 import net.minecraft.client.gui.GuiButtonImage;
 import net.minecraft.client.gui.GuiScreen;
-import net.minecraft.client.renderer.BufferBuilder;
 import net.minecraft.client.renderer.GlStateManager;
-import net.minecraft.client.renderer.Tessellator;
-import net.minecraft.client.renderer.vertex.DefaultVertexFormats;
 import net.minecraft.init.SoundEvents;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.MathHelper;
 import org.lwjgl.input.Keyboard;
 import org.lwjgl.input.Mouse;
-import org.lwjgl.opengl.GL11;
 
 import java.io.IOException;
 import java.util.ArrayList;
@@ -49,7 +46,9 @@ public class WorldMapUI extends GuiScreen {
     private float centerPositionZ;
     private int zoom = 0;
 
-    private ArrayList<MapIcon> mapIcons = new ArrayList<>();
+    private MapIconGrid mapIcons = new MapIconGrid();
+    private ArrayList<MapIcon> visibleIcons = new ArrayList<>();
+    private ArrayList<MapIcon> hoveredIcons = new ArrayList<>();
 
     boolean holdingMapKey = false;
     long creationTime;
@@ -183,7 +182,31 @@ public class WorldMapUI extends GuiScreen {
         maxX = map.getTextureXPosition(centerPositionX) + ((width)/2.0f) + (width*zoom/100.0f); // <--- max texture x point
         maxZ = map.getTextureZPosition(centerPositionZ) + ((height)/2.0f) + (height*zoom/100.0f); // <--- max texture z point
 
-        mapIcons.forEach(c -> c.updateAxis(map, width, height, maxX, minX, maxZ, minZ, zoom));
+        //only the icons inside the visible area are updated, the others are hidden
+        visibleIcons.forEach(MapIcon::hide);
+        float offsetX = map.getTextureXPosition(0), offsetZ = map.getTextureZPosition(0);
+        mapIcons.query(minX - offsetX, minZ - offsetZ, maxX - offsetX, maxZ - offsetZ, visibleIcons);
+        visibleIcons.forEach(c -> c.updateAxis(map, width, height, maxX, minX, maxZ, minZ, zoom));
+    }
+
+    /**
+     * Finds the icons under the mouse, only visible icons are included
+     */
+    private ArrayList<MapIcon> getHoveredIcons(int mouseX, int mouseY) {
+        if(width == 0 || height == 0) {
+            hoveredIcons.clear();
+            return hoveredIcons;
+        }
+
+        MapProfile map = MapModule.getModule().getMainMap();
+        float blocksPerPixelX = (maxX - minX) / width, blocksPerPixelZ = (maxZ - minZ) / height;
+        float mouseWorldX = minX + mouseX * blocksPerPixelX - map.getTextureXPosition(0);
+        float mouseWorldZ = minZ + mouseY * blocksPerPixelZ - map.getTextureZPosition(0);
+
+        float size = mapIcons.getMaxSize();
+        mapIcons.query(mouseWorldX - size * blocksPerPixelX, mouseWorldZ - size * blocksPerPixelZ, mouseWorldX + size * blocksPerPixelX, mouseWorldZ + size * blocksPerPixelZ, hoveredIcons);
+        hoveredIcons.removeIf(c -> !c.shouldRender() || !c.mouseOver(mouseX, mouseY));
+        return hoveredIcons;
     }
 
     int lastMouseX = -Integer.MAX_VALUE;
@@ -218,37 +241,18 @@ public class WorldMapUI extends GuiScreen {
         renderer.createMask(Textures.Map.full_map, 10, 10, width-10, height-10, 1, 257, 511, 510);
 
         MapProfile map = MapModule.getModule().getMainMap();
-        minX /= (float)map.getImageWidth(); maxX /= (float)map.getImageWidth();
-        minZ /= (float)map.getImageHeight(); maxZ /= (float)map.getImageHeight();
 
         try{
             GlStateManager.enableAlpha();
             GlStateManager.color(1, 1, 1, 1f);
-            GlStateManager.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_MIN_FILTER, GL11.GL_LINEAR);
-
-            map.bindTexture(); // <--- binds the texture
-            GlStateManager.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_WRAP_T, GL11.GL_CLAMP);
-            GlStateManager.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_WRAP_S, GL11.GL_CLAMP);
-            Tessellator tessellator = Tessellator.getInstance();
-
-            BufferBuilder bufferbuilder = tessellator.getBuffer();
-            {
-                bufferbuilder.begin(7, DefaultVertexFormats.POSITION_TEX);
-
-                bufferbuilder.pos(0, height, 0).tex(minX, maxZ).endVertex();
-                bufferbuilder.pos(width, height, 0).tex(maxX, maxZ).endVertex();
-                bufferbuilder.pos(width, 0, 0).tex(maxX, minZ).endVertex();
-                bufferbuilder.pos(0, 0, 0).tex(minX, minZ).endVertex();
-                tessellator.draw();
-            }
 
+            map.drawMap(minX, minZ, maxX, maxZ, 0, 0, width, height); // <--- draws the visible tiles
         }catch (Exception ignored) {}
 
-        //draw map icons
-        mapIcons.forEach(c -> c.drawScreen(mouseX, mouseY, partialTicks));
-
-        minX = minX*map.getImageWidth(); maxX = maxX*map.getImageWidth();
-        minZ = minZ*map.getImageHeight(); maxZ = maxZ*map.getImageHeight();
+        //draw map icons, they share the icon texture so they're drawn at once
+        ScreenRenderer.beginBatch();
+        visibleIcons.forEach(c -> c.drawScreen(mouseX, mouseY, partialTicks));
+        ScreenRenderer.endBatch();
 
         float playerPostionX = (map.getTextureXPosition(mc.player.posX) - minX) / (maxX - minX);
         float playerPostionZ = (map.getTextureZPosition(mc.player.posZ) - minZ) / (maxZ - minZ);
@@ -269,7 +273,7 @@ public class WorldMapUI extends GuiScreen {
             ScreenRenderer.resetRotation();
         }
 
-        mapIcons.forEach(c -> c.drawHovering(mouseX, mouseY, partialTicks));
+        getHoveredIcons(mouseX, mouseY).forEach(c -> c.drawHovering(mouseX, mouseY, partialTicks));
 
         renderer.clearMask();
         ScreenRenderer.endGL();
@@ -311,7 +315,7 @@ public class WorldMapUI extends GuiScreen {
             return;
         }
 
-        mapIcons.forEach(c -> c.mouseClicked(mouseX, mouseY, mouseButton));
+        new ArrayList<>(getHoveredIcons(mouseX, mouseY)).forEach(c -> c.mouseClicked(mouseX, mouseY, mouseButton));
     }
 
     @Override
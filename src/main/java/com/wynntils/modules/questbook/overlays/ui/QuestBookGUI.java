@@ -26,6 +26,7 @@ import com.wynntils.modules.questbook.instances.QuestInfo;
 import com.wynntils.modules.questbook.managers.QuestManager;
 import com.wynntils.webapi.WebManager;
 import com.wynntils.webapi.profiles.item.ItemProfile;
+import com.wynntils.webapi.profiles.item.ItemSearchIndex;
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.audio.PositionedSoundRecord;
 import net.minecraft.client.gui.GuiScreen;
@@ -364,6 +365,7 @@ public class QuestBookGUI extends GuiScreen {
                     byAlphabetical = true;
                     byLevel = false;
                     byRarity = false;
+                    updateItemListSearch();
                 }
             }
             if(selected == 2) {
@@ -372,6 +374,7 @@ public class QuestBookGUI extends GuiScreen {
                     byAlphabetical = false;
                     byLevel = true;
                     byRarity = false;
+                    updateItemListSearch();
                 }
             }
             if(selected == 3) {
@@ -380,6 +383,7 @@ public class QuestBookGUI extends GuiScreen {
                     byRarity = true;
                     byAlphabetical = false;
                     byLevel = false;
+                    updateItemListSearch();
                 }
             }
             if(selected == 10) {
@@ -525,23 +529,26 @@ public class QuestBookGUI extends GuiScreen {
     }
 
     private void updateItemListSearch() {
-        ArrayList<ItemProfile> items = new ArrayList<>(WebManager.getDirectItems());
-
-        itemSearch = !searchBarText.isEmpty() ? (ArrayList<ItemProfile>)items.stream().filter(c -> doesSearchMatch(c.getName().toLowerCase(), searchBarText.toLowerCase())).collect(Collectors.toList()) : items;
-
-        itemSearch = (ArrayList<ItemProfile>)itemSearch.stream().filter(c -> {
-            if(allowHelmet && c.getType() != null && c.getType().equalsIgnoreCase("Helmet")) return true;
-            if(allowChestplate && c.getType() != null && c.getType().equalsIgnoreCase("Chestplate")) return true;
-            if(allowBoots && c.getType() != null && c.getType().equalsIgnoreCase("Boots")) return true;
-            if(allowLeggings && c.getType() != null && c.getType().equalsIgnoreCase("Leggings")) return true;
-            if(allowWands && c.getType() != null && c.getType().equalsIgnoreCase("Wand")) return true;
-            if(allowSpears && c.getType() != null && c.getType().equalsIgnoreCase("Spear")) return true;
-            if(allowDaggers && c.getType() != null && c.getType().equalsIgnoreCase("Dagger")) return true;
-            if(allowBows && c.getType() != null && c.getType().equalsIgnoreCase("Bow")) return true;
-            if(allowBracelets && c.getAccessoryType() != null && c.getAccessoryType().equalsIgnoreCase("Bracelet")) return true;
-            if(allowRings && c.getAccessoryType() != null && c.getAccessoryType().equalsIgnoreCase("Ring")) return true;
-            return allowNecklaces && c.getAccessoryType() != null && c.getAccessoryType().equalsIgnoreCase("Necklace");
-        }).collect(Collectors.toList());
+        List<String> allowedTypes = new ArrayList<>();
+        if(allowHelmet) allowedTypes.add("Helmet");
+        if(allowChestplate) allowedTypes.add("Chestplate");
+        if(allowBoots) allowedTypes.add("Boots");
+        if(allowLeggings) allowedTypes.add("Leggings");
+        if(allowWands) allowedTypes.add("Wand");
+        if(allowSpears) allowedTypes.add("Spear");
+        if(allowDaggers) allowedTypes.add("Dagger");
+        if(allowBows) allowedTypes.add("Bow");
+        if(allowBracelets) allowedTypes.add("Bracelet");
+        if(allowRings) allowedTypes.add("Ring");
+        if(allowNecklaces) allowedTypes.add("Necklace");
+
+        ItemSearchIndex.SortOrder order = byLevel ? ItemSearchIndex.SortOrder.LEVEL : byRarity ? ItemSearchIndex.SortOrder.RARITY : ItemSearchIndex.SortOrder.ALPHABETICAL;
+
+        // the search text can also contain filters, like "lv:80-90 has:spellDamage"
+        itemSearch = WebManager.getItemIndex().query()
+                .types(allowedTypes)
+                .search(searchBarText, QuestBookConfig.INSTANCE.useFuzzySearch)
+                .collect(order);
     }
 
     private void updateQuestSearch() {
@@ -748,10 +755,6 @@ public class QuestBookGUI extends GuiScreen {
                     currentPage = pages;
                 }
 
-                if(byAlphabetical) itemSearch.sort((o1, o2) -> o1.getName().compareToIgnoreCase(o2.getName()));
-                if(byLevel) itemSearch.sort(Comparator.comparingInt(ItemProfile::getLevel).reversed());
-                if(byRarity) itemSearch.sort(Comparator.comparingInt(c -> -c.getTier().getId()));
-
                 render.drawString(currentPage + " / " + pages, x + 80, y + 88, CommonColors.BLACK, SmartFontRenderer.TextAlignment.MIDDLE, SmartFontRenderer.TextShadow.NONE);
 
                 //but next and back button
@@ -6,6 +6,7 @@ package com.wynntils.modules.richpresence.events;
 
 import com.wynntils.Reference;
 import com.wynntils.core.events.custom.WynnWorldJoinEvent;
+import com.wynntils.core.framework.EventRouter;
 import com.wynntils.core.framework.FrameworkManager;
 import com.wynntils.core.framework.instances.PlayerInfo;
 import com.wynntils.core.utils.Utils;
@@ -41,6 +42,15 @@ public class RPCJoinHandler implements DiscordRichPresence.DiscordEventHandlers.
         serverAddress.setResourceMode(ServerData.ServerResourceMode.ENABLED);
 
         FrameworkManager.getEventBus().register(this);
+        EventRouter.bridgeListener(this);
+    }
+
+    /**
+     * Stops listening to the game events, once the rich presence is shut down
+     */
+    public void unregister() {
+        FrameworkManager.getEventBus().unregister(this);
+        EventRouter.unbridgeListener(this);
     }
 
     public void accept(String joinSecret) {
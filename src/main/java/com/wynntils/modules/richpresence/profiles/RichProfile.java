@@ -14,6 +14,7 @@ import java.time.OffsetDateTime;
 public class RichProfile {
 
     final DiscordRichPresence.DiscordRPC rpc;
+    final RPCJoinHandler joinHandler;
     Thread shutdown = new Thread(this::disconnectRichPresence);
 
     SecretContainer joinSecret = null;
@@ -28,7 +29,8 @@ public class RichProfile {
             System.out.println("DISCORD READY"); //HeyZeer0: for a random reason, it doesn't seems to work without this println
             if(WebManager.getAccount() != null) WebManager.getAccount().updateDiscord(user.userId, user.username + "#" + user.discriminator);
         };
-        handler.joinGame = new RPCJoinHandler();
+        joinHandler = new RPCJoinHandler();
+        handler.joinGame = joinHandler;
 
         rpc.Discord_Initialize(id, handler, true, null);
 
@@ -138,6 +140,7 @@ public class RichProfile {
      */
     public void disconnectRichPresence() {
         rpc.Discord_Shutdown();
+        joinHandler.unregister();
     }
 
     /**
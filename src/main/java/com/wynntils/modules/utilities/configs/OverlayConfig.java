@@ -379,7 +379,7 @@ public class OverlayConfig extends SettingsClass {
         @Override
         public void onSettingChanged(String name) {
             if (name.equals("enabled")) {
-                WebManager.updateTerritoryThreadStatus(enabled);
+                WebManager.updateTerritoryUpdaterStatus(enabled);
                 TerritoryFeedOverlay.clearQueue();
             }
         }
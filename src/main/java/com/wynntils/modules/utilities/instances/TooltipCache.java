@@ -0,0 +1,142 @@
+/*
+ *  * Copyright © Wynntils - 2019.
+ */
+
+package com.wynntils.modules.utilities.instances;
+
+import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.nbt.NBTTagList;
+import net.minecraft.nbt.NBTTagString;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the last computed item tooltips, each item can have up to 3 variants
+ * (plain, showing chances and showing ranges), items are identified by a hash of their
+ * original name and lore, so the same item seen again (at another chest, bank page or
+ * marketplace page) reuses the tooltips already computed.
+ */
+public class TooltipCache {
+
+    public static final String KEY_TAG = "wynntilsTooltip";
+
+    private static final int PLAIN = 0, CHANCES = 1, RANGES = 2;
+
+    private final LinkedHashMap<Long, Tooltip[]> tooltips;
+    private int generation = 0;
+
+    public TooltipCache(int maxItems) {
+        tooltips = new LinkedHashMap<Long, Tooltip[]>(maxItems, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Tooltip[]> eldest) {
+                return size() > maxItems;
+            }
+        };
+    }
+
+    /**
+     * @param stack the item stack
+     * @param extra anything else that changes the tooltip, like the inventory being the marketplace
+     * @return the key of the stack, read from the stack if its tooltip was already replaced
+     */
+    public static long getKey(ItemStack stack, List<String> lore, boolean extra) {
+        if (stack.hasTagCompound() && stack.getTagCompound().hasKey(KEY_TAG)) return stack.getTagCompound().getLong(KEY_TAG);
+
+        long hash = 0xcbf29ce484222325L; // FNV-1a
+        hash = hash(hash, stack.getDisplayName());
+        for (String line : lore) hash = hash(hash, line);
+        return extra ? ~hash : hash;
+    }
+
+    /**
+     * @return the cached tooltip, or null if it was never computed or was evicted
+     */
+    public Tooltip get(long key, boolean showChances, boolean showRanges) {
+        Tooltip[] variants = tooltips.get(key);
+        return variants == null ? null : variants[getVariant(showChances, showRanges)];
+    }
+
+    /**
+     * Stores the tooltip currently applied to the stack
+     */
+    public void put(long key, boolean showChances, boolean showRanges, ItemStack stack) {
+        tooltips.computeIfAbsent(key, k -> new Tooltip[3])[getVariant(showChances, showRanges)] = new Tooltip(stack);
+        stack.getTagCompound().setLong(KEY_TAG, key);
+    }
+
+    /**
+     * Drops every tooltip once the items they were computed from are replaced
+     *
+     * @param generation the current items generation, see {@link com.wynntils.webapi.WebManager#getItemsGeneration()}
+     */
+    public void setGeneration(int generation) {
+        if (this.generation == generation) return;
+
+        this.generation = generation;
+        clear();
+    }
+
+    public void clear() {
+        tooltips.clear();
+    }
+
+    private static int getVariant(boolean showChances, boolean showRanges) {
+        return showChances ? CHANCES : showRanges ? RANGES : PLAIN;
+    }
+
+    private static long hash(long hash, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= 0xFFFF; // line separator
+        hash *= 0x100000001b3L;
+        return hash;
+    }
+
+    public static class Tooltip {
+
+        private final String name;
+        private final String[] lore;
+        private final String rainbowTitle;
+
+        private Tooltip(ItemStack stack) {
+            NBTTagCompound nbt = stack.getTagCompound();
+            NBTTagCompound display = nbt.getCompoundTag("display");
+
+            name = display.hasKey("Name") ? display.getString("Name") : null;
+            rainbowTitle = nbt.hasKey("rainbowTitle") ? nbt.getString("rainbowTitle") : null;
+
+            NBTTagList tag = display.getTagList("Lore", 8);
+            lore = new String[tag.tagCount()];
+            for (int i = 0; i < lore.length; i++) lore[i] = tag.getStringTagAt(i);
+        }
+
+        /**
+         * Replaces the name and lore of the stack by this tooltip
+         */
+        public void apply(ItemStack stack, long key, boolean showChances, boolean showRanges) {
+            if (!stack.hasTagCompound()) stack.setTagCompound(new NBTTagCompound());
+
+            NBTTagCompound nbt = stack.getTagCompound();
+            NBTTagCompound display = nbt.getCompoundTag("display");
+
+            NBTTagList tag = new NBTTagList();
+            for (String line : lore) tag.appendTag(new NBTTagString(line));
+            display.setTag("Lore", tag);
+            if (name != null) display.setString("Name", name);
+            nbt.setTag("display", display);
+
+            if (rainbowTitle != null) nbt.setString("rainbowTitle", rainbowTitle);
+            nbt.setBoolean("verifiedWynntils", true);
+            nbt.setBoolean("showChances", showChances);
+            nbt.setBoolean("showRanges", showRanges);
+            nbt.setLong(KEY_TAG, key);
+        }
+
+    }
+
+}
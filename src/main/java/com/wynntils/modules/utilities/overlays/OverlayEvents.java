@@ -502,8 +502,14 @@ public class OverlayEvents implements Listener {
                 }
             }
         }
-        String attackerName = OverlayConfig.TerritoryFeed.INSTANCE.useTag ? e.getAttackerTag() : e.getAttackerName();
-        String defenderName = OverlayConfig.TerritoryFeed.INSTANCE.useTag ? e.getDefenderTag() : e.getDefenderName();
+        // formatted when displayed, so guild tags that are resolved meanwhile are used
+        TextFormatting messageColor = color;
+        TerritoryFeedOverlay.queueMessage(() -> messageColor + formatWarMessage(e));
+    }
+
+    private static String formatWarMessage(WynnGuildWarEvent e) {
+        String attackerName = OverlayConfig.TerritoryFeed.INSTANCE.useTag ? (e.getAttackerTag() != null ? e.getAttackerTag() : e.getAttackerName()) : e.getAttackerName();
+        String defenderName = OverlayConfig.TerritoryFeed.INSTANCE.useTag ? (e.getDefenderTag() != null ? e.getDefenderTag() : e.getDefenderName()) : e.getDefenderName();
         String rawMessage = "";
         if (OverlayConfig.TerritoryFeed.INSTANCE.shortMessages) {
             switch (e.getType()) {
@@ -530,7 +536,7 @@ public class OverlayEvents implements Listener {
                     break;
             }
         }
-        TerritoryFeedOverlay.queueMessage(color + rawMessage);
+        return rawMessage;
     }
 
     @SubscribeEvent
@@ -150,6 +150,7 @@ public class ActionBarOverlay extends Overlay {
                 }
 
                 if (k > 0) {
+                    flushBatch();
                     GlStateManager.pushMatrix();
                     GlStateManager.enableBlend();
                     GlStateManager.tryBlendFuncSeparate(GlStateManager.SourceFactor.SRC_ALPHA, GlStateManager.DestFactor.ONE_MINUS_SRC_ALPHA, GlStateManager.SourceFactor.ONE, GlStateManager.DestFactor.ZERO);
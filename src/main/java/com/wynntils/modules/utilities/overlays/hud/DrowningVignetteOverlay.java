@@ -37,6 +37,7 @@ public class DrowningVignetteOverlay extends Overlay {
 
         float value = Math.abs((animation / 300.0f) - 1.0f);
 
+        flushBatch();
         GlStateManager.pushMatrix();
         {
             ScreenRenderer.transformationOrigin(0, 0);
@@ -34,6 +34,7 @@ public class LowHealthVignetteOverlay extends Overlay {
             return;
         }
 
+        flushBatch();
         GlStateManager.pushMatrix();
         {
             ScreenRenderer.transformationOrigin(0, 0);
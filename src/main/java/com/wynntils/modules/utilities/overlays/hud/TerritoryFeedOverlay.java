@@ -10,10 +10,11 @@ import org.apache.logging.log4j.LogManager;
 
 import java.util.LinkedList;
 import java.util.Queue;
+import java.util.function.Supplier;
 
 public class TerritoryFeedOverlay extends Overlay {
 
-    private static Queue<String> messageList = new LinkedList<>();
+    private static Queue<Supplier<String>> messageList = new LinkedList<>();
     private static String currentMessage;
     private static long animationStartTime;
 
@@ -36,16 +37,23 @@ public class TerritoryFeedOverlay extends Overlay {
             if (System.currentTimeMillis() - animationStartTime >= OverlayConfig.TerritoryFeed.INSTANCE.animationLength * 1000)
                 currentMessage = null;
         } else if (!messageList.isEmpty()) {
-            currentMessage = messageList.remove();
+            currentMessage = messageList.remove().get();
             animationStartTime = System.currentTimeMillis();
         }
         staticSize.x = ScreenRenderer.screen.getScaledWidth();
     }
 
     public static void queueMessage(String message) {
+        queueMessage(() -> message);
+    }
+
+    /**
+     * @param message the message, only formatted when it starts being displayed
+     */
+    public static void queueMessage(Supplier<String> message) {
         if(!OverlayConfig.TerritoryFeed.INSTANCE.enabled) return;
 
-        LogManager.getFormatterLogger("TerritoryFeed").info("Message Queued: " + message);
+        LogManager.getFormatterLogger("TerritoryFeed").info("Message Queued: " + message.get());
         messageList.add(message);
     }
 
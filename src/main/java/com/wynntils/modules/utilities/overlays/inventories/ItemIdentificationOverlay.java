@@ -9,7 +9,9 @@ import com.wynntils.core.events.custom.GuiOverlapEvent;
 import com.wynntils.core.framework.interfaces.Listener;
 import com.wynntils.core.utils.RainbowText;
 import com.wynntils.core.utils.Utils;
+import com.wynntils.modules.utilities.instances.TooltipCache;
 import com.wynntils.webapi.WebManager;
+import com.wynntils.webapi.profiles.item.IdentificationTemplate;
 import com.wynntils.webapi.profiles.item.ItemGuessProfile;
 import com.wynntils.webapi.profiles.item.ItemProfile;
 import net.minecraft.client.Minecraft;
@@ -23,7 +25,6 @@ import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
 import org.apache.commons.lang3.StringUtils;
 import org.lwjgl.input.Keyboard;
 
-import java.lang.reflect.Field;
 import java.text.DecimalFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -34,8 +35,10 @@ import java.util.regex.Pattern;
 public class ItemIdentificationOverlay implements Listener {
 
     private final static Pattern BRACKETS = Pattern.compile("\\[.*?\\]");
+    private final static Pattern MARKETPLACE = Pattern.compile("\\[Pg\\. \\d+\\] Marketplace");
     private final static Pattern ID_PERCENTAGES = Pattern.compile("( \\[\\d{1,3}%\\]$)|( (" + TextFormatting.GREEN + "|" + TextFormatting.AQUA + "|" + TextFormatting.RED + ")" + TextFormatting.BOLD + "[\\u21E9\\u21E7\\u21EA]" + TextFormatting.RESET + "(" + TextFormatting.GREEN + "|" + TextFormatting.AQUA + "|" + TextFormatting.RED + ")\\d+\\.\\d+%)|( (" + TextFormatting.DARK_GREEN + "|" + TextFormatting.DARK_RED + ")\\[(" + TextFormatting.GREEN + "|" + TextFormatting.RED + ")[-+]?\\d+(" + TextFormatting.DARK_GREEN + "|" + TextFormatting.DARK_RED + "),(" + TextFormatting.GREEN + "|" + TextFormatting.RED + ") [-+]?\\d+(" + TextFormatting.DARK_GREEN + "|" + TextFormatting.DARK_RED + ")\\])|( (" + TextFormatting.GREEN + "|" + TextFormatting.RED + ")\\[[-+]?\\d+ SP\\])");
     public static final DecimalFormat decimalFormat = new DecimalFormat("#,###,###,###");
+    private final static TooltipCache tooltips = new TooltipCache(512);
     public final static String E = new String(new char[]{(char) 0xB2}), B = new String(new char[]{(char) 0xBD}), L = new String(new char[]{(char) 0xBC});
 
     @SubscribeEvent
@@ -170,34 +173,46 @@ public class ItemIdentificationOverlay implements Listener {
         boolean showChances = Keyboard.isKeyDown(Keyboard.KEY_LCONTROL);
         boolean showRanges = Keyboard.isKeyDown(Keyboard.KEY_LSHIFT);
 
-        if (!WebManager.getItems().containsKey(Utils.stripColor(cleanse(stack.getDisplayName().replace("À", ""))))) {
-            if (inventory != null && Utils.stripColor(inventory.getDisplayName().getUnformattedText()).matches("\\[Pg\\. \\d+\\] Marketplace")) {
-                List<String> actualLore = Utils.getLore(stack);
-                if (actualLore.size() < 3)
-                    return;
-                String lore = actualLore.get(2);
-                if (!lore.startsWith(TextFormatting.GOLD + " - "))
-                    return;
-                String wColor = Utils.stripColor(lore);
-
-                actualLore.set(2, getMarketPlaceLore(lore));
-
-                NBTTagCompound nbt = stack.getTagCompound();
-                NBTTagCompound display = nbt.getCompoundTag("display");
-                nbt.setBoolean("verifiedWynntils", true);
-                nbt.setBoolean("showChances", Keyboard.isKeyDown(Keyboard.KEY_LCONTROL));
-                nbt.setBoolean("showRanges", Keyboard.isKeyDown(Keyboard.KEY_LSHIFT));
-                NBTTagList tag = new NBTTagList();
-                actualLore.forEach(s -> tag.appendTag(new NBTTagString(s)));
-                display.setTag("Lore", tag);
-                nbt.setTag("display", display);
-                stack.setTagCompound(nbt);
-            }
+        ItemProfile wItem = WebManager.getItems().get(Utils.stripColor(cleanse(stack.getDisplayName().replace("À", ""))));
+        boolean marketplace = inventory != null && MARKETPLACE.matcher(Utils.stripColor(inventory.getDisplayName().getUnformattedText())).matches();
+        if (wItem == null && !marketplace) return;
+        if (wItem != null && wItem.isIdentified()) return;
+
+        // the same item could have been seen before, even at another stack
+        List<String> actualLore = Utils.getLore(stack);
+        long key = TooltipCache.getKey(stack, actualLore, marketplace);
+        tooltips.setGeneration(WebManager.getItemsGeneration());
+        TooltipCache.Tooltip cached = tooltips.get(key, showChances, showRanges);
+        if (cached != null) {
+            cached.apply(stack, key, showChances, showRanges);
             return;
         }
-        ItemProfile wItem = WebManager.getItems().get(Utils.stripColor(cleanse(stack.getDisplayName().replace("À", ""))));
 
-        if (wItem.isIdentified()) {
+        identifyItem(stack, wItem, actualLore, marketplace, showChances, showRanges);
+
+        if (stack.hasTagCompound() && stack.getTagCompound().getBoolean("verifiedWynntils")) tooltips.put(key, showChances, showRanges, stack);
+    }
+
+    private static void identifyItem(ItemStack stack, ItemProfile wItem, List<String> actualLore, boolean marketplace, boolean showChances, boolean showRanges) {
+        if (wItem == null) {
+            if (actualLore.size() < 3)
+                return;
+            String lore = actualLore.get(2);
+            if (!lore.startsWith(TextFormatting.GOLD + " - "))
+                return;
+
+            actualLore.set(2, getMarketPlaceLore(lore));
+
+            NBTTagCompound nbt = stack.getTagCompound();
+            NBTTagCompound display = nbt.getCompoundTag("display");
+            nbt.setBoolean("verifiedWynntils", true);
+            nbt.setBoolean("showChances", showChances);
+            nbt.setBoolean("showRanges", showRanges);
+            NBTTagList tag = new NBTTagList();
+            actualLore.forEach(s -> tag.appendTag(new NBTTagString(s)));
+            display.setTag("Lore", tag);
+            nbt.setTag("display", display);
+            stack.setTagCompound(nbt);
             return;
         }
 
@@ -207,14 +222,13 @@ public class ItemIdentificationOverlay implements Listener {
         double chanceDown = 0;
         int totalSP = 0;
 
-        List <String> actualLore = Utils.getLore(stack);
         List <Integer> statOrderMem = new ArrayList<>();
 
         for (int i = 0; i < actualLore.size(); i++) {
             String lore = cleanse(actualLore.get(i));
             String wColor = Utils.stripColor(lore);
 
-            if (i == 2 && inventory != null && Utils.stripColor(inventory.getDisplayName().getUnformattedText()).matches("\\[Pg\\. \\d+\\] Marketplace")) {
+            if (i == 2 && marketplace) {
                 actualLore.set(i, getMarketPlaceLore(lore));
                 continue;
             }
@@ -273,40 +287,17 @@ public class ItemIdentificationOverlay implements Listener {
             boolean raw = !lore.contains("%");
 
             try {
-                int amount = Integer.valueOf(values[0].replace("*", "").replace("%", "").replace("/3s", "").replace("/4s", "").replace("tier ", ""));
-
-                String fieldName;
-                if (raw) {
-                    fieldName = Utils.getFieldName("raw" + pField);
-                    if (fieldName == null) {
-                        fieldName = Utils.getFieldName(pField);
-                    }
-                } else {
-                    fieldName = Utils.getFieldName(pField);
-                }
+                int amount = Integer.parseInt(values[0].replace("*", "").replace("%", "").replace("/3s", "").replace("/4s", "").replace("tier ", ""));
 
-                if (fieldName == null) {
+                IdentificationTemplate.Stat stat = wItem.getIdentificationTemplate().get(pField, raw);
+                if (stat == null) {
                     actualLore.set(i, lore);
                     statOrderMem.add(1000);
                     continue;
                 }
 
-                Field f = wItem.getClass().getField(fieldName);
-                if (f == null) {
-                    actualLore.set(i, lore);
-                    continue;
-                }
-
-                int itemVal = Integer.valueOf(String.valueOf(f.get(wItem)));
-                int min;
-                int max;
-                if (amount < 0) {
-                    max = (int) Math.min(Math.round(itemVal * 1.3d), -1);
-                    min = (int) Math.min(Math.round(itemVal * 0.7d), -1);
-                } else {
-                    max = (int) Math.max(Math.round(itemVal * 1.3d), 1);
-                    min = (int) Math.max(Math.round(itemVal * 0.3d), 1);
-                }
+                int min = stat.getMin(amount);
+                int max = stat.getMax(amount);
 
                 if (max == min) {
                     actualLore.set(i, lore);
@@ -314,54 +305,10 @@ public class ItemIdentificationOverlay implements Listener {
 
 
                 if (showChances) {
-                    float downPercent;
-                    float upPercent;
-                    float bestPercent;
-                    if (amount < 0) {
-                        downPercent = 0;
-                        upPercent = 0;
-                        bestPercent = 0;
-                        for (double j = 70; j <= 130; j++) {
-                            if (Math.round(itemVal * (j / 100)) < amount) {
-                                downPercent++;
-                            } else if (Math.round(itemVal * (j / 100)) > amount) {
-                                upPercent++;
-                            }
-                            if (Math.round(itemVal * (j / 100)) == min) {
-                                bestPercent++;
-                            }
-                        }
-                        downPercent = downPercent / 0.61f;
-                        upPercent = upPercent / 0.61f;
-                        bestPercent = bestPercent / 0.61f;
-
-                        // Equations for calculating percent chances (not used currently because of a weird offset issue)
-                        //downPercent = (amount == max ? 0 : 100 - (float) (((Math.ceil(((amount - 0.5d) / itemVal) * 100) - 70) / 61) * 100));
-                        //upPercent = (amount == min ? 0 : (float) (((Math.ceil(((amount + 0.5d) / itemVal) * 100) - 69) / 61) * 100) );
-                        //bestPercent = (float) (((Math.ceil(((min * 100d) - 50d) / itemVal) - 70) / 61) * 100);
-                    } else {
-                        downPercent = 0;
-                        upPercent = 0;
-                        bestPercent = 0;
-                        for (double j = 30; j <= 130; j++) {
-                            if (Math.round(itemVal * (j / 100)) < amount) {
-                                downPercent++;
-                            } else if (Math.round(itemVal * (j / 100)) > amount) {
-                                upPercent++;
-                            }
-                            if (Math.round(itemVal * (j / 100)) == max) {
-                                bestPercent++;
-                            }
-                        }
-                        downPercent = downPercent / 1.01f;
-                        upPercent = upPercent / 1.01f;
-                        bestPercent = bestPercent / 1.01f;
-
-                        // Equations for calculating percent chances (not used currently because of a weird offset issue)
-                        //downPercent = (amount == min ? 0 : (float) (((Math.ceil(((amount - 0.5d) / itemVal) * 100) - 30) / 101) * 100) );
-                        //upPercent =  (amount == max ? 0 : 100 - (float) (((Math.ceil(((amount + 0.5d) / itemVal) * 100) - 30) / 101) * 100));
-                        //bestPercent = 100 - (float) (((Math.ceil(((max - 0.5d) / itemVal) * 100) - 30) / 101) * 100);
-                    }
+                    float[] chances = stat.getChances(amount);
+                    float downPercent = chances[0];
+                    float upPercent = chances[1];
+                    float bestPercent = chances[2];
 
                     lore += " " + TextFormatting.RED.toString() + TextFormatting.BOLD + "\u21E9" + TextFormatting.RESET + TextFormatting.RED + String.format("%.1f", downPercent) + "% " + TextFormatting.GREEN + TextFormatting.BOLD + "\u21E7" + TextFormatting.RESET + TextFormatting.GREEN + String.format("%.1f", upPercent) + "% " + TextFormatting.AQUA + TextFormatting.BOLD + "\u21EA" + TextFormatting.RESET + TextFormatting.AQUA + String.format("%.1f", bestPercent) + "%";
                     identifications += 1;
@@ -370,25 +317,7 @@ public class ItemIdentificationOverlay implements Listener {
                     chanceDown = chanceDown + ((1 - chanceDown) * (downPercent / 100));
                 } else if (showRanges) {
                     lore += " " + (amount < 0 ? TextFormatting.DARK_RED + "[" + TextFormatting.RED + max + TextFormatting.DARK_RED + "," + TextFormatting.RED + " " + min + TextFormatting.DARK_RED + "]" : TextFormatting.DARK_GREEN + "[" + TextFormatting.GREEN + min + TextFormatting.DARK_GREEN + "," + TextFormatting.GREEN +" " + max + TextFormatting.DARK_GREEN + "]");
-                    switch (fieldName) {
-                        case "agilityPoints":
-                            totalSP += amount;
-                            break;
-                        case "intelligencePoints":
-                            totalSP += amount;
-                            break;
-                        case "defensePoints":
-                            totalSP += amount;
-                            break;
-                        case "strengthPoints":
-                            totalSP += amount;
-                            break;
-                        case "dexterityPoints":
-                            totalSP += amount;
-                            break;
-                        default:
-                            break;
-                    }
+                    if (stat.isSkillPoints()) totalSP += amount;
                     identifications++;
                 } else {
                     double intVal = (double) (max - min);
@@ -415,7 +344,7 @@ public class ItemIdentificationOverlay implements Listener {
                 }
 
 
-                int idRank = Utils.getFieldRank(fieldName);
+                int idRank = stat.getRank();
                 if (statOrderMem.isEmpty()){
                     statOrderMem.add(idRank);
                     actualLore.set(i, lore);
@@ -5,83 +5,97 @@
 package com.wynntils.webapi;
 
 import com.google.common.reflect.TypeToken;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.gson.*;
+import com.google.gson.stream.JsonReader;
 import com.mojang.util.UUIDTypeAdapter;
 import com.wynntils.ModCore;
 import com.wynntils.Reference;
 import com.wynntils.core.events.custom.WynnGuildWarEvent;
 import com.wynntils.core.framework.FrameworkManager;
 import com.wynntils.webapi.account.WynntilsAccount;
+import com.wynntils.webapi.cache.ApiCache;
+import com.wynntils.webapi.cache.GuildProfileCache;
+import com.wynntils.webapi.cache.ProfileSnapshots;
+import com.wynntils.webapi.cache.TerritoryStore;
+import com.wynntils.webapi.cache.UserFlagIndex;
+import com.wynntils.webapi.loader.ApiLoader;
 import com.wynntils.webapi.profiles.*;
 import com.wynntils.webapi.profiles.guild.GuildProfile;
 import com.wynntils.webapi.profiles.item.ItemGuessProfile;
 import com.wynntils.webapi.profiles.item.ItemProfile;
+import com.wynntils.webapi.profiles.item.ItemSearchIndex;
 import com.wynntils.webapi.profiles.player.PlayerStatsProfile;
-import net.minecraftforge.fml.common.ProgressManager;
-import org.apache.commons.io.FileUtils;
+import com.wynntils.webapi.request.RequestHandler;
+import com.wynntils.webapi.request.Response;
 import org.apache.commons.io.IOUtils;
 
 import java.io.*;
 import java.lang.reflect.Type;
-import java.net.URL;
-import java.net.URLConnection;
 import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 public class WebManager {
 
     public static WebReader apiUrls;
 
-    private static HashMap<String, TerritoryProfile> territories = new HashMap<>();
+    private static TerritoryStore territories = new TerritoryStore();
     private static UpdateProfile updateProfile;
-    private static HashMap<String, ItemProfile> items = new HashMap<>();
-    private static ArrayList<ItemProfile> directItems = new ArrayList<>();
-    private static ArrayList<MapMarkerProfile> mapMarkers = new ArrayList<>();
-    private static HashMap<String, ItemGuessProfile> itemGuesses = new HashMap<>();
-    private static PlayerStatsProfile playerProfile;
-    private static HashMap<String, GuildProfile> guilds = new HashMap<>();
-
-    private static ArrayList<UUID> helpers = new ArrayList<>();
-    private static ArrayList<UUID> moderators = new ArrayList<>();
-    private static ArrayList<UUID> content_team = new ArrayList<>();
-    private static ArrayList<UUID> donators = new ArrayList<>();
-
-    private static ArrayList<UUID> ears = new ArrayList<>();
-    private static ArrayList<UUID> elytras = new ArrayList<>();
-    private static ArrayList<UUID> capes = new ArrayList<>();
+
+    // replaced as a whole from the ApiLoader threads, never modified once published
+    private static volatile HashMap<String, ItemProfile> items = new HashMap<>();
+    private static volatile ArrayList<ItemProfile> directItems = new ArrayList<>();
+    private static volatile ItemSearchIndex itemIndex = new ItemSearchIndex(new ArrayList<>());
+    private static volatile ArrayList<MapMarkerProfile> mapMarkers = new ArrayList<>();
+    private static volatile HashMap<String, ItemGuessProfile> itemGuesses = new HashMap<>();
+    private static volatile PlayerStatsProfile playerProfile;
+    private static volatile int itemsGeneration = 0;
+    private static GuildProfileCache guilds = new GuildProfileCache();
+
+    private static UserFlagIndex users = new UserFlagIndex();
 
     private static WynntilsAccount account = null;
 
     private static Gson gson = new Gson();
 
-    private static Thread territoryUpdateThread;
-
-    private static final int REQUEST_TIMEOUT_MILLIS = 16000;
+    private static final long TERRITORY_WAR_INTERVAL_MILLIS = 10000; // while a territory is being attacked
+    private static final long TERRITORY_INTERVAL_MILLIS = 30000;
+    private static final long TERRITORY_IDLE_INTERVAL_MILLIS = 60000; // while not connected to Wynncraft
+    private static final ScheduledExecutorService territoryExecutor = Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder().setNameFormat("Wynntils Territory Updater").setDaemon(true).build());
+    private static ScheduledFuture<?> territoryUpdate;
+    private static int territoryUpdaterRun = 0; // stops outdated updates from rescheduling themselves
 
     public static void reset() {
         apiUrls = null;
 
-        territories = new HashMap<>();
+        territories.clear();
         updateProfile = null;
         items = new HashMap<>();
+        itemsGeneration++;
+        directItems = new ArrayList<>();
+        itemIndex = new ItemSearchIndex(new ArrayList<>());
         mapMarkers = new ArrayList<>();
         itemGuesses = new HashMap<>();
         playerProfile = null;
-        guilds = new HashMap<>();
+        guilds.clear();
 
-        helpers = new ArrayList<>();
-        moderators = new ArrayList<>();
-        content_team = new ArrayList<>();
-
-        ears = new ArrayList<>();
-        elytras = new ArrayList<>();
-        capes = new ArrayList<>();
+        users.clear();
 
         account = null;
 
-        updateTerritoryThreadStatus(false);
+        updateTerritoryUpdaterStatus(false);
     }
 
     public static void setupWebApi() {
@@ -89,47 +103,18 @@ public class WebManager {
             apiUrls = new WebReader("https://api.wynntils.com/webapi");
         }catch (Exception ex) { ex.printStackTrace(); return; }
 
-        ProgressManager.ProgressBar progressBar = ProgressManager.push("Loading data from APIs", 7);
-
-        progressBar.step("Territories");
-        long ms = System.currentTimeMillis();
-        updateTerritories();
-        Reference.LOGGER.info("Territory list loaded in " + (System.currentTimeMillis() - ms) + "ms");
-
-        try{
-            progressBar.step("User roles");
-            updateUsersRoles();
-            progressBar.step("User models");
-            updateUsersModels();
-
-            progressBar.step("Items");
-            ms = System.currentTimeMillis();
-            updateItemList();
-            Reference.LOGGER.info("Loaded " + items.size() + " items in " + (System.currentTimeMillis() - ms) + "ms");
-
-            progressBar.step("Map Markers");
-            ms = System.currentTimeMillis();
-            updateMapMarkers();
-            updateMapRefineries();
-            Reference.LOGGER.info("Loaded " + mapMarkers.size() + " MapMarkers in " + (System.currentTimeMillis() - ms) + "ms");
-
-            progressBar.step("Item Guesses");
-            ms = System.currentTimeMillis();
-            updateItemGuesses();
-            Reference.LOGGER.info("Loaded " + itemGuesses.size() + " ItemGuesses in " + (System.currentTimeMillis() - ms) + "ms");
-
-            progressBar.step("Player Stats");
-            ms = System.currentTimeMillis();
-            updatePlayerProfile();
-            Reference.LOGGER.info("Loaded player stats in " + (System.currentTimeMillis() - ms) + "ms");
-        } catch (Exception ex) {
-            for (int i = progressBar.getStep(); i < progressBar.getSteps(); i++)
-                progressBar.step("Error loading data from APIs");
-            ex.printStackTrace();
-        }
-        ProgressManager.pop(progressBar);
+        new ApiLoader("Loading data from APIs")
+                .stage("Territories", true, WebManager::updateTerritories)
+                .stage("User roles", true, WebManager::updateUsersRoles)
+                .stage("User models", true, WebManager::updateUsersModels)
+                .stage("Items", false, WebManager::updateItemList)
+                .stage("Map Markers", false, WebManager::updateMapMarkers)
+                .stage("Map Refineries", false, WebManager::updateMapRefineries, "Map Markers")
+                .stage("Item Guesses", false, WebManager::updateItemGuesses)
+                .stage("Player Stats", false, WebManager::updatePlayerProfile)
+                .load();
 
-        updateTerritoryThreadStatus(true);
+        updateTerritoryUpdaterStatus(true);
     }
 
     public static void checkForUpdates() {
@@ -149,8 +134,11 @@ public class WebManager {
         return account;
     }
 
-    public static HashMap<String, TerritoryProfile> getTerritories() {
-        return territories;
+    /**
+     * @return an unmodifiable snapshot of the territories, it's never modified by later updates
+     */
+    public static Map<String, TerritoryProfile> getTerritories() {
+        return territories.getTerritories();
     }
 
     public static HashMap<String, ItemProfile> getItems() {
@@ -171,56 +159,120 @@ public class WebManager {
         return directItems;
     }
 
+    /**
+     * @return a number that changes every time the item map is replaced
+     */
+    public static int getItemsGeneration() {
+        return itemsGeneration;
+    }
+
+    /**
+     * @return the search index of every item, rebuilt when the items are updated
+     */
+    public static ItemSearchIndex getItemIndex() {
+        return itemIndex;
+    }
+
     public static boolean isHelper(UUID uuid) {
-        return helpers.contains(uuid);
+        return users.has(uuid, UserFlagIndex.HELPER);
     }
 
     public static boolean isModerator(UUID uuid) {
-        return moderators.contains(uuid);
+        return users.has(uuid, UserFlagIndex.MODERATOR);
     }
 
-    public static boolean isContentTeam(UUID uuid) { return content_team.contains(uuid); }
+    public static boolean isContentTeam(UUID uuid) { return users.has(uuid, UserFlagIndex.CONTENT_TEAM); }
 
     public static boolean isDonator(UUID uuid) {
-        return donators.contains(uuid);
+        return users.has(uuid, UserFlagIndex.DONATOR);
     }
 
     public static boolean hasElytra(UUID uuid) {
-        return elytras.contains(uuid);
+        return users.has(uuid, UserFlagIndex.ELYTRA);
     }
 
     public static boolean hasEars(UUID uuid) {
-        return ears.contains(uuid);
+        return users.has(uuid, UserFlagIndex.EARS);
     }
 
     public static boolean hasCape(UUID uuid) {
-        return capes.contains(uuid);
+        return users.has(uuid, UserFlagIndex.CAPE);
     }
 
-    public static void updateTerritoryThreadStatus(boolean start) {
-        if(start) {
-            if(territoryUpdateThread == null) {
-                territoryUpdateThread = new TerritoryUpdateThread("Territory Update Thread");
-                territoryUpdateThread.start();
-                return;
-            }
+    public static synchronized void updateTerritoryUpdaterStatus(boolean start) {
+        if (start) {
+            if (territoryUpdate == null) scheduleTerritoryUpdate(++territoryUpdaterRun, TERRITORY_INTERVAL_MILLIS);
             return;
         }
-        territoryUpdateThread.interrupt();
-        territoryUpdateThread = null;
+        if (territoryUpdate == null) return;
+
+        territoryUpdaterRun++;
+        territoryUpdate.cancel(false);
+        territoryUpdate = null;
     }
 
-    public static String getGuildTagFromName(String name) {
-        if (!guilds.containsKey(name)) {
-            try {
-                guilds.put(name, getGuildProfile(name));
-            } catch (Exception ex) {
-                guilds.put(name, null);
+    private static synchronized void scheduleTerritoryUpdate(int run, long delayMillis) {
+        territoryUpdate = territoryExecutor.schedule(() -> pollTerritories(run), delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Updates the territories and posts a {@link WynnGuildWarEvent} for each change,
+     * polling faster while any territory is under attack
+     */
+    private static void pollTerritories(int run) {
+        TerritoryStore.Snapshot previous = territories.getSnapshot();
+        try {
+            updateTerritories();
+
+            for (TerritoryStore.Change change : territories.getSnapshot().diff(previous)) {
+                TerritoryProfile prevTerritory = change.getBefore();
+                TerritoryProfile currentTerritory = change.getAfter();
+                if (!Objects.equals(currentTerritory.getGuild(), prevTerritory.getGuild())) {
+                    postGuildWarEvent(prevTerritory.getName(), currentTerritory.getGuild(), prevTerritory.getGuild(), WynnGuildWarEvent.WarUpdateType.CAPTURED);
+                } else if (prevTerritory.getAttacker() == null && currentTerritory.getAttacker() != null) {
+                    postGuildWarEvent(prevTerritory.getName(), currentTerritory.getAttacker(), prevTerritory.getGuild(), WynnGuildWarEvent.WarUpdateType.ATTACKED);
+                } else if (prevTerritory.getAttacker() != null && currentTerritory.getAttacker() == null) {
+                    postGuildWarEvent(prevTerritory.getName(), prevTerritory.getAttacker(), currentTerritory.getGuild(), WynnGuildWarEvent.WarUpdateType.DEFENDED);
+                }
             }
+        } catch (Exception ex) {
+            Reference.LOGGER.warn("Unable to update the territories", ex);
+        }
+
+        synchronized (WebManager.class) {
+            if (run != territoryUpdaterRun) return;
+
+            long delay = TERRITORY_INTERVAL_MILLIS;
+            if (!Reference.onServer) delay = TERRITORY_IDLE_INTERVAL_MILLIS;
+            else if (territories.getTerritories().values().stream().anyMatch(t -> t.getAttacker() != null)) delay = TERRITORY_WAR_INTERVAL_MILLIS;
+
+            scheduleTerritoryUpdate(run, delay);
         }
-        if (guilds.get(name) == null)
-            return "ERROR";
-        return guilds.get(name).getPrefix();
+    }
+
+    /**
+     * Never blocks, unknown guilds are requested in background
+     *
+     * @param name the guild name
+     * @return the guild tag, or null if it isn't known yet
+     */
+    public static String getGuildTagFromName(String name) {
+        String tag = guilds.getCachedTag(name);
+        if (tag == null) guilds.get(name);
+        return tag;
+    }
+
+    /**
+     * Posts a {@link WynnGuildWarEvent} right away, if any of the guild tags isn't known yet
+     * the event is enriched when they arrive
+     */
+    private static void postGuildWarEvent(String territory, String attacker, String defender, WynnGuildWarEvent.WarUpdateType type) {
+        WynnGuildWarEvent event = new WynnGuildWarEvent(territory, attacker, defender, guilds.getCachedTag(attacker), guilds.getCachedTag(defender), type);
+        FrameworkManager.getEventBus().post(event);
+
+        if (event.hasTags()) return;
+        guilds.get(attacker).thenAcceptBoth(guilds.get(defender), (attackerProfile, defenderProfile) ->
+                event.setTags(attackerProfile == null ? null : attackerProfile.getPrefix(), defenderProfile == null ? null : defenderProfile.getPrefix()));
     }
 
     public static PlayerStatsProfile getPlayerProfile() {
@@ -235,12 +287,19 @@ public class WebManager {
         JsonObject json = null;
         boolean useCache = false;
         try {
-            URLConnection st = new URL(apiUrls.get("Territory")).openConnection();
-            st.setRequestProperty("User-Agent", "Mozilla/5.0 (Macintosh; U; Intel Mac OS X 10.4; en-US; rv:1.9.2.2) Gecko/20100316 Firefox/3.6.2");
-            st.setConnectTimeout(REQUEST_TIMEOUT_MILLIS);
-            st.setReadTimeout(REQUEST_TIMEOUT_MILLIS);
-            if (st.getContentType().contains("application/json")) {
-                json = new JsonParser().parse(IOUtils.toString(cacheApiResult(st.getInputStream(), "territories.json"))).getAsJsonObject();
+            Response st = RequestHandler.get("Territory", apiUrls.get("Territory")).cacheTo("territories.json").requireContentType("application/json").execute();
+            if (st.isNotModified()) {
+                if (!territories.isEmpty()) return; // nothing changed since the last update
+
+                HashMap<String, TerritoryProfile> snapshot = ApiCache.readSnapshot("territories.json", ProfileSnapshots.TERRITORIES);
+                if (snapshot != null) {
+                    territories.publish(snapshot);
+                    guilds.prefetch(snapshot.values().stream().map(TerritoryProfile::getGuild).collect(Collectors.toList()));
+                    return;
+                }
+                json = new JsonParser().parse(IOUtils.toString(recallApiResult("territories.json"))).getAsJsonObject();
+            } else if (st.isOk()) {
+                json = st.getJson().getAsJsonObject();
             } else {
                 useCache = true;
             }
@@ -264,8 +323,12 @@ public class WebManager {
         GsonBuilder builder = new GsonBuilder();
         builder.registerTypeHierarchyAdapter(TerritoryProfile.class, new TerritoryProfile.TerritoryDeserializer());
         Gson gson = builder.create();
-        
-        territories.putAll(gson.fromJson(json.get("territories"), type));
+
+        HashMap<String, TerritoryProfile> parsed = gson.fromJson(json.get("territories"), type);
+        ApiCache.writeSnapshot("territories.json", ProfileSnapshots.TERRITORIES, parsed);
+
+        territories.publish(parsed);
+        guilds.prefetch(parsed.values().stream().map(TerritoryProfile::getGuild).collect(Collectors.toList()));
     }
 
     /**
@@ -280,12 +343,9 @@ public class WebManager {
         boolean useCache = false;
 
         try {
-            URLConnection st = new URL(apiUrls.get("GuildList")).openConnection();
-            st.setRequestProperty("User-Agent", "Mozilla/5.0 (Macintosh; U; Intel Mac OS X 10.4; en-US; rv:1.9.2.2) Gecko/20100316 Firefox/3.6.2");
-            st.setConnectTimeout(REQUEST_TIMEOUT_MILLIS);
-            st.setReadTimeout(REQUEST_TIMEOUT_MILLIS);
-            if (st.getContentType().contains("application/json")) {
-                json = new JsonParser().parse(IOUtils.toString(cacheApiResult(st.getInputStream(), "guilds.json"))).getAsJsonObject();
+            Response st = RequestHandler.get("GuildList", apiUrls.get("GuildList")).cacheTo("guilds.json").requireContentType("application/json").execute();
+            if (st.isOk()) {
+                json = st.getJson().getAsJsonObject();
             } else {
                 useCache = true;
             }
@@ -317,12 +377,9 @@ public class WebManager {
      * @throws Exception
      */
     public static GuildProfile getGuildProfile(String guild) throws Exception {
-        URLConnection st = new URL(apiUrls.get("GuildInfo") + URLEncoder.encode(guild, "UTF-8")).openConnection();
-        st.setRequestProperty("User-Agent", "Mozilla/5.0 (Macintosh; U; Intel Mac OSX10.4; en-US; rv:1.9.2.2) Gecko/20100316 Firefox/3.6.2");
-        st.setConnectTimeout(REQUEST_TIMEOUT_MILLIS);
-        st.setReadTimeout(REQUEST_TIMEOUT_MILLIS);
+        Response st = RequestHandler.get("GuildInfo", apiUrls.get("GuildInfo") + URLEncoder.encode(guild, "UTF-8")).execute();
 
-        JsonObject obj = new JsonParser().parse(IOUtils.toString(st.getInputStream())).getAsJsonObject();
+        JsonObject obj = st.getJson().getAsJsonObject();
 
         if(obj.has("error")) {
             return null;
@@ -338,12 +395,9 @@ public class WebManager {
      * @throws Exception
      */
     public static HashMap<String, ArrayList<String>> getOnlinePlayers() throws Exception {
-        URLConnection st = new URL(apiUrls.get("OnlinePlayers")).openConnection();
-        st.setRequestProperty("User-Agent", "Mozilla/5.0 (Macintosh; U; Intel Mac OS X 10.4; en-US; rv:1.9.2.2) Gecko/20100316 Firefox/3.6.2");
-        st.setConnectTimeout(REQUEST_TIMEOUT_MILLIS);
-        st.setReadTimeout(REQUEST_TIMEOUT_MILLIS);
+        Response st = RequestHandler.get("OnlinePlayers", apiUrls.get("OnlinePlayers")).execute();
 
-        JsonObject main = new JsonParser().parse(IOUtils.toString(st.getInputStream())).getAsJsonObject();
+        JsonObject main = st.getJson().getAsJsonObject();
         main.remove("request");
 
         Type type = new TypeToken<HashMap<String, ArrayList<String>>>() {
@@ -358,15 +412,19 @@ public class WebManager {
      * @throws Exception
      */
     public static void updateItemList() throws Exception {
-        JsonArray main = null;
+        InputStream stream = null;
         boolean useCache = false;
         try {
-            URLConnection st = new URL(apiUrls.get("ItemList")).openConnection();
-            st.setRequestProperty("User-Agent", "Mozilla/5.0 (Macintosh; U; Intel Mac OS X 10.4; en-US; rv:1.9.2.2) Gecko/20100316 Firefox/3.6.2");
-            st.setConnectTimeout(REQUEST_TIMEOUT_MILLIS);
-            st.setReadTimeout(REQUEST_TIMEOUT_MILLIS);
-            if (st.getContentType().contains("application/json")) {
-                main = new JsonParser().parse(IOUtils.toString(cacheApiResult(st.getInputStream(), "items.json"))).getAsJsonObject().getAsJsonArray("items");
+            Response st = RequestHandler.get("ItemList", apiUrls.get("ItemList")).cacheTo("items.json").requireContentType("application/json").execute();
+            if (st.isNotModified()) {
+                HashMap<String, ItemProfile> snapshot = ApiCache.readSnapshot("items.json", ProfileSnapshots.ITEMS);
+                if (snapshot != null) {
+                    setItems(snapshot);
+                    return;
+                }
+                stream = recallApiResult("items.json");
+            } else if (st.isOk()) {
+                stream = st.getStream();
             } else {
                 useCache = true;
             }
@@ -377,17 +435,25 @@ public class WebManager {
         
         if (useCache) {
             Reference.LOGGER.warn("Error downloading item data - attempting to use cached data");
-            main = new JsonParser().parse(IOUtils.toString(recallApiResult("items.json"))).getAsJsonObject().getAsJsonArray("items");
+            stream = recallApiResult("items.json");
             Reference.LOGGER.info("Successfully loaded cached item data!");
         }
 
-        Type type = new TypeToken<HashMap<String, ItemProfile>>() {
-        }.getType();
+        HashMap<String, ItemProfile> citems;
+        try (JsonReader reader = openJsonReader(stream)) {
+            seekProperty(reader, "items");
+            citems = ItemProfile.readItems(reader);
+        }
+        ApiCache.writeSnapshot("items.json", ProfileSnapshots.ITEMS, citems);
 
-        HashMap<String, ItemProfile> citems = ItemProfile.GSON.fromJson(main, type);
-        directItems.addAll(citems.values());
+        setItems(citems);
+    }
 
+    private static void setItems(HashMap<String, ItemProfile> citems) {
+        itemIndex = new ItemSearchIndex(citems.values());
+        directItems = new ArrayList<>(citems.values());
         items = citems;
+        itemsGeneration++;
     }
 
     /**
@@ -396,17 +462,16 @@ public class WebManager {
      * @throws Exception
      */
     public static void updateMapMarkers() throws Exception {
-        JsonArray jsonArray = null;
+        InputStream stream = null;
         ArrayList<MapMarkerProfile> markers = new ArrayList<>();
         boolean useCache = false;
 
         try {
-            URLConnection st = new URL(apiUrls.get("MapMarkers")).openConnection();
-            st.setRequestProperty("User-Agent", "Mozilla/5.0 (Macintosh; U; Intel Mac OS X 10.4; en-US; rv:1.9.2.2) Gecko/20100316 Firefox/3.6.2");
-            st.setConnectTimeout(REQUEST_TIMEOUT_MILLIS);
-            st.setReadTimeout(REQUEST_TIMEOUT_MILLIS);
-            if (st.getContentType().contains("application/json")) {
-                jsonArray = new JsonParser().parse(IOUtils.toString(cacheApiResult(st.getInputStream(), "map_markers.json"))).getAsJsonObject().getAsJsonArray("locations");
+            Response st = RequestHandler.get("MapMarkers", apiUrls.get("MapMarkers")).cacheTo("map_markers.json").requireContentType("application/json").execute();
+            if (st.isNotModified()) {
+                stream = recallApiResult("map_markers.json");
+            } else if (st.isOk()) {
+                stream = st.getStream();
             } else {
                 useCache = true;
             }
@@ -417,14 +482,14 @@ public class WebManager {
         
         if (useCache) {
             Reference.LOGGER.warn("Error downloading map marker data - attempting to use cached data");
-            jsonArray = new JsonParser().parse(IOUtils.toString(recallApiResult("map_markers.json"))).getAsJsonObject().getAsJsonArray("locations");
+            stream = recallApiResult("map_markers.json");
             Reference.LOGGER.info("Successfully loaded cached map marker data!");
         }
 
-        Type type = new TypeToken<ArrayList<MapMarkerProfile>>() {
-        }.getType();
-
-        markers.addAll(gson.fromJson(jsonArray, type));
+        try (JsonReader reader = openJsonReader(stream)) {
+            seekProperty(reader, "locations");
+            MapMarkerProfile.readMarkers(reader, markers);
+        }
 
         mapMarkers = markers;
     }
@@ -435,15 +500,18 @@ public class WebManager {
      * @throws Exception
      */
     public static void updateMapRefineries() throws Exception {
-        JsonArray jsonArray = null;
+        InputStream stream = null;
         boolean useCache = false;
 
         try {
-            URLConnection st = new URL(apiUrls.get("RefineryLocations")).openConnection();
-            st.setRequestProperty("User-Agent", "Mozilla/5.0 (Macintosh; U; Intel Mac OS X 10.4; en-US; rv:1.9.2.2) Gecko/20100316 Firefox/3.6.2");
-            st.setConnectTimeout(REQUEST_TIMEOUT_MILLIS);
-            st.setReadTimeout(REQUEST_TIMEOUT_MILLIS);
-            jsonArray = new JsonParser().parse(IOUtils.toString(cacheApiResult(st.getInputStream(), "map_refineries.json"))).getAsJsonArray();
+            Response st = RequestHandler.get("RefineryLocations", apiUrls.get("RefineryLocations")).cacheTo("map_refineries.json").execute();
+            if (st.isNotModified()) {
+                stream = recallApiResult("map_refineries.json");
+            } else if (st.isOk()) {
+                stream = st.getStream();
+            } else {
+                useCache = true;
+            }
         } catch (IOException | NullPointerException ex) {
             ex.printStackTrace();
             useCache = true;
@@ -451,13 +519,17 @@ public class WebManager {
 
         if (useCache) {
             Reference.LOGGER.warn("Error downloading map marker data - attempting to use cached data");
-            jsonArray = new JsonParser().parse(IOUtils.toString(recallApiResult("map_refineries.json"))).getAsJsonArray();
+            stream = recallApiResult("map_refineries.json");
             Reference.LOGGER.info("Successfully loaded cached map marker data!");
         }
 
-        Type type = new TypeToken<ArrayList<MapMarkerProfile>>() {}.getType();
+        // copied so the map never iterates over a list being modified by the loader
+        ArrayList<MapMarkerProfile> markers = new ArrayList<>(mapMarkers);
+        try (JsonReader reader = openJsonReader(stream)) {
+            MapMarkerProfile.readMarkers(reader, markers);
+        }
 
-        mapMarkers.addAll(gson.fromJson(jsonArray, type));
+        mapMarkers = markers;
     }
 
     /**
@@ -466,16 +538,12 @@ public class WebManager {
      * @throws Exception
      */
     public static void updateItemGuesses() throws Exception {
-        HashMap<String, ItemGuessProfile> guessers = new HashMap<>();
-        String json = null;
+        InputStream stream = null;
         boolean useCache = false;
         try {
-            URLConnection st = new URL(apiUrls.get("ItemGuesses")).openConnection();
-            st.setRequestProperty("User-Agent", "Mozilla/5.0 (Macintosh; U; Intel Mac OS X 10.4; en-US; rv:1.9.2.2) Gecko/20100316 Firefox/3.6.2");
-            st.setConnectTimeout(REQUEST_TIMEOUT_MILLIS);
-            st.setReadTimeout(REQUEST_TIMEOUT_MILLIS);
-            if (st.getContentType().contains("application/json")) {
-                json = IOUtils.toString(cacheApiResult(st.getInputStream(), "item_guesses.json"));
+            Response st = RequestHandler.get("ItemGuesses", apiUrls.get("ItemGuesses")).cacheTo("item_guesses.json").requireContentType("application/json").execute();
+            if (st.isOk()) {
+                stream = st.getStream();
             } else {
                 useCache = true;
             }
@@ -486,32 +554,22 @@ public class WebManager {
         
         if (useCache) {
             Reference.LOGGER.warn("Error downloading item guesses - attempting to use cached data");
-            json = IOUtils.toString(recallApiResult("item_guesses.json"));
+            stream = recallApiResult("item_guesses.json");
             Reference.LOGGER.info("Successfully loaded cached item guesses data!");
         }
 
-        Type type = new TypeToken<HashMap<String, ItemGuessProfile>>() {
-        }.getType();
-
-        GsonBuilder gsonBuilder = new GsonBuilder();
-        gsonBuilder.registerTypeHierarchyAdapter(HashMap.class, new ItemGuessProfile.ItemGuessDeserializer());
-        Gson gson = gsonBuilder.create();
-
-        guessers.putAll(gson.fromJson(json, type));
-
-        itemGuesses = guessers;
+        try (JsonReader reader = openJsonReader(stream)) {
+            itemGuesses = ItemGuessProfile.readGuesses(reader);
+        }
     }
 
     public static void updatePlayerProfile() throws Exception {
         String json = null;
         boolean useCache = false;
         try {
-            URLConnection st = new URL(apiUrls.get("PlayerStatsv2") + ModCore.mc().getSession().getUsername() + "/stats").openConnection();
-            st.setRequestProperty("User-Agent", "Mozilla/5.0 (Macintosh; U; Intel Mac OS X 10.4; en-US; rv:1.9.2.2) Gecko/20100316 Firefox/3.6.2");
-            st.setConnectTimeout(REQUEST_TIMEOUT_MILLIS);
-            st.setReadTimeout(REQUEST_TIMEOUT_MILLIS);
-            if (st.getContentType().contains("application/json")) {
-                json = IOUtils.toString(cacheApiResult(st.getInputStream(), "player_stats.json"));
+            Response st = RequestHandler.get("PlayerStatsv2", apiUrls.get("PlayerStatsv2") + ModCore.mc().getSession().getUsername() + "/stats").cacheTo("player_stats.json").requireContentType("application/json").execute();
+            if (st.isOk()) {
+                json = st.getString();
             } else {
                 useCache = true;
             }
@@ -540,12 +598,9 @@ public class WebManager {
         JsonObject main = null;
         boolean useCache = false;
         try {
-            URLConnection st = new URL(apiUrls.get("UserAccount") + "getUsersRoles").openConnection();
-            st.setRequestProperty("User-Agent", "Mozilla/5.0 (Macintosh; U; Intel Mac OS X 10.4; en-US; rv:1.9.2.2) Gecko/20100316 Firefox/3.6.2");
-            st.setConnectTimeout(REQUEST_TIMEOUT_MILLIS);
-            st.setReadTimeout(REQUEST_TIMEOUT_MILLIS);
-            if (st.getContentType().contains("application/json")) {
-                main = new JsonParser().parse(IOUtils.toString(cacheApiResult(st.getInputStream(), "user_roles.json"))).getAsJsonObject();
+            Response st = RequestHandler.get("UserAccount", apiUrls.get("UserAccount") + "getUsersRoles").cacheTo("user_roles.json").requireContentType("application/json").execute();
+            if (st.isOk()) {
+                main = st.getJson().getAsJsonObject();
             } else {
                 useCache = true;
             }
@@ -567,29 +622,22 @@ public class WebManager {
         Type type = new TypeToken<ArrayList<UUID>>() {
         }.getType();
 
-        JsonArray helper = main.getAsJsonArray("helperUsers");
-        helpers = gson.fromJson(helper, type);
+        HashMap<Integer, Collection<UUID>> roles = new HashMap<>();
+        roles.put(UserFlagIndex.HELPER, gson.fromJson(main.getAsJsonArray("helperUsers"), type));
+        roles.put(UserFlagIndex.MODERATOR, gson.fromJson(main.getAsJsonArray("moderatorUsers"), type));
+        roles.put(UserFlagIndex.CONTENT_TEAM, gson.fromJson(main.getAsJsonArray("contentTeamUsers"), type));
+        roles.put(UserFlagIndex.DONATOR, gson.fromJson(main.getAsJsonArray("donatorUsers"), type));
 
-        JsonArray moderator = main.getAsJsonArray("moderatorUsers");
-        moderators = gson.fromJson(moderator, type);
-
-        JsonArray contentTeam = main.getAsJsonArray("contentTeamUsers");
-        content_team = gson.fromJson(contentTeam, type);
-
-        JsonArray donator = main.getAsJsonArray("donatorUsers");
-        donators = gson.fromJson(donator, type);
+        users.replace(UserFlagIndex.ROLES, roles);
     }
 
     public static void updateUsersModels() throws Exception {
         JsonObject main = null;
         boolean useCache = false;
         try {
-            URLConnection st = new URL(apiUrls.get("UserAccount") + "getUserModels").openConnection();
-            st.setRequestProperty("User-Agent", "Mozilla/5.0 (Macintosh; U; Intel Mac OS X 10.4; en-US; rv:1.9.2.2) Gecko/20100316 Firefox/3.6.2");
-            st.setConnectTimeout(REQUEST_TIMEOUT_MILLIS);
-            st.setReadTimeout(REQUEST_TIMEOUT_MILLIS);
-            if (st.getContentType().contains("application/json")) {
-                main = new JsonParser().parse(IOUtils.toString(cacheApiResult(st.getInputStream(), "user_models.json"))).getAsJsonObject();
+            Response st = RequestHandler.get("UserAccount", apiUrls.get("UserAccount") + "getUserModels").cacheTo("user_models.json").requireContentType("application/json").execute();
+            if (st.isOk()) {
+                main = st.getJson().getAsJsonObject();
             } else {
                 useCache = true;
             }
@@ -611,84 +659,61 @@ public class WebManager {
         Type type = new TypeToken<ArrayList<UUID>>() {
         }.getType();
 
-        JsonArray ear = main.getAsJsonArray("earsActive");
-        ears = gson.fromJson(ear, type);
-
-        JsonArray elytra = main.getAsJsonArray("elytraActive");
-        elytras = gson.fromJson(elytra, type);
+        HashMap<Integer, Collection<UUID>> models = new HashMap<>();
+        models.put(UserFlagIndex.EARS, gson.fromJson(main.getAsJsonArray("earsActive"), type));
+        models.put(UserFlagIndex.ELYTRA, gson.fromJson(main.getAsJsonArray("elytraActive"), type));
+        models.put(UserFlagIndex.CAPE, gson.fromJson(main.getAsJsonArray("capeActive"), type));
 
-        JsonArray cape = main.getAsJsonArray("capeActive");
-        capes = gson.fromJson(cape, type);
+        users.replace(UserFlagIndex.MODELS, models);
     }
 
     public static String getStableJarFileUrl() throws Exception {
-        URLConnection st = new URL(apiUrls.get("Jars") + "api/json").openConnection();
-        st.setRequestProperty("User-Agent", "Mozilla/5.0 (Macintosh; U; Intel Mac OS X 10.4; en-US; rv:1.9.2.2) Gecko/20100316 Firefox/3.6.2");
-        st.setConnectTimeout(REQUEST_TIMEOUT_MILLIS);
-        st.setReadTimeout(REQUEST_TIMEOUT_MILLIS);
+        Response st = RequestHandler.get("Jars", apiUrls.get("Jars") + "api/json").execute();
 
-        JsonObject main = new JsonParser().parse(IOUtils.toString(st.getInputStream())).getAsJsonObject();
+        JsonObject main = st.getJson().getAsJsonObject();
         return apiUrls.get("Jars") + "artifact/" + main.getAsJsonArray("artifacts").get(0).getAsJsonObject().get("relativePath").getAsString();
     }
 
     public static String getStableJarFileMD5() throws Exception {
-        URLConnection st = new URL(apiUrls.get("Jars") + "api/json?depth=2&tree=fingerprint[fileName,hash]{0,}").openConnection();
-        st.setRequestProperty("User-Agent", "Mozilla/5.0 (Macintosh; U; Intel Mac OS X 10.4; en-US; rv:1.9.2.2) Gecko/20100316 Firefox/3.6.2");
-        st.setConnectTimeout(REQUEST_TIMEOUT_MILLIS);
-        st.setReadTimeout(REQUEST_TIMEOUT_MILLIS);
+        Response st = RequestHandler.get("Jars", apiUrls.get("Jars") + "api/json?depth=2&tree=fingerprint[fileName,hash]{0,}").execute();
 
-        JsonObject main = new JsonParser().parse(IOUtils.toString(st.getInputStream())).getAsJsonObject();
+        JsonObject main = st.getJson().getAsJsonObject();
         return main.getAsJsonArray("fingerprint").get(0).getAsJsonObject().get("hash").getAsString();
     }
 
     public static String getStableJarVersion() throws Exception {
-        URLConnection st = new URL(apiUrls.get("Jars") + "api/json?tree=artifacts[fileName]").openConnection();
-        st.setRequestProperty("User-Agent", "Mozilla/5.0 (Macintosh; U; Intel Mac OS X 10.4; en-US; rv:1.9.2.2) Gecko/20100316 Firefox/3.6.2");
-        st.setConnectTimeout(REQUEST_TIMEOUT_MILLIS);
-        st.setReadTimeout(REQUEST_TIMEOUT_MILLIS);
+        Response st = RequestHandler.get("Jars", apiUrls.get("Jars") + "api/json?tree=artifacts[fileName]").execute();
 
-        JsonObject main = new JsonParser().parse(IOUtils.toString(st.getInputStream())).getAsJsonObject();
+        JsonObject main = st.getJson().getAsJsonObject();
         return main.getAsJsonObject().get("artifacts").getAsJsonArray().get(0).getAsJsonObject().get("fileName").getAsString().split("_")[0].split("-")[1];
     }
 
     public static String getCuttingEdgeJarFileUrl() throws Exception {
-        URLConnection st = new URL(apiUrls.get("DevJars") + "api/json").openConnection();
-        st.setRequestProperty("User-Agent", "Mozilla/5.0 (Macintosh; U; Intel Mac OS X 10.4; en-US; rv:1.9.2.2) Gecko/20100316 Firefox/3.6.2");
-        st.setConnectTimeout(REQUEST_TIMEOUT_MILLIS);
-        st.setReadTimeout(REQUEST_TIMEOUT_MILLIS);
+        Response st = RequestHandler.get("DevJars", apiUrls.get("DevJars") + "api/json").execute();
 
-        JsonObject main = new JsonParser().parse(IOUtils.toString(st.getInputStream())).getAsJsonObject();
+        JsonObject main = st.getJson().getAsJsonObject();
         return apiUrls.get("DevJars") + "artifact/" + main.getAsJsonArray("artifacts").get(0).getAsJsonObject().get("relativePath").getAsString();
     }
 
     public static String getCuttingEdgeJarFileMD5() throws Exception {
-        URLConnection st = new URL(apiUrls.get("DevJars") + "api/json?depth=2&tree=fingerprint[fileName,hash]{0,}").openConnection();
-        st.setRequestProperty("User-Agent", "Mozilla/5.0 (Macintosh; U; Intel Mac OS X 10.4; en-US; rv:1.9.2.2) Gecko/20100316 Firefox/3.6.2");
-        st.setConnectTimeout(REQUEST_TIMEOUT_MILLIS);
-        st.setReadTimeout(REQUEST_TIMEOUT_MILLIS);
+        Response st = RequestHandler.get("DevJars", apiUrls.get("DevJars") + "api/json?depth=2&tree=fingerprint[fileName,hash]{0,}").execute();
 
-        JsonObject main = new JsonParser().parse(IOUtils.toString(st.getInputStream())).getAsJsonObject();
+        JsonObject main = st.getJson().getAsJsonObject();
         return main.getAsJsonArray("fingerprint").get(0).getAsJsonObject().get("hash").getAsString();
     }
 
     public static int getCuttingEdgeBuildNumber() throws Exception {
-        URLConnection st = new URL(apiUrls.get("DevJars") + "api/json?tree=number").openConnection();
-        st.setRequestProperty("User-Agent", "Mozilla/5.0 (Macintosh; U; Intel Mac OS X 10.4; en-US; rv:1.9.2.2) Gecko/20100316 Firefox/3.6.2");
-        st.setConnectTimeout(REQUEST_TIMEOUT_MILLIS);
-        st.setReadTimeout(REQUEST_TIMEOUT_MILLIS);
+        Response st = RequestHandler.get("DevJars", apiUrls.get("DevJars") + "api/json?tree=number").execute();
 
-        JsonObject main = new JsonParser().parse(IOUtils.toString(st.getInputStream())).getAsJsonObject();
+        JsonObject main = st.getJson().getAsJsonObject();
         return main.getAsJsonObject().get("number").getAsInt();
     }
 
     public static ArrayList<MusicProfile> getCurrentAvailableSongs() throws Exception {
-        URLConnection st = new URL(apiUrls.get("WynnSounds")).openConnection();
-        st.setRequestProperty("User-Agent", "Mozilla/5.0 (Macintosh; U; Intel Mac OS X 10.4; en-US; rv:1.9.2.2) Gecko/20100316 Firefox/3.6.2");
-        st.setConnectTimeout(REQUEST_TIMEOUT_MILLIS);
-        st.setReadTimeout(REQUEST_TIMEOUT_MILLIS);
+        Response st = RequestHandler.get("WynnSounds", apiUrls.get("WynnSounds")).execute();
 
         ArrayList<MusicProfile> result = new ArrayList<>();
-        JsonArray array = new JsonParser().parse(IOUtils.toString(st.getInputStream())).getAsJsonArray();
+        JsonArray array = st.getJson().getAsJsonArray();
         for(int i = 0; i < array.size(); i++) {
             JsonObject obj = array.get(i).getAsJsonObject();
             if(!obj.has("name") || !obj.has("download_url") || !obj.has("size")) continue;
@@ -702,78 +727,38 @@ public class WebManager {
     /**
      * Attempt to store an {@link InputStream} to a file on disk
      *
-     * @param stream The {@link InputStream} to read
-     * @param fileName The filename to save to (file saved in /apicache directory)
+     * @param fileName The filename to load from - returns null if the file doesn't exist
      * @return A {@link InputStream} for the saved result
      * @throws IOException
      */
-    public static FileInputStream cacheApiResult(InputStream stream, String fileName) throws IOException {
-        try {
-            File apiCacheFolder = new File(Reference.MOD_STORAGE_ROOT.getPath() + "/apicache");
-            File apiCacheFileTemp = new File(apiCacheFolder.getPath() + "/" + fileName + ".temp");
-            File apiCacheFile = new File(apiCacheFolder.getPath() + "/" + fileName);
-            if (!apiCacheFolder.exists())
-                apiCacheFolder.mkdirs();
-            if (!apiCacheFileTemp.exists())
-                apiCacheFileTemp.createNewFile();
-            if (!apiCacheFile.exists())
-                apiCacheFile.createNewFile();
-            FileOutputStream cacheOutputStream = new FileOutputStream(apiCacheFileTemp);
-            IOUtils.copy(stream, cacheOutputStream);
-            cacheOutputStream.close();
-            stream.close();
-            FileUtils.copyFile(apiCacheFileTemp, apiCacheFile);
-            apiCacheFileTemp.delete();
-            return new FileInputStream(apiCacheFile);
-        } catch (IOException ex) {
-            return null;
-        }
+    public static FileInputStream recallApiResult(String fileName) throws IOException {
+        return ApiCache.recall(fileName);
     }
 
     /**
-     * Attempt to store an {@link InputStream} to a file on disk
+     * Opens a buffered UTF-8 {@link JsonReader} over an api result
      *
-     * @param fileName The filename to load from - returns null if the file doesn't exist
-     * @return A {@link InputStream} for the saved result
-     * @throws IOException
+     * @param stream the api result
+     * @return the reader
      */
-    public static FileInputStream recallApiResult(String fileName) throws IOException {
-        File apiCacheFolder = new File(Reference.MOD_STORAGE_ROOT.getPath() + "/apicache");
-        File apiCacheFile = new File(apiCacheFolder.getPath() + "/" + fileName);
-        if (!apiCacheFolder.exists() || !apiCacheFolder.isDirectory())
-            return null;
-        if (!apiCacheFile.exists() || apiCacheFile.isDirectory())
-            return null;
-        return new FileInputStream(apiCacheFile);
+    private static JsonReader openJsonReader(InputStream stream) {
+        return new JsonReader(new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8)));
     }
 
-    public static class TerritoryUpdateThread extends Thread {
-
-        public TerritoryUpdateThread(String name) {
-            super(name);
-        }
-
-        @Override
-        public void run() {
-            try {
-                while (!isInterrupted()) {
-                    Thread.sleep(30000);
-                    HashMap<String, TerritoryProfile> prevList = new HashMap<>(territories);
-                    updateTerritories();
-                    for (TerritoryProfile prevTerritory : prevList.values()) {
-                        TerritoryProfile currentTerritory = territories.get(prevTerritory.getName());
-                        if (!currentTerritory.getGuild().equals(prevTerritory.getGuild())) {
-                            FrameworkManager.getEventBus().post(new WynnGuildWarEvent(prevTerritory.getName(), currentTerritory.getGuild(), prevTerritory.getGuild(), getGuildTagFromName(currentTerritory.getGuild()), getGuildTagFromName(prevTerritory.getGuild()), WynnGuildWarEvent.WarUpdateType.CAPTURED));
-                        } else if (prevTerritory.getAttacker() == null && currentTerritory.getAttacker() != null) {
-                            FrameworkManager.getEventBus().post(new WynnGuildWarEvent(prevTerritory.getName(), currentTerritory.getAttacker(), prevTerritory.getGuild(), getGuildTagFromName(currentTerritory.getAttacker()), getGuildTagFromName(prevTerritory.getGuild()), WynnGuildWarEvent.WarUpdateType.ATTACKED));
-                        } else if (prevTerritory.getAttacker() != null && currentTerritory.getAttacker() == null) {
-                            FrameworkManager.getEventBus().post(new WynnGuildWarEvent(prevTerritory.getName(), prevTerritory.getAttacker(), currentTerritory.getGuild(), getGuildTagFromName(prevTerritory.getAttacker()), getGuildTagFromName(currentTerritory.getGuild()), WynnGuildWarEvent.WarUpdateType.DEFENDED));
-                        }
-                    }
-                }
-            } catch (InterruptedException ignored) {}
-            Reference.LOGGER.info("Terminating territory update thread.");
+    /**
+     * Moves the reader to the value of a top level property, skipping everything before it
+     *
+     * @param reader a reader positioned at the start of an object
+     * @param name the property name
+     * @throws IOException if the property doesn't exist
+     */
+    private static void seekProperty(JsonReader reader, String name) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (reader.nextName().equals(name)) return;
+            reader.skipValue();
         }
+        throw new IOException("Property " + name + " not found");
     }
 
     /**
@@ -788,11 +773,8 @@ public class WebManager {
 
         if (major) {
             try {
-                URLConnection st = new URL(apiUrls.get("Changelog")).openConnection();
-                st.setRequestProperty("User-Agent", "Mozilla/5.0 (Macintosh; U; Intel Mac OS X 10.4; en-US; rv:1.9.2.2) Gecko/20100316 Firefox/3.6.2");
-                st.setConnectTimeout(REQUEST_TIMEOUT_MILLIS);
-                st.setReadTimeout(REQUEST_TIMEOUT_MILLIS);
-                main = new JsonParser().parse(IOUtils.toString(st.getInputStream())).getAsJsonObject();
+                Response st = RequestHandler.get("Changelog", apiUrls.get("Changelog")).execute();
+                main = st.getJson().getAsJsonObject();
             } catch (Exception ex) {
                 ex.printStackTrace();
                 failed = true;
@@ -809,12 +791,9 @@ public class WebManager {
 
         ArrayList<String> changelog = new ArrayList<>();
         try {
-            URLConnection st = new URL(apiUrls.get("DevJars") + "api/json?tree=changeSet[items[msg]]").openConnection();
-            st.setRequestProperty("User-Agent", "Mozilla/5.0 (Macintosh; U; Intel Mac OS X 10.4; en-US; rv:1.9.2.2) Gecko/20100316 Firefox/3.6.2");
-            st.setConnectTimeout(REQUEST_TIMEOUT_MILLIS);
-            st.setReadTimeout(REQUEST_TIMEOUT_MILLIS);
-            if (st.getContentType().contains("application/json")) {
-                main = new JsonParser().parse(IOUtils.toString(st.getInputStream())).getAsJsonObject();
+            Response st = RequestHandler.get("DevJars", apiUrls.get("DevJars") + "api/json?tree=changeSet[items[msg]]").requireContentType("application/json").execute();
+            if (st.isOk()) {
+                main = st.getJson().getAsJsonObject();
 
                 JsonArray changesArray = main.getAsJsonObject().get("changeSet").getAsJsonObject().get("items").getAsJsonArray();
                 for(int i = 0; i < changesArray.size(); i++) {
@@ -4,12 +4,13 @@
 
 package com.wynntils.webapi;
 
+import com.wynntils.webapi.request.RequestHandler;
+import com.wynntils.webapi.request.Response;
+
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
 import java.io.InputStreamReader;
-import java.net.URL;
-import java.net.URLConnection;
 import java.util.ArrayList;
 import java.util.HashMap;
 
@@ -77,10 +78,9 @@ public class WebReader {
     }
 
     private void parseWebsite() throws Exception {
-        URLConnection st = new URL(url).openConnection();
-        st.setRequestProperty("User-Agent", "Mozilla/5.0 (Macintosh; U; Intel Mac OS X 10.4; en-US; rv:1.9.2.2) Gecko/20100316 Firefox/3.6.2");
+        Response st = RequestHandler.get("WebApi", url).execute();
 
-        InputStreamReader isr = new InputStreamReader(st.getInputStream());
+        InputStreamReader isr = new InputStreamReader(st.getStream());
         BufferedReader bf = new BufferedReader(isr);
 
         String str;
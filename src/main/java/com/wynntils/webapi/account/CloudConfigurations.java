@@ -7,85 +7,111 @@ package com.wynntils.webapi.account;
 import com.google.gson.Gson;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
 import com.wynntils.Reference;
-import com.wynntils.webapi.WebManager;
-import org.apache.commons.io.Charsets;
-import org.apache.commons.io.IOUtils;
-
-import java.io.OutputStream;
-import java.net.URL;
-import java.net.URLConnection;
-import java.util.ArrayList;
+import com.wynntils.core.framework.settings.SettingsStore;
+import com.wynntils.webapi.request.Request;
+
 import java.util.Collections;
-import java.util.List;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
+/**
+ * Uploads the changed configuration files to the Wynntils account.
+ *
+ * Queued files are merged by name, so every upload only sends the latest content of each changed
+ * file, at most once every 10 seconds. Failed uploads are merged back to be retried, the accepted
+ * ones are reported to the {@link SettingsStore}.
+ */
 public class CloudConfigurations {
 
+    private static final long UPLOAD_INTERVAL = 10000;
+    private static final int CLOSING_TIMEOUT = 5000;
+
     ScheduledExecutorService service;
     ScheduledFuture runningTask;
     String token;
 
     Gson gson = new Gson();
 
+    final LinkedHashMap<String, String> toUpload = new LinkedHashMap<>(); // file name -> base64
+    long lastUpload = 0;
+
     public CloudConfigurations(ScheduledExecutorService service, String token) {
         this.service = service; this.token = token;
     }
 
-    List<ConfigContainer> toUpload = Collections.synchronizedList(new ArrayList<>());
-
     public void queueConfig(String fileName, String base64) {
-        toUpload.add(new ConfigContainer(fileName, base64));
+        queueConfigs(Collections.singletonMap(fileName, base64));
+    }
+
+    public void queueConfigs(Map<String, String> configs) {
+        synchronized (toUpload) {
+            toUpload.putAll(configs);
 
-        startUploadQueue();
+            startUploadQueue();
+        }
     }
 
     private void startUploadQueue() {
         if(runningTask != null && !runningTask.isDone() && !runningTask.isCancelled()) return;
 
-        runningTask = service.scheduleAtFixedRate(() -> {
-            if(toUpload.size() == 0) return;
+        long delay = Math.max(0, lastUpload + UPLOAD_INTERVAL - System.currentTimeMillis());
+        runningTask = service.schedule(() -> upload(false), delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Uploads everything queued from the current thread, used when the game is closing
+     */
+    public void uploadNow() {
+        synchronized (toUpload) {
+            if(runningTask != null) runningTask.cancel(false);
+        }
+
+        upload(true);
+    }
+
+    private synchronized void upload(boolean closing) {
+        LinkedHashMap<String, String> delta;
+        synchronized (toUpload) {
+            delta = new LinkedHashMap<>(toUpload);
+            toUpload.clear();
+        }
+        if(delta.isEmpty()) return;
 
-            Reference.LOGGER.info("Uploading configurations...");
+        Reference.LOGGER.info("Uploading configurations...");
+        lastUpload = System.currentTimeMillis();
 
-            JsonArray body = new JsonArray();
-            for(ConfigContainer container : toUpload) {
-                body.add(gson.toJsonTree(container));
+        JsonArray body = new JsonArray();
+        for(Map.Entry<String, String> config : delta.entrySet()) {
+            body.add(gson.toJsonTree(new ConfigContainer(config.getKey(), config.getValue())));
+        }
+
+        boolean uploaded = false;
+        try{
+            Request request = WynntilsAccount.post("uploadConfig/" + token, body);
+            if(closing) request.timeout(CLOSING_TIMEOUT);
+
+            JsonObject finalResult = request.execute().getJson().getAsJsonObject();
+            if(finalResult.has("result")) {
+                Reference.LOGGER.info("Configuration upload complete!");
+                uploaded = true;
+            }else{
+                Reference.LOGGER.info("Configuration upload failed!");
             }
+        }catch (Exception ex) { ex.printStackTrace(); }
+
+        if(uploaded) SettingsStore.setUploaded(delta);
 
-            try{
-                URLConnection st = new URL(WebManager.apiUrls.get("UserAccount") + "uploadConfig/" + token).openConnection();
-
-                byte[] bodyBytes = body.toString().getBytes(Charsets.UTF_8);
-                st.setRequestProperty("User-Agent", "WynntilsClient/v" + Reference.VERSION + "/B" + Reference.BUILD_NUMBER);
-                st.setRequestProperty("Content-Length", "" + bodyBytes.length);
-                st.setRequestProperty("Content-Type", "application/json");
-                st.setDoOutput(true);
-
-                OutputStream outputStream = null;
-                try {
-                    outputStream = st.getOutputStream();
-                    IOUtils.write(bodyBytes, outputStream);
-                }catch (Exception ex) {
-                    ex.printStackTrace();
-                } finally {
-                    IOUtils.closeQuietly(outputStream);
-                }
-
-                JsonObject finalResult = new JsonParser().parse(IOUtils.toString(st.getInputStream())).getAsJsonObject();
-                if(finalResult.has("result")) {
-                    Reference.LOGGER.info("Configuration upload complete!");
-                }else{
-                    Reference.LOGGER.info("Configuration upload failed!");
-                }
-
-                toUpload.clear();
-            }catch (Exception ex) { ex.printStackTrace(); }
-
-        },0, 10, TimeUnit.SECONDS);
+        synchronized (toUpload) {
+            // newer versions queued meanwhile are kept
+            if(!uploaded) delta.forEach(toUpload::putIfAbsent);
+            if(!toUpload.isEmpty() && !closing) {
+                runningTask = service.schedule(() -> upload(false), UPLOAD_INTERVAL, TimeUnit.MILLISECONDS);
+            }
+        }
     }
 
     private class ConfigContainer {
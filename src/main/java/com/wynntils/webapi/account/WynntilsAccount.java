@@ -7,21 +7,18 @@ package com.wynntils.webapi.account;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
 import com.wynntils.ModCore;
 import com.wynntils.Reference;
 import com.wynntils.webapi.WebManager;
+import com.wynntils.webapi.request.Request;
+import com.wynntils.webapi.request.RequestHandler;
 import net.minecraft.client.Minecraft;
 import net.minecraft.util.CryptManager;
-import org.apache.commons.io.Charsets;
-import org.apache.commons.io.IOUtils;
 
 import javax.crypto.SecretKey;
 import javax.xml.bind.DatatypeConverter;
-import java.io.OutputStream;
 import java.math.BigInteger;
-import java.net.URL;
-import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
 import java.security.PublicKey;
 import java.util.HashMap;
 import java.util.Map;
@@ -30,6 +27,8 @@ import java.util.concurrent.ScheduledExecutorService;
 
 public class WynntilsAccount {
 
+    static final String USER_AGENT = "WynntilsClient/v" + Reference.VERSION + "/B" + Reference.BUILD_NUMBER;
+
     private static ScheduledExecutorService service = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder().setNameFormat("Wynntils Accounts").build());
 
     String token;
@@ -53,31 +52,13 @@ public class WynntilsAccount {
 
         service.submit(() -> {
             try {
-                URLConnection st = new URL(WebManager.apiUrls.get("UserAccount") + "updateDiscord/" + token).openConnection();
-
                 //HeyZeer0: Request below
                 JsonObject body = new JsonObject();
                 body.addProperty("id", id);
                 body.addProperty("username", username);
                 // {"id":"<user-id>", "username":"<username>"}
 
-                byte[] bodyBytes = body.toString().getBytes(Charsets.UTF_8);
-
-                st.setRequestProperty("User-Agent", "WynntilsClient/v" + Reference.VERSION + "/B" + Reference.BUILD_NUMBER);
-                st.setRequestProperty("Content-Length", "" + bodyBytes.length);
-                st.setRequestProperty("Content-Type", "application/json");
-                st.setDoOutput(true);
-
-                OutputStream outputStream = null;
-                try {
-                    outputStream = st.getOutputStream();
-                    IOUtils.write(bodyBytes, outputStream);
-                }catch (Exception ex) {
-                    ex.printStackTrace();
-                    return;
-                } finally {
-                    IOUtils.closeQuietly(outputStream);
-                }
+                post("updateDiscord/" + token, body).execute();
 
                 Reference.LOGGER.info("Updating user Discord ID");
             }catch (Exception ex) { ex.printStackTrace(); }
@@ -90,14 +71,33 @@ public class WynntilsAccount {
         configurationUploader.queueConfig(fileName, base64);
     }
 
+    /**
+     * Uploads several configuration files in a single request
+     *
+     * @param configs the file names and their base64 encoded content
+     */
+    public void uploadConfigs(Map<String, String> configs) {
+        if(!ready || configurationUploader == null) return;
+
+        configurationUploader.queueConfigs(configs);
+    }
+
+    /**
+     * Uploads the queued configuration files right away, from the current thread, used when the game is closing
+     */
+    public void flushConfigs() {
+        if(!ready || configurationUploader == null) return;
+
+        configurationUploader.uploadNow();
+    }
+
     boolean secondAttempt = false;
 
     public void login() {
         try {
-            URLConnection st = new URL(WebManager.apiUrls.get("UserAccount") + "/requestEncryption").openConnection();
-            st.setRequestProperty("User-Agent", "WynntilsClient/v" + Reference.VERSION + "/B" + Reference.BUILD_NUMBER);
-
-            JsonObject result = new JsonParser().parse(IOUtils.toString(st.getInputStream())).getAsJsonObject();
+            JsonObject result = RequestHandler.get("UserAccount", WebManager.apiUrls.get("UserAccount") + "/requestEncryption")
+                    .header("User-Agent", USER_AGENT)
+                    .execute().getJson().getAsJsonObject();
 
             byte[] publicKeyBy = DatatypeConverter.parseHexBinary(result.get("publicKeyIn").getAsString());
 
@@ -112,29 +112,12 @@ public class WynntilsAccount {
             byte[] secretKeyEncrypted = CryptManager.encryptData(publicKey, secretkey.getEncoded());
             String lastKey = DatatypeConverter.printHexBinary(secretKeyEncrypted);
 
-            URLConnection st2 = new URL(WebManager.apiUrls.get("UserAccount") + "/responseEncryption/").openConnection();
-
             JsonObject object = new JsonObject();
             object.addProperty("username", mc.getSession().getUsername());
             object.addProperty("key", lastKey);
             object.addProperty("version", Reference.VERSION + (Reference.BUILD_NUMBER != -1 ? "_" + Reference.BUILD_NUMBER : ""));
 
-            byte[] postAsBytes = object.toString().getBytes(Charsets.UTF_8);
-
-            st2.setRequestProperty("User-Agent", "WynntilsClient/v" + Reference.VERSION + "/B" + Reference.BUILD_NUMBER);
-            st2.setRequestProperty("Content-Length", "" + postAsBytes.length);
-            st2.setRequestProperty("Content-Type", "application/json");
-            st2.setDoOutput(true);
-
-            OutputStream outputStream = null;
-            try {
-                outputStream = st2.getOutputStream();
-                IOUtils.write(postAsBytes, outputStream);
-            } finally {
-                IOUtils.closeQuietly(outputStream);
-            }
-
-            JsonObject finalResult = new JsonParser().parse(IOUtils.toString(st2.getInputStream())).getAsJsonObject();
+            JsonObject finalResult = post("/responseEncryption/", object).execute().getJson().getAsJsonObject();
             if (finalResult.has("error")) {
                 return;
             }
@@ -170,4 +153,14 @@ public class WynntilsAccount {
         Reference.LOGGER.error("Failed to connect to Wynntils Accounts!");
     }
 
+    /**
+     * @param path the path after the account api url
+     * @param body the json body
+     * @return a POST request to the account api
+     */
+    static Request post(String path, JsonElement body) {
+        return RequestHandler.post("UserAccount", WebManager.apiUrls.get("UserAccount") + path, "application/json", body.toString().getBytes(StandardCharsets.UTF_8))
+                .header("User-Agent", USER_AGENT);
+    }
+
 }
@@ -0,0 +1,246 @@
+/*
+ *  * Copyright © Wynntils - 2019.
+ */
+
+package com.wynntils.webapi.cache;
+
+import com.google.common.reflect.TypeToken;
+import com.google.gson.Gson;
+import com.wynntils.Reference;
+
+import java.io.*;
+import java.net.HttpURLConnection;
+import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.HashMap;
+
+/**
+ * Keeps the api results at the /apicache directory alongside their HTTP validators (ETag and Last-Modified),
+ * allowing requests to be revalidated with conditional GETs and their parsed result to be stored as a binary snapshot
+ */
+public class ApiCache {
+
+    private static final File CACHE_FOLDER = new File(Reference.MOD_STORAGE_ROOT, "apicache");
+    private static final File VALIDATORS_FILE = new File(CACHE_FOLDER, "validators.json");
+
+    private static final Gson gson = new Gson();
+    private static HashMap<String, Validator> validators = null;
+
+    /**
+     * Adds the conditional headers to the connection if the result is already cached,
+     * needs to be called before the connection is opened
+     *
+     * @param connection the connection that will be made
+     * @param fileName the cache file name
+     * @return if the headers were added, they're omitted when the cache file doesn't exist
+     */
+    public static boolean applyValidators(URLConnection connection, String fileName) {
+        Validator validator = getValidator(fileName);
+        if (validator == null || !getFile(fileName).exists()) return false;
+
+        if (validator.etag != null) connection.setRequestProperty("If-None-Match", validator.etag);
+        if (validator.lastModified != null) connection.setRequestProperty("If-Modified-Since", validator.lastModified);
+        return true;
+    }
+
+    /**
+     * @param connection the connection that was made using {@link #applyValidators(URLConnection, String)}
+     * @param fileName the cache file name
+     * @return if the server answered that the cached result is still up to date
+     */
+    public static boolean isNotModified(URLConnection connection, String fileName) throws IOException {
+        if (!(connection instanceof HttpURLConnection)) return false;
+
+        return ((HttpURLConnection) connection).getResponseCode() == HttpURLConnection.HTTP_NOT_MODIFIED && getFile(fileName).exists();
+    }
+
+    /**
+     * Stores the response of the connection on disk, replacing the previous result atomically
+     *
+     * @param connection the connection the stream came from, used to store its validators
+     * @param stream the response body
+     * @param fileName the cache file name
+     * @return a {@link FileInputStream} for the saved result
+     */
+    public static FileInputStream store(URLConnection connection, InputStream stream, String fileName) throws IOException {
+        if (!CACHE_FOLDER.exists()) CACHE_FOLDER.mkdirs();
+
+        File file = getFile(fileName);
+        File temp = new File(CACHE_FOLDER, fileName + ".temp");
+        try (OutputStream output = new BufferedOutputStream(new FileOutputStream(temp))) {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = stream.read(buffer)) != -1) output.write(buffer, 0, read);
+        } finally {
+            stream.close();
+        }
+        move(temp, file);
+
+        if (connection != null) {
+            String etag = connection.getHeaderField("ETag");
+            String lastModified = connection.getHeaderField("Last-Modified");
+            setValidator(fileName, etag == null && lastModified == null ? null : new Validator(etag, lastModified));
+        }
+
+        return new FileInputStream(file);
+    }
+
+    /**
+     * @param fileName the cache file name
+     * @return a {@link FileInputStream} for the saved result, or null if there's none
+     */
+    public static FileInputStream recall(String fileName) throws IOException {
+        File file = getFile(fileName);
+        if (!file.exists() || file.isDirectory()) return null;
+
+        return new FileInputStream(file);
+    }
+
+    /**
+     * Reads the snapshot of the parsed cache file, the snapshot is only considered valid
+     * if it was made from the same server response that is currently cached
+     *
+     * @param fileName the cache file name the snapshot was made from
+     * @param codec how the snapshot is decoded
+     * @return the decoded snapshot or null if there's no valid snapshot
+     */
+    public static <T> T readSnapshot(String fileName, SnapshotCodec<T> codec) {
+        Validator validator = getValidator(fileName);
+        File file = getSnapshotFile(fileName);
+        if (validator == null || !file.exists()) return null;
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != SnapshotCodec.MAGIC || buffer.getInt() != codec.getSchemaHash()) return null;
+            if (!validator.toString().equals(readString(buffer))) return null;
+
+            return codec.read(buffer);
+        } catch (Exception ex) {
+            Reference.LOGGER.warn("Unable to read the " + fileName + " snapshot", ex);
+            return null;
+        }
+    }
+
+    /**
+     * Writes a snapshot of the parsed cache file, does nothing if the cached result has no validators
+     *
+     * @param fileName the cache file name the snapshot was made from
+     * @param codec how the snapshot is encoded
+     * @param value the parsed value
+     */
+    public static <T> void writeSnapshot(String fileName, SnapshotCodec<T> codec, T value) {
+        Validator validator = getValidator(fileName);
+        File file = getSnapshotFile(fileName);
+        if (validator == null) {
+            file.delete();
+            return;
+        }
+
+        File temp = new File(CACHE_FOLDER, file.getName() + ".temp");
+        try {
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+                output.writeInt(SnapshotCodec.MAGIC);
+                output.writeInt(codec.getSchemaHash());
+                writeString(output, validator.toString());
+                codec.write(output, value);
+            }
+            move(temp, file);
+        } catch (Exception ex) {
+            Reference.LOGGER.warn("Unable to write the " + fileName + " snapshot", ex);
+            temp.delete();
+        }
+    }
+
+    public static void writeString(DataOutput output, String value) throws IOException {
+        if (value == null) {
+            output.writeInt(-1);
+            return;
+        }
+
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    public static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) return null;
+
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param fileName the cache file name
+     * @return where the cache file is stored
+     */
+    public static File getFile(String fileName) {
+        return new File(CACHE_FOLDER, fileName);
+    }
+
+    private static File getSnapshotFile(String fileName) {
+        return new File(CACHE_FOLDER, fileName + ".snapshot");
+    }
+
+    private static void move(File from, File to) throws IOException {
+        try {
+            Files.move(from.toPath(), to.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(from.toPath(), to.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static synchronized Validator getValidator(String fileName) {
+        loadValidators();
+        return validators.get(fileName);
+    }
+
+    private static synchronized void setValidator(String fileName, Validator validator) {
+        loadValidators();
+        if (validator == null) validators.remove(fileName);
+        else validators.put(fileName, validator);
+
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(VALIDATORS_FILE), StandardCharsets.UTF_8)) {
+            gson.toJson(validators, writer);
+        } catch (IOException ex) {
+            Reference.LOGGER.warn("Unable to save the api cache validators", ex);
+        }
+    }
+
+    private static void loadValidators() {
+        if (validators != null) return;
+
+        validators = new HashMap<>();
+        if (!VALIDATORS_FILE.exists()) return;
+
+        try (Reader reader = new InputStreamReader(new FileInputStream(VALIDATORS_FILE), StandardCharsets.UTF_8)) {
+            HashMap<String, Validator> loaded = gson.fromJson(reader, new TypeToken<HashMap<String, Validator>>() {}.getType());
+            if (loaded != null) validators = loaded;
+        } catch (Exception ex) {
+            Reference.LOGGER.warn("Unable to load the api cache validators", ex);
+        }
+    }
+
+    private static class Validator {
+
+        String etag;
+        String lastModified;
+
+        Validator(String etag, String lastModified) {
+            this.etag = etag;
+            this.lastModified = lastModified;
+        }
+
+        @Override
+        public String toString() {
+            return etag + "|" + lastModified;
+        }
+
+    }
+
+}
@@ -0,0 +1,150 @@
+/*
+ *  * Copyright © Wynntils - 2019.
+ */
+
+package com.wynntils.webapi.cache;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.wynntils.Reference;
+import com.wynntils.webapi.WebManager;
+import com.wynntils.webapi.profiles.guild.GuildProfile;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.concurrent.*;
+
+/**
+ * Resolves guild profiles in background, keeping them for {@link #PROFILE_TTL_MILLIS}.
+ * Missing guilds and failed requests are also cached, but expire way sooner
+ */
+public class GuildProfileCache {
+
+    private static final long PROFILE_TTL_MILLIS = TimeUnit.HOURS.toMillis(1);
+    private static final long MISSING_TTL_MILLIS = TimeUnit.MINUTES.toMillis(10);
+    private static final long FAILURE_TTL_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    private static final long PREFETCH_INTERVAL_MILLIS = 500; // keeps bulk prefetching under the api rate limit
+
+    private static final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder().setNameFormat("Wynntils Guild Profiles").setDaemon(true).build());
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * @param name the guild name
+     * @return the cached guild profile, or null if it's unknown or wasn't requested yet
+     */
+    public GuildProfile getCached(String name) {
+        Entry entry = entries.get(name);
+        return entry == null || entry.isExpired() ? null : entry.profile;
+    }
+
+    /**
+     * @param name the guild name
+     * @return the cached guild tag, or null if it's unknown or wasn't requested yet
+     */
+    public String getCachedTag(String name) {
+        GuildProfile profile = getCached(name);
+        return profile == null ? null : profile.getPrefix();
+    }
+
+    /**
+     * Requests the guild profile if it isn't cached, requests made here have priority over prefetching
+     *
+     * @param name the guild name
+     * @return a future that completes with the profile, or null if the guild couldn't be found
+     */
+    public CompletableFuture<GuildProfile> get(String name) {
+        return request(name, 0);
+    }
+
+    /**
+     * Requests every guild that isn't cached yet, spacing the requests
+     *
+     * @param names the guild names
+     */
+    public void prefetch(Collection<String> names) {
+        int queued = 0;
+        for (String name : new HashSet<>(names)) {
+            if (name == null) continue;
+
+            Entry entry = entries.get(name);
+            if (entry != null && (entry.pending != null || !entry.isExpired())) continue;
+
+            request(name, ++queued * PREFETCH_INTERVAL_MILLIS);
+        }
+
+        if (queued > 0) Reference.LOGGER.info("Prefetching " + queued + " guild profiles");
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    private CompletableFuture<GuildProfile> request(String name, long delayMillis) {
+        boolean[] schedule = new boolean[1];
+        Entry entry = entries.compute(name, (key, current) -> {
+            if (current != null && current.pending != null) {
+                // an on demand request overtakes a prefetch that is still waiting
+                if (delayMillis == 0 && current.prefetching) {
+                    current.prefetching = false;
+                    schedule[0] = true;
+                }
+                return current;
+            }
+            if (current != null && !current.isExpired()) return current;
+
+            Entry created = current == null ? new Entry() : current;
+            created.pending = new CompletableFuture<>();
+            created.prefetching = delayMillis > 0;
+            schedule[0] = true;
+            return created;
+        });
+
+        CompletableFuture<GuildProfile> pending = entry.pending;
+        if (pending == null) return CompletableFuture.completedFuture(entry.profile);
+
+        if (schedule[0]) executor.schedule(() -> fetch(name, pending), delayMillis, TimeUnit.MILLISECONDS);
+        return pending;
+    }
+
+    private void fetch(String name, CompletableFuture<GuildProfile> pending) {
+        if (pending.isDone()) return; // already fetched by an on demand request
+
+        GuildProfile profile = null;
+        long ttl;
+        try {
+            profile = WebManager.getGuildProfile(name);
+            ttl = profile == null ? MISSING_TTL_MILLIS : PROFILE_TTL_MILLIS;
+        } catch (Exception ex) {
+            Reference.LOGGER.warn("Unable to fetch the guild profile of " + name + " (" + ex.getMessage() + ")");
+            ttl = FAILURE_TTL_MILLIS;
+        }
+
+        GuildProfile result = profile;
+        long expiresAt = System.currentTimeMillis() + ttl;
+        entries.computeIfPresent(name, (key, entry) -> {
+            if (entry.pending != pending) return entry;
+
+            entry.profile = result;
+            entry.expiresAt = expiresAt;
+            entry.pending = null;
+            entry.prefetching = false;
+            return entry;
+        });
+        pending.complete(profile);
+    }
+
+    private static class Entry {
+
+        volatile GuildProfile profile;
+        volatile long expiresAt = 0;
+        volatile CompletableFuture<GuildProfile> pending;
+        volatile boolean prefetching = false;
+
+        boolean isExpired() {
+            return System.currentTimeMillis() >= expiresAt;
+        }
+
+    }
+
+}
@@ -0,0 +1,198 @@
+/*
+ *  * Copyright © Wynntils - 2019.
+ */
+
+package com.wynntils.webapi.cache;
+
+import com.wynntils.webapi.profiles.TerritoryProfile;
+import com.wynntils.webapi.profiles.item.ItemProfile;
+import net.minecraft.item.Item;
+
+import java.awt.Color;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Snapshot codecs for the api profiles that are expensive to parse
+ */
+public class ProfileSnapshots {
+
+    public static final SnapshotCodec<HashMap<String, TerritoryProfile>> TERRITORIES = new SnapshotCodec<HashMap<String, TerritoryProfile>>() {
+
+        @Override
+        public int getSchemaHash() {
+            return 1;
+        }
+
+        @Override
+        public void write(DataOutput output, HashMap<String, TerritoryProfile> value) throws IOException {
+            output.writeInt(value.size());
+            for (Map.Entry<String, TerritoryProfile> entry : value.entrySet()) {
+                TerritoryProfile territory = entry.getValue();
+
+                ApiCache.writeString(output, entry.getKey());
+                ApiCache.writeString(output, territory.getName());
+                output.writeInt(territory.getStartX());
+                output.writeInt(territory.getStartZ());
+                output.writeInt(territory.getEndX());
+                output.writeInt(territory.getEndZ());
+                ApiCache.writeString(output, territory.getGuild());
+                ApiCache.writeString(output, territory.getAttacker());
+                output.writeLong(territory.getAcquired() == null ? Long.MIN_VALUE : territory.getAcquired().getTime());
+            }
+        }
+
+        @Override
+        public HashMap<String, TerritoryProfile> read(ByteBuffer buffer) {
+            int size = buffer.getInt();
+            HashMap<String, TerritoryProfile> result = new HashMap<>(size * 2);
+            for (int i = 0; i < size; i++) {
+                String key = ApiCache.readString(buffer);
+                String name = ApiCache.readString(buffer);
+                int startX = buffer.getInt();
+                int startZ = buffer.getInt();
+                int endX = buffer.getInt();
+                int endZ = buffer.getInt();
+                String guild = ApiCache.readString(buffer);
+                String attacker = ApiCache.readString(buffer);
+                long acquired = buffer.getLong();
+
+                result.put(key, new TerritoryProfile(name, startX, startZ, endX, endZ, guild, attacker, acquired == Long.MIN_VALUE ? null : new Date(acquired)));
+            }
+            return result;
+        }
+
+    };
+
+    public static final SnapshotCodec<HashMap<String, ItemProfile>> ITEMS = new ItemsCodec();
+
+    /**
+     * Encodes every serialized field of {@link ItemProfile} in a fixed order,
+     * the schema hash changes whenever a field is added, removed or changes its type
+     */
+    private static class ItemsCodec implements SnapshotCodec<HashMap<String, ItemProfile>> {
+
+        private static final byte NULL = 0;
+        private static final byte PRESENT = 1;
+
+        private final Field[] fields;
+        private final int schemaHash;
+
+        ItemsCodec() {
+            ArrayList<Field> found = new ArrayList<>();
+            for (Field field : ItemProfile.class.getDeclaredFields()) {
+                int modifiers = field.getModifiers();
+                if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers)) continue;
+
+                field.setAccessible(true);
+                found.add(field);
+            }
+            found.sort(Comparator.comparing(Field::getName));
+
+            StringBuilder schema = new StringBuilder();
+            for (Field field : found) schema.append(field.getName()).append(':').append(field.getType().getName()).append(';');
+
+            fields = found.toArray(new Field[0]);
+            schemaHash = schema.toString().hashCode();
+        }
+
+        @Override
+        public int getSchemaHash() {
+            return schemaHash;
+        }
+
+        @Override
+        public void write(DataOutput output, HashMap<String, ItemProfile> value) throws IOException {
+            output.writeInt(value.size());
+            try {
+                for (Map.Entry<String, ItemProfile> entry : value.entrySet()) {
+                    ApiCache.writeString(output, entry.getKey());
+                    for (Field field : fields) writeField(output, field, entry.getValue());
+                }
+            } catch (IllegalAccessException ex) {
+                throw new IOException(ex);
+            }
+        }
+
+        @Override
+        public HashMap<String, ItemProfile> read(ByteBuffer buffer) throws Exception {
+            int size = buffer.getInt();
+            HashMap<String, ItemProfile> result = new HashMap<>(size * 2);
+            for (int i = 0; i < size; i++) {
+                String key = ApiCache.readString(buffer);
+                ItemProfile item = new ItemProfile();
+                for (Field field : fields) readField(buffer, field, item);
+
+                result.put(key, item);
+            }
+            return result;
+        }
+
+        private void writeField(DataOutput output, Field field, ItemProfile item) throws IOException, IllegalAccessException {
+            Class<?> type = field.getType();
+            if (type == int.class) {
+                output.writeInt(field.getInt(item));
+            } else if (type == boolean.class) {
+                output.writeBoolean(field.getBoolean(item));
+            } else if (type == String.class) {
+                ApiCache.writeString(output, (String) field.get(item));
+            } else {
+                Object value = field.get(item);
+                if (value == null) {
+                    output.writeByte(NULL);
+                    return;
+                }
+
+                output.writeByte(PRESENT);
+                if (type == ItemProfile.ItemRarity.class) {
+                    output.writeByte(((ItemProfile.ItemRarity) value).ordinal());
+                } else if (type == Color.class) {
+                    output.writeInt(((Color) value).getRGB());
+                } else if (type == ItemProfile.ItemType.class) {
+                    ItemProfile.ItemType itemType = (ItemProfile.ItemType) value;
+                    output.writeInt(Item.getIdFromItem(itemType.getItem()));
+                    output.writeInt(itemType.getDamage());
+                } else {
+                    throw new IOException("Unsupported snapshot field " + field.getName() + " of type " + type.getName());
+                }
+            }
+        }
+
+        private void readField(ByteBuffer buffer, Field field, ItemProfile item) throws IOException, IllegalAccessException {
+            Class<?> type = field.getType();
+            if (type == int.class) {
+                field.setInt(item, buffer.getInt());
+            } else if (type == boolean.class) {
+                field.setBoolean(item, buffer.get() != 0);
+            } else if (type == String.class) {
+                field.set(item, ApiCache.readString(buffer));
+            } else {
+                if (buffer.get() == NULL) {
+                    field.set(item, null);
+                    return;
+                }
+
+                if (type == ItemProfile.ItemRarity.class) {
+                    field.set(item, ItemProfile.ItemRarity.values()[buffer.get()]);
+                } else if (type == Color.class) {
+                    field.set(item, new Color(buffer.getInt()));
+                } else if (type == ItemProfile.ItemType.class) {
+                    int id = buffer.getInt();
+                    field.set(item, new ItemProfile.ItemType(Item.getItemById(id), buffer.getInt()));
+                } else {
+                    throw new IOException("Unsupported snapshot field " + field.getName() + " of type " + type.getName());
+                }
+            }
+        }
+
+    }
+
+}
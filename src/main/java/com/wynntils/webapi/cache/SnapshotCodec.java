@@ -0,0 +1,27 @@
+/*
+ *  * Copyright © Wynntils - 2019.
+ */
+
+package com.wynntils.webapi.cache;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Encodes and decodes a parsed api result to the binary snapshot format used by {@link ApiCache}
+ */
+public interface SnapshotCodec<T> {
+
+    int MAGIC = 0x57594E53; // WYNS
+
+    /**
+     * @return a hash of the encoded layout, snapshots with a different hash are discarded
+     */
+    int getSchemaHash();
+
+    void write(DataOutput output, T value) throws IOException;
+
+    T read(ByteBuffer buffer) throws Exception;
+
+}
@@ -0,0 +1,176 @@
+/*
+ *  * Copyright © Wynntils - 2019.
+ */
+
+package com.wynntils.webapi.cache;
+
+import com.wynntils.webapi.profiles.TerritoryProfile;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Holds the known territories as immutable snapshots, a new snapshot is published atomically
+ * so readers never see a partially updated territory list
+ */
+public class TerritoryStore {
+
+    private final AtomicReference<Snapshot> current = new AtomicReference<>(Snapshot.EMPTY);
+
+    /**
+     * @return the current snapshot, never null
+     */
+    public Snapshot getSnapshot() {
+        return current.get();
+    }
+
+    /**
+     * @return an unmodifiable view of the current territories
+     */
+    public Map<String, TerritoryProfile> getTerritories() {
+        return current.get().getTerritories();
+    }
+
+    public boolean isEmpty() {
+        return current.get().getTerritories().isEmpty();
+    }
+
+    /**
+     * Replaces the current territories, nothing is published if their owners, attackers and acquired dates didn't change
+     *
+     * @param territories the new territories
+     * @return the published snapshot, or the current one if nothing changed
+     */
+    public Snapshot publish(Map<String, TerritoryProfile> territories) {
+        while (true) {
+            Snapshot previous = current.get();
+            Snapshot next = new Snapshot(previous.version + 1, territories, previous);
+            if (next.hash == previous.hash && next.states.equals(previous.states)) return previous;
+
+            if (current.compareAndSet(previous, next)) return next;
+        }
+    }
+
+    public void clear() {
+        // keeps counting the versions, so snapshots from before can still be compared
+        current.updateAndGet(previous -> new Snapshot(previous.version + 1, Collections.emptyMap(), previous));
+    }
+
+    public static class Snapshot {
+
+        static final Snapshot EMPTY = new Snapshot(0, Collections.emptyMap(), null);
+
+        private final long version;
+        private final Map<String, TerritoryProfile> territories;
+        private final HashMap<String, Integer> states;
+        private final HashMap<String, Long> changedAt; // the version each territory last changed at
+        private final ArrayList<String> changeOrder; // the territories by the version they last changed at
+        private final int hash;
+
+        private Snapshot(long version, Map<String, TerritoryProfile> territories, Snapshot previous) {
+            this.version = version;
+            this.territories = Collections.unmodifiableMap(new HashMap<>(territories));
+            this.states = new HashMap<>(territories.size() * 2);
+            this.changedAt = new HashMap<>(territories.size() * 2);
+            this.changeOrder = new ArrayList<>(territories.size());
+
+            int hash = 0;
+            for (Map.Entry<String, TerritoryProfile> entry : territories.entrySet()) {
+                int state = stateOf(entry.getValue());
+                states.put(entry.getKey(), state);
+                hash += entry.getKey().hashCode() ^ state; // order independent
+            }
+            this.hash = hash;
+
+            // the unchanged territories keep their order, the changed ones are moved to the end
+            ArrayList<String> changed = new ArrayList<>();
+            if (previous != null) {
+                for (String name : previous.changeOrder) {
+                    if (!territories.containsKey(name) || !previous.isSameState(name, this)) continue;
+
+                    changedAt.put(name, previous.changedAt.get(name));
+                    changeOrder.add(name);
+                }
+            }
+            for (String name : territories.keySet()) {
+                if (changedAt.containsKey(name)) continue;
+
+                changedAt.put(name, version);
+                changed.add(name);
+            }
+            changeOrder.addAll(changed);
+        }
+
+        /**
+         * @return a number that increases every time the territories change
+         */
+        public long getVersion() {
+            return version;
+        }
+
+        public Map<String, TerritoryProfile> getTerritories() {
+            return territories;
+        }
+
+        /**
+         * Compares the territories of this snapshot with the ones of an older snapshot of the same store,
+         * only the territories whose guild, attacker or acquired date changed are reported.
+         * Only the territories changed after the older snapshot are walked.
+         *
+         * @param older the snapshot to compare to
+         * @return the changed territories of the older snapshot with their current profiles
+         */
+        public List<Change> diff(Snapshot older) {
+            if (older.version >= version) return Collections.emptyList();
+
+            ArrayList<Change> changes = new ArrayList<>();
+            for (int i = changeOrder.size() - 1; i >= 0; i--) {
+                String name = changeOrder.get(i);
+                if (changedAt.get(name) <= older.version) break;
+
+                TerritoryProfile before = older.territories.get(name);
+                if (before == null) continue; // a new territory
+                if (older.isSameState(name, this)) continue; // changed back
+
+                changes.add(new Change(before, territories.get(name)));
+            }
+            return changes;
+        }
+
+        /**
+         * @return if the territory has the same state at both snapshots, it must exist at both
+         */
+        private boolean isSameState(String name, Snapshot other) {
+            if (states.get(name).intValue() != other.states.get(name).intValue()) return false;
+
+            TerritoryProfile a = territories.get(name), b = other.territories.get(name);
+            return Objects.equals(a.getGuild(), b.getGuild()) && Objects.equals(a.getAttacker(), b.getAttacker()) && Objects.equals(a.getAcquired(), b.getAcquired());
+        }
+
+        private static int stateOf(TerritoryProfile territory) {
+            return Objects.hash(territory.getGuild(), territory.getAttacker(), territory.getAcquired());
+        }
+
+    }
+
+    public static class Change {
+
+        private final TerritoryProfile before;
+        private final TerritoryProfile after;
+
+        private Change(TerritoryProfile before, TerritoryProfile after) {
+            this.before = before;
+            this.after = after;
+        }
+
+        public TerritoryProfile getBefore() {
+            return before;
+        }
+
+        public TerritoryProfile getAfter() {
+            return after;
+        }
+
+    }
+
+}
@@ -0,0 +1,73 @@
+/*
+ *  * Copyright © Wynntils - 2019.
+ */
+
+package com.wynntils.webapi.cache;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Keeps the roles and cosmetics of every known user as a single bitmask per UUID,
+ * the index is rebuilt on each update and swapped as a whole so lookups never lock
+ */
+public class UserFlagIndex {
+
+    public static final int HELPER = 1;
+    public static final int MODERATOR = 1 << 1;
+    public static final int CONTENT_TEAM = 1 << 2;
+    public static final int DONATOR = 1 << 3;
+
+    public static final int EARS = 1 << 4;
+    public static final int ELYTRA = 1 << 5;
+    public static final int CAPE = 1 << 6;
+
+    public static final int ROLES = HELPER | MODERATOR | CONTENT_TEAM | DONATOR;
+    public static final int MODELS = EARS | ELYTRA | CAPE;
+
+    private volatile HashMap<UUID, Integer> flags = new HashMap<>();
+
+    /**
+     * @param uuid the user uuid
+     * @param flag the flags to check
+     * @return if the user has any of the provided flags
+     */
+    public boolean has(UUID uuid, int flag) {
+        if (uuid == null) return false;
+
+        Integer found = flags.get(uuid);
+        return found != null && (found & flag) != 0;
+    }
+
+    /**
+     * Replaces every flag of a group, the flags outside the group are kept
+     *
+     * @param group the flags being replaced, like {@link #ROLES}
+     * @param users the users of each flag in the group, a null collection is considered empty
+     */
+    public synchronized void replace(int group, Map<Integer, Collection<UUID>> users) {
+        HashMap<UUID, Integer> updated = new HashMap<>(flags.size() * 2);
+        for (Map.Entry<UUID, Integer> entry : flags.entrySet()) {
+            int kept = entry.getValue() & ~group;
+            if (kept != 0) updated.put(entry.getKey(), kept);
+        }
+
+        for (Map.Entry<Integer, Collection<UUID>> entry : users.entrySet()) {
+            int flag = entry.getKey() & group;
+            if (flag == 0 || entry.getValue() == null) continue;
+
+            for (UUID uuid : entry.getValue()) {
+                if (uuid != null) updated.merge(uuid, flag, (a, b) -> a | b);
+            }
+        }
+
+        flags = updated;
+    }
+
+    public synchronized void clear() {
+        flags = new HashMap<>();
+    }
+
+}
@@ -0,0 +1,161 @@
+/*
+ *  * Copyright © Wynntils - 2019.
+ */
+
+package com.wynntils.webapi.loader;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.wynntils.Reference;
+import net.minecraftforge.fml.common.ProgressManager;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.concurrent.*;
+
+/**
+ * Loads a set of API datasets concurrently, respecting the dependencies between them.
+ *
+ * Stages flagged as blocking are the ones required to render the first frame, {@link #load()}
+ * only waits for those, everything else keeps loading in the background.
+ */
+public class ApiLoader {
+
+    private static final int MAX_THREADS = 4;
+    private static final long STAGE_WAIT_SECONDS = 40;
+
+    private final String title;
+    private final LinkedHashMap<String, Stage> stages = new LinkedHashMap<>();
+
+    public ApiLoader(String title) {
+        this.title = title;
+    }
+
+    /**
+     * Registers a new loading stage, dependencies needs to be registered before the stage itself
+     *
+     * @param name the stage name, shown at the progress bar
+     * @param blocking if the game should wait for this stage to finish
+     * @param task what will be executed
+     * @param dependencies the stages that needs to finish successfully before this one starts
+     * @return this loader
+     */
+    public ApiLoader stage(String name, boolean blocking, LoadTask task, String... dependencies) {
+        ArrayList<Stage> required = new ArrayList<>();
+        for (String dependency : dependencies) {
+            Stage stage = stages.get(dependency);
+            if (stage == null) throw new IllegalArgumentException("Unknown dependency " + dependency + " for stage " + name);
+
+            required.add(stage);
+            if (blocking) stage.blocking = true; // a blocking stage can't wait for a background one
+        }
+
+        stages.put(name, new Stage(name, blocking, task, required));
+        return this;
+    }
+
+    /**
+     * Starts every stage and waits until all the blocking stages are finished
+     */
+    public void load() {
+        if (stages.isEmpty()) return;
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(MAX_THREADS, stages.size()),
+                new ThreadFactoryBuilder().setNameFormat("Wynntils API Loader %d").setDaemon(true).build());
+        LinkedBlockingQueue<Stage> finished = new LinkedBlockingQueue<>();
+
+        long start = System.nanoTime();
+        int blockingLeft = 0;
+        CompletableFuture<?>[] futures = new CompletableFuture[stages.size()];
+
+        int i = 0;
+        for (Stage stage : stages.values()) {
+            if (stage.blocking) blockingLeft++;
+
+            CompletableFuture<?>[] required = new CompletableFuture[stage.dependencies.size()];
+            for (int j = 0; j < required.length; j++) required[j] = stage.dependencies.get(j).future;
+
+            stage.future = CompletableFuture.allOf(required).thenRunAsync(stage::run, executor);
+            stage.future.whenComplete((r, ex) -> {
+                if (ex != null && stage.error == null) {
+                    stage.error = ex;
+                    Reference.LOGGER.warn("[API Loader] " + stage.name + " skipped, a required stage failed");
+                }
+                finished.offer(stage);
+            });
+            futures[i++] = stage.future;
+        }
+
+        CompletableFuture.allOf(futures).whenComplete((r, ex) -> {
+            executor.shutdown();
+            Reference.LOGGER.info("[API Loader] All stages finished in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "ms");
+        });
+
+        ProgressManager.ProgressBar progressBar = ProgressManager.push(title, stages.size());
+        try {
+            while (blockingLeft > 0) {
+                Stage stage = finished.poll(STAGE_WAIT_SECONDS, TimeUnit.SECONDS);
+                if (stage == null) {
+                    Reference.LOGGER.warn("[API Loader] Timed out waiting for the required stages, continuing in background");
+                    break;
+                }
+
+                progressBar.step(stage.error == null ? stage.name : stage.name + " (failed)");
+                if (stage.blocking) blockingLeft--;
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+
+        while (progressBar.getStep() < progressBar.getSteps())
+            progressBar.step("Loading remaining data in background");
+        ProgressManager.pop(progressBar);
+
+        Reference.LOGGER.info("[API Loader] Required stages finished in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "ms");
+    }
+
+    /**
+     * @param name the stage name
+     * @return a future that completes when the stage finishes, or null if there's no such stage or it wasn't started
+     */
+    public CompletableFuture<Void> getStage(String name) {
+        Stage stage = stages.get(name);
+        return stage == null ? null : stage.future;
+    }
+
+    @FunctionalInterface
+    public interface LoadTask {
+        void load() throws Exception;
+    }
+
+    private static class Stage {
+
+        final String name;
+        final LoadTask task;
+        final ArrayList<Stage> dependencies;
+        boolean blocking;
+
+        CompletableFuture<Void> future;
+        volatile Throwable error;
+
+        Stage(String name, boolean blocking, LoadTask task, ArrayList<Stage> dependencies) {
+            this.name = name;
+            this.blocking = blocking;
+            this.task = task;
+            this.dependencies = dependencies;
+        }
+
+        void run() {
+            long start = System.nanoTime();
+            try {
+                task.load();
+                Reference.LOGGER.info("[API Loader] " + name + " loaded in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "ms");
+            } catch (Exception ex) {
+                error = ex;
+                Reference.LOGGER.warn("[API Loader] " + name + " failed after " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "ms", ex);
+                throw new CompletionException(ex);
+            }
+        }
+
+    }
+
+}
@@ -4,8 +4,16 @@
 
 package com.wynntils.webapi.profiles;
 
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
+
+import java.io.IOException;
+import java.util.ArrayList;
+
 public class MapMarkerProfile {
 
+    private static final Gson GSON = new Gson();
+
     String name;
     int x;
     int y;
@@ -40,4 +48,18 @@ public class MapMarkerProfile {
         return icon.replace(".png", "");
     }
 
+    /**
+     * Reads a marker array straight from the stream without building the json tree
+     *
+     * @param reader a reader positioned at the start of the array
+     * @param markers where the markers will be added
+     */
+    public static void readMarkers(JsonReader reader, ArrayList<MapMarkerProfile> markers) throws IOException {
+        reader.beginArray();
+        while (reader.hasNext()) {
+            markers.add(GSON.fromJson(reader, MapMarkerProfile.class));
+        }
+        reader.endArray();
+    }
+
 }
@@ -0,0 +1,147 @@
+/*
+ *  * Copyright © Wynntils - 2019.
+ */
+
+package com.wynntils.webapi.profiles.item;
+
+import com.wynntils.core.utils.Utils;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The identifications of an item resolved once, keyed by the name they have at the item lore
+ * (like "Walk Speed", or "rawSpell Damage" for the raw version of a stat),
+ * so an item tooltip can be evaluated without reflection or brute forcing the rolls.
+ */
+public class IdentificationTemplate {
+
+    private static final int NEGATIVE_MIN_ROLL = 70, NEGATIVE_MAX_ROLL = 130;
+    private static final int POSITIVE_MIN_ROLL = 30, POSITIVE_MAX_ROLL = 130;
+
+    private final HashMap<String, Stat> stats = new HashMap<>();
+
+    public IdentificationTemplate(ItemProfile item) {
+        for (Map.Entry<String, String> entry : Utils.getItemFieldNames().entrySet()) {
+            int index = ItemProfile.getIdentificationIndex(entry.getValue());
+            if (index == -1) continue;
+
+            stats.put(entry.getKey(), new Stat(entry.getValue(), Utils.getFieldRank(entry.getValue()), item.getIdentification(index)));
+        }
+    }
+
+    /**
+     * @param loreName the name of the stat at the lore
+     * @param raw if the stat value isn't a percentage, the raw version of the stat is preferred if it exists
+     * @return the stat, or null if it isn't an identification
+     */
+    public Stat get(String loreName, boolean raw) {
+        if (raw) {
+            Stat stat = stats.get("raw" + loreName);
+            if (stat != null) return stat;
+        }
+        return stats.get(loreName);
+    }
+
+    public static class Stat {
+
+        private final String fieldName;
+        private final int rank;
+        private final int baseValue;
+        private final boolean skillPoints;
+
+        Stat(String fieldName, int rank, int baseValue) {
+            this.fieldName = fieldName;
+            this.rank = rank;
+            this.baseValue = baseValue;
+            this.skillPoints = fieldName.endsWith("Points") && !fieldName.equals("soulPoints");
+        }
+
+        public String getFieldName() {
+            return fieldName;
+        }
+
+        /**
+         * @return the position of the stat at the sorted lore
+         */
+        public int getRank() {
+            return rank;
+        }
+
+        public int getBaseValue() {
+            return baseValue;
+        }
+
+        /**
+         * @return if the stat gives skill points, like "strengthPoints"
+         */
+        public boolean isSkillPoints() {
+            return skillPoints;
+        }
+
+        /**
+         * @param amount the rolled value, its sign tells which roll range is used
+         * @return the worst possible roll
+         */
+        public int getMin(int amount) {
+            if (amount < 0) return (int) Math.min(Math.round(baseValue * 0.7d), -1);
+            return (int) Math.max(Math.round(baseValue * 0.3d), 1);
+        }
+
+        /**
+         * @param amount the rolled value, its sign tells which roll range is used
+         * @return the best possible roll
+         */
+        public int getMax(int amount) {
+            if (amount < 0) return (int) Math.min(Math.round(baseValue * 1.3d), -1);
+            return (int) Math.max(Math.round(baseValue * 1.3d), 1);
+        }
+
+        /**
+         * Every roll percentage is equally likely, a roll is the base value times the percentage, rounded.
+         * Since the rolls are monotonic on the percentage, the amount of percentages giving a lower, higher or
+         * equal roll is found by searching where the rolls cross the value instead of trying every percentage.
+         *
+         * @param amount the rolled value
+         * @return the chances (0 to 100) of a reroll being worse, better, and the best possible roll
+         */
+        public float[] getChances(int amount) {
+            int from = amount < 0 ? NEGATIVE_MIN_ROLL : POSITIVE_MIN_ROLL;
+            int to = amount < 0 ? NEGATIVE_MAX_ROLL : POSITIVE_MAX_ROLL;
+            float percentages = (to - from + 1) / 100f;
+
+            long best = amount < 0 ? getMin(amount) : getMax(amount);
+
+            float down = countBelow(amount, from, to);
+            float up = (to - from + 1) - countBelow(amount + 1L, from, to);
+            float bestRolls = countBelow(best + 1, from, to) - countBelow(best, from, to);
+
+            return new float[] { down / percentages, up / percentages, bestRolls / percentages };
+        }
+
+        private long roll(int percentage) {
+            return Math.round(baseValue * (percentage / 100d));
+        }
+
+        /**
+         * @return the amount of percentages between from and to (inclusive) rolling lower than the value
+         */
+        private int countBelow(long value, int from, int to) {
+            boolean increasing = baseValue >= 0;
+
+            // first percentage where the condition becomes true, the condition is monotonic
+            int low = from, high = to + 1;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                boolean condition = increasing ? roll(middle) >= value : roll(middle) < value;
+
+                if (condition) high = middle;
+                else low = middle + 1;
+            }
+
+            return increasing ? low - from : to + 1 - low;
+        }
+
+    }
+
+}
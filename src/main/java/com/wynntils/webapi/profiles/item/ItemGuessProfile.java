@@ -6,15 +6,11 @@ package com.wynntils.webapi.profiles.item;
 
 import com.google.common.reflect.TypeToken;
 import com.google.gson.Gson;
-import com.google.gson.JsonDeserializationContext;
-import com.google.gson.JsonDeserializer;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
 
+import java.io.IOException;
 import java.lang.reflect.Type;
 import java.util.HashMap;
-import java.util.Map.Entry;
 
 public class ItemGuessProfile {
 
@@ -37,23 +33,27 @@ public class ItemGuessProfile {
         items.put(part, rarity);
     }
     
-    public static class ItemGuessDeserializer implements JsonDeserializer<HashMap<?, ?>> {
-
-        @Override
-        public HashMap<String, ItemGuessProfile> deserialize(JsonElement json, Type typeOfT, JsonDeserializationContext context) throws JsonParseException {
-            JsonObject jsonObject = json.getAsJsonObject();
-            HashMap<String, ItemGuessProfile> hashMap = new HashMap<>();
-            for (Entry<String, JsonElement> itemGuesses : jsonObject.entrySet()) {
-                ItemGuessProfile itemGuessProfile = new ItemGuessProfile(itemGuesses.getKey());
-                Type type = new TypeToken<HashMap<String, HashMap<String, String>>>() {
-                }.getType();
-                Gson gson = new Gson();
-                itemGuessProfile.items.putAll(gson.fromJson(itemGuesses.getValue(), type));
-                hashMap.put(itemGuesses.getKey(), itemGuessProfile);
-            }
-            return hashMap;
+    /**
+     * Reads the item guesses straight from the stream without building the json tree
+     *
+     * @param reader a reader positioned at the start of the guesses object
+     * @return a {@link HashMap} containing all the guesses keyed by their level range
+     */
+    public static HashMap<String, ItemGuessProfile> readGuesses(JsonReader reader) throws IOException {
+        Type type = new TypeToken<HashMap<String, HashMap<String, String>>>() {
+        }.getType();
+        Gson gson = new Gson();
+
+        HashMap<String, ItemGuessProfile> hashMap = new HashMap<>();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            ItemGuessProfile itemGuessProfile = new ItemGuessProfile(reader.nextName());
+            itemGuessProfile.items.putAll(gson.fromJson(reader, type));
+            hashMap.put(itemGuessProfile.getRange(), itemGuessProfile);
         }
-        
+        reader.endObject();
+
+        return hashMap;
     }
 
 }
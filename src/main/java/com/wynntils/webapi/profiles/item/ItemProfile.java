@@ -5,6 +5,7 @@
 package com.wynntils.webapi.profiles.item;
 
 import com.google.gson.*;
+import com.google.gson.stream.JsonReader;
 import com.mojang.authlib.GameProfile;
 import com.mojang.authlib.properties.Property;
 import com.mojang.authlib.yggdrasil.response.MinecraftTexturesPayload;
@@ -22,6 +23,8 @@ import org.apache.commons.codec.Charsets;
 import org.apache.commons.codec.binary.Base64;
 
 import java.awt.Color;
+import java.io.IOException;
+import java.lang.reflect.Field;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -402,6 +405,71 @@ public class ItemProfile {
         return skin;
     }
 
+    /**
+     * The identification fields, the position of each field is the index used by {@link #getIdentification(int)}
+     */
+    public static final String[] IDENTIFICATION_FIELDS = {
+            "manaRegen", "healthRegen", "healthRegenRaw", "lifeSteal", "manaSteal",
+            "xpBonus", "lootBonus", "emeraldStealing", "strengthPoints", "dexterityPoints",
+            "intelligencePoints", "agilityPoints", "defensePoints", "thorns", "exploding",
+            "speed", "attackSpeedBonus", "poison", "healthBonus", "soulPoints",
+            "reflection", "spellDamage", "spellDamageRaw", "damageBonus", "damageBonusRaw",
+            "bonusFireDamage", "bonusWaterDamage", "bonusAirDamage", "bonusThunderDamage", "bonusEarthDamage",
+            "bonusFireDefense", "bonusWaterDefense", "bonusAirDefense", "bonusThunderDefense", "bonusEarthDefense"
+    };
+    private static final HashMap<String, Integer> identificationIndexes = new HashMap<>();
+
+    static {
+        for (int i = 0; i < IDENTIFICATION_FIELDS.length; i++) identificationIndexes.put(IDENTIFICATION_FIELDS[i], i);
+    }
+
+    /**
+     * @param fieldName the identification field name, like "strengthPoints"
+     * @return the index of the identification, or -1 if the field isn't an identification
+     */
+    public static int getIdentificationIndex(String fieldName) {
+        return identificationIndexes.getOrDefault(fieldName, -1);
+    }
+
+    /**
+     * The fields of {@link #IDENTIFICATION_FIELDS}, resolved by the class loader the first time they're used
+     */
+    private static class IdentificationFields {
+
+        static final Field[] FIELDS = new Field[IDENTIFICATION_FIELDS.length];
+
+        static {
+            try {
+                for (int i = 0; i < FIELDS.length; i++) FIELDS[i] = ItemProfile.class.getDeclaredField(IDENTIFICATION_FIELDS[i]);
+            } catch (NoSuchFieldException ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+
+    }
+
+    transient volatile int[] identifications = null;
+    public int getIdentification(int index) {
+        int[] values = identifications;
+        if (values == null) {
+            values = new int[IdentificationFields.FIELDS.length];
+            try {
+                for (int i = 0; i < values.length; i++) values[i] = IdentificationFields.FIELDS[i].getInt(this);
+            } catch (IllegalAccessException ex) {
+                throw new IllegalStateException(ex);
+            }
+            identifications = values;
+        }
+        return values[index];
+    }
+
+    transient volatile IdentificationTemplate identificationTemplate = null;
+    public IdentificationTemplate getIdentificationTemplate() {
+        IdentificationTemplate template = identificationTemplate;
+        if (template == null) identificationTemplate = template = new IdentificationTemplate(this);
+        return template;
+    }
+
     transient Pair<ItemStack, ArrayList<String>> generated = null;
     public Pair<ItemStack, ArrayList<String>> asStack() {
         if(generated == null) {
@@ -654,6 +722,26 @@ public class ItemProfile {
         return identified ? (rawStatus > 0 ? TextFormatting.GREEN + "+" + rawStatus + format : TextFormatting.RED + (rawStatus + format)) : (rawStatus > 0 ? TextFormatting.GREEN + "+" + minStatus + format + TextFormatting.GRAY + " to " + TextFormatting.GREEN + "+" + maxStatus + format : TextFormatting.RED + (minStatus + format) + TextFormatting.GRAY + " to " + TextFormatting.RED + maxStatus + format);
     }
 
+    /**
+     * Reads an item array straight from the stream without building the json tree,
+     * items are keyed the same way as {@link HashMapDeserialiser}
+     *
+     * @param reader a reader positioned at the start of the array
+     * @return a {@link HashMap} containing all the items
+     */
+    public static HashMap<String, ItemProfile> readItems(JsonReader reader) throws IOException {
+        HashMap<String, ItemProfile> items = new HashMap<>();
+
+        reader.beginArray();
+        while (reader.hasNext()) {
+            ItemProfile item = GSON.fromJson(reader, ItemProfile.class);
+            items.put(item.displayName != null ? item.displayName : item.name, item);
+        }
+        reader.endArray();
+
+        return items;
+    }
+
     public static class ItemType {
         private Item item = null;
 
@@ -0,0 +1,423 @@
+/*
+ *  * Copyright © Wynntils - 2019.
+ */
+
+package com.wynntils.webapi.profiles.item;
+
+import java.util.*;
+import java.util.function.IntUnaryOperator;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A prebuilt index of every item, so the item guide can be searched as the user types.
+ *
+ * Names are indexed by every 1 to 3 character long piece of them, longer searches intersect the
+ * trigram lists before checking the remaining candidates. Types, tiers, levels and identifications
+ * are kept as bitsets or sorted arrays, so any combination of them is resolved with a few
+ * bitset operations. The index is immutable, a new one is built when the item list is updated.
+ */
+public class ItemSearchIndex {
+
+    private static final int GRAM_SIZE = 3;
+    private static final int[] EMPTY = new int[0];
+
+    private static final Pattern RANGE = Pattern.compile("(-?\\d+)-(-?\\d+)");
+    private static final Pattern AT_LEAST = Pattern.compile("(-?\\d+)\\+|>=?(-?\\d+)");
+    private static final Pattern AT_MOST = Pattern.compile("<=?(-?\\d+)");
+    private static final Pattern EXACT = Pattern.compile("-?\\d+");
+
+    private static final HashMap<String, Integer> fieldIndexes = new HashMap<>();
+
+    static {
+        for (int i = 0; i < ItemProfile.IDENTIFICATION_FIELDS.length; i++) fieldIndexes.put(ItemProfile.IDENTIFICATION_FIELDS[i].toLowerCase(Locale.ROOT), i);
+    }
+
+    private final ItemProfile[] items;
+    private final String[] names;
+    private final HashMap<String, int[]> grams = new HashMap<>();
+
+    private final HashMap<String, BitSet> types = new HashMap<>();
+    private final BitSet[] tiers = new BitSet[ItemProfile.ItemRarity.values().length];
+
+    private final SortedValues levels;
+    private final SortedValues[] identifications = new SortedValues[ItemProfile.IDENTIFICATION_FIELDS.length];
+
+    private final int[][] orders = new int[SortOrder.values().length][];
+
+    public ItemSearchIndex(Collection<ItemProfile> profiles) {
+        items = profiles.toArray(new ItemProfile[0]);
+        Arrays.sort(items, (o1, o2) -> o1.getName().compareToIgnoreCase(o2.getName()));
+
+        names = new String[items.length];
+        for (int i = 0; i < tiers.length; i++) tiers[i] = new BitSet(items.length);
+
+        HashMap<String, IntList> postings = new HashMap<>();
+        for (int id = 0; id < items.length; id++) {
+            ItemProfile item = items[id];
+            String name = item.getName().toLowerCase(Locale.ROOT);
+            names[id] = name;
+
+            for (int size = 1; size <= GRAM_SIZE; size++) {
+                for (int i = 0; i + size <= name.length(); i++) {
+                    IntList list = postings.computeIfAbsent(name.substring(i, i + size), k -> new IntList());
+                    if (list.last() != id) list.add(id); // the same piece can be repeated at a name
+                }
+            }
+
+            if (item.getType() != null) types.computeIfAbsent(item.getType().toLowerCase(Locale.ROOT), k -> new BitSet(items.length)).set(id);
+            if (item.getAccessoryType() != null) types.computeIfAbsent(item.getAccessoryType().toLowerCase(Locale.ROOT), k -> new BitSet(items.length)).set(id);
+            if (item.getTier() != null) tiers[item.getTier().ordinal()].set(id);
+        }
+        postings.forEach((gram, list) -> grams.put(gram, list.toArray()));
+
+        levels = new SortedValues(items.length, id -> items[id].getLevel());
+        for (int i = 0; i < identifications.length; i++) {
+            int field = i;
+            identifications[i] = new SortedValues(items.length, id -> items[id].getIdentification(field));
+        }
+
+        // ties keep the alphabetical order, as the item guide always did
+        orders[SortOrder.ALPHABETICAL.ordinal()] = sortedIds(Comparator.comparingInt(id -> id));
+        orders[SortOrder.LEVEL.ordinal()] = sortedIds(Comparator.comparingInt(id -> -items[id].getLevel()));
+        orders[SortOrder.RARITY.ordinal()] = sortedIds(Comparator.comparingInt(id -> items[id].getTier() == null ? 1 : -items[id].getTier().getId()));
+    }
+
+    public int size() {
+        return items.length;
+    }
+
+    /**
+     * @return a new query, matching every item until filters are added
+     */
+    public Query query() {
+        return new Query();
+    }
+
+    /**
+     * @param search the lower case text to search for
+     * @param fuzzy if the characters only need to appear in order, instead of next to each other
+     * @return the items whose name matches the search
+     */
+    public BitSet matchName(String search, boolean fuzzy) {
+        BitSet result = new BitSet(items.length);
+        if (search.isEmpty()) {
+            result.set(0, items.length);
+            return result;
+        }
+
+        if (!fuzzy && search.length() <= GRAM_SIZE) {
+            for (int id : grams.getOrDefault(search, EMPTY)) result.set(id);
+            return result;
+        }
+
+        // every piece of the search needs to be at the name, starting with the rarest one
+        List<int[]> lists = new ArrayList<>();
+        if (fuzzy) {
+            for (int i = 0; i < search.length(); i++) lists.add(grams.getOrDefault(search.substring(i, i + 1), EMPTY));
+        } else {
+            for (int i = 0; i + GRAM_SIZE <= search.length(); i++) lists.add(grams.getOrDefault(search.substring(i, i + GRAM_SIZE), EMPTY));
+        }
+        lists.sort(Comparator.comparingInt(list -> list.length));
+
+        for (int id : lists.get(0)) result.set(id);
+        BitSet other = new BitSet(items.length);
+        for (int i = 1; i < lists.size() && !result.isEmpty(); i++) {
+            other.clear();
+            for (int id : lists.get(i)) other.set(id);
+            result.and(other);
+        }
+
+        for (int id = result.nextSetBit(0); id >= 0; id = result.nextSetBit(id + 1)) {
+            if (!(fuzzy ? isSubsequence(names[id], search) : names[id].contains(search))) result.clear(id);
+        }
+        return result;
+    }
+
+    /**
+     * @param type the item type or accessory type, like "Wand" or "Ring", ignoring case
+     * @return the items of that type
+     */
+    public BitSet withType(String type) {
+        BitSet found = types.get(type.toLowerCase(Locale.ROOT));
+        return found == null ? new BitSet() : (BitSet) found.clone();
+    }
+
+    public BitSet withTier(ItemProfile.ItemRarity tier) {
+        return (BitSet) tiers[tier.ordinal()].clone();
+    }
+
+    /**
+     * @return the items whose level is between min and max (inclusive)
+     */
+    public BitSet withLevel(int min, int max) {
+        return levels.between(min, max);
+    }
+
+    /**
+     * @param field the identification index, from {@link ItemProfile#getIdentificationIndex(String)}
+     * @return the items whose base value of the identification is between min and max (inclusive)
+     */
+    public BitSet withIdentification(int field, int min, int max) {
+        return identifications[field].between(min, max);
+    }
+
+    /**
+     * @param matches the items to collect
+     * @param order the order they should be in
+     * @return a new list with the matching items
+     */
+    public ArrayList<ItemProfile> collect(BitSet matches, SortOrder order) {
+        ArrayList<ItemProfile> result = new ArrayList<>(matches.cardinality());
+        for (int id : orders[order.ordinal()]) {
+            if (matches.get(id)) result.add(items[id]);
+        }
+        return result;
+    }
+
+    private int[] sortedIds(Comparator<Integer> comparator) {
+        Integer[] ids = new Integer[items.length];
+        for (int i = 0; i < ids.length; i++) ids[i] = i;
+        Arrays.sort(ids, comparator.thenComparingInt(id -> id));
+
+        int[] result = new int[ids.length];
+        for (int i = 0; i < ids.length; i++) result[i] = ids[i];
+        return result;
+    }
+
+    private static boolean isSubsequence(String text, String search) {
+        int j = 0;
+        for (int i = 0; i < text.length() && j < search.length(); i++) {
+            if (text.charAt(i) == search.charAt(j)) j++;
+        }
+        return j == search.length();
+    }
+
+    public enum SortOrder {
+
+        ALPHABETICAL, LEVEL, RARITY
+
+    }
+
+    /**
+     * A combination of filters, every filter needs to match.
+     *
+     * Besides the name, a search text can contain filters like {@code lv:80-90}, {@code tier:legendary},
+     * {@code type:wand}, {@code has:spellDamage} or {@code spellDamage:10+}. Numbers can be written as
+     * {@code 80-90}, {@code 80+}, {@code >80}, {@code <90} or just {@code 80}.
+     */
+    public class Query {
+
+        private final BitSet result = new BitSet(items.length);
+
+        private Query() {
+            result.set(0, items.length);
+        }
+
+        /**
+         * Adds the filters found at the text, the remaining words are searched at the item names
+         *
+         * @param text what the user typed
+         * @param fuzzy if the name search is fuzzy
+         * @return this query
+         */
+        public Query search(String text, boolean fuzzy) {
+            StringBuilder name = new StringBuilder();
+            for (String word : text.trim().split("\\s+")) {
+                if (word.isEmpty() || addFilter(word)) continue;
+
+                if (name.length() != 0) name.append(' ');
+                name.append(word);
+            }
+
+            return name(name.toString(), fuzzy);
+        }
+
+        public Query name(String search, boolean fuzzy) {
+            if (!search.isEmpty()) result.and(matchName(search.toLowerCase(Locale.ROOT), fuzzy));
+            return this;
+        }
+
+        /**
+         * Keeps the items matching any of the provided types
+         */
+        public Query types(Collection<String> allowed) {
+            BitSet matches = new BitSet(items.length);
+            for (String type : allowed) matches.or(withType(type));
+
+            result.and(matches);
+            return this;
+        }
+
+        public Query tier(ItemProfile.ItemRarity tier) {
+            result.and(withTier(tier));
+            return this;
+        }
+
+        public Query level(int min, int max) {
+            result.and(withLevel(min, max));
+            return this;
+        }
+
+        public Query identification(int field, int min, int max) {
+            result.and(withIdentification(field, min, max));
+            return this;
+        }
+
+        public BitSet getMatches() {
+            return result;
+        }
+
+        public ArrayList<ItemProfile> collect(SortOrder order) {
+            return ItemSearchIndex.this.collect(result, order);
+        }
+
+        /**
+         * @return if the word was a valid filter
+         */
+        private boolean addFilter(String word) {
+            int separator = word.indexOf(':');
+            if (separator <= 0) return false;
+
+            String key = word.substring(0, separator).toLowerCase(Locale.ROOT);
+            String value = word.substring(separator + 1).toLowerCase(Locale.ROOT);
+            if (value.isEmpty()) return false;
+
+            switch (key) {
+                case "lv":
+                case "lvl":
+                case "level": {
+                    int[] range = parseRange(value);
+                    if (range == null) return false;
+
+                    level(range[0], range[1]);
+                    return true;
+                }
+                case "tier":
+                case "rarity":
+                    for (ItemProfile.ItemRarity tier : ItemProfile.ItemRarity.values()) {
+                        if (!tier.name().toLowerCase(Locale.ROOT).equals(value)) continue;
+
+                        tier(tier);
+                        return true;
+                    }
+                    return false;
+                case "type":
+                    if (!types.containsKey(value)) return false;
+
+                    result.and(types.get(value));
+                    return true;
+                case "has": {
+                    Integer field = fieldIndexes.get(value);
+                    if (field == null) return false;
+
+                    BitSet matches = withIdentification(field, Integer.MIN_VALUE, -1);
+                    matches.or(withIdentification(field, 1, Integer.MAX_VALUE));
+                    result.and(matches);
+                    return true;
+                }
+                default: {
+                    Integer field = fieldIndexes.get(key);
+                    int[] range = parseRange(value);
+                    if (field == null || range == null) return false;
+
+                    identification(field, range[0], range[1]);
+                    return true;
+                }
+            }
+        }
+
+    }
+
+    /**
+     * @return the min and max of the range, or null if it's not a valid range
+     */
+    private static int[] parseRange(String value) {
+        try {
+            Matcher m = RANGE.matcher(value);
+            if (m.matches()) return new int[] { Integer.parseInt(m.group(1)), Integer.parseInt(m.group(2)) };
+
+            m = AT_LEAST.matcher(value);
+            if (m.matches()) {
+                int min = Integer.parseInt(m.group(1) != null ? m.group(1) : m.group(2));
+                return new int[] { value.startsWith(">") && !value.startsWith(">=") ? min + 1 : min, Integer.MAX_VALUE };
+            }
+
+            m = AT_MOST.matcher(value);
+            if (m.matches()) {
+                int max = Integer.parseInt(m.group(1));
+                return new int[] { Integer.MIN_VALUE, value.startsWith("<=") ? max : max - 1 };
+            }
+
+            if (EXACT.matcher(value).matches()) {
+                int exact = Integer.parseInt(value);
+                return new int[] { exact, exact };
+            }
+        } catch (NumberFormatException ignored) { } // too big for an int
+
+        return null;
+    }
+
+    /**
+     * The ids of the items sorted by one of their values, so a range of values
+     * is found with two binary searches
+     */
+    private static class SortedValues {
+
+        private final int[] ids;
+        private final int[] values;
+
+        SortedValues(int size, IntUnaryOperator value) {
+            Integer[] sorted = new Integer[size];
+            for (int i = 0; i < size; i++) sorted[i] = i;
+            Arrays.sort(sorted, Comparator.comparingInt(value::applyAsInt));
+
+            ids = new int[size];
+            values = new int[size];
+            for (int i = 0; i < size; i++) {
+                ids[i] = sorted[i];
+                values[i] = value.applyAsInt(sorted[i]);
+            }
+        }
+
+        BitSet between(int min, int max) {
+            BitSet result = new BitSet(ids.length);
+            if (min > max) return result;
+
+            for (int i = lowerBound(min); i < ids.length && values[i] <= max; i++) result.set(ids[i]);
+            return result;
+        }
+
+        private int lowerBound(int value) {
+            int low = 0, high = values.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (values[middle] < value) low = middle + 1;
+                else high = middle;
+            }
+            return low;
+        }
+
+    }
+
+    private static class IntList {
+
+        private int[] values = new int[4];
+        private int size = 0;
+
+        void add(int value) {
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = value;
+        }
+
+        int last() {
+            return size == 0 ? -1 : values[size - 1];
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+
+    }
+
+}
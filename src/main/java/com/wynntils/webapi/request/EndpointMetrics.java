@@ -0,0 +1,87 @@
+/*
+ *  * Copyright © Wynntils - 2019.
+ */
+
+package com.wynntils.webapi.request;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Request counters of a single api endpoint
+ */
+public class EndpointMetrics {
+
+    String endpoint;
+
+    AtomicLong requests = new AtomicLong();
+    AtomicLong failures = new AtomicLong();
+    AtomicLong notModified = new AtomicLong();
+    AtomicLong coalesced = new AtomicLong();
+    AtomicLong totalNanos = new AtomicLong();
+    AtomicLong maxNanos = new AtomicLong();
+    AtomicLong wireBytes = new AtomicLong();
+    AtomicLong bodyBytes = new AtomicLong();
+
+    public EndpointMetrics(String endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    void recordRequest(long nanos, long wire, long body) {
+        requests.incrementAndGet();
+        totalNanos.addAndGet(nanos);
+        maxNanos.accumulateAndGet(nanos, Math::max);
+        wireBytes.addAndGet(wire);
+        bodyBytes.addAndGet(body);
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public long getRequests() {
+        return requests.get();
+    }
+
+    public long getFailures() {
+        return failures.get();
+    }
+
+    public long getNotModified() {
+        return notModified.get();
+    }
+
+    public long getCoalesced() {
+        return coalesced.get();
+    }
+
+    public long getAverageMillis() {
+        long count = requests.get();
+        return count == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalNanos.get() / count);
+    }
+
+    public long getMaxMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(maxNanos.get());
+    }
+
+    /**
+     * @return the amount of bytes received, before decompression
+     */
+    public long getWireBytes() {
+        return wireBytes.get();
+    }
+
+    /**
+     * @return the amount of bytes received, after decompression
+     */
+    public long getBodyBytes() {
+        return bodyBytes.get();
+    }
+
+    @Override
+    public String toString() {
+        return endpoint + ": " + getRequests() + " requests (" + getFailures() + " failed, " + getNotModified() + " not modified, " + getCoalesced() + " coalesced), "
+                + getAverageMillis() + "ms avg, " + getMaxMillis() + "ms max, " + getWireBytes() + " bytes received (" + getBodyBytes() + " decoded)";
+    }
+
+}
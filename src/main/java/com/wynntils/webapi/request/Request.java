@@ -0,0 +1,89 @@
+/*
+ *  * Copyright © Wynntils - 2019.
+ */
+
+package com.wynntils.webapi.request;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+
+/**
+ * A request made through the {@link RequestHandler}
+ */
+public class Request {
+
+    String endpoint, url;
+    String cacheFile = null;
+    String contentType = null;
+    int timeout = RequestHandler.REQUEST_TIMEOUT_MILLIS;
+
+    String method = "GET";
+    String bodyType = null;
+    byte[] body = null;
+    LinkedHashMap<String, String> headers = new LinkedHashMap<>();
+
+    Request(String endpoint, String url) {
+        this.endpoint = endpoint; this.url = url;
+    }
+
+    /**
+     * Stores successful results at the api cache and revalidates them with conditional requests
+     *
+     * @param fileName the cache file name
+     * @return this request
+     */
+    public Request cacheTo(String fileName) {
+        this.cacheFile = fileName;
+        return this;
+    }
+
+    /**
+     * Results with a different content type are not considered ok and are never cached
+     *
+     * @param contentType the required content type, eg. application/json
+     * @return this request
+     */
+    public Request requireContentType(String contentType) {
+        this.contentType = contentType;
+        return this;
+    }
+
+    /**
+     * @param name the header name, replaces the default one if it's already set
+     * @param value the header value
+     * @return this request
+     */
+    public Request header(String name, String value) {
+        headers.put(name, value);
+        return this;
+    }
+
+    public Request timeout(int millis) {
+        this.timeout = millis;
+        return this;
+    }
+
+    /**
+     * Executes the request, joining an identical request if one is already running
+     *
+     * @return the response
+     * @throws IOException if every attempt failed
+     */
+    public Response execute() throws IOException {
+        return RequestHandler.execute(this);
+    }
+
+    Request body(String method, String contentType, byte[] body) {
+        this.method = method; this.bodyType = contentType; this.body = body;
+        return this;
+    }
+
+    /**
+     * @return the key identical requests share, null if the request can't be coalesced
+     */
+    String getKey() {
+        if (body != null) return null;
+        return url + "|" + cacheFile + "|" + contentType;
+    }
+
+}
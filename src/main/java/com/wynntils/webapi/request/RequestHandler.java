@@ -0,0 +1,248 @@
+/*
+ *  * Copyright © Wynntils - 2019.
+ */
+
+package com.wynntils.webapi.request;
+
+import com.google.common.io.CountingInputStream;
+import com.wynntils.Reference;
+import com.wynntils.webapi.cache.ApiCache;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Every web api request goes through here, connections are kept alive between requests,
+ * responses are compressed, identical in-flight requests are coalesced and failed attempts are retried
+ */
+public class RequestHandler {
+
+    static final int REQUEST_TIMEOUT_MILLIS = 16000;
+    static final long REQUEST_DEADLINE_MILLIS = 30000; // every attempt of a request, under the ApiLoader stage wait
+
+    private static final String USER_AGENT = "Mozilla/5.0 (Macintosh; U; Intel Mac OS X 10.4; en-US; rv:1.9.2.2) Gecko/20100316 Firefox/3.6.2";
+    private static final int MAX_ATTEMPTS = 3;
+    private static final long RETRY_BACKOFF_MILLIS = 500;
+
+    private static final ConcurrentHashMap<String, CompletableFuture<Response>> inFlight = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, EndpointMetrics> metrics = new ConcurrentHashMap<>();
+
+    static {
+        System.setProperty("http.keepAlive", "true"); // the JVM default, but some launchers disable it
+    }
+
+    /**
+     * Creates a GET request
+     *
+     * @param endpoint the endpoint name, used to group the request metrics
+     * @param url the request url
+     * @return the request
+     */
+    public static Request get(String endpoint, String url) {
+        return new Request(endpoint, url);
+    }
+
+    /**
+     * Creates a POST request, those are never coalesced
+     *
+     * @param endpoint the endpoint name, used to group the request metrics
+     * @param url the request url
+     * @param contentType the body content type, eg. application/json
+     * @param body the request body
+     * @return the request
+     */
+    public static Request post(String endpoint, String url, String contentType, byte[] body) {
+        return new Request(endpoint, url).body("POST", contentType, body);
+    }
+
+    /**
+     * @return the metrics of every endpoint requested so far
+     */
+    public static Collection<EndpointMetrics> getMetrics() {
+        return new ArrayList<>(metrics.values());
+    }
+
+    static Response execute(Request request) throws IOException {
+        EndpointMetrics endpoint = metrics.computeIfAbsent(request.endpoint, EndpointMetrics::new);
+        if (request.getKey() == null) return executeWithRetries(request, endpoint);
+
+        CompletableFuture<Response> future = new CompletableFuture<>();
+        CompletableFuture<Response> running = inFlight.putIfAbsent(request.getKey(), future);
+        if (running != null) {
+            endpoint.coalesced.incrementAndGet();
+            return await(running);
+        }
+
+        try {
+            Response response = executeWithRetries(request, endpoint);
+            future.complete(response);
+            return response;
+        } catch (IOException | RuntimeException ex) {
+            future.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(request.getKey(), future);
+        }
+    }
+
+    private static Response await(CompletableFuture<Response> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for request", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof IOException) throw (IOException) ex.getCause();
+            throw new IOException(ex.getCause());
+        }
+    }
+
+    /**
+     * Only failed connections and server errors are retried, a request that timed out while reading
+     * would most likely time out again. Every attempt has to fit in {@link #REQUEST_DEADLINE_MILLIS}.
+     */
+    private static Response executeWithRetries(Request request, EndpointMetrics endpoint) throws IOException {
+        long deadline = System.currentTimeMillis() + REQUEST_DEADLINE_MILLIS;
+        for (int attempt = 1; ; attempt++) {
+            long backoff = RETRY_BACKOFF_MILLIS << (attempt - 1);
+            try {
+                Response response = connect(request, endpoint, deadline, true);
+                if (response.getCode() < 500) return response;
+
+                endpoint.failures.incrementAndGet();
+                if (!canRetry(attempt, backoff, deadline)) return response;
+            } catch (ConnectFailure ex) {
+                endpoint.failures.incrementAndGet();
+                if (!canRetry(attempt, backoff, deadline)) throw ex.getCause();
+
+                Reference.LOGGER.warn("Request to " + request.endpoint + " failed to connect (" + ex.getCause().getMessage() + "), retrying");
+            } catch (IOException ex) {
+                endpoint.failures.incrementAndGet();
+                throw ex;
+            }
+
+            try {
+                Thread.sleep(backoff);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while retrying request", ex);
+            }
+        }
+    }
+
+    private static boolean canRetry(int attempt, long backoff, long deadline) {
+        return attempt < MAX_ATTEMPTS && System.currentTimeMillis() + backoff < deadline;
+    }
+
+    /**
+     * @param revalidate if the cached result can be revalidated, instead of always downloading it again
+     */
+    private static Response connect(Request request, EndpointMetrics endpoint, long deadline, boolean revalidate) throws IOException {
+        long start = System.nanoTime();
+        int timeout = (int) Math.max(1, Math.min(request.timeout, deadline - System.currentTimeMillis()));
+
+        HttpURLConnection st = (HttpURLConnection) new URL(request.url).openConnection();
+        st.setRequestMethod(request.method);
+        st.setRequestProperty("User-Agent", USER_AGENT);
+        st.setRequestProperty("Accept-Encoding", "gzip, deflate");
+        request.headers.forEach(st::setRequestProperty);
+        st.setConnectTimeout(timeout);
+        st.setReadTimeout(timeout);
+        boolean conditional = revalidate && request.cacheFile != null && ApiCache.applyValidators(st, request.cacheFile);
+
+        if (request.body != null) {
+            st.setDoOutput(true);
+            st.setRequestProperty("Content-Type", request.bodyType);
+            st.setFixedLengthStreamingMode(request.body.length);
+        }
+
+        try {
+            st.connect();
+        } catch (IOException ex) {
+            throw new ConnectFailure(ex);
+        }
+
+        if (request.body != null) {
+            try (OutputStream output = st.getOutputStream()) {
+                output.write(request.body);
+            }
+        }
+
+        int code = st.getResponseCode();
+        String contentType = st.getContentType();
+        boolean contentTypeMatches = request.contentType == null || (contentType != null && contentType.contains(request.contentType));
+
+        if (conditional && code == HttpURLConnection.HTTP_NOT_MODIFIED) {
+            endpoint.recordRequest(System.nanoTime() - start, 0, 0);
+            if (ApiCache.isNotModified(st, request.cacheFile)) {
+                endpoint.notModified.incrementAndGet();
+                return new Response(code, contentType, true, true, null, ApiCache.getFile(request.cacheFile));
+            }
+
+            // the cache file was deleted after the request was made, so there's nothing to reuse
+            st.disconnect();
+            return connect(request, endpoint, deadline, false);
+        }
+
+        // the body is always fully read, otherwise the connection can't be reused
+        InputStream raw = code >= 400 ? st.getErrorStream() : st.getInputStream();
+        if (raw == null) {
+            endpoint.recordRequest(System.nanoTime() - start, 0, 0);
+            return new Response(code, contentType, contentTypeMatches, false, new byte[0], null);
+        }
+
+        CountingInputStream wire = new CountingInputStream(raw);
+        CountingInputStream body = new CountingInputStream(decode(wire, st.getContentEncoding()));
+        try {
+            if (request.cacheFile != null && code == HttpURLConnection.HTTP_OK && contentTypeMatches) {
+                ApiCache.store(st, body, request.cacheFile).close();
+                return new Response(code, contentType, true, false, null, ApiCache.getFile(request.cacheFile));
+            }
+
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = body.read(buffer)) != -1) output.write(buffer, 0, read);
+            return new Response(code, contentType, contentTypeMatches, false, output.toByteArray(), null);
+        } finally {
+            body.close();
+            endpoint.recordRequest(System.nanoTime() - start, wire.getCount(), body.getCount());
+        }
+    }
+
+    /**
+     * The request never reached the server, so it's safe to retry
+     */
+    private static class ConnectFailure extends IOException {
+
+        ConnectFailure(IOException cause) {
+            super(cause);
+        }
+
+        @Override
+        public synchronized IOException getCause() {
+            return (IOException) super.getCause();
+        }
+
+    }
+
+    private static InputStream decode(InputStream stream, String encoding) throws IOException {
+        if (encoding == null) return stream;
+        if (encoding.equalsIgnoreCase("gzip")) return new GZIPInputStream(stream);
+        if (encoding.equalsIgnoreCase("deflate")) return new InflaterInputStream(stream);
+        return stream;
+    }
+
+}
@@ -0,0 +1,84 @@
+/*
+ *  * Copyright © Wynntils - 2019.
+ */
+
+package com.wynntils.webapi.request;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The result of a {@link Request}, can be read more than once since it
+ * may be shared between coalesced requests
+ */
+public class Response {
+
+    int code;
+    String contentType;
+    boolean contentTypeMatches;
+    boolean notModified;
+
+    byte[] body;
+    File file;
+
+    Response(int code, String contentType, boolean contentTypeMatches, boolean notModified, byte[] body, File file) {
+        this.code = code; this.contentType = contentType; this.contentTypeMatches = contentTypeMatches; this.notModified = notModified; this.body = body; this.file = file;
+    }
+
+    public int getCode() {
+        return code;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * @return if the request succeeded and returned the required content type
+     */
+    public boolean isOk() {
+        return code >= 200 && code < 300 && contentTypeMatches;
+    }
+
+    /**
+     * @return if the server answered that the cached result is still up to date
+     */
+    public boolean isNotModified() {
+        return notModified;
+    }
+
+    /**
+     * Opens a new stream over the response body, or the cached file if the request was cached
+     *
+     * @return the response body
+     * @throws IOException if the server answered with an error
+     */
+    public InputStream getStream() throws IOException {
+        if (code >= 400) throw new IOException("Server returned HTTP response code: " + code);
+        if (file != null) return new FileInputStream(file);
+
+        return new ByteArrayInputStream(body == null ? new byte[0] : body);
+    }
+
+    public String getString() throws IOException {
+        if (file == null && code < 400) return new String(body == null ? new byte[0] : body, StandardCharsets.UTF_8);
+
+        try (InputStream stream = getStream()) {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = stream.read(buffer)) != -1) output.write(buffer, 0, read);
+            return new String(output.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+
+    public JsonElement getJson() throws IOException {
+        try (Reader reader = new BufferedReader(new InputStreamReader(getStream(), StandardCharsets.UTF_8))) {
+            return new JsonParser().parse(reader);
+        }
+    }
+
+}
@@ -0,0 +1,114 @@
+/*
+ *  * Copyright © Wynntils - 2019.
+ */
+
+package com.wynntils.modules.chat.managers;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class WynnicTranscoderTest {
+
+    private static String decodeAll(String wynnic) {
+        StringBuilder english = new StringBuilder();
+        for (int i = 0; i < wynnic.length(); i++) {
+            char c = wynnic.charAt(i);
+            english.append(WynnicTranscoder.isWynnic(c) ? WynnicTranscoder.decode(c) : String.valueOf(c));
+        }
+        return english.toString();
+    }
+
+    @Test
+    public void roundTripsLettersNumbersAndPunctuation() {
+        String english = "the quick brown fox jumps over 123456789 lazy dogs. really! why?";
+        String wynnic = WynnicTranscoder.encode("{" + english + "}");
+
+        assertEquals(english.length(), wynnic.length());
+        assertEquals(english, decodeAll(wynnic));
+    }
+
+    @Test
+    public void encodesEveryTranslatableCharacterToWynnic() {
+        for (char c = 0; c < 128; c++) {
+            if (!WynnicTranscoder.isTranslatable(c)) continue;
+
+            String wynnic = WynnicTranscoder.encode("{" + c + "}");
+            assertEquals(1, wynnic.length());
+            assertTrue("not wynnic: " + c, WynnicTranscoder.isWynnic(wynnic.charAt(0)));
+            assertEquals(String.valueOf(Character.toLowerCase(c)), WynnicTranscoder.decode(wynnic.charAt(0)));
+        }
+    }
+
+    @Test
+    public void uppercaseEncodesLikeLowercase() {
+        assertEquals(WynnicTranscoder.encode("{hello}"), WynnicTranscoder.encode("{HeLLo}"));
+        assertEquals("hello", decodeAll(WynnicTranscoder.encode("{HELLO}")));
+    }
+
+    @Test
+    public void keepsUntranslatableCharacters() {
+        assertFalse(WynnicTranscoder.isTranslatable('0'));
+        assertFalse(WynnicTranscoder.isTranslatable(','));
+        assertFalse(WynnicTranscoder.isTranslatable('é'));
+
+        String wynnic = WynnicTranscoder.encode("{a, 0 b}");
+        assertEquals("⒜, 0 ⒝", wynnic);
+    }
+
+    @Test
+    public void onlyTranslatesBetweenBraces() {
+        assertEquals("plain text.", WynnicTranscoder.encode("plain text."));
+        assertEquals("hi ⒜!", WynnicTranscoder.encode("hi {a}!"));
+        assertEquals("⒜ b ⒞", WynnicTranscoder.encode("{a} b {c}"));
+        assertEquals("x⒜⒝", WynnicTranscoder.encode("x{ab"));
+        assertEquals("a}b", WynnicTranscoder.encode("a}b{"));
+        assertEquals("", WynnicTranscoder.encode("{}"));
+    }
+
+    @Test
+    public void decodesTheMultiDigitNumbers() {
+        assertEquals("1", WynnicTranscoder.decode('⑴'));
+        assertEquals("9", WynnicTranscoder.decode('⑼'));
+        assertEquals("10", WynnicTranscoder.decode('⑽'));
+        assertEquals("50", WynnicTranscoder.decode('⑾'));
+        assertEquals("100", WynnicTranscoder.decode('⑿'));
+    }
+
+    @Test
+    public void isWynnicMatchesTheRangeBoundaries() {
+        assertFalse(WynnicTranscoder.isWynnic('⑳'));
+        assertTrue(WynnicTranscoder.isWynnic('⑴'));
+        assertTrue(WynnicTranscoder.isWynnic('⑿'));
+        assertFalse(WynnicTranscoder.isWynnic('⒀'));
+        assertFalse(WynnicTranscoder.isWynnic('⒛'));
+        assertTrue(WynnicTranscoder.isWynnic('⒜'));
+        assertTrue(WynnicTranscoder.isWynnic('⒵'));
+        assertFalse(WynnicTranscoder.isWynnic('Ⓐ'));
+        assertFalse(WynnicTranscoder.isWynnic('／'));
+        assertTrue(WynnicTranscoder.isWynnic('０'));
+        assertTrue(WynnicTranscoder.isWynnic('２'));
+        assertFalse(WynnicTranscoder.isWynnic('３'));
+        assertFalse(WynnicTranscoder.isWynnic('a'));
+    }
+
+    @Test
+    public void decodeIgnoresCharactersOutsideTheTables() {
+        assertEquals("", WynnicTranscoder.decode('a'));
+        assertEquals("", WynnicTranscoder.decode('⑳'));
+        assertEquals("", WynnicTranscoder.decode('⒐'));
+        assertEquals("", WynnicTranscoder.decode('３'));
+        assertEquals(".", WynnicTranscoder.decode('０'));
+        assertEquals("?", WynnicTranscoder.decode('２'));
+    }
+
+    @Test
+    public void hasWynnicFindsAnyWynnicCharacter() {
+        assertFalse(WynnicTranscoder.hasWynnic(""));
+        assertFalse(WynnicTranscoder.hasWynnic("no wynnic here 10"));
+        assertTrue(WynnicTranscoder.hasWynnic("end " + WynnicTranscoder.encode("{z}")));
+    }
+
+}
@@ -0,0 +1,120 @@
+/*
+ *  * Copyright © Wynntils - 2019.
+ */
+
+package com.wynntils.modules.core.instances;
+
+import com.wynntils.core.events.custom.PacketEvent;
+import com.wynntils.core.utils.ReflectionFields;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import net.minecraft.network.EnumConnectionState;
+import net.minecraft.network.EnumPacketDirection;
+import net.minecraft.network.Packet;
+import net.minecraft.network.PacketBuffer;
+import net.minecraft.network.play.server.SPacketChat;
+import net.minecraft.network.play.server.SPacketEntityVelocity;
+import net.minecraft.network.play.server.SPacketTitle;
+import net.minecraft.util.text.ChatType;
+import net.minecraft.util.text.TextComponentString;
+import net.minecraftforge.client.event.ClientChatReceivedEvent;
+import net.minecraftforge.fml.common.eventhandler.EventBus;
+import net.minecraftforge.fml.common.eventhandler.EventPriority;
+import net.minecraftforge.fml.common.eventhandler.IEventListener;
+import net.minecraftforge.fml.common.eventhandler.ListenerList;
+import org.junit.Test;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.assertEquals;
+
+public class PacketReplayTest {
+
+    private static final int UNKNOWN_ID = 0x7F;
+
+    private static void writeRecord(DataOutputStream out, int delay, int id, byte[] data) throws IOException {
+        PacketRecorder.writeVarInt(out, delay);
+        PacketRecorder.writeVarInt(out, id);
+        PacketRecorder.writeVarInt(out, data.length);
+        out.write(data);
+    }
+
+    private static void writePacket(DataOutputStream out, int delay, Packet<?> packet) throws IOException {
+        ByteBuf buffer = Unpooled.buffer();
+        packet.writePacketData(new PacketBuffer(buffer));
+
+        byte[] data = new byte[buffer.readableBytes()];
+        buffer.readBytes(data);
+        buffer.release();
+
+        writeRecord(out, delay, EnumConnectionState.PLAY.getPacketId(EnumPacketDirection.CLIENTBOUND, packet), data);
+    }
+
+    private static byte[] capture() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(bytes))) {
+            out.writeInt(PacketRecorder.MAGIC);
+            out.writeByte(PacketRecorder.VERSION);
+            out.writeLong(System.currentTimeMillis());
+            out.writeUTF("WC1");
+
+            writePacket(out, 0, new SPacketChat(new TextComponentString("hello")));
+            writePacket(out, 10, new SPacketTitle(SPacketTitle.Type.TITLE, new TextComponentString("Title")));
+            writePacket(out, 20, new SPacketEntityVelocity(1, 0.1, 0.2, 0.3));
+            writeRecord(out, 30, UNKNOWN_ID, new byte[] { 1, 2, 3 });
+            writePacket(out, 40, new SPacketChat(new TextComponentString("hidden")));
+        }
+        return bytes.toByteArray();
+    }
+
+    @Test
+    public void replaysTheRoutesAgainstTheGivenBus() throws IOException {
+        EventBus bus = new EventBus();
+        int busID = (int) ReflectionFields.EventBus_busID.getValue(bus);
+
+        List<String> chat = new ArrayList<>();
+        List<String> titles = new ArrayList<>();
+        IEventListener listener = event -> {
+            if (event instanceof ClientChatReceivedEvent) {
+                ClientChatReceivedEvent chatEvent = (ClientChatReceivedEvent) event;
+                chat.add(chatEvent.getMessage().getUnformattedText());
+                if (chatEvent.getMessage().getUnformattedText().equals("hidden")) event.setCanceled(true);
+            } else if (event instanceof PacketEvent.TitleEvent) {
+                titles.add(((PacketEvent.TitleEvent) event).getPacket().getMessage().getUnformattedText());
+            }
+        };
+
+        ListenerList chatListeners = new ClientChatReceivedEvent(ChatType.CHAT, new TextComponentString("")).getListenerList();
+        ListenerList titleListeners = new PacketEvent.TitleEvent(null, null).getListenerList();
+        chatListeners.register(busID, EventPriority.NORMAL, listener);
+        if (titleListeners != chatListeners) titleListeners.register(busID, EventPriority.NORMAL, listener);
+
+        PacketReplay.Result result = PacketReplay.replay(new ByteArrayInputStream(capture()), bus);
+
+        assertEquals("WC1", result.getWorld());
+        assertEquals(2, result.getChatLines());
+        assertEquals(1, result.getPackets());
+        assertEquals(1, result.getSkipped()); // the vehicle velocity depends on the local player
+        assertEquals(1, result.getFailed());
+        assertEquals(1, result.getCanceled());
+        assertEquals(100, result.getRecordedMillis());
+
+        assertEquals(Arrays.asList("hello", "hidden"), chat);
+        assertEquals(Arrays.asList("Title"), titles);
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsOtherFiles() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(bytes))) {
+            out.writeInt(0x12345678);
+        }
+
+        PacketReplay.replay(new ByteArrayInputStream(bytes.toByteArray()), new EventBus());
+    }
+
+}
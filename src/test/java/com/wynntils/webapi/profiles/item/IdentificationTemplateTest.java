@@ -0,0 +1,84 @@
+/*
+ *  * Copyright © Wynntils - 2019.
+ */
+
+package com.wynntils.webapi.profiles.item;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class IdentificationTemplateTest {
+
+    /**
+     * The chances as they were calculated before the template, trying every roll percentage
+     */
+    private static float[] linearChances(int baseValue, int amount) {
+        int from = amount < 0 ? 70 : 30;
+        int to = 130;
+        float percentages = (to - from + 1) / 100f;
+
+        int best = amount < 0
+                ? (int) Math.min(Math.round(baseValue * 0.7d), -1)
+                : (int) Math.max(Math.round(baseValue * 1.3d), 1);
+
+        float down = 0, up = 0, bestRolls = 0;
+        for (double j = from; j <= to; j++) {
+            long roll = Math.round(baseValue * (j / 100));
+            if (roll < amount) down++;
+            else if (roll > amount) up++;
+            if (roll == best) bestRolls++;
+        }
+        return new float[] { down / percentages, up / percentages, bestRolls / percentages };
+    }
+
+    private static void assertSameChances(int baseValue, int amount) {
+        IdentificationTemplate.Stat stat = new IdentificationTemplate.Stat("test", 0, baseValue);
+
+        float[] expected = linearChances(baseValue, amount);
+        float[] actual = stat.getChances(amount);
+        String message = "base " + baseValue + " amount " + amount;
+        assertEquals(message + " down", expected[0], actual[0], 0f);
+        assertEquals(message + " up", expected[1], actual[1], 0f);
+        assertEquals(message + " best", expected[2], actual[2], 0f);
+    }
+
+    @Test
+    public void matchesTheLinearLoopAtEveryTierBoundary() {
+        for (int baseValue = -400; baseValue <= 400; baseValue++) {
+            // every amount a roll can give, and one past each end of both roll ranges
+            long low = Math.min(Math.round(baseValue * 0.3d), Math.round(baseValue * 1.3d));
+            long high = Math.max(Math.round(baseValue * 0.3d), Math.round(baseValue * 1.3d));
+            for (long amount = low - 1; amount <= high + 1; amount++) {
+                assertSameChances(baseValue, (int) amount);
+            }
+        }
+    }
+
+    @Test
+    public void matchesTheLinearLoopAtTheClampedRolls() {
+        int[] baseValues = { 1, 2, 3, -1, -2, -3, 0 };
+        for (int baseValue : baseValues) {
+            for (int amount = -3; amount <= 3; amount++) {
+                assertSameChances(baseValue, amount);
+            }
+        }
+    }
+
+    @Test
+    public void matchesTheLinearLoopForLargeValues() {
+        int[] baseValues = { 12345, -12345, 99999, -99999, 1000000 };
+        for (int baseValue : baseValues) {
+            IdentificationTemplate.Stat stat = new IdentificationTemplate.Stat("test", 0, baseValue);
+            for (int percentage = 29; percentage <= 131; percentage++) {
+                int amount = (int) Math.round(baseValue * (percentage / 100d));
+                assertSameChances(baseValue, amount);
+                assertSameChances(baseValue, amount + 1);
+                assertSameChances(baseValue, amount - 1);
+            }
+            assertSameChances(baseValue, stat.getMin(baseValue));
+            assertSameChances(baseValue, stat.getMax(baseValue));
+        }
+    }
+
+}